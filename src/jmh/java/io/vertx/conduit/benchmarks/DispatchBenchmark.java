@@ -0,0 +1,109 @@
+package io.vertx.conduit.benchmarks;
+
+import io.vertx.conduit.UserDAV;
+import io.vertx.conduit.messaging.ConduitAction;
+import io.vertx.conduit.messaging.ConduitMessage;
+import io.vertx.conduit.messaging.ConduitMessageCodec;
+import io.vertx.conduit.messaging.ConduitReply;
+import io.vertx.conduit.users.ArticleDAV;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.MongoClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A request through the event bus to UserDAV or ArticleDAV and back, with a MongoClient that answers at once: the
+ * cost of the envelopes, the dispatch on the action and building the reply.
+ *
+ * The user lookup and the slug lookup are answered from the caches after the first call, the _id lookup always goes
+ * through the stub.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchBenchmark {
+
+    private Vertx vertx;
+
+    @Setup
+    public void setUp() throws Exception {
+        vertx = Vertx.vertx();
+        ConduitMessageCodec.register(vertx);
+        DeploymentOptions options = new DeploymentOptions().setConfig(new JsonObject());
+
+        CompletableFuture<String> users = new CompletableFuture<>();
+        vertx.deployVerticle(new StubbedUserDAV(), options, ar -> complete(users, ar.succeeded() ? ar.result() : null, ar.cause()));
+        CompletableFuture<String> articles = new CompletableFuture<>();
+        vertx.deployVerticle(new StubbedArticleDAV(), options, ar -> complete(articles, ar.succeeded() ? ar.result() : null, ar.cause()));
+        CompletableFuture.allOf(users, articles).get(30, TimeUnit.SECONDS);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        CompletableFuture<Void> closed = new CompletableFuture<>();
+        vertx.close(ar -> closed.complete(null));
+        closed.get(30, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public ConduitReply userLookupByEmail() {
+        return send(UserDAV.MESSAGE_ADDRESS, new ConduitMessage(ConduitAction.LOOKUP_USER_BY_EMAIL).setValue("jake@jake.jake"));
+    }
+
+    @Benchmark
+    public ConduitReply articleLookupBySlug() {
+        return send(ArticleDAV.MESSAGE_ARTICLES, new ConduitMessage(ConduitAction.LOOKUP_BY_FIELD)
+                .setField("slug").setValue("how-to-train-your-dragon"));
+    }
+
+    @Benchmark
+    public ConduitReply articleLookupById() {
+        return send(ArticleDAV.MESSAGE_ARTICLES, new ConduitMessage(ConduitAction.LOOKUP_BY_FIELD)
+                .setField("_id").setValue(Fixtures.ARTICLE_ID));
+    }
+
+    private ConduitReply send(String address, ConduitMessage message) {
+        CompletableFuture<ConduitReply> reply = new CompletableFuture<>();
+        vertx.eventBus().<ConduitReply>send(address, message, ar -> complete(reply, ar.succeeded() ? ar.result().body() : null, ar.cause()));
+        return reply.join();
+    }
+
+    private static <T> void complete(CompletableFuture<T> future, T value, Throwable cause) {
+        if (cause == null) {
+            future.complete(value);
+        } else {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    public static class StubbedUserDAV extends UserDAV {
+
+        @Override
+        protected MongoClient createMongoClient() {
+            return StubMongoClient.create(vertx);
+        }
+    }
+
+    public static class StubbedArticleDAV extends ArticleDAV {
+
+        @Override
+        protected MongoClient createMongoClient() {
+            return StubMongoClient.create(vertx);
+        }
+    }
+}
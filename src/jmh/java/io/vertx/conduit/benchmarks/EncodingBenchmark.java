@@ -0,0 +1,73 @@
+package io.vertx.conduit.benchmarks;
+
+import io.vertx.conduit.Article;
+import io.vertx.conduit.JsonResponseWriter;
+import io.vertx.conduit.users.models.User;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ways a response body can be encoded: pretty or compact Strings through Json, and the buffers written by
+ * JsonResponseWriter
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class EncodingBenchmark {
+
+    @Param({"profile", "article"})
+    public String payload;
+
+    private JsonObject json;
+
+    private JsonResponseWriter writer;
+
+    @Setup
+    public void setUp() {
+        User user = new User(Fixtures.user());
+        if ("profile".equals(payload)) {
+            json = user.toProfileJson();
+            writer = new JsonResponseWriter(192);
+        } else {
+            Article article = new Article(Fixtures.article(2000));
+            article.setAuthor(user);
+            json = article.toConduitJson();
+            writer = new JsonResponseWriter(1024);
+        }
+    }
+
+    @Benchmark
+    public String encodePrettily() {
+        return Json.encodePrettily(json);
+    }
+
+    @Benchmark
+    public String encode() {
+        return Json.encode(json);
+    }
+
+    @Benchmark
+    public Buffer encodeToBuffer() {
+        return json.toBuffer();
+    }
+
+    @Benchmark
+    public Buffer responseWriter() {
+        return writer.encode(json, false);
+    }
+}
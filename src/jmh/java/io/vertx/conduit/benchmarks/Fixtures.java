@@ -0,0 +1,52 @@
+package io.vertx.conduit.benchmarks;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Documents shaped like the ones the DAVs read from Mongo, shared by the benchmarks and the stubbed MongoClient
+ */
+final class Fixtures {
+
+    static final String USER_ID = "5bc7a2f4e4b0c2a1d3f0a001";
+
+    static final String ARTICLE_ID = "5bc7a2f4e4b0c2a1d3f0b001";
+
+    private Fixtures() {
+    }
+
+    static JsonObject user() {
+        return new JsonObject()
+                .put("_id", USER_ID)
+                .put("email", "jake@jake.jake")
+                .put("username", "Jacob")
+                .put("bio", "I work at state farm")
+                .put("image", "https://static.productionready.io/images/smiley-cyrus.jpg")
+                .put("following", new JsonArray().add("5bc7a2f4e4b0c2a1d3f0a002").add("5bc7a2f4e4b0c2a1d3f0a003"))
+                .put("followersCount", 12)
+                .put("followingCount", 2);
+    }
+
+    /**
+     * @param bodySize number of characters of the body
+     */
+    static JsonObject article(int bodySize) {
+        StringBuilder body = new StringBuilder(bodySize);
+        while (body.length() < bodySize) {
+            body.append("Lorem ipsum dolor sit amet, consectetur adipiscing elit. ");
+        }
+        body.setLength(bodySize);
+        return new JsonObject()
+                .put("_id", ARTICLE_ID)
+                .put("slug", "how-to-train-your-dragon")
+                .put("title", "How to train your dragon")
+                .put("description", "Ever wonder how?")
+                .put("body", body.toString())
+                .put("tagList", new JsonArray().add("dragons").add("training"))
+                .put("createdAt", 1539735403000L)
+                .put("updatedAt", 1539735403000L)
+                .put("favorited", false)
+                .put("favoritesCount", 3)
+                .put("author", USER_ID);
+    }
+}
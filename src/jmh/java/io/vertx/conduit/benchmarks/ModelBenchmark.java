@@ -0,0 +1,96 @@
+package io.vertx.conduit.benchmarks;
+
+import io.vertx.conduit.Article;
+import io.vertx.conduit.users.models.User;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the domain models from stored documents and rendering them, the work every request does at least once
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelBenchmark {
+
+    @Param({"200", "4000"})
+    public int bodySize;
+
+    private JsonObject userDocument;
+
+    private JsonObject articleDocument;
+
+    private User user;
+
+    private User viewer;
+
+    private Article article;
+
+    @Setup
+    public void setUp() {
+        userDocument = Fixtures.user();
+        articleDocument = Fixtures.article(bodySize);
+        user = new User(userDocument);
+        viewer = new User(Fixtures.user().put("_id", "5bc7a2f4e4b0c2a1d3f0a002"));
+        article = new Article(articleDocument);
+        article.setAuthor(user);
+    }
+
+    @Benchmark
+    public User userFromJson() {
+        return new User(userDocument);
+    }
+
+    @Benchmark
+    public JsonObject userToJson() {
+        return user.toJson();
+    }
+
+    @Benchmark
+    public JsonObject userToMongoJson() {
+        return user.toMongoJson();
+    }
+
+    @Benchmark
+    public JsonObject userToProfileJson() {
+        return user.toProfileJson();
+    }
+
+    @Benchmark
+    public JsonObject userToProfileJsonForViewer() {
+        return user.toProfileJson(viewer);
+    }
+
+    @Benchmark
+    public Article articleFromJson() {
+        return new Article(articleDocument);
+    }
+
+    @Benchmark
+    public JsonObject articleToJson() {
+        return article.toJson();
+    }
+
+    @Benchmark
+    public JsonObject articleToConduitJson() {
+        return article.toConduitJson();
+    }
+
+    @Benchmark
+    public JsonObject articleToMongoJson() {
+        return article.toMongoJson();
+    }
+}
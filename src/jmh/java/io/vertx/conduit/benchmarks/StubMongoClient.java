@@ -0,0 +1,127 @@
+package io.vertx.conduit.benchmarks;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.MongoClientBulkWriteResult;
+import io.vertx.ext.mongo.MongoClientDeleteResult;
+import io.vertx.ext.mongo.MongoClientUpdateResult;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+
+/**
+ * A MongoClient that answers every call at once with a canned result, so that the benchmarks measure the DAVs and
+ * not the database.  Reads find the fixture of their collection, writes report one document and streams are empty.
+ */
+final class StubMongoClient {
+
+    private StubMongoClient() {
+    }
+
+    static MongoClient create(Vertx vertx) {
+        return (MongoClient) Proxy.newProxyInstance(MongoClient.class.getClassLoader(), new Class<?>[]{MongoClient.class},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.invoke(new Object(), args);
+                    }
+                    if (ReadStream.class.equals(method.getReturnType())) {
+                        return new EmptyStream(vertx);
+                    }
+                    Handler<AsyncResult<Object>> handler = handler(args);
+                    if (handler != null) {
+                        handler.handle(Future.succeededFuture(result(method, (String) args[0])));
+                    }
+                    return MongoClient.class.equals(method.getReturnType()) ? proxy : null;
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Handler<AsyncResult<Object>> handler(Object[] args) {
+        if (args != null && args.length > 0 && args[args.length - 1] instanceof Handler) {
+            return (Handler<AsyncResult<Object>>) args[args.length - 1];
+        }
+        return null;
+    }
+
+    private static Object result(Method method, String collection) {
+        String name = method.getName();
+        if (name.startsWith("findOne")) {
+            return document(collection);
+        }
+        if (name.startsWith("find")) {
+            return Collections.singletonList(document(collection));
+        }
+        if (name.startsWith("count")) {
+            return 1L;
+        }
+        if (name.startsWith("insert") || name.startsWith("save")) {
+            return Fixtures.ARTICLE_ID;
+        }
+        if (name.startsWith("update") || name.startsWith("replace")) {
+            return new MongoClientUpdateResult(1, null, 1);
+        }
+        if (name.startsWith("remove")) {
+            return new MongoClientDeleteResult(1);
+        }
+        if (name.startsWith("bulkWrite")) {
+            return new MongoClientBulkWriteResult();
+        }
+        if (name.startsWith("distinct") || name.startsWith("listIndexes")) {
+            return new JsonArray();
+        }
+        if (name.startsWith("runCommand")) {
+            return new JsonObject();
+        }
+        return null;
+    }
+
+    private static JsonObject document(String collection) {
+        return "user".equals(collection) ? Fixtures.user() : Fixtures.article(2000);
+    }
+
+    private static class EmptyStream implements ReadStream<JsonObject> {
+
+        private final Context context;
+
+        EmptyStream(Vertx vertx) {
+            this.context = vertx.getOrCreateContext();
+        }
+
+        @Override
+        public ReadStream<JsonObject> exceptionHandler(Handler<Throwable> handler) {
+            return this;
+        }
+
+        @Override
+        public ReadStream<JsonObject> handler(Handler<JsonObject> handler) {
+            return this;
+        }
+
+        @Override
+        public ReadStream<JsonObject> pause() {
+            return this;
+        }
+
+        @Override
+        public ReadStream<JsonObject> resume() {
+            return this;
+        }
+
+        @Override
+        public ReadStream<JsonObject> endHandler(Handler<Void> endHandler) {
+            // after the caller had a chance to set its other handlers, like a real cursor
+            if (endHandler != null) {
+                context.runOnContext(endHandler);
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package io.vertx.conduit.load;
+
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodProcess;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+
+import java.io.IOException;
+
+/**
+ * The mongod the tests use, started for the length of a load run
+ */
+class EmbeddedMongo {
+
+    private final MongodExecutable executable;
+
+    private final MongodProcess process;
+
+    private EmbeddedMongo(MongodExecutable executable, MongodProcess process) {
+        this.executable = executable;
+        this.process = process;
+    }
+
+    static EmbeddedMongo start(int port) throws IOException {
+        MongodExecutable executable = MongodStarter.getDefaultInstance().prepare(new MongodConfigBuilder()
+                .version(Version.Main.PRODUCTION)
+                .net(new Net("localhost", port, Network.localhostIsIPv6()))
+                .build());
+        return new EmbeddedMongo(executable, executable.start());
+    }
+
+    void stop() {
+        process.stop();
+        executable.stop();
+    }
+}
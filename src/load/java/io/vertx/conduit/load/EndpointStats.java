@@ -0,0 +1,93 @@
+package io.vertx.conduit.load;
+
+import io.vertx.core.json.JsonObject;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies of one operation, in microseconds.  The response time runs from the moment the request was due under the
+ * fixed arrival rate, so a stalled server is charged for the requests it kept waiting; the service time runs from
+ * the moment it was actually sent.  Their gap is the coordinated omission a closed-loop client would hide.
+ */
+class EndpointStats {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final Histogram responseTime = new Histogram(TimeUnit.MINUTES.toMicros(5), 3);
+
+    private final Histogram serviceTime = new Histogram(TimeUnit.MINUTES.toMicros(5), 3);
+
+    private final Map<String, Integer> statuses = new TreeMap<>();
+
+    private long errors;
+
+    /**
+     * @param dueNanos  when the request was scheduled
+     * @param sentNanos when it was handed to the client
+     * @param endNanos  when the answer, or the failure, arrived
+     * @param status    the HTTP status or null if there was no response
+     */
+    void record(long dueNanos, long sentNanos, long endNanos, Integer status) {
+        responseTime.recordValue(clamp(endNanos - dueNanos, responseTime));
+        serviceTime.recordValue(clamp(endNanos - sentNanos, serviceTime));
+        statuses.merge(status == null ? "none" : String.valueOf(status), 1, Integer::sum);
+        if (status == null || status >= 400) {
+            errors++;
+        }
+    }
+
+    long count() {
+        return responseTime.getTotalCount();
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    Histogram responseTime() {
+        return responseTime;
+    }
+
+    /**
+     * @param seconds length of the measured part of the run
+     */
+    JsonObject toJson(int seconds) {
+        return new JsonObject()
+                .put("count", count())
+                .put("errors", errors)
+                .put("throughput", seconds == 0 ? 0 : (double) count() / seconds)
+                .put("statuses", new JsonObject(new TreeMap<>(statuses)))
+                .put("responseTimeMillis", percentiles(responseTime))
+                .put("serviceTimeMillis", percentiles(serviceTime));
+    }
+
+    /**
+     * Writes the full HdrHistogram distributions, in milliseconds, in the .hgrm format the HdrHistogram plotter reads
+     */
+    void writeDistributions(PrintStream response, PrintStream service) {
+        responseTime.outputPercentileDistribution(response, 1000.0);
+        serviceTime.outputPercentileDistribution(service, 1000.0);
+    }
+
+    private static JsonObject percentiles(Histogram histogram) {
+        JsonObject retVal = new JsonObject();
+        for (double percentile : PERCENTILES) {
+            retVal.put("p" + String.valueOf(percentile).replace(".0", ""), millis(histogram.getValueAtPercentile(percentile)));
+        }
+        return retVal
+                .put("max", millis(histogram.getMaxValue()))
+                .put("mean", histogram.getTotalCount() == 0 ? 0 : histogram.getMean() / 1000.0);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static long clamp(long nanos, Histogram histogram) {
+        return Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 0), histogram.getHighestTrackableValue());
+    }
+}
@@ -0,0 +1,228 @@
+package io.vertx.conduit.load;
+
+import io.vertx.conduit.HttpVerticle;
+import io.vertx.conduit.UserDAV;
+import io.vertx.conduit.comments.CommentDAV;
+import io.vertx.conduit.users.ArticleDAV;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Open-loop load driver.  Seeds Mongo, optionally deploys the API in the same JVM, then sends the operations of the
+ * scenario at its fixed rate for warmupSeconds + durationSeconds and reports the percentiles of each operation for
+ * the measured part:
+ * <pre>
+ * mvn -Pload test-compile exec:exec@load -Dload.scenario=src/load/resources/scenarios/mixed.json
+ * </pre>
+ * Requests are sent when they are due whatever the number still unanswered, and their latency is taken from that
+ * due time, so a server that stalls can't slow the driver down and hide the stall.  The report is printed and written
+ * to target/load/&lt;scenario&gt;: summary.json plus one .hgrm distribution per operation.
+ */
+public class LoadDriver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadDriver.class);
+
+    private final Vertx vertx;
+
+    private final Scenario scenario;
+
+    private final Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+
+    LoadDriver(Vertx vertx, Scenario scenario) {
+        this.vertx = vertx;
+        this.scenario = scenario;
+        for (Operation operation : scenario.mix().keySet()) {
+            stats.put(operation, new EndpointStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String path = args.length > 0 ? args[0] : "src/load/resources/scenarios/smoke.json";
+        Scenario scenario = new Scenario(new JsonObject(new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8)));
+
+        EmbeddedMongo mongo = scenario.embeddedMongo ? EmbeddedMongo.start(scenario.mongoPort) : null;
+        Vertx vertx = Vertx.vertx();
+        int exitCode = 0;
+        try {
+            LoadDriver driver = new LoadDriver(vertx, scenario);
+            CompletableFuture<JsonObject> report = new CompletableFuture<>();
+            driver.run().setHandler(ar -> {
+                if (ar.succeeded()) {
+                    report.complete(ar.result());
+                } else {
+                    report.completeExceptionally(ar.cause());
+                }
+            });
+            long budget = scenario.warmupSeconds + scenario.durationSeconds + TimeUnit.MILLISECONDS.toSeconds(scenario.timeoutMillis) + 600;
+            driver.write(report.get(budget, TimeUnit.SECONDS));
+        } catch (Exception e) {
+            LOGGER.error("load run failed", e);
+            exitCode = 1;
+        } finally {
+            CompletableFuture<Void> closed = new CompletableFuture<>();
+            vertx.close(ar -> closed.complete(null));
+            closed.get(30, TimeUnit.SECONDS);
+            if (mongo != null) {
+                mongo.stop();
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    Future<JsonObject> run() {
+        JsonObject config = new JsonObject()
+                .put("db_name", scenario.dbName)
+                .put("connection_string", scenario.connectionString());
+        MongoClient mongoClient = MongoClient.createShared(vertx, config);
+        Seeder seeder = new Seeder(mongoClient, scenario);
+
+        WebClient webClient = WebClient.create(vertx, new WebClientOptions()
+                .setMaxPoolSize(scenario.connections)
+                .setKeepAlive(true));
+        Workload workload = new Workload(webClient, scenario, new Random(scenario.randomSeed), seeder.users, seeder.stock);
+
+        return seeder.seed()
+                .compose(v -> scenario.deploy ? deploy(config) : Future.succeededFuture())
+                .compose(v -> login(workload, seeder.users))
+                .compose(v -> drive(workload))
+                .map(v -> report());
+    }
+
+    private Future<Void> deploy(JsonObject config) {
+        // the same verticles as MainVerticle, against the seeded database
+        int cores = Runtime.getRuntime().availableProcessors();
+        DeploymentOptions options = new DeploymentOptions().setConfig(config).setInstances(cores);
+        return CompositeFuture.all(
+                deploy(HttpVerticle.class, options),
+                deploy(UserDAV.class, options),
+                deploy(ArticleDAV.class, options),
+                deploy(CommentDAV.class, options)).map(v -> null);
+    }
+
+    private Future<Void> deploy(Class<? extends AbstractVerticle> verticle, DeploymentOptions options) {
+        Future<String> retVal = Future.future();
+        vertx.deployVerticle(verticle.getName(), options, retVal);
+        return retVal.map(id -> null);
+    }
+
+    /**
+     * Logs every seeded user in through the API, outside of the measurement, for the token of the writes
+     */
+    private Future<Void> login(Workload workload, List<SeededUser> users) {
+        List<Future> tokens = new ArrayList<>();
+        for (SeededUser user : users) {
+            Future<Void> token = Future.future();
+            workload.post("/api/users/login", null).sendJsonObject(new JsonObject().put("user", new JsonObject()
+                    .put("email", user.email)
+                    .put("password", user.password)), ar -> {
+                if (ar.succeeded() && ar.result().statusCode() == 200) {
+                    user.token = ar.result().bodyAsJsonObject().getJsonObject("user").getString("token");
+                    token.complete();
+                } else {
+                    token.fail(ar.succeeded() ? "login of " + user.email + " returned " + ar.result().statusCode() : ar.cause().getMessage());
+                }
+            });
+            tokens.add(token);
+        }
+        return CompositeFuture.all(tokens).map(v -> null);
+    }
+
+    /**
+     * Sends every request of the run at its due time, checked every millisecond, and completes once the last one is
+     * answered or timed out
+     */
+    private Future<Void> drive(Workload workload) {
+        Future<Void> retVal = Future.future();
+        long total = (long) scenario.rate * (scenario.warmupSeconds + scenario.durationSeconds);
+        long warmupEnd = (long) scenario.rate * scenario.warmupSeconds;
+        Random random = new Random(scenario.randomSeed);
+        long start = System.nanoTime();
+        long[] sent = {0};
+        long[] answered = {0};
+
+        LOGGER.info("driving " + total + " requests at " + scenario.rate + "/s, the first " + warmupEnd + " are warmup");
+        vertx.setPeriodic(1, timer -> {
+            long now = System.nanoTime();
+            while (sent[0] < total) {
+                long due = start + sent[0] * 1_000_000_000L / scenario.rate;
+                if (due > now) {
+                    break;
+                }
+                boolean measured = sent[0] >= warmupEnd;
+                Operation operation = scenario.next(random);
+                long sentAt = System.nanoTime();
+                sent[0]++;
+                operation.send(workload).setHandler(ar -> {
+                    if (measured) {
+                        stats.get(operation).record(due, sentAt, System.nanoTime(), ar.succeeded() ? ar.result() : null);
+                    }
+                    if (++answered[0] == total) {
+                        retVal.complete();
+                    }
+                });
+            }
+            if (sent[0] == total) {
+                vertx.cancelTimer(timer);
+            }
+        });
+        return retVal;
+    }
+
+    private JsonObject report() {
+        JsonObject operations = new JsonObject();
+        StringBuilder table = new StringBuilder(String.format("%n%-15s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99"));
+        stats.forEach((operation, endpoint) -> {
+            JsonObject json = endpoint.toJson(scenario.durationSeconds);
+            operations.put(operation.key, json);
+            JsonObject response = json.getJsonObject("responseTimeMillis");
+            table.append(String.format("%-15s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    operation.key, endpoint.count(), endpoint.errors(), json.getDouble("throughput"),
+                    response.getDouble("p50"), response.getDouble("p99"), response.getDouble("p99.9"), response.getDouble("max"),
+                    json.getJsonObject("serviceTimeMillis").getDouble("p99")));
+        });
+        LOGGER.info(table.toString());
+        return new JsonObject()
+                .put("scenario", scenario.toJson())
+                .put("operations", operations);
+    }
+
+    private void write(JsonObject report) throws IOException {
+        File directory = new File("target/load/" + scenario.name);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("can't create " + directory);
+        }
+        Files.write(new File(directory, "summary.json").toPath(), report.encodePrettily().getBytes(StandardCharsets.UTF_8));
+        for (Map.Entry<Operation, EndpointStats> endpoint : stats.entrySet()) {
+            try (PrintStream response = new PrintStream(new FileOutputStream(new File(directory, endpoint.getKey().key + ".hgrm")), false, "UTF-8");
+                 PrintStream service = new PrintStream(new FileOutputStream(new File(directory, endpoint.getKey().key + ".service.hgrm")), false, "UTF-8")) {
+                endpoint.getValue().writeDistributions(response, service);
+            }
+        }
+        LOGGER.info("report written to " + directory);
+    }
+}
@@ -0,0 +1,145 @@
+package io.vertx.conduit.load;
+
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.HttpRequest;
+import io.vertx.ext.web.client.HttpResponse;
+
+/**
+ * The requests a scenario can mix, named in the scenario file by their key.  Each sends one API call and completes with
+ * the HTTP status it got.
+ */
+enum Operation {
+
+    REGISTER("register") {
+        @Override
+        Future<Integer> send(Workload workload) {
+            String name = workload.uniqueName("reg");
+            return status(workload.post("/api/users", null), new JsonObject().put("user", new JsonObject()
+                    .put("username", name)
+                    .put("email", name + "@conduit.load")
+                    .put("password", name + "pass")));
+        }
+    },
+
+    LOGIN("login") {
+        @Override
+        Future<Integer> send(Workload workload) {
+            SeededUser user = workload.anyUser();
+            return status(workload.post("/api/users/login", null), new JsonObject().put("user", new JsonObject()
+                    .put("email", user.email)
+                    .put("password", user.password)));
+        }
+    },
+
+    PROFILE("profile") {
+        @Override
+        Future<Integer> send(Workload workload) {
+            return status(workload.get("/api/profiles/" + workload.anyUser().username, null), null);
+        }
+    },
+
+    LIST_ARTICLES("listArticles") {
+        @Override
+        Future<Integer> send(Workload workload) {
+            return status(workload.get("/api/articles?limit=20", null), null);
+        }
+    },
+
+    GET_ARTICLE("getArticle") {
+        @Override
+        Future<Integer> send(Workload workload) {
+            SeededUser author = workload.anyUser();
+            return status(workload.get("/api/articles/" + workload.anyArticle(author), null), null);
+        }
+    },
+
+    CREATE_ARTICLE("createArticle") {
+        @Override
+        Future<Integer> send(Workload workload) {
+            SeededUser author = workload.anyUser();
+            String title = workload.uniqueName("Load Run Article");
+            Future<Integer> retVal = Future.future();
+            workload.post("/api/articles", author.token).sendJsonObject(article(title), ar -> {
+                if (ar.failed()) {
+                    retVal.fail(ar.cause());
+                    return;
+                }
+                HttpResponse<Buffer> response = ar.result();
+                if (response.statusCode() == 200) {
+                    workload.created(response.bodyAsJsonObject().getJsonObject("article").getString("slug"), author);
+                }
+                retVal.complete(response.statusCode());
+            });
+            return retVal;
+        }
+    },
+
+    UPDATE_ARTICLE("updateArticle") {
+        @Override
+        Future<Integer> send(Workload workload) {
+            SeededUser author = workload.anyUser();
+            return status(workload.put("/api/articles/" + workload.anyArticle(author), author.token),
+                    new JsonObject().put("article", new JsonObject()
+                            .put("title", "Load Article updated")
+                            .put("description", workload.uniqueName("updated"))
+                            .put("body", "Lorem ipsum dolor sit amet, updated by the load driver.")));
+        }
+    },
+
+    DELETE_ARTICLE("deleteArticle") {
+        @Override
+        Future<Integer> send(Workload workload) {
+            Workload.Owned article = workload.deletable();
+            if (article == null) {
+                return Future.failedFuture("no article left to delete, seed more with seed.deletable");
+            }
+            return status(workload.delete("/api/articles/" + article.slug, article.owner.token), null);
+        }
+    };
+
+    final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    abstract Future<Integer> send(Workload workload);
+
+    static Operation named(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("unknown operation in mix: " + key);
+    }
+
+    static JsonObject article(String title) {
+        return new JsonObject().put("article", new JsonObject()
+                .put("title", title)
+                .put("description", "Written by the load driver")
+                .put("body", "Lorem ipsum dolor sit amet, consectetur adipiscing elit.")
+                .put("tagList", new JsonArray().add("load")));
+    }
+
+    private static Future<Integer> status(HttpRequest<Buffer> request, JsonObject body) {
+        Future<Integer> retVal = Future.future();
+        if (body == null) {
+            request.send(ar -> complete(retVal, ar.succeeded() ? ar.result().statusCode() : null, ar.cause()));
+        } else {
+            request.sendJsonObject(body, ar -> complete(retVal, ar.succeeded() ? ar.result().statusCode() : null, ar.cause()));
+        }
+        return retVal;
+    }
+
+    private static void complete(Future<Integer> future, Integer status, Throwable cause) {
+        if (cause == null) {
+            future.complete(status);
+        } else {
+            future.fail(cause);
+        }
+    }
+}
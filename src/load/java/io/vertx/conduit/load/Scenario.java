@@ -0,0 +1,139 @@
+package io.vertx.conduit.load;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A load run as described by a scenario file, see src/load/resources/scenarios/smoke.json.  Every key but "mix" has a
+ * default, so a scenario only lists what it changes:
+ * <pre>
+ * {
+ *   "name": "mixed",
+ *   "seed": {"users": 100, "articlesPerUser": 5, "deletable": 500},
+ *   "rate": 200, "warmupSeconds": 10, "durationSeconds": 60, "connections": 32, "randomSeed": 42, "timeoutMillis": 10000,
+ *   "mix": {"login": 10, "profile": 20, "getArticle": 50, ...}
+ * }
+ * </pre>
+ */
+public class Scenario {
+
+    final String name;
+
+    // where the API runs; deploy starts it in the driver's own Vertx first
+    final String host;
+    final int port;
+    final boolean deploy;
+
+    // an embedded mongod is started on mongoPort unless the scenario points at a running one
+    final boolean embeddedMongo;
+    final int mongoPort;
+    final String dbName;
+
+    final int users;
+    final int articlesPerUser;
+
+    // requests per second, sent on schedule whether or not the previous ones were answered
+    final int rate;
+    final int warmupSeconds;
+    final int durationSeconds;
+    final int connections;
+    final long randomSeed;
+    // a request still unanswered after this long is recorded as an error at this latency
+    final long timeoutMillis;
+
+    // seeded articles kept for deleteArticle, by default enough for every delete the mix is expected to send
+    final int deletable;
+
+    private final Map<Operation, Integer> mix;
+
+    private final Operation[] schedule;
+
+    Scenario(JsonObject json) {
+        name = json.getString("name", "scenario");
+
+        JsonObject target = json.getJsonObject("target", new JsonObject());
+        host = target.getString("host", "localhost");
+        port = target.getInteger("port", 8080);
+        deploy = target.getBoolean("deploy", true);
+
+        JsonObject mongo = json.getJsonObject("mongo", new JsonObject());
+        embeddedMongo = mongo.getBoolean("embedded", true);
+        mongoPort = mongo.getInteger("port", 27017);
+        dbName = mongo.getString("db_name", "conduit_load");
+
+        JsonObject seed = json.getJsonObject("seed", new JsonObject());
+        users = seed.getInteger("users", 100);
+        articlesPerUser = seed.getInteger("articlesPerUser", 5);
+
+        rate = json.getInteger("rate", 100);
+        warmupSeconds = json.getInteger("warmupSeconds", 10);
+        durationSeconds = json.getInteger("durationSeconds", 60);
+        connections = json.getInteger("connections", 32);
+        randomSeed = json.getLong("randomSeed", 42L);
+        timeoutMillis = json.getLong("timeoutMillis", 10000L);
+
+        JsonObject weights = json.getJsonObject("mix");
+        if (weights == null || weights.isEmpty()) {
+            throw new IllegalArgumentException("scenario " + name + " has no mix");
+        }
+        mix = new LinkedHashMap<>();
+        List<Operation> slots = new ArrayList<>();
+        for (String key : weights.fieldNames()) {
+            Operation operation = Operation.named(key);
+            int weight = weights.getInteger(key);
+            if (weight < 0) {
+                throw new IllegalArgumentException("negative weight for " + key);
+            }
+            mix.put(operation, weight);
+            slots.addAll(Collections.nCopies(weight, operation));
+        }
+        if (slots.isEmpty()) {
+            throw new IllegalArgumentException("scenario " + name + " has no operation with a weight");
+        }
+        schedule = slots.toArray(new Operation[0]);
+
+        long requests = (long) rate * (warmupSeconds + durationSeconds);
+        long expectedDeletes = requests * mix.getOrDefault(Operation.DELETE_ARTICLE, 0) / schedule.length;
+        deletable = seed.getInteger("deletable", (int) (expectedDeletes + expectedDeletes / 5));
+        if (users < 1) {
+            throw new IllegalArgumentException("scenario " + name + " needs at least one user");
+        }
+    }
+
+    /**
+     * @param random the random of the run, seeded with randomSeed
+     * @return the next operation, drawn according to the weights of the mix
+     */
+    Operation next(Random random) {
+        return schedule[random.nextInt(schedule.length)];
+    }
+
+    Map<Operation, Integer> mix() {
+        return Collections.unmodifiableMap(mix);
+    }
+
+    String connectionString() {
+        return "mongodb://localhost:" + mongoPort;
+    }
+
+    JsonObject toJson() {
+        JsonObject weights = new JsonObject();
+        mix.forEach((operation, weight) -> weights.put(operation.key, weight));
+        return new JsonObject()
+                .put("name", name)
+                .put("rate", rate)
+                .put("warmupSeconds", warmupSeconds)
+                .put("durationSeconds", durationSeconds)
+                .put("connections", connections)
+                .put("randomSeed", randomSeed)
+                .put("timeoutMillis", timeoutMillis)
+                .put("seed", new JsonObject().put("users", users).put("articlesPerUser", articlesPerUser).put("deletable", deletable))
+                .put("mix", weights);
+    }
+}
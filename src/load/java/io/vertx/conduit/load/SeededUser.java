@@ -0,0 +1,28 @@
+package io.vertx.conduit.load;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A user written by the Seeder, with the token it got by logging in and the slugs of its articles
+ */
+class SeededUser {
+
+    final String email;
+
+    final String username;
+
+    final String password;
+
+    final List<String> slugs = new ArrayList<>();
+
+    String id;
+
+    String token;
+
+    SeededUser(int index) {
+        this.username = "load" + index;
+        this.email = username + "@conduit.load";
+        this.password = username + "pass";
+    }
+}
@@ -0,0 +1,168 @@
+package io.vertx.conduit.load;
+
+import io.vertx.conduit.Article;
+import io.vertx.conduit.db.MongoIndexes;
+import io.vertx.conduit.users.models.MongoConstants;
+import io.vertx.conduit.users.models.User;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.ext.auth.mongo.HashSaltStyle;
+import io.vertx.ext.auth.mongo.MongoAuth;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.BulkWriteOptions;
+import io.vertx.ext.mongo.MongoClient;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Writes the data of a scenario straight to Mongo, the way DBSetupVerticle prepares the tests: the collections are
+ * dropped, the indexes ensured, then the users are inserted through MongoAuth and their articles in bulk.  The
+ * articles are in place before the DAVs start, so the TagIndex sees them.
+ */
+class Seeder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Seeder.class);
+
+    private static final int BULK_SIZE = 1000;
+
+    private static final String[] COLLECTIONS = {
+            MongoConstants.COLLECTION_NAME_USERS,
+            MongoConstants.COLLECTION_NAME_ARTICLES,
+            MongoConstants.COLLECTION_NAME_TIMELINE,
+            MongoConstants.COLLECTION_NAME_FOLLOWS,
+            MongoConstants.COLLECTION_NAME_COMMENTS};
+
+    private final MongoClient mongoClient;
+
+    private final MongoAuth authProvider;
+
+    private final Scenario scenario;
+
+    final List<SeededUser> users = new ArrayList<>();
+
+    // articles only deleteArticle touches
+    final Deque<Workload.Owned> stock = new ArrayDeque<>();
+
+    Seeder(MongoClient mongoClient, Scenario scenario) {
+        this.mongoClient = mongoClient;
+        this.scenario = scenario;
+
+        JsonObject authConfig = new JsonObject()
+                .put(MongoAuth.PROPERTY_COLLECTION_NAME, MongoAuth.DEFAULT_COLLECTION_NAME)
+                .put(MongoAuth.PROPERTY_SALT_STYLE, HashSaltStyle.COLUMN);
+        authProvider = MongoAuth.create(mongoClient, authConfig);
+        authProvider.setUsernameCredentialField("email");
+        authProvider.setUsernameField("email");
+    }
+
+    Future<Void> seed() {
+        Future<Void> retVal = Future.succeededFuture();
+        for (String collection : COLLECTIONS) {
+            retVal = retVal.compose(v -> drop(collection));
+        }
+        return retVal
+                .compose(v -> new MongoIndexes(mongoClient).ensure())
+                .compose(v -> insertUsers())
+                .compose(v -> insertArticles())
+                .map(v -> {
+                    LOGGER.info("seeded " + users.size() + " users, " + users.size() * scenario.articlesPerUser
+                            + " articles and " + stock.size() + " deletable articles");
+                    return null;
+                });
+    }
+
+    private Future<Void> insertUsers() {
+        List<Future> inserted = new ArrayList<>();
+        for (int i = 0; i < scenario.users; i++) {
+            SeededUser user = new SeededUser(i);
+            users.add(user);
+            inserted.add(insertUser(user));
+        }
+        return CompositeFuture.all(inserted).map(v -> null);
+    }
+
+    private Future<Void> insertUser(SeededUser user) {
+        Future<String> id = Future.future();
+        authProvider.insertUser(user.email, user.password, null, null, id);
+        return id.compose(inserted -> {
+            user.id = inserted;
+            Future<Void> retVal = Future.future();
+            JsonObject update = new JsonObject().put("$set", new JsonObject()
+                    .put("username", user.username)
+                    .put("bio", "Seeded by the load driver"));
+            mongoClient.updateCollection(MongoConstants.COLLECTION_NAME_USERS, new JsonObject().put("email", user.email), update,
+                    ar -> complete(retVal, ar.cause()));
+            return retVal;
+        });
+    }
+
+    private Future<Void> insertArticles() {
+        List<BulkOperation> operations = new ArrayList<>();
+        for (int u = 0; u < users.size(); u++) {
+            SeededUser author = users.get(u);
+            for (int i = 0; i < scenario.articlesPerUser; i++) {
+                String slug = "load-article-" + u + "-" + i;
+                operations.add(BulkOperation.createInsert(article(slug, "Load Article " + u + " " + i, author)));
+                author.slugs.add(slug);
+            }
+        }
+        for (int d = 0; d < scenario.deletable; d++) {
+            SeededUser owner = users.get(d % users.size());
+            String slug = "load-deletable-" + d;
+            operations.add(BulkOperation.createInsert(article(slug, "Load Deletable " + d, owner)));
+            stock.add(new Workload.Owned(slug, owner));
+        }
+
+        Future<Void> retVal = Future.succeededFuture();
+        for (int from = 0; from < operations.size(); from += BULK_SIZE) {
+            List<BulkOperation> chunk = operations.subList(from, Math.min(from + BULK_SIZE, operations.size()));
+            retVal = retVal.compose(v -> {
+                Future<Void> written = Future.future();
+                mongoClient.bulkWriteWithOptions(MongoConstants.COLLECTION_NAME_ARTICLES, chunk, new BulkWriteOptions(false),
+                        ar -> complete(written, ar.cause()));
+                return written;
+            });
+        }
+        return retVal;
+    }
+
+    /**
+     * @return the document UserDAV would have stored for the article, with a string _id like the ones it generates
+     */
+    private JsonObject article(String slug, String title, SeededUser author) {
+        User user = new User();
+        user.set_id(author.id);
+        Article article = new Article(title, "Seeded by the load driver", "Lorem ipsum dolor sit amet, consectetur adipiscing elit.",
+                new ArrayList<>(Arrays.asList("load", "seed")));
+        Date time = new Date();
+        article.setSlug(slug);
+        article.setCreatedAt(time);
+        article.setUpdatedAt(time);
+        article.setAuthor(user);
+        JsonObject retVal = article.toMongoJson();
+        retVal.remove("id");
+        return retVal.put("_id", slug);
+    }
+
+    private Future<Void> drop(String collection) {
+        Future<Void> retVal = Future.future();
+        mongoClient.dropCollection(collection, ar -> complete(retVal, ar.cause()));
+        return retVal;
+    }
+
+    private static void complete(Future<Void> future, Throwable cause) {
+        if (cause == null) {
+            future.complete();
+        } else {
+            future.fail(cause);
+        }
+    }
+}
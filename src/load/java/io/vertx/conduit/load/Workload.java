@@ -0,0 +1,117 @@
+package io.vertx.conduit.load;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.web.client.HttpRequest;
+import io.vertx.ext.web.client.WebClient;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * What the operations of a run share: the client, the seeded users and the articles that can still be deleted.  Only
+ * used from the event loop of the driver, so nothing here is synchronized.
+ */
+class Workload {
+
+    private static final String XREQUESTEDWITH = "X-Requested-With";
+
+    private final WebClient webClient;
+
+    private final String host;
+
+    private final int port;
+
+    private final long timeoutMillis;
+
+    private final Random random;
+
+    private final List<SeededUser> users;
+
+    // articles created during the run, deleted first
+    private final Deque<Owned> created = new ArrayDeque<>();
+
+    // seeded articles no other operation reads, deleted once the created ones are gone
+    private final Deque<Owned> stock;
+
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private long names;
+
+    Workload(WebClient webClient, Scenario scenario, Random random, List<SeededUser> users, Deque<Owned> stock) {
+        this.webClient = webClient;
+        this.host = scenario.host;
+        this.port = scenario.port;
+        this.timeoutMillis = scenario.timeoutMillis;
+        this.random = random;
+        this.users = users;
+        this.stock = stock;
+    }
+
+    SeededUser anyUser() {
+        return users.get(random.nextInt(users.size()));
+    }
+
+    String anyArticle(SeededUser author) {
+        return author.slugs.get(random.nextInt(author.slugs.size()));
+    }
+
+    /**
+     * @param prefix
+     * @return a name no other run of the scenario uses, e.g. for a new user
+     */
+    String uniqueName(String prefix) {
+        return prefix + " " + runId + " " + (names++);
+    }
+
+    void created(String slug, SeededUser owner) {
+        created.add(new Owned(slug, owner));
+    }
+
+    /**
+     * @return an article that can be deleted, null if there is none left
+     */
+    Owned deletable() {
+        Owned retVal = created.poll();
+        return retVal != null ? retVal : stock.poll();
+    }
+
+    HttpRequest<Buffer> get(String uri, String token) {
+        return headers(webClient.get(port, host, uri), token);
+    }
+
+    HttpRequest<Buffer> post(String uri, String token) {
+        return headers(webClient.post(port, host, uri), token);
+    }
+
+    HttpRequest<Buffer> put(String uri, String token) {
+        return headers(webClient.put(port, host, uri), token);
+    }
+
+    HttpRequest<Buffer> delete(String uri, String token) {
+        return headers(webClient.delete(port, host, uri), token);
+    }
+
+    private HttpRequest<Buffer> headers(HttpRequest<Buffer> request, String token) {
+        request.putHeader("Content-Type", "application/json")
+                .putHeader(XREQUESTEDWITH, "XMLHttpRequest")
+                .timeout(timeoutMillis);
+        if (token != null) {
+            request.putHeader("Authorization", "Token " + token);
+        }
+        return request;
+    }
+
+    static class Owned {
+
+        final String slug;
+
+        final SeededUser owner;
+
+        Owned(String slug, SeededUser owner) {
+            this.slug = slug;
+            this.owner = owner;
+        }
+    }
+}
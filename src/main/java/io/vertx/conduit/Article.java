@@ -5,6 +5,7 @@ import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -54,7 +55,11 @@ public class Article implements ConduitDomainModel{
         this.description = jsonObject.getString("description");
         this.body = jsonObject.getString("body");
         if (jsonObject.containsKey("tagList")){
-            this.tagsList = jsonObject.getJsonArray("tagList").getList();
+            JsonArray tags = jsonObject.getJsonArray("tagList");
+            this.tagsList = new ArrayList<>(tags.size());
+            for (int i = 0; i < tags.size(); i++) {
+                this.tagsList.add(tags.getString(i));
+            }
         }
         if(jsonObject.containsKey("createdAt")) this.createdAt = new Date(jsonObject.getLong("createdAt"));
         if(jsonObject.containsKey("updatedAt")) this.updatedAt = new Date(jsonObject.getLong("updatedAt"));
@@ -143,7 +148,6 @@ public class Article implements ConduitDomainModel{
         }
         JsonObject retVal = new JsonObject();
         retVal.put("article", article);
-        System.out.println(retVal.toString());
         return retVal;
     }
 
@@ -0,0 +1,34 @@
+package io.vertx.conduit;
+
+import io.vertx.conduit.messaging.ConduitReply;
+import io.vertx.conduit.users.models.User;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Writes the articles streamed by ArticleDAV into a chunked response as they arrive:
+ * <pre>{"articles":[...],"articlesCount":n,"nextCursor":"..."}</pre>
+ */
+public class ArticleListResponse extends StreamedListResponse {
+
+    /**
+     * @param routingContext
+     * @param itemWriter     sized for a single article
+     * @param errorWriter    used if the listing fails before anything was written
+     * @param viewer         the caller, null if anonymous
+     */
+    public ArticleListResponse(RoutingContext routingContext, JsonResponseWriter itemWriter, JsonResponseWriter errorWriter, User viewer) {
+        super(routingContext, itemWriter, errorWriter, viewer, "articles");
+    }
+
+    @Override
+    protected JsonObject render(ConduitReply item) {
+        Article article = item.getArticle();
+        JsonObject json = article.toConduitJson().getJsonObject("article");
+        User author = article.getAuthor();
+        if (author != null) {
+            json.put("author", author.toProfileJson(viewer).getJsonObject("profile"));
+        }
+        return json;
+    }
+}
@@ -0,0 +1,28 @@
+package io.vertx.conduit;
+
+import io.vertx.conduit.messaging.ConduitReply;
+import io.vertx.conduit.users.models.User;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Writes the comments streamed by CommentDAV into a chunked response as they arrive:
+ * <pre>{"comments":[...],"commentsCount":n,"nextCursor":"..."}</pre>
+ */
+public class CommentListResponse extends StreamedListResponse {
+
+    /**
+     * @param routingContext
+     * @param itemWriter     sized for a single comment
+     * @param errorWriter    used if the listing fails before anything was written
+     * @param viewer         the caller, null if anonymous
+     */
+    public CommentListResponse(RoutingContext routingContext, JsonResponseWriter itemWriter, JsonResponseWriter errorWriter, User viewer) {
+        super(routingContext, itemWriter, errorWriter, viewer, "comments");
+    }
+
+    @Override
+    protected JsonObject render(ConduitReply item) {
+        return item.getComment().toConduitComment(viewer);
+    }
+}
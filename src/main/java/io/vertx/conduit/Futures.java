@@ -0,0 +1,30 @@
+package io.vertx.conduit;
+
+import io.vertx.core.Future;
+
+import java.util.List;
+
+/**
+ * Helpers for futures that CompositeFuture only offers through raw types
+ */
+public final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Waits for futures that are already running.  They still run concurrently; the chain only visits them in list
+     * order, which CompositeFuture.all does as well but only for a raw List&lt;Future&gt;.
+     *
+     * @param futures
+     * @return completed once every future is, failed with the first one in list order that failed, without waiting for
+     * the ones after it
+     */
+    public static Future<Void> all(List<Future<Void>> futures) {
+        Future<Void> retVal = Future.succeededFuture();
+        for (Future<Void> future : futures) {
+            retVal = retVal.compose(v -> future);
+        }
+        return retVal;
+    }
+}
@@ -1,15 +1,38 @@
 package io.vertx.conduit;
 
+import io.vertx.conduit.auth.AuthenticatedUserHandler;
+import io.vertx.conduit.auth.CachingJWTAuth;
+import io.vertx.conduit.auth.HashingPoolStats;
+import io.vertx.conduit.cache.ConduitCaches;
+import io.vertx.conduit.comments.Comment;
+import io.vertx.conduit.comments.CommentDAV;
 import io.vertx.conduit.errors.AuthenticationError;
 import io.vertx.conduit.errors.ConduitError;
 import io.vertx.conduit.errors.ErrorMessages;
 import io.vertx.conduit.errors.RegistrationError;
+import io.vertx.conduit.messaging.ConduitAction;
+import io.vertx.conduit.messaging.ConduitMessage;
+import io.vertx.conduit.messaging.ConduitMessageCodec;
+import io.vertx.conduit.messaging.ConduitReply;
+import io.vertx.conduit.metrics.ConduitMetrics;
+import io.vertx.conduit.overload.Deadlines;
+import io.vertx.conduit.overload.ShedResponse;
+import io.vertx.conduit.tags.TagIndex;
+import io.vertx.conduit.tracing.Span;
+import io.vertx.conduit.tracing.Tracer;
+import io.vertx.conduit.users.ArticleDAV;
 import io.vertx.conduit.users.models.ConduitModelType;
 import io.vertx.conduit.users.models.User;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerOptions;
 import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonObject;
@@ -17,12 +40,14 @@ import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import io.vertx.ext.auth.jwt.JWTAuth;
 import io.vertx.ext.auth.jwt.JWTOptions;
+import io.vertx.ext.web.Route;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.BodyHandler;
-import io.vertx.ext.web.handler.JWTAuthHandler;
 import io.vertx.groovy.ext.auth.jwt.JWTAuth_GroovyExtension;
 
+import java.util.UUID;
+
 import static io.vertx.conduit.MessagingProps.*;
 import static io.vertx.conduit.UserDAV.*;
 import static io.vertx.conduit.users.ArticleDAV.MESSAGE_ARTICLES;
@@ -31,56 +56,114 @@ public class HttpVerticle extends AbstractVerticle {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpVerticle.class);
 
+    // several nodes of a cluster may serve HTTP from the same host
+    public static final String CONFIG_HTTP_PORT = "http.port";
+
     // Authentication provider for the api
     private JWTAuth jwtAuth;
 
+    // tags of every article, kept current by the DAV verticles of this node or, in a cluster, by ClusterSync
+    private TagIndex tagIndex;
+
+    // latency and status codes of every /api route
+    private ConduitMetrics metrics;
+
+    // how long each action is waited for
+    private Deadlines deadlines;
+
+    // traces a share of the requests through the DAVs and their Mongo calls
+    private Tracer tracer;
+
+    // compact Json writers, sized separately for each kind of payload
+    private final JsonResponseWriter userResponse = new JsonResponseWriter(256);
+    private final JsonResponseWriter profileResponse = new JsonResponseWriter(192);
+    private final JsonResponseWriter articleResponse = new JsonResponseWriter(1024);
+    private final JsonResponseWriter articleListItem = new JsonResponseWriter(1024);
+    private final JsonResponseWriter commentResponse = new JsonResponseWriter(512);
+    private final JsonResponseWriter commentListItem = new JsonResponseWriter(512);
+    private final JsonResponseWriter errorResponse = new JsonResponseWriter(128);
+    private final JsonResponseWriter statsResponse = new JsonResponseWriter(512);
+    private final JsonResponseWriter tagsResponse = new JsonResponseWriter(512);
+    private final JsonResponseWriter tracesResponse = new JsonResponseWriter(8192);
+
 
     @Override
     public void start(Future<Void> startFuture) {
 
         LOGGER.info("HttpVerticle starting with config for " + config().getString("env"));
 
-        // Configure authentication with JWT
-        jwtAuth = JWTAuth.create(vertx, new JsonObject().put("keyStore", new JsonObject()
+        ConduitMessageCodec.register(vertx);
+        tagIndex = TagIndex.shared(vertx);
+        metrics = ConduitMetrics.shared(vertx);
+        tracer = Tracer.shared(vertx, config());
+        deadlines = new Deadlines(config());
+
+        // Configure authentication with JWT, remembering the tokens that have already been verified
+        jwtAuth = new CachingJWTAuth(vertx, JWTAuth.create(vertx, new JsonObject().put("keyStore", new JsonObject()
                 .put("type", "jceks")
                 .put("path", "keystore.jceks")
-                .put("password", "secret")));
+                .put("password", "secret"))), config());
+
+        // verifies the token once and attaches the caller to the RoutingContext
+        AuthenticatedUserHandler authenticated = AuthenticatedUserHandler.create(vertx, jwtAuth, deadlines);
+        AuthenticatedUserHandler optionallyAuthenticated = AuthenticatedUserHandler.optional(vertx, jwtAuth, deadlines);
 
         // create a apiRouter to handle the API
         Router baseRouter = Router.router(vertx);
         Router apiRouter = Router.router(vertx);
 
+        // gzip or deflate for the larger responses, ahead of every other route
+        if (config().getBoolean(ResponseCompression.CONFIG_ENABLED, true)) {
+            baseRouter.route().handler(new ResponseCompression(vertx, config()));
+        }
         baseRouter.route("/").handler(routingContext -> {
             HttpServerResponse response = routingContext.response();
             response.putHeader("content-type", "text/plain").end("Hello Vert.x!");
         });
+        baseRouter.get("/stats").handler(this::getStats);
+        baseRouter.get("/metrics").handler(this::getMetrics);
+        baseRouter.get("/traces").handler(this::getTraces);
 
         apiRouter.route("/user*").handler(BodyHandler.create());
 //    apiRouter.route("/*").handler(JWTAuthHandler.create(jwtAuth));
-        apiRouter.get("/user").handler(JWTAuthHandler.create(jwtAuth)).handler(this::getCurrentUser);
-        apiRouter.put("/user").handler(JWTAuthHandler.create(jwtAuth)).handler(this::updateUser);
-        apiRouter.post("/users").handler(this::registerUser);
-        apiRouter.post("/users/login").handler(this::loginUser);
-        apiRouter.get("/profiles/:username").handler(this::getProfile);
-        apiRouter.post("/profiles/:username/follow").handler(JWTAuthHandler.create(jwtAuth)).handler(this::followUser);
-        apiRouter.delete("/profiles/:username/follow").handler(JWTAuthHandler.create(jwtAuth)).handler(this::unFollowUser);
+        api(apiRouter, HttpMethod.GET, "/user").handler(authenticated).handler(this::getCurrentUser);
+        api(apiRouter, HttpMethod.PUT, "/user").handler(authenticated).handler(this::updateUser);
+        api(apiRouter, HttpMethod.POST, "/users").handler(this::registerUser);
+        api(apiRouter, HttpMethod.POST, "/users/login").handler(this::loginUser);
+        api(apiRouter, HttpMethod.GET, "/profiles/:username").handler(optionallyAuthenticated).handler(this::getProfile);
+        api(apiRouter, HttpMethod.POST, "/profiles/:username/follow").handler(authenticated).handler(this::followUser);
+        api(apiRouter, HttpMethod.DELETE, "/profiles/:username/follow").handler(authenticated).handler(this::unFollowUser);
         // articles
         apiRouter.route("/article*").handler(BodyHandler.create());
-        apiRouter.get("/articles").handler(this::getArticles);
-        apiRouter.post("/articles").handler(this::createArticle);
-        apiRouter.get("/articles/:slug").handler(this::lookupArticle);
-        apiRouter.put("/articles/:slug").handler(JWTAuthHandler.create(jwtAuth)).handler(this::updateArticle);
-        apiRouter.delete("/articles/:slug").handler(JWTAuthHandler.create(jwtAuth)).handler(this::deleteArticle);
-        apiRouter.put("/articles/:slug").handler(this::updateArticle);
+        api(apiRouter, HttpMethod.GET, "/articles").handler(optionallyAuthenticated).handler(this::getArticles);
+        // before /articles/:slug, feed is not a slug
+        api(apiRouter, HttpMethod.GET, "/articles/feed").handler(authenticated).handler(this::getFeed);
+        api(apiRouter, HttpMethod.POST, "/articles").handler(authenticated).handler(this::createArticle);
+        api(apiRouter, HttpMethod.GET, "/articles/:slug").handler(optionallyAuthenticated).handler(this::lookupArticle);
+        api(apiRouter, HttpMethod.PUT, "/articles/:slug").handler(authenticated).handler(this::updateArticle);
+        api(apiRouter, HttpMethod.DELETE, "/articles/:slug").handler(authenticated).handler(this::deleteArticle);
+        api(apiRouter, HttpMethod.POST, "/articles/:slug/favorite").handler(authenticated).handler(rc -> favoriteArticle(rc, ConduitAction.FAVORITE));
+        api(apiRouter, HttpMethod.DELETE, "/articles/:slug/favorite").handler(authenticated).handler(rc -> favoriteArticle(rc, ConduitAction.UNFAVORITE));
+        // comments
+        api(apiRouter, HttpMethod.GET, "/articles/:slug/comments").handler(optionallyAuthenticated).handler(this::getComments);
+        api(apiRouter, HttpMethod.POST, "/articles/:slug/comments").handler(authenticated).handler(this::createComment);
+        api(apiRouter, HttpMethod.DELETE, "/articles/:slug/comments/:id").handler(authenticated).handler(this::deleteComment);
+        // tags
+        api(apiRouter, HttpMethod.GET, "/tags").handler(this::getTags);
 
         baseRouter.mountSubRouter("/api", apiRouter);
 
-//    new HttpServerOptions()
-//      .setSsl(true)
-//      .setKeyStoreOptions(new JksOptions().setPath("server-keystore.jks").setPassword("secret")))
-        vertx.createHttpServer()
+        // TLS, h2 and the HTTP/2 windows come from the configuration
+        HttpServerOptions serverOptions;
+        try {
+            serverOptions = ServerOptions.from(config());
+        } catch (IllegalArgumentException e) {
+            startFuture.fail(e);
+            return;
+        }
+        vertx.createHttpServer(serverOptions)
                 .requestHandler(baseRouter::accept)
-                .listen(8080, result -> {
+                .listen(config().getInteger(CONFIG_HTTP_PORT, 8080), result -> {
                     if (result.succeeded()) {
                         startFuture.complete();
                     } else {
@@ -90,102 +173,318 @@ public class HttpVerticle extends AbstractVerticle {
 
     }
 
+    /**
+     * GET /api/articles?tag=&author=&favorited=&limit=&offset=&cursor=
+     *
+     * ArticleDAV streams the page to an address owned by this request and the articles are written to the response as
+     * they arrive.  The response carries a nextCursor when there may be more articles; sending it back as cursor fetches
+     * the next page without skipping over the previous ones.
+     *
+     * @param routingContext
+     */
     private void getArticles(RoutingContext routingContext) {
+        HttpServerRequest request = routingContext.request();
+
+        JsonObject filters = pageParams(routingContext);
+        if (filters == null) {
+            return;
+        }
+        for (String param : new String[]{ArticleDAV.LIST_TAG, ArticleDAV.LIST_AUTHOR, ArticleDAV.LIST_FAVORITED}) {
+            if (request.getParam(param) != null) filters.put(param, request.getParam(param));
+        }
+
+        AuthenticatedUserHandler.viewer(routingContext).setHandler(ar -> {
+            if (ar.failed()) {
+                errorResponse.end(routingContext, 422, new ConduitError(ar.cause().getMessage()));
+                return;
+            }
+            streamArticles(routingContext, new ConduitMessage(ConduitAction.LIST_ARTICLES).setDocument(filters), ar.result());
+        });
     }
 
-    private void lookupArticle(RoutingContext routingContext) {
+    /**
+     * GET /api/articles/feed?limit=&offset=&cursor=
+     *
+     * The articles of the users followed by the caller, newest first, streamed like GET /api/articles.  The page is
+     * read from the timeline of the caller which UserDAV fills when an article is created or a user followed.
+     *
+     * @param routingContext
+     */
+    private void getFeed(RoutingContext routingContext) {
+        JsonObject params = pageParams(routingContext);
+        if (params == null) {
+            return;
+        }
 
-        String slug = routingContext.request().getParam("slug");
-        if (slug == null || slug.isEmpty()) {
-            routingContext.response().setStatusCode(400).end();
+        AuthenticatedUserHandler.user(routingContext).setHandler(ar -> {
+            if (ar.failed()) {
+                errorResponse.end(routingContext, 422, new ConduitError(ar.cause().getMessage()));
+                return;
+            }
+            params.put(ArticleDAV.FEED_OWNER, ar.result().get_id());
+            streamArticles(routingContext, new ConduitMessage(ConduitAction.FEED).setDocument(params), ar.result());
+        });
+    }
+
+    /**
+     * @param routingContext
+     * @return limit, offset and cursor of the request, null if the response was already ended with an error
+     */
+    private JsonObject pageParams(RoutingContext routingContext) {
+        HttpServerRequest request = routingContext.request();
+
+        JsonObject params = new JsonObject();
+        if (request.getParam(ArticleDAV.LIST_CURSOR) != null) params.put(ArticleDAV.LIST_CURSOR, request.getParam(ArticleDAV.LIST_CURSOR));
+        try {
+            if (request.getParam(ArticleDAV.LIST_LIMIT) != null) params.put(ArticleDAV.LIST_LIMIT, Integer.parseInt(request.getParam(ArticleDAV.LIST_LIMIT)));
+            if (request.getParam(ArticleDAV.LIST_OFFSET) != null) params.put(ArticleDAV.LIST_OFFSET, Integer.parseInt(request.getParam(ArticleDAV.LIST_OFFSET)));
+        } catch (NumberFormatException e) {
+            errorResponse.end(routingContext, 422, new ConduitError("limit and offset must be numbers"));
+            return null;
         }
+        return params;
+    }
 
-        JsonObject message = new JsonObject()
-                .put(MESSAGE_ACTION, LOOKUP_BY_FIELD)
-                .put(KEY_FIELD, "slug")
-                .put(KEY_VALUE, slug);
+    /**
+     * @param viewer the caller, null if anonymous
+     * @return the caller as the DAVs need it to render articles, only its _id
+     */
+    private static User viewerRef(User viewer) {
+        if (viewer == null) {
+            return null;
+        }
+        User retVal = new User();
+        retVal.set_id(viewer.get_id());
+        return retVal;
+    }
 
-        vertx.eventBus().send(MESSAGE_ARTICLES, message, ar -> {
+    /**
+     * Sends a listing request to ArticleDAV and writes the articles it streams back to the response
+     *
+     * @param routingContext
+     * @param message        a LIST_ARTICLES or FEED message, its stream address is set here
+     * @param viewer         the caller, null if anonymous
+     */
+    private void streamArticles(RoutingContext routingContext, ConduitMessage message, User viewer) {
+        String streamAddress = MESSAGE_ARTICLES + ".stream." + UUID.randomUUID();
+        ArticleListResponse listing = new ArticleListResponse(routingContext, articleListItem, errorResponse, viewer);
+
+        // the DAV sets the favorited flag of the viewer
+        message.setUser(viewerRef(viewer));
+        // the articles and the end of the stream arrive on streamAddress, the reply only matters if it is a failure
+        streamConsumer(streamAddress, listing).compose(v -> send(routingContext, MESSAGE_ARTICLES, message.setStreamAddress(streamAddress))).setHandler(ar -> {
+            if (ar.failed()) {
+                listing.fail(ar.cause());
+            }
+        });
+    }
 
+    /**
+     * Registers the consumer of the address a DAV streams a listing to.  Without a cluster the consumer stays local; in
+     * a cluster the DAV may run on another node, so the request must not be sent before the registration is known to
+     * the cluster.
+     *
+     * @param streamAddress
+     * @param listing
+     * @return completed once the DAV can be asked to stream
+     */
+    private Future<Void> streamConsumer(String streamAddress, StreamedListResponse listing) {
+        if (!vertx.isClustered()) {
+            listing.listenOn(vertx.eventBus().localConsumer(streamAddress, listing));
+            return Future.succeededFuture();
+        }
+        Future<Void> retVal = Future.future();
+        MessageConsumer<ConduitReply> consumer = vertx.eventBus().consumer(streamAddress, listing);
+        listing.listenOn(consumer);
+        consumer.completionHandler(retVal.completer());
+        return retVal;
+    }
+
+    /**
+     * GET /api/articles/:slug/comments?limit=&cursor=
+     *
+     * A page of the comments of the article, newest first, written to the response as CommentDAV streams them:
+     * <pre>{"comments":[...],"commentsCount":n,"nextCursor":"..."}</pre>
+     *
+     * @param routingContext
+     */
+    private void getComments(RoutingContext routingContext) {
+        JsonObject params = pageParams(routingContext);
+        if (params == null) {
+            return;
+        }
+        String slug = routingContext.request().getParam("slug");
+
+        AuthenticatedUserHandler.viewer(routingContext).setHandler(ar -> {
+            if (ar.failed()) {
+                errorResponse.end(routingContext, 422, new ConduitError(ar.cause().getMessage()));
+                return;
+            }
+            String streamAddress = CommentDAV.MESSAGE_COMMENTS + ".stream." + UUID.randomUUID();
+            CommentListResponse listing = new CommentListResponse(routingContext, commentListItem, errorResponse, ar.result());
+
+            ConduitMessage message = new ConduitMessage(ConduitAction.LIST_COMMENTS)
+                    .setValue(slug)
+                    .setDocument(params)
+                    .setStreamAddress(streamAddress);
+            streamConsumer(streamAddress, listing).compose(v -> send(routingContext, CommentDAV.MESSAGE_COMMENTS, message)).setHandler(sent -> {
+                if (sent.failed()) {
+                    listing.fail(sent.cause());
+                }
+            });
+        });
+    }
+
+    private void createComment(RoutingContext routingContext) {
+        final String slug = routingContext.request().getParam("slug");
+        JsonObject body = routingContext.getBodyAsJson() == null ? null : routingContext.getBodyAsJson().getJsonObject("comment");
+        if (body == null || body.getString("body") == null) {
+            errorResponse.end(routingContext, 422, new ConduitError("comment body is required"));
+            return;
+        }
+
+        AuthenticatedUserHandler.user(routingContext).compose(user -> {
+            Comment comment = new Comment();
+            comment.setBody(body.getString("body"));
+            return send(routingContext, CommentDAV.MESSAGE_COMMENTS, new ConduitMessage(ConduitAction.CREATE_COMMENT)
+                    .setValue(slug)
+                    .setComment(comment)
+                    .setUser(user));
+        }).setHandler(ar -> {
             if (ar.succeeded()) {
-                JsonObject returned = ((JsonObject) ar.result().body()).getJsonObject(MESSAGE_RESPONSE_DETAILS);
-                LOGGER.info("Returned: " + returned);
+                commentResponse.end(routingContext, 200, ar.result().getComment().toConduitJson());
+            } else {
+                errorResponse.end(routingContext, 422, new ConduitError(ar.cause().getMessage()));
+            }
+        });
+    }
 
-                JsonObject returnedJson = ((JsonObject) ar.result().body()).getJsonObject(MESSAGE_RESPONSE_DETAILS);
-                final Article returnedArticle = new Article(returnedJson);
+    private void deleteComment(RoutingContext routingContext) {
+        final String slug = routingContext.request().getParam("slug");
+        final String id = routingContext.request().getParam("id");
+
+        AuthenticatedUserHandler.user(routingContext).compose(user ->
+                send(routingContext, CommentDAV.MESSAGE_COMMENTS, new ConduitMessage(ConduitAction.DELETE_COMMENT)
+                        .setField("_id")
+                        .setValue(id)
+                        .setDocument(new JsonObject().put("articleSlug", slug))
+                        .setUser(user))
+        ).setHandler(ar -> {
+            if (ar.succeeded()) {
                 routingContext.response()
                         .setStatusCode(200)
                         .putHeader("Content-Type", "application/json; charset=utf-8")
-                        .end(Json.encodePrettily(returnedArticle.toConduitJson()));
+                        .end();
             } else {
-                LOGGER.info("Save unsuccessful. Returning: " + ar.cause().getMessage());
-                routingContext.response().setStatusCode(422)
-                        .putHeader("content-type", "application/json; charset=utf-8")
-                        .end(Json.encodePrettily(new ConduitError(ar.cause().getMessage())));
+                errorResponse.end(routingContext, 422, new ConduitError(ar.cause().getMessage()));
             }
         });
     }
 
-    private Future<User> lookupUserFromJWT(String token) {
-        Future<User> retVal = Future.future();
+    /**
+     * GET /api/tags, answered from the TagIndex without a trip to ArticleDAV or Mongo
+     *
+     * @param routingContext
+     */
+    private void getTags(RoutingContext routingContext) {
+        tagsResponse.end(routingContext, 200, tagIndex.toJson());
+    }
+
+    /**
+     * GET /metrics, the latencies and counters of the routes, DAV actions and Mongo calls for Prometheus to scrape
+     *
+     * @param routingContext
+     */
+    private void getMetrics(RoutingContext routingContext) {
+        routingContext.response()
+                .putHeader("Content-Type", ConduitMetrics.CONTENT_TYPE)
+                .end(metrics.toPrometheus());
+    }
+
+    /**
+     * @param apiRouter
+     * @param method
+     * @param path
+     * @return a route of the apiRouter whose first handlers record the latency and status of each response and trace
+     * the sampled requests
+     */
+    private Route api(Router apiRouter, HttpMethod method, String path) {
+        return apiRouter.route(method, path)
+                .handler(metrics.route(method, "/api" + path))
+                .handler(tracer.route(method, "/api" + path));
+    }
+
+    /**
+     * GET /traces?trace=, the spans kept by the in-memory collector, only those of one trace if trace is given
+     *
+     * @param routingContext
+     */
+    private void getTraces(RoutingContext routingContext) {
+        tracesResponse.end(routingContext, 200, new JsonObject()
+                .put("spans", tracer.spans(routingContext.request().getParam("trace"))));
+    }
+
+    private void getStats(RoutingContext routingContext) {
+        JsonObject stats = new JsonObject()
+                .put("caches", ConduitCaches.stats(vertx))
+                .put("workers", HashingPoolStats.stats(vertx));
+        statsResponse.end(routingContext, 200, stats);
+    }
+
+    private void lookupArticle(RoutingContext routingContext) {
+
+        String slug = routingContext.request().getParam("slug");
+        if (slug == null || slug.isEmpty()) {
+            routingContext.response().setStatusCode(400).end();
+        }
+
+        ConduitMessage message = new ConduitMessage(ConduitAction.LOOKUP_BY_FIELD)
+                .setField("slug")
+                .setValue(slug);
+
+        AuthenticatedUserHandler.viewer(routingContext).compose(viewer ->
+                send(routingContext, MESSAGE_ARTICLES, message.setUser(viewerRef(viewer)))).setHandler(ar -> {
 
-        extractUserFromJWTToken(token).setHandler(ar -> {
             if (ar.succeeded()) {
-                // get the logged in user
-                JsonObject jwtUser = ar.result();
-                // get the logged in user from the database
-                getUserFromEmail(jwtUser.getString("email")).setHandler(ar2 -> {
-                    if (ar2.succeeded()) {
-                        final User user = new User(ar2.result());
-                        retVal.complete(user);
-                    }else {
-                        retVal.fail(ar2.cause());
-                    }
-                });
-            }else{
-                retVal.fail(ar.cause());
+                final Article returnedArticle = ar.result().getArticle();
+                LOGGER.info("Returned: " + returnedArticle.getSlug());
+                // favorited is the caller's, only the anonymous body is the same for everyone
+                String cacheKey = AuthenticatedUserHandler.isAuthenticated(routingContext) ? null : slug;
+                articleResponse.endCached(routingContext, 200, returnedArticle.toConduitJson(), cacheKey);
+            } else {
+                LOGGER.info("Save unsuccessful. Returning: " + ar.cause().getMessage());
+                errorResponse.end(routingContext, 422, new ConduitError(ar.cause().getMessage()));
             }
         });
-        return retVal;
     }
 
     private void createArticle(RoutingContext routingContext) {
         JsonObject b = routingContext.getBodyAsJson().getJsonObject("article");
         Article articleToSave = new Article(b);
 
-        // get the Author/User from the JWT token
-        String headerAuth = routingContext.request().getHeader("Authorization");
-        String[] values = headerAuth.split(" ");
-
-        lookupUserFromJWT(values[1]).setHandler(ar ->{
+        // the author is the authenticated caller
+        AuthenticatedUserHandler.user(routingContext).setHandler(ar ->{
             if (ar.succeeded()) {
                 User user = ar.result();
                 articleToSave.setAuthor(user);
-                save(articleToSave, ConduitModelType.ARTICLE).setHandler(ar2 -> {
+                save(routingContext, articleToSave, ConduitModelType.ARTICLE).setHandler(ar2 -> {
                     if (ar2.succeeded()) {
-                        LOGGER.info("Save successful. Returning: " + ar2.result().toString());
-                        final Article returnedArticle = new Article(ar2.result());
-                        routingContext.response()
-                                .setStatusCode(200)
-                                .putHeader("Content-Type", "application/json; charset=utf-8")
-                                .end(Json.encodePrettily(returnedArticle.toConduitJson()));
+                        final Article returnedArticle = ar2.result().getArticle();
+                        LOGGER.info("Save successful. Returning: " + returnedArticle.getSlug());
+                        articleResponse.end(routingContext, 200, returnedArticle.toConduitJson());
                     } else {
                         LOGGER.info("Save unsuccessful. Returning: " + ar2.cause().getMessage());
-                        routingContext.response().setStatusCode(422)
-                                .putHeader("content-type", "application/json; charset=utf-8")
-                                .end(Json.encodePrettily(new ConduitError(ar.cause().getMessage())));
+                        errorResponse.end(routingContext, 422, new ConduitError(ar2.cause().getMessage()));
                     }
                 });
             }else{
                 LOGGER.info("User lookup unsuccessful. Returning: " + ar.cause().getMessage());
-                routingContext.response().setStatusCode(422)
-                        .putHeader("content-type", "application/json; charset=utf-8")
-                        .end(Json.encodePrettily(new ConduitError(ar.cause().getMessage())));
+                errorResponse.end(routingContext, 422, new ConduitError(ar.cause().getMessage()));
             }
         });
     }
 
-    private Future<Article> updateArticle(Article articleToUpdate) {
+    private Future<Article> updateArticle(RoutingContext routingContext, Article articleToUpdate) {
         Future<Article> retVal = Future.future();
 
         JsonObject update = new JsonObject()
@@ -193,18 +492,16 @@ public class HttpVerticle extends AbstractVerticle {
                 .put("description", articleToUpdate.getDescription())
                 .put("body", articleToUpdate.getBody());
 
-        JsonObject message = new JsonObject()
-                .put(MESSAGE_ACTION, MESSAGE_ACTION_UPDATE)
-                .put(KEY_FIELD, "slug")
-                .put(KEY_VALUE, articleToUpdate.getSlug())
-                .put(DOCUMENT, update);
+        ConduitMessage message = new ConduitMessage(ConduitAction.UPDATE)
+                .setField("slug")
+                .setValue(articleToUpdate.getSlug())
+                .setDocument(update);
 
-        vertx.eventBus().send(MESSAGE_ARTICLES, message, ar -> {
+        send(routingContext, MESSAGE_ARTICLES, message).setHandler(ar -> {
 
             if (ar.succeeded()) {
-                JsonObject returned = ((JsonObject) ar.result().body()).getJsonObject(MESSAGE_RESPONSE_DETAILS);
-                LOGGER.info("Returned: " + returned);
-                final Article returnedArticle = new Article(returned);
+                final Article returnedArticle = ar.result().getArticle();
+                LOGGER.info("Returned: " + returnedArticle.getSlug());
                 retVal.complete(returnedArticle);
             } else {
                 retVal.fail(ar.cause());
@@ -213,24 +510,35 @@ public class HttpVerticle extends AbstractVerticle {
         return retVal;
     }
 
-    private Future<JsonObject> save(ConduitDomainModel objectToSave, ConduitModelType modelType) {
+    private Future<ConduitReply> save(RoutingContext routingContext, ConduitDomainModel objectToSave, ConduitModelType modelType) {
 
-        Future<JsonObject> retVal = Future.future();
-
-        JsonObject message = new JsonObject()
-                .put(MESSAGE_CREATE_OBJECT, objectToSave.toMongoJson())
-                .put(MESSAGE_OBJECT_TYPE, modelType.name);
         if (modelType.equals(ConduitModelType.ARTICLE)) {
-            message.put(MESSAGE_ACTION, MESSAGE_ACTION_CREATE_ARTICLE);
+            return send(routingContext, MESSAGE_ADDRESS, new ConduitMessage(ConduitAction.CREATE_ARTICLE).setArticle((Article) objectToSave));
         }
+        return Future.failedFuture("Unsupported type: " + modelType);
+    }
 
-        vertx.eventBus().send(MESSAGE_ADDRESS, message, ar -> {
-
+    /**
+     * Sends the message as a hop of the trace of the request, if it is traced, with the deadline of its action.  If
+     * the DAV sheds the message the request is answered with a 503 here and the error response of the caller is
+     * skipped.
+     *
+     * @param routingContext
+     * @param address
+     * @param message
+     * @return the reply of the DAV
+     */
+    private Future<ConduitReply> send(RoutingContext routingContext, String address, ConduitMessage message) {
+        Future<ConduitReply> retVal = Future.future();
+
+        Span span = Tracer.span(routingContext).child(address).tag("action", message.getAction().name);
+        vertx.eventBus().<ConduitReply>send(address, message, span.inject(deadlines.options(message.getAction())), ar -> {
             if (ar.succeeded()) {
-                JsonObject returned = ((JsonObject) ar.result().body()).getJsonObject(MESSAGE_RESPONSE_DETAILS);
-                LOGGER.info("Returned: " + returned);
-                retVal.complete(returned);
+                span.finish();
+                retVal.complete(ar.result().body());
             } else {
+                span.fail(ar.cause()).finish();
+                ShedResponse.endIfShed(routingContext, ar.cause());
                 retVal.fail(ar.cause());
             }
         });
@@ -242,12 +550,11 @@ public class HttpVerticle extends AbstractVerticle {
 
         LOGGER.info(slug);
 
-        JsonObject message = new JsonObject()
-                .put(MESSAGE_ACTION, DELETE)
-                .put(MESSAGE_LOOKUP_FIELD, "slug")
-                .put(MESSAGE_LOOKUP_VALUE, slug);
+        ConduitMessage message = new ConduitMessage(ConduitAction.DELETE)
+                .setField("slug")
+                .setValue(slug);
 
-        vertx.eventBus().send(MESSAGE_ARTICLES, message, ar ->{
+        send(routingContext, MESSAGE_ARTICLES, message).setHandler(ar ->{
             if (ar.succeeded()) {
                 routingContext.response()
                         .setStatusCode(200)
@@ -255,15 +562,33 @@ public class HttpVerticle extends AbstractVerticle {
                         //.putHeader("Content-Length", String.valueOf(userResult.toString().length()))
                         .end();
             } else{
-                routingContext.response().setStatusCode(422)
-                        .putHeader("content-type", "application/json; charset=utf-8")
-                        .end(Json.encodePrettily(new ConduitError(slug)));
+                errorResponse.end(routingContext, 422, new ConduitError(slug));
             }
         });
 
 
     }
 
+    /**
+     * POST and DELETE /api/articles/:slug/favorite, answered with the article as the caller now sees it
+     *
+     * @param routingContext
+     * @param action         FAVORITE or UNFAVORITE
+     */
+    private void favoriteArticle(RoutingContext routingContext, ConduitAction action) {
+        final String slug = routingContext.request().getParam("slug");
+
+        AuthenticatedUserHandler.user(routingContext)
+                .compose(user -> send(routingContext, MESSAGE_ARTICLES, new ConduitMessage(action).setValue(slug).setUser(user)))
+                .setHandler(ar -> {
+                    if (ar.succeeded()) {
+                        articleResponse.end(routingContext, 200, ar.result().getArticle().toConduitJson());
+                    } else {
+                        errorResponse.end(routingContext, 422, new ConduitError(ar.cause().getMessage()));
+                    }
+                });
+    }
+
     private void updateArticle(RoutingContext routingContext) {
         final String slug = routingContext.request().getParam("slug");
 
@@ -272,36 +597,16 @@ public class HttpVerticle extends AbstractVerticle {
         Article articleToSave = new Article(newArticleValuesJson);
         articleToSave.setSlug(slug);
 
-        // get the Author/User from the JWT token
-        String[] values = routingContext.request().getHeader("Authorization").split(" ");
-
-        lookupUserFromJWT(values[1]).setHandler(ar ->{
+        // the update only touches title, description and body so the author does not need to be loaded
+        updateArticle(routingContext, articleToSave).setHandler(ar ->{
             if (ar.succeeded()) {
-                User user = ar.result();
-                articleToSave.setAuthor(user);
-                updateArticle(articleToSave).setHandler(ar2 ->{
-                    if (ar2.succeeded()) {
-                        LOGGER.info("Save successful. Returning: " + ar2.result().toString());
-                        routingContext.response()
-                                .setStatusCode(200)
-                                .putHeader("Content-Type", "application/json; charset=utf-8")
-                                .end(Json.encodePrettily(ar2.result().toConduitJson()));
-
-                    }else{
-                        routingContext.response().setStatusCode(422)
-                                .putHeader("content-type", "application/json; charset=utf-8")
-                                .end(Json.encodePrettily(new ConduitError(newArticleValuesJson.getString("title"))));
-                    }
-                });
+                LOGGER.info("Save successful. Returning: " + ar.result().toString());
+                articleResponse.end(routingContext, 200, ar.result().toConduitJson());
+
             }else{
-                routingContext.response().setStatusCode(422)
-                        .putHeader("content-type", "application/json; charset=utf-8")
-                        .end(Json.encodePrettily(new ConduitError(newArticleValuesJson.getString("title"))));
+                errorResponse.end(routingContext, 422, new ConduitError(newArticleValuesJson.getString("title")));
             }
         });
-
-
-
     }
 
     // Article methods
@@ -315,36 +620,20 @@ public class HttpVerticle extends AbstractVerticle {
             routingContext.response().setStatusCode(400).end();
         }
 
-        String headerAuth = routingContext.request().getHeader("Authorization");
-        String[] values = headerAuth.split(" ");
-
-        extractUserFromJWTToken(values[1]).setHandler(ar -> {
+        // UserDAV only needs the follower's email, which the token already carries
+        User follower = new User();
+        follower.setEmail(AuthenticatedUserHandler.email(routingContext));
+        ConduitMessage message = new ConduitMessage(ConduitAction.UNFOLLOW_USER)
+                .setValue(username)
+                .setUser(follower);
+        send(routingContext, MESSAGE_ADDRESS, message).setHandler(ar -> {
             if (ar.succeeded()) {
-                JsonObject jwtUser = ar.result();
+                // the profile that is no longer followed, seen by the caller
+                User followed = ar.result().getFollowed();
 
-                JsonObject message = new JsonObject()
-                        .put(MESSAGE_ACTION, MESSAGE_ACTION_UNFOLLOW)
-                        .put(MESSAGE_FOLLOW_USER_FOLLOWED_USER, username)
-                        .put(MESSAGE_FOLLOW_USER_FOLLOWER, jwtUser.getString("email"));
-                vertx.eventBus().send(MESSAGE_ADDRESS, message, ar2 -> {
-                    if (ar2.succeeded()) {
-                        JsonObject j = ((JsonObject) ar2.result().body()).getJsonObject(MESSAGE_RESPONSE_DETAILS);
-                        User returnedUser = new User(j);
-
-                        routingContext.response()
-                                .setStatusCode(200)
-                                .putHeader("Content-Type", "application/json; charset=utf-8")
-                                //.putHeader("Content-Length", String.valueOf(userResult.toString().length()))
-                                .end(Json.encodePrettily(returnedUser.toProfileJson()));
-                    } else {
-                        routingContext.response().setStatusCode(422)
-                                .putHeader("content-type", "application/json; charset=utf-8")
-                                //.putHeader("Content-Length", String.valueOf(loginError.toString().length()))
-                                .end(Json.encodePrettily(ar2.cause()));
-                    }
-                });
+                profileResponse.end(routingContext, 200, followed.toProfileJson(ar.result().getUser()));
             } else {
-                throw new RuntimeException(ar.cause().getMessage());
+                errorResponse.end(routingContext, 422, ar.cause());
             }
         });
     }
@@ -354,74 +643,47 @@ public class HttpVerticle extends AbstractVerticle {
         // get the new values
         final JsonObject newUserValuesJson = routingContext.getBodyAsJson().getJsonObject("user");
 
-        // get the JWT token to find the calling user
-        String headerAuth = routingContext.request().getHeader("Authorization");
-        System.out.println("headerAuth: " + headerAuth);
-
-        String[] values = headerAuth.split(" ");
-        System.out.println("values[1]: " + values[1]);
-
-        extractUserFromJWTToken(values[1]).setHandler(ar -> {
+        // get the logged in user from the database
+        AuthenticatedUserHandler.user(routingContext).setHandler(ar -> {
             if (ar.succeeded()) {
+                User existingUser = ar.result();
 
-                // get the logged in user
-                JsonObject jwtUser = ar.result();
+                JsonObject update = getFieldsToUpdate(newUserValuesJson, existingUser);
 
-                // get the logged in user from the database
-                getUserFromEmail(jwtUser.getString("email")).setHandler(ar2 -> {
-                    if (ar2.succeeded()) {
-                        JsonObject existingUser = ar2.result();
-
-                        // compare userToUpdate and emailUser to verify they are the same person
-                        if (!jwtUser.getString("email").equalsIgnoreCase(existingUser.getString("email"))) {
-                            throw new RuntimeException("Can't update other users");
-                        }
+                // only perform the update if necessary
+                if (update.fieldNames().size() >= 1) {
 
-                        JsonObject update = getFieldsToUpdate(newUserValuesJson, existingUser);
-
-                        // only perform the update if necessary
-                        if (update.fieldNames().size() >= 1) {
-
-                            updateUserByUsername(existingUser.getString("username"), update).setHandler(ar3 -> {
-                                if (ar3.succeeded()) {
-                                    User retunedUser = new User(ar3.result());
-                                    // get the JWT Token
-//                  returnedUser.setToken(jwtAuth.generateToken(principal, new JWTOptions().setIgnoreExpiration(true)));
-
-                                    routingContext.response()
-                                            .setStatusCode(200)
-                                            .putHeader("Content-Type", "application/json; charset=utf-8")
-                                            //.putHeader("Content-Length", String.valueOf(userResult.toString().length()))
-                                            .end(Json.encodePrettily(retunedUser.toConduitJson()));
-                                } else {
-                                    System.out.println("Did Not Find User");
-                                    routingContext.response().setStatusCode(422)
-                                            .putHeader("content-type", "application/json; charset=utf-8")
-                                            //.putHeader("Content-Length", String.valueOf(loginError.toString().length()))
-                                            .end(Json.encodePrettily(new AuthenticationError(ErrorMessages.AUTHENTICATION_ERROR_DEFAULT + " " + ar.cause().getMessage())));
-                                }
-                            });
+                    updateUserByUsername(routingContext, existingUser.getUsername(), update).setHandler(ar2 -> {
+                        if (ar2.succeeded()) {
+                            User retunedUser = ar2.result();
+                            userResponse.end(routingContext, 200, retunedUser.toConduitJson());
+                        } else {
+                            errorResponse.end(routingContext, 422, new AuthenticationError(ErrorMessages.AUTHENTICATION_ERROR_DEFAULT + " " + ar2.cause().getMessage()));
                         }
-                    }
-                });
+                    });
+                } else {
+                    userResponse.end(routingContext, 200, existingUser.toConduitJson());
+                }
+            } else {
+                errorResponse.end(routingContext, 422, new AuthenticationError(ErrorMessages.AUTHENTICATION_ERROR_DEFAULT + " " + ar.cause().getMessage()));
             }
         });
     }
 
-    private JsonObject getFieldsToUpdate(JsonObject newUserValuesJson, JsonObject existingUser) {
+    private JsonObject getFieldsToUpdate(JsonObject newUserValuesJson, User existingUser) {
         // create a JsonObject to store the new parameters
         JsonObject update = new JsonObject();
 
         // compare the existing values with the new values
-        if (isNewValue(newUserValuesJson.getString("email"), existingUser.getString("email"))) {
+        if (isNewValue(newUserValuesJson.getString("email"), existingUser.getEmail())) {
             update.put("email", newUserValuesJson.getString("email"));
         }
         // compare the existing values with the new values
-        if (isNewValue(newUserValuesJson.getString("bio"), existingUser.getString("bio"))) {
+        if (isNewValue(newUserValuesJson.getString("bio"), existingUser.getBio())) {
             update.put("bio", newUserValuesJson.getString("bio"));
         }
         // compare the existing values with the new values
-        if (isNewValue(newUserValuesJson.getString("image"), existingUser.getString("image"))) {
+        if (isNewValue(newUserValuesJson.getString("image"), existingUser.getImage())) {
             update.put("image", newUserValuesJson.getString("image"));
         }
         return update;
@@ -441,10 +703,8 @@ public class HttpVerticle extends AbstractVerticle {
         final User userToUpdate = Json.decodeValue(routingContext.getBodyAsJson().getJsonObject("user").toString(), User.class);
 
         String headerAuth = routingContext.request().getHeader("Authorization");
-        System.out.println("headerAuth: " + headerAuth);
 
         String[] values = headerAuth.split(" ");
-        System.out.println("values[1]: " + values[1]);
 
         Future future = Future.future();
         future.setHandler(asyncResultHandler);
@@ -460,93 +720,40 @@ public class HttpVerticle extends AbstractVerticle {
             routingContext.response().setStatusCode(400).end();
         }
 
-        String headerAuth = routingContext.request().getHeader("Authorization");
-        System.out.println("headerAuth: " + headerAuth);
+        // UserDAV only needs the follower's email, which the token already carries
+        User jwtUser = new User();
+        jwtUser.setEmail(AuthenticatedUserHandler.email(routingContext));
+        ConduitMessage message = new ConduitMessage(ConduitAction.FOLLOW_USER)
+                .setValue(username)
+                .setUser(jwtUser);
 
-        String[] values = headerAuth.split(" ");
-        System.out.println("values[1]: " + values[1]);
-
-        extractUserFromJWTToken(values[1]).setHandler(ar -> {
-            System.out.println(ar.result());
-
-            JsonObject message = new JsonObject()
-                    .put(MESSAGE_ACTION, MESSAGE_ACTION_FOLLOW_USER)
-                    .put(MESSAGE_FOLLOW_USER_FOLLOWED_USER, username)
-                    .put(MESSAGE_FOLLOW_USER_FOLLOWER, ar.result().getString("email"));
+        send(routingContext, MESSAGE_ADDRESS, message).setHandler(r -> {
 
-            vertx.eventBus().send(MESSAGE_ADDRESS, message, r -> {
+            if (r.succeeded()) {
 
-                if (r.succeeded()) {
+                User followed = r.result().getFollowed();
 
-                    JsonObject details = ((JsonObject) r.result().body()).getJsonObject(MESSAGE_RESPONSE_DETAILS);
-                    User follower = new User(details.getJsonObject(MESSAGE_FOLLOW_USER_FOLLOWER));
-                    User followed = new User(details.getJsonObject(MESSAGE_FOLLOW_USER_FOLLOWED_USER));
-
-                    routingContext.response()
-                            .setStatusCode(200)
-                            .putHeader("Content-Type", "application/json; charset=utf-8")
-                            //.putHeader("Content-Length", String.valueOf(userResult.toString().length()))
-                            .end(Json.encodePrettily(followed.toProfileJson()));
-
-                } else {
-
-                    routingContext.response().setStatusCode(422)
-                            .putHeader("content-type", "application/json; charset=utf-8")
-                            //.putHeader("Content-Length", String.valueOf(loginError.toString().length()))
-                            .end(Json.encodePrettily(r.cause()));
-                }
-            });
-
-        });
+                profileResponse.end(routingContext, 200, followed.toProfileJson(r.result().getUser()));
 
-    }
-
-    private Future<JsonObject> updateUserByUsername(String username, JsonObject userValues) {
-        Future<JsonObject> retVal = Future.future();
-
-        JsonObject message = new JsonObject()
-                .put(MESSAGE_ACTION, MESSAGE_ACTION_UPDATE)
-                .put(MESSAGE_UPDATE_EXISTING, username)
-                .put(MESSAGE_UPDATE_NEW, userValues);
-
-        vertx.eventBus().send(MESSAGE_ADDRESS, message, ar -> {
-
-            if (ar.succeeded()) {
-                retVal.complete(((JsonObject) ar.result().body()).getJsonObject(MESSAGE_RESPONSE_DETAILS));
             } else {
-                retVal.fail(ar.cause());
-            }
-        });
-
-        return retVal;
-    }
 
-    private Future<JsonObject> extractUserFromJWTToken(String token) {
-        Future<JsonObject> retVal = Future.future();
-        jwtAuth.authenticate(new JsonObject()
-                .put("jwt", token), res -> {
-            if (res.succeeded()) {
-                io.vertx.ext.auth.User theUser = res.result();
-                retVal.complete(theUser.principal());
-            } else {
-                retVal.fail(res.cause());
+                errorResponse.end(routingContext, 422, r.cause());
             }
         });
-        return retVal;
+
     }
 
-    private Future<JsonObject> getUserFromEmail(String email) {
-        Future<JsonObject> retVal = Future.future();
+    private Future<User> updateUserByUsername(RoutingContext routingContext, String username, JsonObject userValues) {
+        Future<User> retVal = Future.future();
 
-        JsonObject message = new JsonObject()
-                .put(MESSAGE_ACTION, MESSAGE_ACTION_LOOKUP_USER_BY_EMAIL)
-                .put(MESSAGE_LOOKUP_CRITERIA, email);
+        ConduitMessage message = new ConduitMessage(ConduitAction.UPDATE)
+                .setValue(username)
+                .setDocument(userValues);
 
-        vertx.eventBus().send(MESSAGE_ADDRESS, message, ar -> {
+        send(routingContext, MESSAGE_ADDRESS, message).setHandler(ar -> {
 
             if (ar.succeeded()) {
-                JsonObject userJson = ((JsonObject) ar.result().body()).getJsonObject(MESSAGE_RESPONSE_DETAILS);
-                retVal.complete(userJson);
+                retVal.complete(ar.result().getUser());
             } else {
                 retVal.fail(ar.cause());
             }
@@ -561,96 +768,36 @@ public class HttpVerticle extends AbstractVerticle {
         if (username == null || username.isEmpty()) {
             routingContext.response().setStatusCode(400).end();
         } else {
-            JsonObject message = new JsonObject()
-                    .put(MESSAGE_ACTION, MESSAGE_ACTION_LOOKUP_USER_BY_USERNAME)
-                    .put(MESSAGE_LOOKUP_CRITERIA, username);
+            ConduitMessage message = new ConduitMessage(ConduitAction.LOOKUP_USER_BY_USERNAME)
+                    .setValue(username);
 
-            vertx.eventBus().send(MESSAGE_ADDRESS, message, ar -> {
+            // the caller is only loaded for a signed in request, to tell whether they follow this user
+            CompositeFuture.all(send(routingContext, MESSAGE_ADDRESS, message), AuthenticatedUserHandler.viewer(routingContext)).setHandler(ar -> {
 
                 if (ar.succeeded()) {
-                    JsonObject userJson = ((JsonObject) ar.result().body()).getJsonObject(MESSAGE_RESPONSE_DETAILS);
-                    final User returnedUser = new User(userJson);
-                    routingContext.response()
-                            .setStatusCode(200)
-                            .putHeader("Content-Type", "application/json; charset=utf-8")
-                            //.putHeader("Content-Length", String.valueOf(userResult.toString().length()))
-                            .end(Json.encodePrettily(returnedUser.toProfileJson()));
+                    final User returnedUser = ar.result().<ConduitReply>resultAt(0).getUser();
+                    final User viewer = ar.result().resultAt(1);
+                    profileResponse.end(routingContext, 200, returnedUser.toProfileJson(viewer));
                 } else {
-                    System.out.println("Did Not Find User");
-                    routingContext.response().setStatusCode(422)
-                            .putHeader("content-type", "application/json; charset=utf-8")
-                            //.putHeader("Content-Length", String.valueOf(loginError.toString().length()))
-                            .end(Json.encodePrettily(new AuthenticationError(ErrorMessages.AUTHENTICATION_ERROR_DEFAULT + " " + ar.cause().getMessage())));
+                    errorResponse.end(routingContext, 422, new AuthenticationError(ErrorMessages.AUTHENTICATION_ERROR_DEFAULT + " " + ar.cause().getMessage()));
                 }
             });
         }
     }
 
-    private Future<JsonObject> getPrincipalFromToken(String token) {
-
-        Future<JsonObject> retVal = Future.future();
-
-        String[] values = token.split(" ");
-        System.out.println("values[1]: " + values[1]);
-
-        jwtAuth.authenticate(new JsonObject().put("jwt", values[1]), res -> {
-            if (res.succeeded()) {
-                io.vertx.ext.auth.User theUser = res.result();
-                JsonObject principal = theUser.principal();
-                retVal.complete(principal);
-            } else {
-                retVal.fail(res.cause());
-            }
-        });
-
-        return retVal;
-    }
-
     private void getCurrentUser(RoutingContext routingContext) {
 
-        String headerAuth = routingContext.request().getHeader("Authorization");
-        System.out.println("headerAuth: " + headerAuth);
-
-        String[] values = headerAuth.split(" ");
-        System.out.println("values[1]: " + values[1]);
-
-        jwtAuth.authenticate(new JsonObject()
-                .put("jwt", values[1]), res -> {
-            if (res.succeeded()) {
-                io.vertx.ext.auth.User theUser = res.result();
-                JsonObject principal = theUser.principal();
-                System.out.println("theUser: " + theUser.principal().encodePrettily());
-
-                JsonObject message2 = new JsonObject()
-                        .put(MESSAGE_ACTION, MESSAGE_ACTION_LOOKUP_USER_BY_EMAIL)
-                        .put(MESSAGE_LOOKUP_CRITERIA, principal.getString("email"));
-
-                vertx.eventBus().send(MESSAGE_ADDRESS, message2, ar -> {
-                    if (ar.succeeded()) {
-                        System.out.println(MESSAGE_ACTION_LOOKUP_USER_BY_EMAIL + "succeeded");
-                        JsonObject userJson = ((JsonObject) ar.result().body()).getJsonObject(MESSAGE_RESPONSE_DETAILS);
-                        final User returnedUser = new User(userJson);
-                        // get the JWT Token
-                        returnedUser.setToken(jwtAuth.generateToken(principal, new JWTOptions().setIgnoreExpiration(true)));
-                        routingContext.response()
-                                .setStatusCode(200)
-                                .putHeader("Content-Type", "application/json; charset=utf-8")
-                                //.putHeader("Content-Length", String.valueOf(userResult.toString().length()))
-                                .end(Json.encodePrettily(returnedUser.toConduitJson()));
-                    } else {
-                        System.out.println("Did Not Find User");
-                        routingContext.response().setStatusCode(422)
-                                .putHeader("content-type", "application/json; charset=utf-8")
-                                //.putHeader("Content-Length", String.valueOf(loginError.toString().length()))
-                                .end(Json.encodePrettily(new AuthenticationError(ErrorMessages.AUTHENTICATION_ERROR_DEFAULT + " " + ar.cause().getMessage())));
-                    }
-                });
+        JsonObject principal = AuthenticatedUserHandler.principal(routingContext);
 
+        AuthenticatedUserHandler.user(routingContext).setHandler(ar -> {
+            if (ar.succeeded()) {
+                final User returnedUser = ar.result();
+                // get the JWT Token
+                returnedUser.setToken(jwtAuth.generateToken(principal, new JWTOptions().setIgnoreExpiration(true)));
+                userResponse.end(routingContext, 200, returnedUser.toConduitJson());
             } else {
-                //failed!
-                System.out.println("authentication failed ");
+                errorResponse.end(routingContext, 422, new AuthenticationError(ErrorMessages.AUTHENTICATION_ERROR_DEFAULT + " " + ar.cause().getMessage()));
             }
-
         });
     }
 
@@ -661,27 +808,18 @@ public class HttpVerticle extends AbstractVerticle {
 
         final User user = Json.decodeValue(routingContext.getBodyAsJson().getJsonObject("user").toString(), User.class);
 
-        JsonObject message = new JsonObject()
-                .put(MESSAGE_ACTION, MESSAGE_ACTION_REGISTER)
-                .put(MESSAGE_VALUE_USER, routingContext.getBodyAsJson().getJsonObject("user"));
+        // UserDAV hashes the password of the User it receives so send a separate instance
+        ConduitMessage message = new ConduitMessage(ConduitAction.REGISTER)
+                .setUser(new User(routingContext.getBodyAsJson().getJsonObject("user")));
 
-        System.out.println(message.getJsonObject("user"));
-        vertx.eventBus().send(MESSAGE_ADDRESS, message, ar -> {
+        send(routingContext, MESSAGE_ADDRESS, message).setHandler(ar -> {
             if (ar.succeeded()) {
-                JsonObject userJson = ((JsonObject) ar.result().body()).getJsonObject(MESSAGE_RESPONSE_DETAILS);
-                final User returnedUser = new User(userJson);
+                final User returnedUser = ar.result().getUser();
                 // get the JWT Token
                 returnedUser.setToken(jwtAuth.generateToken(new JsonObject().put("email", user.getEmail()).put("password", user.getPassword()), new JWTOptions().setIgnoreExpiration(true)));
-                routingContext.response()
-                        .setStatusCode(201)
-                        .putHeader("Content-Type", "application/json; charset=utf-8")
-                        //.putHeader("Content-Length", String.valueOf(userResult.toString().length()))
-                        .end(Json.encodePrettily(returnedUser.toConduitJson()));
+                userResponse.end(routingContext, 201, returnedUser.toConduitJson());
             } else {
-                routingContext.response()
-                        .setStatusCode(422)
-                        .putHeader("content-type", "application/json; charset=utf-8")
-                        .end(Json.encodePrettily(new RegistrationError(ar.cause().getMessage())));
+                errorResponse.end(routingContext, 422, new RegistrationError(ar.cause().getMessage()));
             }
         });
         // insert into the authentication collection
@@ -720,26 +858,17 @@ public class HttpVerticle extends AbstractVerticle {
         final User user = Json.decodeValue(routingContext.getBodyAsJson().getJsonObject("user").toString(), User.class);
 
         JsonObject authInfo = new JsonObject().put("email", user.getEmail()).put("password", user.getPassword());
-        JsonObject message = new JsonObject()
-                .put(MESSAGE_ACTION, MESSAGE_ACTION_LOGIN)
-                .put(MESSAGE_VALUE_USER, authInfo);
+        ConduitMessage message = new ConduitMessage(ConduitAction.LOGIN)
+                .setUser(new User(user.getEmail(), user.getPassword()));
 
-        vertx.eventBus().send(MESSAGE_ADDRESS, message, ar -> {
+        send(routingContext, MESSAGE_ADDRESS, message).setHandler(ar -> {
             if (ar.succeeded()) {
 
-                JsonObject body = (JsonObject) ar.result().body();
-                final User returnedUser = new User(body.getJsonObject(MESSAGE_RESPONSE_DETAILS));
+                final User returnedUser = ar.result().getUser();
                 returnedUser.setToken(jwtAuth.generateToken(authInfo, new JWTOptions().setIgnoreExpiration(true)));
-                routingContext.response()
-                        .setStatusCode(200)
-                        .putHeader("Content-Type", "application/json; charset=utf-8")
-                        .end(Json.encodePrettily(returnedUser.toConduitJson()));
+                userResponse.end(routingContext, 200, returnedUser.toConduitJson());
             } else {
-                System.out.println("Did Not Find User");
-                routingContext.response().setStatusCode(422)
-                        .putHeader("content-type", "application/json; charset=utf-8")
-                        //.putHeader("Content-Length", String.valueOf(loginError.toString().length()))
-                        .end(Json.encodePrettily(new AuthenticationError(ErrorMessages.AUTHENTICATION_ERROR_DEFAULT + " " + ar.cause().getMessage())));
+                errorResponse.end(routingContext, 422, new AuthenticationError(ErrorMessages.AUTHENTICATION_ERROR_DEFAULT + " " + ar.cause().getMessage()));
             }
         });
 
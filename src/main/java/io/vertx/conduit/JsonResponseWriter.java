@@ -0,0 +1,113 @@
+package io.vertx.conduit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.EncodeException;
+import io.vertx.core.json.Json;
+import io.vertx.ext.web.RoutingContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes Json responses in compact form straight into a Buffer that is sized from the previous responses written by
+ * this writer, so there is no intermediate String and the Buffer rarely has to grow.  Keep one writer per kind of
+ * payload (user, profile, article, error); a writer is not thread safe and belongs to a single verticle instance.
+ *
+ * Adding ?pretty=true to a request returns pretty printed Json for debugging.  Bodies are compressed by the
+ * ResponseCompression of the route, if any.
+ */
+public class JsonResponseWriter {
+
+    public static final String PRETTY_PARAM = "pretty";
+    public static final String JSON_UTF8 = "application/json; charset=utf-8";
+
+    private static final int MIN_SIZE_HINT = 128;
+
+    // running estimate of the size of a payload
+    private int sizeHint;
+
+    public JsonResponseWriter(int initialSizeHint) {
+        this.sizeHint = Math.max(MIN_SIZE_HINT, initialSizeHint);
+    }
+
+    /**
+     * Serializes the payload and ends the response, unless it has already been ended, e.g. with a 503 by ShedResponse
+     *
+     * @param routingContext
+     * @param statusCode
+     * @param payload a JsonObject or any object Jackson can serialize
+     */
+    public void end(RoutingContext routingContext, int statusCode, Object payload) {
+        endCached(routingContext, statusCode, payload, null);
+    }
+
+    /**
+     * Like end, but keeps the compressed body under the key so that sending the same payload again skips the
+     * compression
+     *
+     * @param routingContext
+     * @param statusCode
+     * @param payload
+     * @param cacheKey identifies the resource, e.g. the slug of an article
+     */
+    public void endCached(RoutingContext routingContext, int statusCode, Object payload, String cacheKey) {
+        if (routingContext.response().ended()) {
+            return;
+        }
+        Buffer body = encode(payload, isPretty(routingContext));
+        ResponseCompression compression = ResponseCompression.of(routingContext);
+        if (compression != null) {
+            body = compression.encode(routingContext, body, cacheKey);
+        }
+        routingContext.response()
+                .setStatusCode(statusCode)
+                .putHeader(HttpProps.CONTENT_TYPE, JSON_UTF8)
+                .end(body);
+    }
+
+    public Buffer encode(Object payload, boolean pretty) {
+        // leave some headroom so that a slightly larger payload doesn't have to grow the buffer
+        Buffer buffer = Buffer.buffer(sizeHint + (sizeHint >> 2));
+        ObjectMapper mapper = pretty ? Json.prettyMapper : Json.mapper;
+        try {
+            mapper.writeValue(new BufferOutputStream(buffer), payload);
+        } catch (IOException e) {
+            throw new EncodeException("Failed to encode as JSON: " + e.getMessage());
+        }
+        if (!pretty) {
+            sizeHint = Math.max(MIN_SIZE_HINT, (sizeHint * 7 + buffer.length()) >> 3);
+        }
+        return buffer;
+    }
+
+    public int getSizeHint() {
+        return sizeHint;
+    }
+
+    private boolean isPretty(RoutingContext routingContext) {
+        return "true".equals(routingContext.request().getParam(PRETTY_PARAM));
+    }
+
+    /**
+     * Jackson flushes its own recycled buffer into this stream in chunks
+     */
+    private static class BufferOutputStream extends OutputStream {
+
+        private final Buffer buffer;
+
+        BufferOutputStream(Buffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.appendByte((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.appendBytes(b, off, len);
+        }
+    }
+}
@@ -1,20 +1,55 @@
 package io.vertx.conduit;
 
+import io.vertx.conduit.cluster.ClusterSync;
+import io.vertx.conduit.comments.CommentDAV;
+import io.vertx.conduit.db.MongoIndexes;
+import io.vertx.conduit.feed.FollowerIndex;
+import io.vertx.conduit.metrics.ConduitMetrics;
+import io.vertx.conduit.tags.TagIndex;
+import io.vertx.conduit.users.ArticleDAV;
 import io.vertx.config.ConfigRetriever;
 import io.vertx.config.ConfigRetrieverOptions;
 import io.vertx.config.ConfigStoreOptions;
+import io.vertx.config.spi.utils.JsonObjectHelper;
 import io.vertx.core.AbstractVerticle;
-import io.vertx.core.CompositeFuture;
 import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
+import io.vertx.ext.mongo.MongoClient;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Deploys the verticles of the roles this node plays.  A single JVM plays every role; in a cluster each node can
+ * play a subset, e.g. -Dconduit.roles=http on the nodes facing the clients and -Dconduit.roles=dav on the nodes
+ * that talk to Mongo, so that either tier scales on its own.
+ */
 public class MainVerticle extends AbstractVerticle {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MainVerticle.class);
 
+    public static final String CONFIG_HTTP_INSTANCES = "http.instances";
+    public static final String CONFIG_USER_DAV_INSTANCES = "user.dav.instances";
+    public static final String CONFIG_ARTICLE_DAV_INSTANCES = "article.dav.instances";
+    public static final String CONFIG_COMMENT_DAV_INSTANCES = "comment.dav.instances";
+    public static final String CONFIG_ROLES = "conduit.roles";
+    // the only system properties that override the config
+    public static final String SYSTEM_PROPERTY_PREFIX = "conduit.";
+
+    public static final String ROLE_HTTP = "http";
+    public static final String ROLE_USERS = "users";
+    public static final String ROLE_ARTICLES = "articles";
+    public static final String ROLE_COMMENTS = "comments";
+    // every DAV
+    public static final String ROLE_DAV = "dav";
+    public static final String ROLE_ALL = "all";
 
     @Override
     public void start(Future<Void> startFuture) {
@@ -22,10 +57,38 @@ public class MainVerticle extends AbstractVerticle {
         getConfig().setHandler(c ->{
             if (c.succeeded()) {
                 LOGGER.info("Configuration retrieved: " + config().getString("env"));
-                DeploymentOptions deploymentOptions = new DeploymentOptions().setConfig(c.result());
-                CompositeFuture.all(
-                        deployVerticle(HttpVerticle.class, deploymentOptions),
-                        deployVerticle(UserDAV.class, deploymentOptions)).setHandler(ar2 -> {
+                JsonObject config = c.result();
+                DeploymentOptions deploymentOptions = new DeploymentOptions().setConfig(config);
+
+                Set<String> roles = roles(config);
+                boolean dav = roles.contains(ROLE_USERS) || roles.contains(ROLE_ARTICLES) || roles.contains(ROLE_COMMENTS);
+                LOGGER.info("roles of this node: " + roles + (vertx.isClustered() ? ", clustered" : ""));
+                // the changes made by the other nodes to the state every node keeps
+                ClusterSync.shared(vertx).listen();
+
+                // the http server is shared by all of the instances so default to one event loop per core
+                int cores = Runtime.getRuntime().availableProcessors();
+                Future<Void> provisioned = dav ? provisionIndexes(config) : Future.succeededFuture();
+                provisioned.compose(v -> {
+                    List<Future<Void>> deployments = new ArrayList<>();
+                    if (roles.contains(ROLE_HTTP)) {
+                        deployments.add(deployVerticle(HttpVerticle.class, instances(deploymentOptions, CONFIG_HTTP_INSTANCES, cores)));
+                        // GET /api/tags is answered from the TagIndex, which only an ArticleDAV loads
+                        if (!roles.contains(ROLE_ARTICLES)) {
+                            deployments.add(TagIndex.shared(vertx).build(mongoClient(config), ConduitMetrics.shared(vertx)));
+                        }
+                    }
+                    if (roles.contains(ROLE_USERS)) {
+                        deployments.add(deployVerticle(UserDAV.class, instances(deploymentOptions, CONFIG_USER_DAV_INSTANCES, cores)));
+                    }
+                    if (roles.contains(ROLE_ARTICLES)) {
+                        deployments.add(deployVerticle(ArticleDAV.class, instances(deploymentOptions, CONFIG_ARTICLE_DAV_INSTANCES, cores)));
+                    }
+                    if (roles.contains(ROLE_COMMENTS)) {
+                        deployments.add(deployVerticle(CommentDAV.class, instances(deploymentOptions, CONFIG_COMMENT_DAV_INSTANCES, cores)));
+                    }
+                    return Futures.all(deployments);
+                }).setHandler(ar2 -> {
                     if (ar2.succeeded()) {
                         LOGGER.info("all deployments succeeded");
                         startFuture.complete();
@@ -40,6 +103,75 @@ public class MainVerticle extends AbstractVerticle {
         });
     }
 
+    /**
+     * Ensures the indexes of the collections before any verticle queries them and builds the FollowerIndex if it is
+     * missing, then logs the query plans when diagnostics are enabled
+     *
+     * @param config
+     * @return
+     */
+    private Future<Void> provisionIndexes(JsonObject config) {
+        if (!config.getBoolean(MongoIndexes.CONFIG_ENSURE, true)) {
+            LOGGER.info("index provisioning disabled");
+            return Future.succeededFuture();
+        }
+
+        MongoClient mongoClient = mongoClient(config);
+        MongoIndexes indexes = new MongoIndexes(mongoClient);
+        return indexes.ensure()
+                // follows made before the FollowerIndex existed are only in the following arrays
+                .compose(v -> new FollowerIndex(mongoClient, ConduitMetrics.shared(vertx)).rebuildIfEmpty())
+                .compose(v -> config.getBoolean(MongoIndexes.CONFIG_EXPLAIN, false)
+                        ? indexes.explain()
+                        : Future.succeededFuture());
+    }
+
+    /**
+     * @param config
+     * @return the same shared client the DAVs use
+     */
+    private MongoClient mongoClient(JsonObject config) {
+        return MongoClient.createShared(vertx, new JsonObject().put("db_name", config.getString("db_name", "conduit")).put("connection_string", config.getString("connection_string", "mongodb://localhost:27017")));
+    }
+
+    /**
+     * @param config
+     * @return the roles listed in conduit.roles, comma separated, with dav and all expanded; every role if missing
+     */
+    private Set<String> roles(JsonObject config) {
+        Set<String> retVal = new HashSet<>();
+        for (String role : config.getString(CONFIG_ROLES, ROLE_ALL).split(",")) {
+            role = role.trim().toLowerCase();
+            if (ROLE_ALL.equals(role)) {
+                retVal.addAll(Arrays.asList(ROLE_HTTP, ROLE_USERS, ROLE_ARTICLES, ROLE_COMMENTS));
+            } else if (ROLE_DAV.equals(role)) {
+                retVal.addAll(Arrays.asList(ROLE_USERS, ROLE_ARTICLES, ROLE_COMMENTS));
+            } else if (Arrays.asList(ROLE_HTTP, ROLE_USERS, ROLE_ARTICLES, ROLE_COMMENTS).contains(role)) {
+                retVal.add(role);
+            } else if (!role.isEmpty()) {
+                LOGGER.warn("unknown role ignored: " + role);
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * Copies the options and sets the number of instances from the configuration
+     *
+     * @param options the options shared by all of the verticles
+     * @param key the configuration key holding the number of instances
+     * @param defaultInstances used when the key is missing or less than 1
+     * @return
+     */
+    private DeploymentOptions instances(DeploymentOptions options, String key, int defaultInstances) {
+        int instances = options.getConfig().getInteger(key, defaultInstances);
+        if (instances < 1) {
+            instances = defaultInstances;
+        }
+        LOGGER.info("deploying " + instances + " instance(s) for " + key);
+        return new DeploymentOptions(options).setInstances(instances);
+    }
+
     private Future<Void> deployVerticle(Class clazz, DeploymentOptions options) {
         Future<Void> retVal = Future.future();
 
@@ -53,15 +185,41 @@ public class MainVerticle extends AbstractVerticle {
         return retVal;
     }
 
+    /**
+     * @return the system properties whose names start with conduit., converted as the sys config store does; the other
+     * properties of the JVM never reach the config of the verticles
+     */
+    static JsonObject systemProperties() {
+        JsonObject retVal = new JsonObject();
+        Properties properties = System.getProperties();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(SYSTEM_PROPERTY_PREFIX)) {
+                retVal.put(name, JsonObjectHelper.convert(properties.getProperty(name)));
+            }
+        }
+        return retVal;
+    }
+
     private Future<JsonObject> getConfig() {
         // Load the default configuration from the classpath
         ConfigStoreOptions localConfig = new ConfigStoreOptions()
                 .setType("file")
                 .setFormat("json")
                 .setConfig(new JsonObject().put("path", "application-config.json"));
+        // the config the verticle was deployed with, e.g. from -conf, overrides the defaults
+        ConfigStoreOptions deploymentConfig = new ConfigStoreOptions()
+                .setType("json")
+                .setConfig(config());
+        // and the conduit.* system properties override both, so that the nodes of a cluster can share a jar and a config
+        // file, e.g. java -Dconduit.roles=dav -jar conduit-fat.jar -cluster
+        ConfigStoreOptions systemProperties = new ConfigStoreOptions()
+                .setType("json")
+                .setConfig(systemProperties());
         // Add the default and container config options into the ConfigRetriever
         ConfigRetrieverOptions retrieverOptions = new ConfigRetrieverOptions()
-                .addStore(localConfig);
+                .addStore(localConfig)
+                .addStore(deploymentConfig)
+                .addStore(systemProperties);
         ConfigRetriever configRetriever = ConfigRetriever.create(vertx, retrieverOptions);
         return ConfigRetriever.getConfigAsFuture(configRetriever);
     }
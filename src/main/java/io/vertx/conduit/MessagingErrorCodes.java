@@ -8,7 +8,10 @@ public enum MessagingErrorCodes {
     NOT_FOUND("Not found: "),
     INVALID_ARGUMENT("Invalid Argument: "),
     UPDATE_FAILURE("Update Failure: "),
-    UNKNOWN_ERROR("Undetermined Error: ");
+    UNKNOWN_ERROR("Undetermined Error: "),
+    // shed by an AdmissionControl, answered with 503
+    OVERLOADED("Overloaded: "),
+    DEADLINE_EXCEEDED("Deadline exceeded: ");
 
     private MessagingErrorCodes(String msg){
         this.message = msg;
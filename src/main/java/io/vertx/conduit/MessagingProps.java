@@ -15,6 +15,15 @@ public class MessagingProps {
     public static final String LOOKUP_BY_FIELD = "lookup.field";
     public static final String ID_FIELD ="id";
     public static final String MESSAGE_SUCCESS = "success";
+    public static final String STREAM_ADDRESS = "stream.address";
+    // header telling the receiver of a stream what kind of message it got
+    public static final String STREAM_HEADER = "stream";
+    public static final String STREAM_ITEM = "item";
+    public static final String STREAM_END = "end";
+    // name of the Projection a DAV should read with
+    public static final String PROJECTION = "projection";
+    // the comment being created
+    public static final String MESSAGE_COMMENT = "comment";
 
 
 
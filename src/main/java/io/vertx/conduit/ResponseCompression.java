@@ -0,0 +1,287 @@
+package io.vertx.conduit;
+
+import io.vertx.conduit.cache.ConduitCaches;
+import io.vertx.conduit.cache.LruCache;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * gzip and deflate for the responses of the API, installed as the first stage of every route.  Bodies smaller than
+ * http.compression.min.size go out as they are, compressing them costs more than it saves.  The responses are
+ * compressed here rather than by the server so that the threshold applies, and so that bytes compressed once can be
+ * sent again as they are, which the server would compress a second time on HTTP/2.
+ *
+ * Brotli is not offered: there is no encoder for it on the classpath, netty 4.1.19 has none and the Java ports need
+ * native code.  Clients that accept br also accept gzip.
+ */
+public class ResponseCompression implements Handler<RoutingContext> {
+
+    public static final String CONFIG_ENABLED = "http.compression";
+    public static final String CONFIG_LEVEL = "http.compression.level";
+    public static final String CONFIG_MIN_SIZE = "http.compression.min.size";
+    public static final String CONFIG_CACHE_SIZE = "http.compression.cache.size";
+
+    public static final String CACHE_NAME = "compressed";
+
+    private static final String CONTEXT_KEY = "conduit.compression";
+
+    private static final CharSequence VARY = HttpHeaders.createOptimized("vary");
+
+    /**
+     * The codings in order of preference
+     */
+    public enum ContentCoding {
+        GZIP("gzip"),
+        DEFLATE("deflate");
+
+        public final String name;
+
+        ContentCoding(String name) {
+            this.name = name;
+        }
+
+        DeflaterOutputStream stream(OutputStream out, int level) throws IOException {
+            if (this == GZIP) {
+                return new GZIPOutputStream(out, 512, true) {
+                    {
+                        def.setLevel(level);
+                    }
+                };
+            }
+            // the deflate coding of HTTP is the zlib format
+            return new DeflaterOutputStream(out, new Deflater(level), 512, true);
+        }
+    }
+
+    private final int level;
+
+    private final int minSize;
+
+    // by key, the last body sent under the key with its compressed forms
+    private final LruCache<String, Compressed> cache;
+
+    public ResponseCompression(Vertx vertx, JsonObject config) {
+        this.level = config.getInteger(CONFIG_LEVEL, 6);
+        this.minSize = config.getInteger(CONFIG_MIN_SIZE, 1024);
+        this.cache = ConduitCaches.shared(vertx, CACHE_NAME, config.getInteger(CONFIG_CACHE_SIZE, 1000), 0);
+    }
+
+    @Override
+    public void handle(RoutingContext routingContext) {
+        routingContext.put(CONTEXT_KEY, this);
+        routingContext.next();
+    }
+
+    /**
+     * @param routingContext
+     * @return the compression of the route, null if its responses are never compressed
+     */
+    public static ResponseCompression of(RoutingContext routingContext) {
+        return routingContext.get(CONTEXT_KEY);
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    /**
+     * @param acceptEncoding the Accept-Encoding header of the request
+     * @return the preferred coding the client accepts, null if none
+     */
+    public static ContentCoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        ContentCoding retVal = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim();
+            if (parts.length > 1 && isZeroQuality(parts[1])) {
+                continue;
+            }
+            for (ContentCoding candidate : ContentCoding.values()) {
+                if ((candidate.name.equalsIgnoreCase(coding) || "*".equals(coding))
+                        && (retVal == null || candidate.ordinal() < retVal.ordinal())) {
+                    retVal = candidate;
+                }
+            }
+        }
+        return retVal;
+    }
+
+    private static boolean isZeroQuality(String parameter) {
+        String q = parameter.trim();
+        if (!q.startsWith("q=")) {
+            return false;
+        }
+        try {
+            return Double.parseDouble(q.substring(2)) <= 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Compresses a body sent in one piece if it is large enough and the client accepts a coding, and sets the headers
+     * to match
+     *
+     * @param routingContext
+     * @param plain          the body
+     * @param cacheKey       if not null, the compressed body is kept under the key and sent again as long as the same
+     *                       plain body is sent under it
+     * @return the body to send
+     */
+    public Buffer encode(RoutingContext routingContext, Buffer plain, String cacheKey) {
+        if (plain.length() < minSize) {
+            return plain;
+        }
+        routingContext.response().putHeader(VARY, HttpHeaders.ACCEPT_ENCODING);
+        ContentCoding coding = negotiate(routingContext.request().getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (coding == null) {
+            return plain;
+        }
+        routingContext.response().putHeader(HttpHeaders.CONTENT_ENCODING, coding.name);
+        if (cacheKey == null) {
+            return compress(plain, coding);
+        }
+        Compressed compressed = cache.get(cacheKey);
+        // the body under the key changed, e.g. the article was updated
+        if (compressed == null || !compressed.plain.equals(plain)) {
+            compressed = new Compressed(plain);
+            cache.put(cacheKey, compressed);
+        }
+        // the server releases what it writes, the cached bytes must stay readable for the next hit
+        return compressed.get(coding, this).copy();
+    }
+
+    /**
+     * For a body written in chunks whose size is not known up front.  The caller checks the size itself, e.g. by only
+     * starting once it has more than the minimum buffered.
+     *
+     * @param routingContext
+     * @return an encoder for the chunks with the headers set, or null if the client accepts no coding
+     */
+    public StreamEncoder stream(RoutingContext routingContext) {
+        routingContext.response().putHeader(VARY, HttpHeaders.ACCEPT_ENCODING);
+        ContentCoding coding = negotiate(routingContext.request().getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (coding == null) {
+            return null;
+        }
+        routingContext.response().putHeader(HttpHeaders.CONTENT_ENCODING, coding.name);
+        return new StreamEncoder(coding, level);
+    }
+
+    Buffer compress(Buffer plain, ContentCoding coding) {
+        Sink sink = new Sink(Buffer.buffer(Math.max(64, plain.length() >> 2)));
+        try (DeflaterOutputStream out = coding.stream(sink, level)) {
+            out.write(plain.getBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sink.take();
+    }
+
+    /**
+     * Compresses the chunks of one response, each write returns what can be sent so far so that the client can start
+     * parsing before the last chunk
+     */
+    public static class StreamEncoder {
+
+        private final Sink sink = new Sink(Buffer.buffer(4096));
+
+        private final DeflaterOutputStream out;
+
+        StreamEncoder(ContentCoding coding, int level) {
+            try {
+                this.out = coding.stream(sink, level);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public Buffer write(Buffer chunk) {
+            try {
+                out.write(chunk.getBytes());
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return sink.take();
+        }
+
+        /**
+         * @param last the last chunk
+         * @return the end of the compressed body
+         */
+        public Buffer end(Buffer last) {
+            try {
+                out.write(last.getBytes());
+                out.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return sink.take();
+        }
+    }
+
+    /**
+     * A body and its compressed forms, each made on first use.  Shared by the verticle instances through the cache, the
+     * buffers are never modified.
+     */
+    private static class Compressed {
+
+        final Buffer plain;
+
+        private final Buffer[] encoded = new Buffer[ContentCoding.values().length];
+
+        Compressed(Buffer plain) {
+            this.plain = plain;
+        }
+
+        synchronized Buffer get(ContentCoding coding, ResponseCompression compression) {
+            if (encoded[coding.ordinal()] == null) {
+                encoded[coding.ordinal()] = compression.compress(plain, coding);
+            }
+            return encoded[coding.ordinal()];
+        }
+    }
+
+    /**
+     * Collects what the compressor writes until it is taken
+     */
+    private static class Sink extends OutputStream {
+
+        private Buffer buffer;
+
+        Sink(Buffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.appendByte((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.appendBytes(b, off, len);
+        }
+
+        Buffer take() {
+            Buffer retVal = buffer;
+            buffer = Buffer.buffer(Math.max(64, retVal.length()));
+            return retVal;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package io.vertx.conduit;
+
+import io.vertx.core.http.Http2Settings;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.net.JdkSSLEngineOptions;
+import io.vertx.core.net.JksOptions;
+import io.vertx.core.net.OpenSSLEngineOptions;
+
+import java.util.Arrays;
+
+/**
+ * Builds the options of the API server from the configuration.  Without TLS the server speaks HTTP/1.1 and accepts
+ * h2c, both as an upgrade and with prior knowledge.  With http.tls it negotiates h2 or HTTP/1.1 with ALPN, on OpenSSL
+ * when netty-tcnative is on the classpath and on the JDK otherwise, and lets clients resume their TLS sessions so that
+ * a reconnect skips the full handshake.
+ *
+ * The HTTP/2 windows and stream limits apply to h2 and h2c alike; a key that is missing keeps the Vert.x default.  The
+ * keystore has no default password, http.tls requires http.tls.keystore.password.
+ */
+public class ServerOptions {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServerOptions.class);
+
+    public static final String CONFIG_TLS = "http.tls";
+    public static final String CONFIG_KEYSTORE_PATH = "http.tls.keystore.path";
+    public static final String CONFIG_KEYSTORE_PASSWORD = "http.tls.keystore.password";
+    // auto, openssl or jdk
+    public static final String CONFIG_SSL_ENGINE = "http.tls.engine";
+    public static final String CONFIG_SESSION_CACHE = "http.tls.session.cache";
+    // offer h2 with ALPN, if false TLS clients get HTTP/1.1; h2c stays accepted on a server without TLS either way
+    public static final String CONFIG_H2 = "http.h2";
+    public static final String CONFIG_CONNECTION_WINDOW = "http2.connection.window.size";
+    public static final String CONFIG_STREAM_WINDOW = "http2.stream.window.size";
+    public static final String CONFIG_MAX_CONCURRENT_STREAMS = "http2.max.concurrent.streams";
+    public static final String CONFIG_MAX_FRAME_SIZE = "http2.max.frame.size";
+
+    public static final String ENGINE_AUTO = "auto";
+    public static final String ENGINE_OPENSSL = "openssl";
+    public static final String ENGINE_JDK = "jdk";
+
+    private ServerOptions() {
+    }
+
+    /**
+     * @param config the configuration of the HttpVerticle
+     * @return the options to create the server with
+     * @throws IllegalArgumentException if http.tls is set without a keystore password
+     */
+    public static HttpServerOptions from(JsonObject config) {
+        HttpServerOptions retVal = new HttpServerOptions();
+        retVal.setInitialSettings(settings(config));
+        if (config.getInteger(CONFIG_CONNECTION_WINDOW) != null) {
+            retVal.setHttp2ConnectionWindowSize(config.getInteger(CONFIG_CONNECTION_WINDOW));
+        }
+
+        if (!config.getBoolean(CONFIG_TLS, false)) {
+            return retVal;
+        }
+        String password = config.getString(CONFIG_KEYSTORE_PASSWORD);
+        if (password == null || password.isEmpty()) {
+            throw new IllegalArgumentException(CONFIG_TLS + " requires " + CONFIG_KEYSTORE_PASSWORD);
+        }
+        retVal.setSsl(true)
+                .setKeyStoreOptions(new JksOptions()
+                        .setPath(config.getString(CONFIG_KEYSTORE_PATH, "server-keystore.jks"))
+                        .setPassword(password));
+
+        String engine = config.getString(CONFIG_SSL_ENGINE, ENGINE_AUTO);
+        boolean openSsl = ENGINE_OPENSSL.equals(engine) || ENGINE_AUTO.equals(engine) && OpenSSLEngineOptions.isAvailable();
+        if (openSsl) {
+            // the JDK engine keeps a session cache of its own, OpenSSL only when asked to
+            retVal.setOpenSslEngineOptions(new OpenSSLEngineOptions()
+                    .setSessionCacheEnabled(config.getBoolean(CONFIG_SESSION_CACHE, true)));
+        } else {
+            retVal.setJdkSslEngineOptions(new JdkSSLEngineOptions());
+        }
+
+        boolean alpn = openSsl ? OpenSSLEngineOptions.isAlpnAvailable() : JdkSSLEngineOptions.isAlpnAvailable();
+        if (config.getBoolean(CONFIG_H2, true)) {
+            if (alpn) {
+                retVal.setUseAlpn(true).setAlpnVersions(Arrays.asList(HttpVersion.HTTP_2, HttpVersion.HTTP_1_1));
+            } else {
+                LOGGER.warn("ALPN is not available on the " + (openSsl ? ENGINE_OPENSSL : ENGINE_JDK) + " engine, serving HTTP/1.1 only");
+            }
+        }
+        LOGGER.info("TLS on the " + (openSsl ? ENGINE_OPENSSL : ENGINE_JDK) + " engine, " + (retVal.isUseAlpn() ? "h2 and HTTP/1.1" : "HTTP/1.1"));
+        return retVal;
+    }
+
+    private static Http2Settings settings(JsonObject config) {
+        Http2Settings retVal = new Http2Settings();
+        if (config.getInteger(CONFIG_STREAM_WINDOW) != null) {
+            retVal.setInitialWindowSize(config.getInteger(CONFIG_STREAM_WINDOW));
+        }
+        if (config.getLong(CONFIG_MAX_CONCURRENT_STREAMS) != null) {
+            retVal.setMaxConcurrentStreams(config.getLong(CONFIG_MAX_CONCURRENT_STREAMS));
+        }
+        if (config.getInteger(CONFIG_MAX_FRAME_SIZE) != null) {
+            retVal.setMaxFrameSize(config.getInteger(CONFIG_MAX_FRAME_SIZE));
+        }
+        return retVal;
+    }
+}
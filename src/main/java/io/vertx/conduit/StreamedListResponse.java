@@ -0,0 +1,182 @@
+package io.vertx.conduit;
+
+import io.vertx.conduit.errors.ConduitError;
+import io.vertx.conduit.messaging.ConduitReply;
+import io.vertx.conduit.users.models.User;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+
+import static io.vertx.conduit.MessagingProps.STREAM_END;
+import static io.vertx.conduit.MessagingProps.STREAM_HEADER;
+import static io.vertx.conduit.MessagingProps.STREAM_ITEM;
+
+/**
+ * Writes the items streamed by a DAV into a chunked response as they arrive:
+ * <pre>{"items":[...],"itemsCount":n,"nextCursor":"..."}</pre>
+ * Small items are coalesced so that a page doesn't turn into one chunk per item.  A page that fits in one chunk is
+ * compressed as a whole, a longer one chunk by chunk so that the client can start parsing before the end.
+ */
+public abstract class StreamedListResponse implements Handler<Message<ConduitReply>> {
+
+    private static final int FLUSH_THRESHOLD = 8192;
+
+    private final RoutingContext routingContext;
+
+    private final JsonResponseWriter itemWriter;
+
+    private final JsonResponseWriter errorWriter;
+
+    // the caller, for the "following" flag of the authors; null if anonymous
+    protected final User viewer;
+
+    // the name of the array, its count is named after it
+    private final String listName;
+
+    private MessageConsumer<ConduitReply> consumer;
+
+    private Buffer pending;
+
+    // compresses the chunks once the first one was flushed, null if the body goes out as it is
+    private ResponseCompression.StreamEncoder encoder;
+
+    private int items;
+
+    private boolean started;
+
+    private boolean flushed;
+
+    private boolean finished;
+
+    /**
+     * @param routingContext
+     * @param itemWriter     sized for a single item
+     * @param errorWriter    used if the listing fails before anything was written
+     * @param viewer         the caller, null if anonymous
+     * @param listName       e.g. "articles"
+     */
+    protected StreamedListResponse(RoutingContext routingContext, JsonResponseWriter itemWriter, JsonResponseWriter errorWriter, User viewer, String listName) {
+        this.routingContext = routingContext;
+        this.itemWriter = itemWriter;
+        this.errorWriter = errorWriter;
+        this.viewer = viewer;
+        this.listName = listName;
+    }
+
+    /**
+     * @param item a STREAM_ITEM message
+     * @return the Json of the item in the response
+     */
+    protected abstract JsonObject render(ConduitReply item);
+
+    /**
+     * @param consumer the consumer of the stream address, unregistered once the response is complete
+     */
+    public void listenOn(MessageConsumer<ConduitReply> consumer) {
+        this.consumer = consumer;
+        // the client went away, drop whatever is still coming
+        routingContext.response().closeHandler(v -> {
+            finished = true;
+            consumer.unregister();
+        });
+    }
+
+    @Override
+    public void handle(Message<ConduitReply> message) {
+        String kind = message.headers().get(STREAM_HEADER);
+        if (STREAM_ITEM.equals(kind)) {
+            item(message.body());
+        } else if (STREAM_END.equals(kind)) {
+            end(message.body());
+        }
+    }
+
+    /**
+     * The listing failed: answer with an error if nothing was written yet, otherwise drop the connection because the
+     * client already has a partial body
+     *
+     * @param cause
+     */
+    public void fail(Throwable cause) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        unregister();
+        if (!flushed) {
+            errorWriter.end(routingContext, 422, new ConduitError(cause.getMessage()));
+        } else {
+            routingContext.response().close();
+        }
+    }
+
+    private void item(ConduitReply item) {
+        if (finished) {
+            return;
+        }
+        start();
+
+        JsonObject json = render(item);
+
+        if (items++ > 0) {
+            pending.appendByte((byte) ',');
+        }
+        pending.appendBuffer(itemWriter.encode(json, false));
+
+        if (pending.length() >= FLUSH_THRESHOLD) {
+            if (!flushed) {
+                ResponseCompression compression = ResponseCompression.of(routingContext);
+                if (compression != null && pending.length() >= compression.getMinSize()) {
+                    encoder = compression.stream(routingContext);
+                }
+            }
+            routingContext.response().write(encoder == null ? pending : encoder.write(pending));
+            flushed = true;
+            pending = Buffer.buffer(FLUSH_THRESHOLD + (FLUSH_THRESHOLD >> 2));
+        }
+    }
+
+    private void end(ConduitReply end) {
+        if (finished) {
+            return;
+        }
+        start();
+        finished = true;
+        unregister();
+
+        pending.appendString("],\"").appendString(listName).appendString("Count\":").appendString(String.valueOf(end.getCount() == null ? items : end.getCount()));
+        if (end.getCursor() != null) {
+            // the cursor is base64url, it never needs escaping
+            pending.appendString(",\"nextCursor\":\"").appendString(end.getCursor()).appendByte((byte) '"');
+        }
+        pending.appendByte((byte) '}');
+        if (flushed) {
+            routingContext.response().end(encoder == null ? pending : encoder.end(pending));
+            return;
+        }
+        ResponseCompression compression = ResponseCompression.of(routingContext);
+        routingContext.response().end(compression == null ? pending : compression.encode(routingContext, pending, null));
+    }
+
+    private void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        HttpServerResponse response = routingContext.response();
+        response.setChunked(true)
+                .setStatusCode(200)
+                .putHeader(HttpProps.CONTENT_TYPE, JsonResponseWriter.JSON_UTF8);
+        pending = Buffer.buffer(FLUSH_THRESHOLD + (FLUSH_THRESHOLD >> 2)).appendString("{\"").appendString(listName).appendString("\":[");
+    }
+
+    private void unregister() {
+        if (consumer != null) {
+            consumer.unregister();
+        }
+    }
+}
@@ -1,6 +1,23 @@
 package io.vertx.conduit;
 
 import com.github.slugify.Slugify;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoException;
+import io.vertx.conduit.auth.PasswordHasher;
+import io.vertx.conduit.cache.UserCache;
+import io.vertx.conduit.cluster.ClusterSync;
+import io.vertx.conduit.db.Projection;
+import io.vertx.conduit.feed.FollowerIndex;
+import io.vertx.conduit.feed.TimelineStore;
+import io.vertx.conduit.tags.TagIndex;
+import io.vertx.conduit.messaging.ConduitMessage;
+import io.vertx.conduit.messaging.ConduitMessageCodec;
+import io.vertx.conduit.messaging.ConduitReply;
+import io.vertx.conduit.metrics.ActionMetrics;
+import io.vertx.conduit.metrics.ConduitMetrics;
+import io.vertx.conduit.overload.AdmissionControl;
+import io.vertx.conduit.tracing.Span;
+import io.vertx.conduit.tracing.Tracer;
 import io.vertx.conduit.users.models.ConduitModelType;
 import io.vertx.conduit.users.models.MongoConstants;
 import io.vertx.conduit.users.models.User;
@@ -9,19 +26,16 @@ import io.vertx.core.Future;
 import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.eventbus.Message;
 import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import io.vertx.ext.auth.mongo.MongoAuth;
-import io.vertx.ext.auth.mongo.impl.DefaultHashStrategy;
-import io.vertx.ext.auth.mongo.impl.MongoUser;
+import io.vertx.ext.mongo.FindOptions;
 import io.vertx.ext.mongo.MongoClient;
 
 import java.util.Date;
-
-import static io.vertx.conduit.MessagingProps.MESSAGE_ACTION;
-import static io.vertx.conduit.MessagingProps.MESSAGE_ACTION_UPDATE;
-import static io.vertx.conduit.MessagingProps.MESSAGE_RESPONSE_DETAILS;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class UserDAV extends AbstractVerticle {
 
@@ -44,19 +58,49 @@ public class UserDAV extends AbstractVerticle {
     public static final String MESSAGE_UPDATE_EXISTING = "existing";
     public static final String MESSAGE_UPDATE_NEW = "new";
     private static final Logger LOGGER = LoggerFactory.getLogger(UserDAV.class);
+
+    // saves of an article whose slug is taken, the first under the plain slug and the others with a random suffix
+    private static final int SLUG_ATTEMPTS = 3;
     // for DB access
     private MongoClient mongoClient;
 
     // Authentication provider for logging in
     private MongoAuth loginAuthProvider;
 
+    // user documents shared by every UserDAV instance, invalidated on each write
+    private UserCache userCache;
+
+    // hashes and verifies passwords on a worker pool, never on the event loop
+    private PasswordHasher passwordHasher;
+
+    // the timelines of the followers, kept in step with every new article, follow and unfollow
+    private TimelineStore timelines;
+
+    // followers of each user and the follow counters
+    private FollowerIndex followerIndex;
+
+    // tags of every article, shared with ArticleDAV
+    private TagIndex tagIndex;
+
+    private ClusterSync cluster;
+
+    // latency of the actions and of the Mongo calls
+    private ConduitMetrics metrics;
+
+    private ActionMetrics actions;
+
+    // bounds the messages this instance handles at once and queues
+    private AdmissionControl admission;
+
+    // continues the traces of the requests that sent the messages
+    private Tracer tracer;
+
     @Override
     public void start(Future<Void> startFuture) {
 
         LOGGER.info("HttpVerticle starting with config for " + config().getString("env"));
 
-        // Configure the MongoClient inline.  This should be externalized into a config file
-        mongoClient = MongoClient.createShared(vertx, new JsonObject().put("db_name", config().getString("db_name", "conduit")).put("connection_string", config().getString("connection_string", "mongodb://localhost:27017")));
+        mongoClient = createMongoClient();
 
         // Configure authentication with MongoDB
         loginAuthProvider = MongoAuth.create(mongoClient, new JsonObject());
@@ -66,59 +110,106 @@ public class UserDAV extends AbstractVerticle {
         JsonObject authProperties = new JsonObject();
         MongoAuth authProvider = MongoAuth.create(mongoClient, authProperties);
 
+        userCache = new UserCache(vertx, config());
+        passwordHasher = new PasswordHasher(vertx, loginAuthProvider, config());
+        metrics = ConduitMetrics.shared(vertx);
+        timelines = new TimelineStore(mongoClient, metrics, config());
+        followerIndex = new FollowerIndex(mongoClient, metrics);
+        tagIndex = TagIndex.shared(vertx);
+        cluster = ClusterSync.shared(vertx);
+        actions = metrics.address(MESSAGE_ADDRESS);
+        admission = AdmissionControl.create(context, config(), "user.dav", actions);
+        tracer = Tracer.shared(vertx, config());
+
+        ConduitMessageCodec.register(vertx);
+
         EventBus eventBus = vertx.eventBus();
-        MessageConsumer<JsonObject> consumer = eventBus.consumer(MESSAGE_ADDRESS);
-
-        consumer.handler(message -> {
-
-            String action = message.body().getString(MESSAGE_ACTION);
-            LOGGER.info(action);
-
-            switch (action) {
-                case MESSAGE_ACTION_CREATE_ARTICLE:
-                    createArticle(message);
-                    break;
-                case MESSAGE_ACTION_REGISTER:
-                    registerUser(message);
-                    break;
-                case MESSAGE_ACTION_LOGIN:
-                    loginUser(message);
-                    break;
-                case MESSAGE_ACTION_LOOKUP_USER_BY_EMAIL:
-                    lookupUserByEmail(message);
-                    break;
-                case MESSAGE_ACTION_LOOKUP_USER_BY_USERNAME:
-                    lookupUserByUsername(message);
-                    break;
-                case MESSAGE_ACTION_FOLLOW_USER:
-                    followUser(message);
-                    break;
-                case MESSAGE_ACTION_UPDATE:
-                    updateUser(message);
-                    break;
-                case MESSAGE_ACTION_UNFOLLOW:
-                    unfollowUser(message);
-                    break;
-                default:
-                    message.fail(1, "Unkown action: " + message.body());
+        MessageConsumer<Object> consumer = eventBus.consumer(MESSAGE_ADDRESS);
+
+        consumer.handler(received -> {
+
+            ConduitMessage request = ConduitMessage.from(received.body());
+            LOGGER.info(request.getAction());
+
+            if (request.getAction() == null) {
+                received.fail(1, "Unkown action: " + received.body());
+                return;
             }
+
+            Message<Object> message = tracer.traced(actions.timed(received, request.getAction()), request.getAction().name);
+            admission.admit(message, admitted -> {
+                // the Mongo calls made by the action become children of its span
+                Span previous = Tracer.activate(Tracer.span(message));
+                try {
+                    dispatch(admitted, request);
+                } finally {
+                    Tracer.restore(previous);
+                }
+            });
         });
 
         startFuture.complete();
     }
 
-    private void lookupByCriteria(Message<JsonObject> message, JsonObject query) {
+    /**
+     * Hands the message to the method of its action
+     *
+     * @param message
+     * @param request
+     */
+    private void dispatch(Message<Object> message, ConduitMessage request) {
+        switch (request.getAction()) {
+            case CREATE_ARTICLE:
+                createArticle(message, request);
+                break;
+            case REGISTER:
+                registerUser(message, request);
+                break;
+            case LOGIN:
+                loginUser(message, request);
+                break;
+            case LOOKUP_USER_BY_EMAIL:
+                lookupUserByEmail(message, request);
+                break;
+            case LOOKUP_USER_BY_USERNAME:
+                lookupUserByUsername(message, request);
+                break;
+            case FOLLOW_USER:
+                followUser(message, request);
+                break;
+            case UPDATE:
+                updateUser(message, request);
+                break;
+            case UNFOLLOW_USER:
+                unfollowUser(message, request);
+                break;
+            default:
+                message.fail(1, "Unkown action: " + message.body());
+        }
+    }
+
+    /**
+     * @return the client shared by the DAVs, benchmarks replace it with a stub
+     */
+    protected MongoClient createMongoClient() {
+        return MongoClient.createShared(vertx, new JsonObject().put("db_name", config().getString("db_name", "conduit")).put("connection_string", config().getString("connection_string", "mongodb://localhost:27017")));
+    }
+
+    @Override
+    public void stop() {
+        passwordHasher.close();
     }
 
     /**
      * Wrap the create method with Article specific stuff
      *
      * @param message
+     * @param request
      */
-    private void createArticle(Message<JsonObject> message) {
+    private void createArticle(Message<Object> message, ConduitMessage request) {
 
-        // get the JsonObject representing the Article from the message
-        JsonObject objectToCreate = message.body().getJsonObject(MESSAGE_CREATE_OBJECT);
+        // get the Article from the message
+        Article objectToCreate = request.getArticle();
 
         // verify that it exists
         if (objectToCreate == null) {
@@ -126,57 +217,114 @@ public class UserDAV extends AbstractVerticle {
         } else {
 
             // add the timestamp
-            long time = new Date().getTime();
-            objectToCreate.put("createdAt", time);
-            objectToCreate.put("updatedAt", time);
+            Date time = new Date();
+            objectToCreate.setCreatedAt(time);
+            objectToCreate.setUpdatedAt(time);
 
             Slugify slg = new Slugify();
-            String slug = slg.slugify(objectToCreate.getString("title"));
-            objectToCreate.put("slug", slug);
+            String slug = slg.slugify(objectToCreate.getTitle());
+
+            insertArticle(objectToCreate, slug, slug, SLUG_ATTEMPTS).setHandler(ar -> {
+                if (ar.succeeded()) {
+                    objectToCreate.setId(ar.result());
+                    tagIndex.add(objectToCreate.getId(), objectToCreate.getTagsList());
+                    cluster.tagsReplaced(objectToCreate.getId(), objectToCreate.getTagsList());
+                    ConduitReply.reply(message, new ConduitReply().setArticle(objectToCreate));
+                    fanOut(objectToCreate);
+                } else {
+                    message.fail(MessagingErrorCodes.INSERT_FAILURE.ordinal(), MessagingErrorCodes.INSERT_FAILURE.message);
+                }
+            });
+        }
+    }
 
-            message.body().remove(MESSAGE_CREATE_OBJECT);
-            message.body().put(MESSAGE_CREATE_OBJECT, objectToCreate);//.putJsonObject(MESSAGE_CREATE_OBJECT).put("article", objectToCreate);
+    /**
+     * Saves the article under the slug; when another article already has it, slug_unique rejects the save and the
+     * article is saved again under its base slug with a random suffix, e.g. how-to-train-your-dragon-k3v9x2
+     *
+     * @param article
+     * @param base     the slug of the title
+     * @param slug     the slug to save the article under
+     * @param attempts
+     * @return the _id of the article, whose slug is the one it was saved under
+     */
+    private Future<String> insertArticle(Article article, String base, String slug, int attempts) {
+        article.setSlug(slug);
+        return create(article.toMongoJson(), MongoConstants.COLLECTION_NAME_ARTICLES).recover(t -> attempts > 1 && isDuplicateKey(t)
+                ? insertArticle(article, base, base + "-" + Long.toString(ThreadLocalRandom.current().nextLong(1L << 30, 1L << 35), 36), attempts - 1)
+                : Future.failedFuture(t));
+    }
 
-            create(message, MongoConstants.COLLECTION_NAME_ARTICLES);
+    private static boolean isDuplicateKey(Throwable t) {
+        return t instanceof MongoException && ErrorCategory.fromErrorCode(((MongoException) t).getCode()) == ErrorCategory.DUPLICATE_KEY;
+    }
 
+    /**
+     * Adds a new article to the timelines of the followers of its author.  This runs after the author got the reply, so
+     * a follower may read their feed an instant before the article reaches it.
+     *
+     * @param article
+     */
+    private void fanOut(Article article) {
+        if (article.getAuthor() == null || article.getAuthor().get_id() == null) {
+            return;
         }
+        timelines.fanOut(article.getAuthor().get_id(), article.getId(), article.getCreatedAt().getTime()).setHandler(ar -> {
+            if (ar.succeeded()) {
+                LOGGER.debug("article " + article.getId() + " added to " + ar.result() + " timelines");
+            } else {
+                LOGGER.error("fan out of article " + article.getId() + " failed", ar.cause());
+            }
+        });
     }
 
-    private void create(Message<JsonObject> message, String collectionName) {
+    private Future<String> create(JsonObject objectToCreate, String collectionName) {
+        Future<String> retVal = Future.future();
 
-        JsonObject objectToCreate = message.body().getJsonObject(MESSAGE_CREATE_OBJECT);
-        mongoClient.save(collectionName, objectToCreate, res -> {
+        mongoClient.save(collectionName, objectToCreate, metrics.mongo(collectionName, "save").time(res -> {
             if (res.succeeded()) {
                 LOGGER.info("Created: " + objectToCreate);
-                message.reply(new JsonObject().put(MESSAGE_RESPONSE_DETAILS, objectToCreate));
+                retVal.complete(res.result());
             } else {
-                message.fail(MessagingErrorCodes.INSERT_FAILURE.ordinal(), MessagingErrorCodes.INSERT_FAILURE.message);
+                retVal.fail(res.cause());
             }
-        });
+        }));
+        return retVal;
     }
 
-    private void unfollowUser(Message<JsonObject> message) {
+    private void unfollowUser(Message<Object> message, ConduitMessage request) {
+        if (request.getValue() == null || request.getUser() == null || request.getUser().getEmail() == null) {
+            message.fail(MessagingErrorCodes.INVALID_ARGUMENT.ordinal(), MessagingErrorCodes.INVALID_ARGUMENT.message + "username and user are required");
+            return;
+        }
+
         // Get the user to follow
-        String username = message.body().getString(MESSAGE_FOLLOW_USER_FOLLOWED_USER);
+        String username = request.getValue();
         findUserByUsername(username).setHandler(ar -> {
 
             if (ar.succeeded()) {
                 User followed = ar.result();
 
                 // Get the user to update
-                findUserByEmail(message.body().getString(MESSAGE_FOLLOW_USER_FOLLOWER)).setHandler(ar2 -> {
+                findUserByEmail(request.getUser().getEmail()).setHandler(ar2 -> {
                     if (ar2.succeeded()) {
 
                         User follower = ar2.result();
                         follower.unFollow(followed);
 
-                        updateUserWithNewValues(follower).setHandler(ar3 -> {
+                        updateFollowing(follower, "$pull", followed.get_id())
+                                .compose(changed -> changed ? followerIndex.remove(follower.get_id(), followed.get_id())
+                                        .map(v -> counted(follower, followed, -1)) : Future.<Void>succeededFuture())
+                                .compose(v -> timelines.prune(follower.get_id(), followed.get_id()))
+                                .setHandler(ar3 -> {
 
                             // Update the user
                             if (ar3.succeeded()) {
-                                message.reply(
-                                        new JsonObject()
-                                                .put(MESSAGE_RESPONSE_DETAILS, follower.toJson()));
+                                ConduitReply.reply(message, new ConduitReply()
+                                        .setUser(follower)
+                                        .setFollowed(followed));
+                            } else {
+                                message.fail(MessagingErrorCodes.UPDATE_FAILURE.ordinal(), MessagingErrorCodes.UPDATE_FAILURE.message + ar3.cause().getMessage());
                             }
                         });
                     } else {
@@ -189,30 +337,38 @@ public class UserDAV extends AbstractVerticle {
         });
     }
 
-    private void followUser(Message<JsonObject> message) {
+    private void followUser(Message<Object> message, ConduitMessage request) {
+        if (request.getValue() == null || request.getUser() == null || request.getUser().getEmail() == null) {
+            message.fail(MessagingErrorCodes.INVALID_ARGUMENT.ordinal(), MessagingErrorCodes.INVALID_ARGUMENT.message + "username and user are required");
+            return;
+        }
 
         // Get the user to follow
-        String username = message.body().getString(MESSAGE_FOLLOW_USER_FOLLOWED_USER);
+        String username = request.getValue();
         findUserByUsername(username).setHandler(ar -> {
 
             if (ar.succeeded()) {
                 User followed = ar.result();
 
                 // Get the user to update
-                findUserByEmail(message.body().getString(MESSAGE_FOLLOW_USER_FOLLOWER)).setHandler(ar2 -> {
+                findUserByEmail(request.getUser().getEmail()).setHandler(ar2 -> {
                     if (ar2.succeeded()) {
 
                         User follower = ar2.result();
                         follower.follow(followed);
-                        addFollower(follower, followed).setHandler(ar3 -> {
+                        updateFollowing(follower, "$addToSet", followed.get_id())
+                                .compose(changed -> changed ? followerIndex.add(follower.get_id(), followed.get_id())
+                                        .map(v -> counted(follower, followed, 1)) : Future.<Void>succeededFuture())
+                                .compose(v -> timelines.backfill(follower.get_id(), followed.get_id()))
+                                .setHandler(ar3 -> {
 
                             // Update the user
                             if (ar3.succeeded()) {
-                                message.reply(
-                                        new JsonObject()
-                                                .put(MESSAGE_RESPONSE_DETAILS, new JsonObject()
-                                                        .put(MESSAGE_FOLLOW_USER_FOLLOWER, follower.toMongoJson())
-                                                        .put(MESSAGE_FOLLOW_USER_FOLLOWED_USER, followed.toMongoJson())));
+                                ConduitReply.reply(message, new ConduitReply()
+                                        .setUser(follower)
+                                        .setFollowed(followed));
+                            } else {
+                                message.fail(MessagingErrorCodes.UPDATE_FAILURE.ordinal(), MessagingErrorCodes.UPDATE_FAILURE.message + ar3.cause().getMessage());
                             }
                         });
                     } else {
@@ -226,23 +382,24 @@ public class UserDAV extends AbstractVerticle {
 
     }
 
-    private void updateUser(Message<JsonObject> message) {
+    private void updateUser(Message<Object> message, ConduitMessage request) {
 
-        JsonObject valuesToUpdate = message.body().getJsonObject(MESSAGE_UPDATE_NEW);
-        String username = message.body().getString(MESSAGE_UPDATE_EXISTING);
+        JsonObject valuesToUpdate = request.getDocument();
+        String username = request.getValue();
 
         JsonObject query = new JsonObject().put("username", username);
         JsonObject update = new JsonObject().put("$set", valuesToUpdate);
 
 
-        mongoClient.updateCollection(MongoConstants.COLLECTION_NAME_USERS, query, update, ar -> {
+        mongoClient.updateCollection(MongoConstants.COLLECTION_NAME_USERS, query, update, metrics.mongo(MongoConstants.COLLECTION_NAME_USERS, "updateCollection").time(ar -> {
 
             if (ar.succeeded()) {
 
-                mongoClient.find(MongoConstants.COLLECTION_NAME_USERS, new JsonObject().put("username", username), ar2 -> {
+                userCache.invalidate(username);
+                findUserDocument("username", username).setHandler(ar2 -> {
                     if (ar2.succeeded()) {
-                        JsonObject result = ar2.result().get(0);
-                        message.reply(new JsonObject().put(MESSAGE_RESPONSE_DETAILS, result));
+                        User result = new User(ar2.result());
+                        ConduitReply.reply(message, new ConduitReply().setUser(result));
                     } else {
                         message.fail(1, ar2.cause().getMessage());
                     }
@@ -250,171 +407,245 @@ public class UserDAV extends AbstractVerticle {
             } else {
                 message.fail(1, ar.cause().getMessage());
             }
-        });
+        }));
     }
 
     /**
-     * @param userToUpdate User object with new values that need to be persisted
+     * The counters of both users changed in Mongo: drop the cached documents and bring the replied Users in line
+     *
+     * @param follower
+     * @param followed
+     * @param delta
      * @return
      */
-    private Future<Void> updateUserWithNewValues(User userToUpdate) {
-        Future<Void> retVal = Future.future();
+    private Void counted(User follower, User followed, int delta) {
+        userCache.invalidate(follower.getUsername());
+        userCache.invalidate(followed.getUsername());
+        follower.setFollowingCount(follower.getFollowingCount() + delta);
+        followed.setFollowersCount(followed.getFollowersCount() + delta);
+        return null;
+    }
 
-        JsonObject newValues = userToUpdate.toMongoJson();
-        newValues.remove("_id");
-        JsonObject query = new JsonObject().put("_id", userToUpdate.get_id());
-        JsonObject update = new JsonObject().put("$set", newValues);
+    /**
+     * Adds or removes a single followed user without rewriting the others
+     *
+     * @param follower
+     * @param operator   "$addToSet" or "$pull"
+     * @param followedId
+     * @return true if the following set changed, false if the follow already existed or didn't exist
+     */
+    private Future<Boolean> updateFollowing(User follower, String operator, String followedId) {
+        Future<Boolean> retVal = Future.future();
+
+        JsonObject query = new JsonObject().put("_id", follower.get_id());
+        JsonObject update = new JsonObject()
+                .put(operator, new JsonObject().put("following", followedId));
 
-        mongoClient.updateCollection(MongoConstants.COLLECTION_NAME_USERS, query, update, ar -> {
+        mongoClient.updateCollection(MongoConstants.COLLECTION_NAME_USERS, query, update, metrics.mongo(MongoConstants.COLLECTION_NAME_USERS, "updateCollection").time(ar -> {
+            userCache.invalidate(follower.getUsername());
             if (ar.succeeded()) {
-                retVal.complete();
-            } else {
-                retVal.fail(ar.cause());
+                retVal.complete(ar.result().getDocModified() > 0);
+                return;
             }
-        });
+            // following used to be $set to the last followed id, neither operator applies to a single value
+            followingAsArray(follower).setHandler(migrated -> {
+                if (migrated.succeeded() && migrated.result()) {
+                    updateFollowing(follower, operator, followedId).setHandler(retVal.completer());
+                } else {
+                    retVal.fail(ar.cause());
+                }
+            });
+        }));
 
         return retVal;
     }
 
-
-    private Future<Void> addFollower(User userToUpdate, User followed) {
-        Future<Void> retVal = Future.future();
-
-        JsonObject query = new JsonObject().put("email", userToUpdate.getEmail());
-        JsonObject update = new JsonObject()
-                .put("$set", new JsonObject()
-                        .put("following", followed.get_id()));
-
-        mongoClient.updateCollection(MongoConstants.COLLECTION_NAME_USERS, query, update, ar -> {
-            if (ar.succeeded()) {
-                retVal.complete();
-            } else {
-                retVal.fail(ar.cause());
+    /**
+     * @param follower
+     * @return true if following held a single id and was replaced by an array holding it
+     */
+    private Future<Boolean> followingAsArray(User follower) {
+        Future<Boolean> retVal = Future.future();
+
+        JsonObject query = new JsonObject().put("_id", follower.get_id());
+        mongoClient.findOne(MongoConstants.COLLECTION_NAME_USERS, query, new JsonObject().put("following", 1), metrics.mongo(MongoConstants.COLLECTION_NAME_USERS, "findOne").time(ar -> {
+            if (ar.failed() || ar.result() == null || !(ar.result().getValue("following") instanceof String)) {
+                retVal.complete(false);
+                return;
             }
-        });
+            String following = ar.result().getString("following");
+            JsonObject legacy = query.copy().put("following", following);
+            JsonObject update = new JsonObject()
+                    .put("$set", new JsonObject().put("following", new JsonArray().add(following)));
+            mongoClient.updateCollection(MongoConstants.COLLECTION_NAME_USERS, legacy, update, metrics.mongo(MongoConstants.COLLECTION_NAME_USERS, "updateCollection").time(ar2 -> {
+                retVal.complete(ar2.succeeded() && ar2.result().getDocModified() == 1);
+            }));
+        }));
 
         return retVal;
     }
 
     private Future<User> findUserByEmail(String email) {
         LOGGER.debug("findUserByEmail: " + email);
-        Future<User> retVal = Future.future();
-
-        JsonObject query = new JsonObject().put("email", email);
-        mongoClient.find(MongoConstants.COLLECTION_NAME_USERS, query, ar -> {
-
-            if (ar.succeeded()) {
-                User userToFollow = new User(ar.result().get(0));
-                retVal.complete(userToFollow);
-            } else {
-                retVal.fail(ar.cause());
-            }
-        });
-        return retVal;
+        return lookupUserByCriteria("email", email);
     }
 
     private Future<User> findUserByUsername(String username) {
+        return lookupUserByCriteria("username", username);
+    }
 
-        Future<User> retVal = Future.future();
-
-        JsonObject query = new JsonObject().put("username", username);
-        mongoClient.find(MongoConstants.COLLECTION_NAME_USERS, query, ar -> {
+    /**
+     * Answers with the profile of the user whatever projection the message names, the password hash and the salt never
+     * leave UserDAV
+     *
+     * @param message
+     * @param request
+     */
+    private void lookupUserByUsername(Message<Object> message, ConduitMessage request) {
 
-            if (ar.succeeded()) {
-                LOGGER.debug(ar.result().get(0));
-                User userToFollow = new User(ar.result().get(0));
-                retVal.complete(userToFollow);
+        lookupUserByCriteria("username", request.getValue()).setHandler(res -> {
+            if (res.succeeded()) {
+                ConduitReply.reply(message, new ConduitReply().setUser(res.result()));
             } else {
-                retVal.fail(ar.cause());
+                message.fail(MessagingErrorCodes.NOT_FOUND.ordinal(), MessagingErrorCodes.NOT_FOUND.message + res.cause());
             }
         });
-        return retVal;
     }
 
-    private void lookupUserByUsername(Message<JsonObject> message) {
-        JsonObject query = new JsonObject()
-                .put("username", message.body().getString(MESSAGE_LOOKUP_CRITERIA));
+    /**
+     * Like lookupUserByUsername, only ever the profile
+     *
+     * @param message
+     * @param request
+     */
+    private void lookupUserByEmail(Message<Object> message, ConduitMessage request) {
 
-        mongoClient.find(MongoConstants.COLLECTION_NAME_USERS, query, res -> {
+        lookupUserByCriteria("email", request.getValue()).setHandler(res -> {
             if (res.succeeded()) {
-                LOGGER.debug("lookupUserByUsername for username " + message.body().getString(MESSAGE_LOOKUP_CRITERIA) + " result: " + res.result());
-                message.reply(new JsonObject()
-                        .put(MESSAGE_RESPONSE_DETAILS, res.result().get(0)));
+                ConduitReply.reply(message, new ConduitReply().setUser(res.result()));
             } else {
                 message.fail(MessagingErrorCodes.NOT_FOUND.ordinal(), MessagingErrorCodes.NOT_FOUND.message + res.cause());
             }
         });
     }
 
-    private void lookupUserByEmail(Message<JsonObject> message) {
-
-        JsonObject query = new JsonObject()
-                .put("email", message.body().getString(MESSAGE_LOOKUP_CRITERIA));
+    private Future<User> lookupUserByCriteria(String criteria, String value) {
+        Future<User> retVal = Future.future();
 
-        mongoClient.find(MongoConstants.COLLECTION_NAME_USERS, query, res -> {
+        findUserDocument(criteria, value).setHandler(res -> {
             if (res.succeeded()) {
-                LOGGER.debug("lookupUserByEmail for email " + message.body().getString(MESSAGE_LOOKUP_CRITERIA) + " result: " + res.result());
-                message.reply(new JsonObject()
-                        .put(MESSAGE_RESPONSE_DETAILS, res.result().get(0)));
+                // every caller gets its own User, the cached document is never handed out
+                retVal.complete(new User(res.result()));
             } else {
-                message.fail(MessagingErrorCodes.NOT_FOUND.ordinal(), MessagingErrorCodes.NOT_FOUND.message + res.cause());
+                retVal.fail(res.cause());
             }
         });
+        return retVal;
     }
 
-    private Future<User> lookupUserByCriteria(String criteria, String value) {
-        Future<User> retVal = Future.future();
+    private Future<JsonObject> findUserDocument(String criteria, String value) {
+        return findUserDocument(criteria, value, Projection.PROFILE);
+    }
 
+    /**
+     * Read-through lookup of a single user document.  Profiles are answered from the UserCache when possible.  The
+     * writes of every instance invalidate the cache, and a document read while such a write was in flight is not cached
+     * because it may predate the write.  Any other projection, i.e. the password hash for a login, is always read from
+     * Mongo and never cached.
+     *
+     * @param criteria
+     * @param value
+     * @param projection
+     * @return the stored document, failed with NOT_FOUND when there is no such user
+     */
+    private Future<JsonObject> findUserDocument(String criteria, String value, Projection projection) {
+        Future<JsonObject> retVal = Future.future();
+
+        boolean cacheable = projection == Projection.PROFILE;
+        JsonObject cached = cacheable ? userCache.get(criteria, value) : null;
+        if (cached != null) {
+            retVal.complete(cached);
+            return retVal;
+        }
+
+        // before the read, so that an invalidation during the read is noticed
+        long stamp = userCache.stamp();
         JsonObject query = new JsonObject()
                 .put(criteria, value);
-        mongoClient.find(MongoConstants.COLLECTION_NAME_USERS, query, res -> {
-            if (res.succeeded()) {
-                retVal.complete(new User(res.result().get(0)));
+        FindOptions options = new FindOptions().setFields(projection.fields()).setLimit(1);
+        mongoClient.findWithOptions(MongoConstants.COLLECTION_NAME_USERS, query, options, metrics.mongo(MongoConstants.COLLECTION_NAME_USERS, "findWithOptions").time(res -> {
+            if (res.succeeded() && !res.result().isEmpty()) {
+                JsonObject document = res.result().get(0);
+                LOGGER.debug("findUserDocument for " + criteria + " " + value + " result: " + document);
+                if (cacheable) {
+                    userCache.putIfUnchanged(document, stamp);
+                }
+                retVal.complete(document);
+            } else if (res.succeeded()) {
+                retVal.fail(MessagingErrorCodes.NOT_FOUND.message);
             } else {
                 retVal.fail(res.cause());
             }
-        });
+        }));
         return retVal;
     }
 
 
-    private void loginUser(Message<JsonObject> message) {
+    /**
+     * Checks the credentials the same way MongoAuth.authenticate does, with the hashing running on the PasswordHasher
+     * pool
+     *
+     * @param message
+     * @param request
+     */
+    private void loginUser(Message<Object> message, ConduitMessage request) {
 
-        //
-        JsonObject authInfo = message.body().getJsonObject(MESSAGE_VALUE_USER);
+        String email = request.getUser().getEmail();
+        String password = request.getUser().getPassword();
 
-        LOGGER.debug(authInfo.toString());
+        LOGGER.debug("login: " + email);
 
-        loginAuthProvider.authenticate(authInfo, ar -> {
-            if (ar.succeeded()) {
+        if (email == null || password == null) {
+            message.fail(MessagingErrorCodes.INVALID_ARGUMENT.ordinal(), MessagingErrorCodes.INVALID_ARGUMENT.message + "email and password are required");
+            return;
+        }
 
-                lookupUserByCriteria("email", authInfo.getString("email")).setHandler(ar2 -> {
-                    if (ar2.succeeded()) {
-                        LOGGER.debug(ar2.result());
-                        message.reply(new JsonObject()
-                                .put(MESSAGE_RESPONSE_DETAILS, ar2.result().toJson()));
+        findUserDocument("email", email, Projection.AUTH).setHandler(ar -> {
+            if (ar.succeeded()) {
+                JsonObject storedUser = ar.result();
+                passwordHasher.verify(password, storedUser).setHandler(ar2 -> {
+                    if (ar2.succeeded() && ar2.result()) {
+                        // the hash and the salt stay in this verticle
+                        User user = new User(storedUser);
+                        user.setPassword(null);
+                        user.setSalt(null);
+                        ConduitReply.reply(message, new ConduitReply().setUser(user));
+                    } else if (ar2.succeeded()) {
+                        message.fail(MessagingErrorCodes.NOT_FOUND.ordinal(), MessagingErrorCodes.NOT_FOUND.message + "Invalid username/password");
                     } else {
-                        message.reply(new JsonObject()
-                                .put(MESSAGE_RESPONSE_DETAILS, ar2.cause().getMessage()));
+                        message.fail(MessagingErrorCodes.LOOKUP_FAILED.ordinal(), MessagingErrorCodes.LOOKUP_FAILED.message + ar2.cause().getMessage());
                     }
                 });
             } else {
-                message.reply(new JsonObject()
-                        .put(MESSAGE_RESPONSE_DETAILS, ar.cause().getMessage()));
+                message.fail(MessagingErrorCodes.NOT_FOUND.ordinal(), MessagingErrorCodes.NOT_FOUND.message + ar.cause().getMessage());
             }
         });
 
     }
 
-    private void registerUser(Message<JsonObject> message) {
+    private void registerUser(Message<Object> message, ConduitMessage request) {
 
-        final User userToRegister = new User(message.body().getJsonObject(MESSAGE_VALUE_USER));
+        final User userToRegister = request.getUser();
 
         insertUser(userToRegister).setHandler(ar -> {
 
+            // a registration replaces whatever was cached under this username
+            userCache.invalidate(userToRegister.getUsername());
             if (ar.succeeded()) {
-                message.reply(new JsonObject()
-                        .put(MESSAGE_RESPONSE_DETAILS, userToRegister.toJson()));
+                // the hash and the salt PasswordHasher set stay in this verticle
+                userToRegister.setPassword(null);
+                userToRegister.setSalt(null);
+                ConduitReply.reply(message, new ConduitReply().setUser(userToRegister));
             } else {
                 message.fail(MessagingErrorCodes.INSERT_FAILURE.ordinal(), MessagingErrorCodes.INSERT_FAILURE + ar.cause().getMessage());
             }
@@ -425,23 +656,21 @@ public class UserDAV extends AbstractVerticle {
     private Future<Void> insertUser(User user) {
         Future<Void> retVal = Future.future();
 
-        user.setSalt(DefaultHashStrategy.generateSalt());
-        String hashedPassword = loginAuthProvider
-                .getHashStrategy().computeHash(user.getPassword(),
-                        new MongoUser(
-                                new JsonObject()
-                                        .put("email", user.getEmail()),
-                                loginAuthProvider));
-        user.setPassword(hashedPassword);
-
-        mongoClient.save(MongoConstants.COLLECTION_NAME_USERS, user.toMongoJson(), ar -> {
-            if (ar.succeeded()) {
-                user.set_id(ar.result());
-                LOGGER.debug("insert successful:" + user.toMongoJson());
-                retVal.complete();
-            } else {
-                retVal.fail(ar.cause());
+        passwordHasher.hashPassword(user).setHandler(hashed -> {
+            if (hashed.failed()) {
+                retVal.fail(hashed.cause());
+                return;
             }
+
+            mongoClient.save(MongoConstants.COLLECTION_NAME_USERS, user.toMongoJson(), metrics.mongo(MongoConstants.COLLECTION_NAME_USERS, "save").time(ar -> {
+                if (ar.succeeded()) {
+                    user.set_id(ar.result());
+                    LOGGER.debug("insert successful: " + user.getUsername());
+                    retVal.complete();
+                } else {
+                    retVal.fail(ar.cause());
+                }
+            }));
         });
 
         return retVal;
@@ -0,0 +1,186 @@
+package io.vertx.conduit.auth;
+
+import io.vertx.conduit.messaging.ConduitAction;
+import io.vertx.conduit.messaging.ConduitMessage;
+import io.vertx.conduit.messaging.ConduitReply;
+import io.vertx.conduit.overload.Deadlines;
+import io.vertx.conduit.overload.ShedResponse;
+import io.vertx.conduit.tracing.Span;
+import io.vertx.conduit.tracing.Tracer;
+import io.vertx.conduit.users.models.User;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.jwt.JWTAuth;
+import io.vertx.ext.web.RoutingContext;
+
+import static io.vertx.conduit.UserDAV.MESSAGE_ADDRESS;
+
+/**
+ * Route stage that verifies the JWT in the Authorization header once and attaches the caller to the RoutingContext.
+ * Both "Bearer" and "Token" schemes are accepted; a missing or invalid token ends the request with a 401.  The
+ * {@link #optional(Vertx, JWTAuth)} variant lets requests without an Authorization header through anonymously.
+ *
+ * Downstream handlers read the verified claims with {@link #principal(RoutingContext)}.  The User document is only
+ * fetched from UserDAV when a handler asks for it with {@link #user(RoutingContext)}, and at most once per request.
+ */
+public class AuthenticatedUserHandler implements Handler<RoutingContext> {
+
+    private static final String CONTEXT_PRINCIPAL = "conduit.principal";
+    private static final String CONTEXT_USER = "conduit.user";
+    private static final String CONTEXT_LOADER = "conduit.user.loader";
+
+    private static final String[] SCHEMES = {"Bearer ", "Token "};
+
+    private final Vertx vertx;
+
+    private final JWTAuth jwtAuth;
+
+    private final boolean optional;
+
+    private final Deadlines deadlines;
+
+    public AuthenticatedUserHandler(Vertx vertx, JWTAuth jwtAuth) {
+        this(vertx, jwtAuth, false, new Deadlines(new JsonObject()));
+    }
+
+    private AuthenticatedUserHandler(Vertx vertx, JWTAuth jwtAuth, boolean optional, Deadlines deadlines) {
+        this.vertx = vertx;
+        this.jwtAuth = jwtAuth;
+        this.optional = optional;
+        this.deadlines = deadlines;
+    }
+
+    public static AuthenticatedUserHandler create(Vertx vertx, JWTAuth jwtAuth) {
+        return new AuthenticatedUserHandler(vertx, jwtAuth);
+    }
+
+    /**
+     * @param deadlines how long the lookup of the User is waited for
+     */
+    public static AuthenticatedUserHandler create(Vertx vertx, JWTAuth jwtAuth, Deadlines deadlines) {
+        return new AuthenticatedUserHandler(vertx, jwtAuth, false, deadlines);
+    }
+
+    /**
+     * For routes that render differently for a signed in caller, e.g. the "following" flag of a profile.  A request
+     * without an Authorization header is anonymous, an invalid token is still a 401.
+     */
+    public static AuthenticatedUserHandler optional(Vertx vertx, JWTAuth jwtAuth) {
+        return optional(vertx, jwtAuth, new Deadlines(new JsonObject()));
+    }
+
+    public static AuthenticatedUserHandler optional(Vertx vertx, JWTAuth jwtAuth, Deadlines deadlines) {
+        return new AuthenticatedUserHandler(vertx, jwtAuth, true, deadlines);
+    }
+
+    @Override
+    public void handle(RoutingContext routingContext) {
+        String header = routingContext.request().getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null && optional) {
+            routingContext.next();
+            return;
+        }
+        String token = extractToken(header);
+        if (token == null) {
+            routingContext.fail(401);
+            return;
+        }
+
+        jwtAuth.authenticate(new JsonObject().put("jwt", token), ar -> {
+            if (ar.succeeded()) {
+                routingContext.setUser(ar.result());
+                routingContext.put(CONTEXT_PRINCIPAL, ar.result().principal());
+                routingContext.put(CONTEXT_LOADER, this);
+                routingContext.next();
+            } else {
+                routingContext.fail(401);
+            }
+        });
+    }
+
+    /**
+     * @return false for an anonymous request let through by an optional handler
+     */
+    public static boolean isAuthenticated(RoutingContext routingContext) {
+        return routingContext.get(CONTEXT_PRINCIPAL) != null;
+    }
+
+    /**
+     * @return the calling User, or null for an anonymous request
+     */
+    public static Future<User> viewer(RoutingContext routingContext) {
+        return isAuthenticated(routingContext) ? user(routingContext) : Future.succeededFuture();
+    }
+
+    /**
+     * @return the verified claims of the caller
+     */
+    public static JsonObject principal(RoutingContext routingContext) {
+        JsonObject principal = routingContext.get(CONTEXT_PRINCIPAL);
+        if (principal == null) {
+            throw new IllegalStateException("No authenticated user, is the route missing an AuthenticatedUserHandler?");
+        }
+        return principal;
+    }
+
+    /**
+     * @return the email claim of the caller, enough to address the user without loading it
+     */
+    public static String email(RoutingContext routingContext) {
+        return principal(routingContext).getString("email");
+    }
+
+    /**
+     * Load the calling User, reusing the result if a previous handler on the same request already loaded it
+     */
+    public static Future<User> user(RoutingContext routingContext) {
+        User user = routingContext.get(CONTEXT_USER);
+        if (user != null) {
+            return Future.succeededFuture(user);
+        }
+
+        AuthenticatedUserHandler loader = routingContext.get(CONTEXT_LOADER);
+        if (loader == null) {
+            return Future.failedFuture(new IllegalStateException("No authenticated user"));
+        }
+        return loader.load(routingContext);
+    }
+
+    private Future<User> load(RoutingContext routingContext) {
+        Future<User> retVal = Future.future();
+
+        ConduitMessage message = new ConduitMessage(ConduitAction.LOOKUP_USER_BY_EMAIL)
+                .setValue(email(routingContext));
+
+        Span span = Tracer.span(routingContext).child(MESSAGE_ADDRESS).tag("action", message.getAction().name);
+        vertx.eventBus().<ConduitReply>send(MESSAGE_ADDRESS, message, span.inject(deadlines.options(message.getAction())), ar -> {
+            if (ar.succeeded()) {
+                span.finish();
+                User loaded = ar.result().body().getUser();
+                routingContext.put(CONTEXT_USER, loaded);
+                retVal.complete(loaded);
+            } else {
+                span.fail(ar.cause()).finish();
+                ShedResponse.endIfShed(routingContext, ar.cause());
+                retVal.fail(ar.cause());
+            }
+        });
+        return retVal;
+    }
+
+    private static String extractToken(String header) {
+        if (header == null) {
+            return null;
+        }
+        for (String scheme : SCHEMES) {
+            if (header.regionMatches(true, 0, scheme, 0, scheme.length())) {
+                String token = header.substring(scheme.length()).trim();
+                return token.isEmpty() ? null : token;
+            }
+        }
+        return null;
+    }
+}
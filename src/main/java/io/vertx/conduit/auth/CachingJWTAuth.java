@@ -0,0 +1,96 @@
+package io.vertx.conduit.auth;
+
+import io.vertx.conduit.cache.ConduitCaches;
+import io.vertx.conduit.cache.LruCache;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.User;
+import io.vertx.ext.auth.jwt.JWTAuth;
+import io.vertx.ext.jwt.JWTOptions;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * JWTAuth that remembers the principals of tokens it has already verified, so a client presenting the same token again
+ * skips the signature check.  Entries are keyed by a SHA-256 hash of the token and expire after the configured ttl or
+ * when the token itself expires, whichever comes first.
+ *
+ * The cache is shared by every HttpVerticle instance in the Vertx instance.
+ */
+public class CachingJWTAuth implements JWTAuth {
+
+    public static final String CACHE_NAME = "jwt.principals";
+    public static final String CONFIG_CACHE_SIZE = "jwt.cache.size";
+    public static final String CONFIG_CACHE_TTL_SECONDS = "jwt.cache.ttl.seconds";
+
+    private static final String PERMISSIONS_CLAIM_KEY = "permissions";
+
+    private final JWTAuth delegate;
+
+    private final LruCache<String, JsonObject> principals;
+
+    public CachingJWTAuth(Vertx vertx, JWTAuth delegate, JsonObject config) {
+        this.delegate = delegate;
+        this.principals = ConduitCaches.shared(vertx, CACHE_NAME,
+                config.getInteger(CONFIG_CACHE_SIZE, 10000),
+                config.getLong(CONFIG_CACHE_TTL_SECONDS, 300L) * 1000);
+    }
+
+    @Override
+    public void authenticate(JsonObject authInfo, Handler<AsyncResult<User>> resultHandler) {
+        String token = authInfo.getString("jwt");
+        if (token == null) {
+            delegate.authenticate(authInfo, resultHandler);
+            return;
+        }
+
+        String key = hash(token);
+        JsonObject principal = principals.get(key);
+        if (principal != null) {
+            resultHandler.handle(Future.succeededFuture(newUser(principal)));
+            return;
+        }
+
+        delegate.authenticate(authInfo, ar -> {
+            if (ar.succeeded()) {
+                JsonObject verified = ar.result().principal();
+                // never keep a token past its own expiry
+                if (verified.containsKey("exp")) {
+                    principals.put(key, verified, verified.getLong("exp") * 1000);
+                } else {
+                    principals.put(key, verified);
+                }
+            }
+            resultHandler.handle(ar);
+        });
+    }
+
+    @Override
+    public String generateToken(JsonObject claims, JWTOptions options) {
+        return delegate.generateToken(claims, options);
+    }
+
+    public LruCache<String, JsonObject> getCache() {
+        return principals;
+    }
+
+    private User newUser(JsonObject principal) {
+        return new TokenUser(principal, PERMISSIONS_CLAIM_KEY);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM has to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package io.vertx.conduit.auth;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the password hashing pool, shared by every PasswordHasher in the Vertx instance
+ */
+public class HashingPoolStats implements Shareable {
+
+    private static final String POOLS_MAP = "conduit.pools";
+
+    private final String name;
+
+    private final int poolSize;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final AtomicInteger maxQueued = new AtomicInteger();
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder queuedNanos = new LongAdder();
+
+    private final LongAdder busyNanos = new LongAdder();
+
+    HashingPoolStats(String name, int poolSize) {
+        this.name = name;
+        this.poolSize = poolSize;
+    }
+
+    static HashingPoolStats shared(Vertx vertx, String name, int poolSize) {
+        LocalMap<String, HashingPoolStats> pools = vertx.sharedData().getLocalMap(POOLS_MAP);
+        return pools.computeIfAbsent(name, n -> new HashingPoolStats(n, poolSize));
+    }
+
+    /**
+     * @param vertx
+     * @return the stats of every worker pool keyed by the name of the pool
+     */
+    public static JsonObject stats(Vertx vertx) {
+        LocalMap<String, HashingPoolStats> pools = vertx.sharedData().getLocalMap(POOLS_MAP);
+        JsonObject retVal = new JsonObject();
+        for (HashingPoolStats pool : pools.values()) {
+            retVal.put(pool.name, pool.toJson());
+        }
+        return retVal;
+    }
+
+    void submitted() {
+        maxQueued.accumulateAndGet(queued.incrementAndGet(), Math::max);
+    }
+
+    void started(long waitedNanos) {
+        queued.decrementAndGet();
+        active.incrementAndGet();
+        queuedNanos.add(waitedNanos);
+    }
+
+    void finished(long busyNanos, boolean succeeded) {
+        active.decrementAndGet();
+        this.busyNanos.add(busyNanos);
+        if (succeeded) {
+            completed.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    /**
+     * @return number of tasks waiting for a worker thread
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public int getActive() {
+        return active.get();
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public JsonObject toJson() {
+        long done = completed.sum() + failed.sum();
+        return new JsonObject()
+                .put("poolSize", poolSize)
+                .put("queued", queued.get())
+                .put("maxQueued", maxQueued.get())
+                .put("active", active.get())
+                .put("completed", completed.sum())
+                .put("failed", failed.sum())
+                .put("meanQueuedMillis", done == 0 ? 0.0 : queuedNanos.sum() / 1e6 / done)
+                .put("meanBusyMillis", done == 0 ? 0.0 : busyNanos.sum() / 1e6 / done);
+    }
+}
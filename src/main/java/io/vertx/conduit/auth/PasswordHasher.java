@@ -0,0 +1,153 @@
+package io.vertx.conduit.auth;
+
+import io.vertx.conduit.users.models.User;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.AbstractUser;
+import io.vertx.ext.auth.AuthProvider;
+import io.vertx.ext.auth.mongo.HashStrategy;
+import io.vertx.ext.auth.mongo.MongoAuth;
+
+import java.security.SecureRandom;
+
+/**
+ * Runs the password hashing of the MongoAuth provider on a dedicated, sized worker pool so that registrations and logins
+ * never hash on an event loop.  The pool is shared by name, every UserDAV instance submits to the same threads.
+ *
+ * Hashes are computed by the HashStrategy of the MongoAuth provider, exactly as it computes them when it authenticates,
+ * with the salt read from the salt column of the user.
+ */
+public class PasswordHasher {
+
+    public static final String POOL_NAME = "conduit.hashing";
+    public static final String CONFIG_POOL_SIZE = "hashing.pool.size";
+
+    private static final int SALT_BYTES = 32;
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final MongoAuth authProvider;
+
+    private final WorkerExecutor executor;
+
+    private final HashingPoolStats stats;
+
+    public PasswordHasher(Vertx vertx, MongoAuth authProvider, JsonObject config) {
+        int poolSize = config.getInteger(CONFIG_POOL_SIZE, Runtime.getRuntime().availableProcessors());
+        this.authProvider = authProvider;
+        this.executor = vertx.createSharedWorkerExecutor(POOL_NAME, poolSize);
+        this.stats = HashingPoolStats.shared(vertx, POOL_NAME, poolSize);
+    }
+
+    /**
+     * Give the user a new salt and replace its clear text password with the hash
+     *
+     * @param user
+     * @return completes once the password of user has been replaced
+     */
+    public Future<Void> hashPassword(User user) {
+        String email = user.getEmail();
+        String password = user.getPassword();
+        String salt = generateSalt();
+
+        // the salt has to be part of the principal, it is what authentication will hash the password with
+        JsonObject principal = new JsonObject()
+                .put("email", email)
+                .put("salt", salt);
+
+        return this.<String>submit(f -> {
+            HashStrategy strategy = authProvider.getHashStrategy();
+            f.complete(strategy.computeHash(password, new StoredUser(principal)));
+        }).map(hash -> {
+            user.setSalt(salt);
+            user.setPassword(hash);
+            return null;
+        });
+    }
+
+    /**
+     * @param password   the clear text password the user logged in with
+     * @param storedUser the user document as stored in Mongo
+     * @return true if password matches the stored hash
+     */
+    public Future<Boolean> verify(String password, JsonObject storedUser) {
+        return submit(f -> {
+            HashStrategy strategy = authProvider.getHashStrategy();
+            StoredUser user = new StoredUser(storedUser);
+            String storedHash = strategy.getStoredPwd(user);
+            f.complete(storedHash != null && storedHash.equals(strategy.computeHash(password, user)));
+        });
+    }
+
+    public HashingPoolStats getStats() {
+        return stats;
+    }
+
+    public void close() {
+        executor.close();
+    }
+
+    private <T> Future<T> submit(Handler<Future<T>> task) {
+        Future<T> retVal = Future.future();
+        long submittedAt = System.nanoTime();
+        stats.submitted();
+
+        // unordered, hashes of different requests run in parallel on the pool
+        executor.<T>executeBlocking(f -> {
+            long startedAt = System.nanoTime();
+            stats.started(startedAt - submittedAt);
+            try {
+                task.handle(f);
+            } finally {
+                stats.finished(System.nanoTime() - startedAt, f.succeeded());
+            }
+        }, false, retVal);
+        return retVal;
+    }
+
+    /**
+     * @return a random salt of the same length and alphabet as the ones MongoAuth generates
+     */
+    private static String generateSalt() {
+        byte[] bytes = new byte[SALT_BYTES];
+        RANDOM.nextBytes(bytes);
+        char[] retVal = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            retVal[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            retVal[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(retVal);
+    }
+
+    /**
+     * The user the HashStrategy reads the salt and the stored hash from, only its principal is used
+     */
+    private static class StoredUser extends AbstractUser {
+
+        private final JsonObject principal;
+
+        StoredUser(JsonObject principal) {
+            this.principal = principal;
+        }
+
+        @Override
+        public JsonObject principal() {
+            return principal;
+        }
+
+        @Override
+        public void setAuthProvider(AuthProvider authProvider) {
+        }
+
+        @Override
+        protected void doIsPermitted(String permission, Handler<AsyncResult<Boolean>> resultHandler) {
+            resultHandler.handle(Future.succeededFuture(false));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package io.vertx.conduit.auth;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.AbstractUser;
+import io.vertx.ext.auth.AuthProvider;
+
+/**
+ * The user of a token whose signature was already verified, rebuilt by CachingJWTAuth from the cached claims.  Like the
+ * users of JWTAuth, its permissions are the strings of one claim of the token.
+ */
+class TokenUser extends AbstractUser {
+
+    private final JsonObject principal;
+
+    private final JsonArray permissions;
+
+    TokenUser(JsonObject principal, String permissionsClaimKey) {
+        this.principal = principal;
+        this.permissions = principal.getJsonArray(permissionsClaimKey, null);
+    }
+
+    @Override
+    public JsonObject principal() {
+        return principal;
+    }
+
+    @Override
+    public void setAuthProvider(AuthProvider authProvider) {
+        // the claims are all there is to check, there is nothing to ask the provider
+    }
+
+    @Override
+    protected void doIsPermitted(String permission, Handler<AsyncResult<Boolean>> resultHandler) {
+        resultHandler.handle(Future.succeededFuture(permissions != null && permissions.contains(permission)));
+    }
+}
@@ -0,0 +1,56 @@
+package io.vertx.conduit.cache;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+
+/**
+ * Registry of the caches shared by the verticles deployed in a Vertx instance
+ */
+public class ConduitCaches {
+
+    public static final String CACHES_MAP = "conduit.caches";
+
+    /**
+     * Returns the cache registered under name, creating it on first use.  The size and ttl of the first caller win.
+     *
+     * @param vertx
+     * @param name
+     * @param maxSize
+     * @param ttlMillis
+     * @param <K>
+     * @param <V>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> LruCache<K, V> shared(Vertx vertx, String name, int maxSize, long ttlMillis) {
+        LocalMap<String, LruCache<?, ?>> caches = vertx.sharedData().getLocalMap(CACHES_MAP);
+        return (LruCache<K, V>) caches.computeIfAbsent(name, n -> new LruCache<K, V>(n, maxSize, ttlMillis));
+    }
+
+    /**
+     * @param vertx
+     * @param name
+     * @param <K>
+     * @param <V>
+     * @return the cache registered under name, or null if no verticle of this Vertx instance uses it
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> LruCache<K, V> find(Vertx vertx, String name) {
+        LocalMap<String, LruCache<?, ?>> caches = vertx.sharedData().getLocalMap(CACHES_MAP);
+        return name == null ? null : (LruCache<K, V>) caches.get(name);
+    }
+
+    /**
+     * @param vertx
+     * @return the stats of every registered cache keyed by the name of the cache
+     */
+    public static JsonObject stats(Vertx vertx) {
+        LocalMap<String, LruCache<?, ?>> caches = vertx.sharedData().getLocalMap(CACHES_MAP);
+        JsonObject retVal = new JsonObject();
+        for (LruCache<?, ?> cache : caches.values()) {
+            retVal.put(cache.getName(), cache.toJson());
+        }
+        return retVal;
+    }
+}
@@ -0,0 +1,186 @@
+package io.vertx.conduit.cache;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, thread safe LRU cache where every entry also has an expiry time.  Instances are Shareable so that all of the
+ * instances of a verticle can use the same cache, see ConduitCaches.
+ *
+ * @param <K>
+ * @param <V> values are handed out as-is so they should be immutable or never modified by the callers
+ */
+public class LruCache<K, V> implements Shareable {
+
+    // keys whose last invalidation is remembered for putIfUnchanged; a read outlasting more invalidations is not cached
+    private static final int MAX_INVALIDATIONS = 1024;
+
+    private final String name;
+
+    private final int maxSize;
+
+    private final long ttlMillis;
+
+    private final CacheStats stats = new CacheStats();
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    // bumped by every invalidation, see putIfUnchanged
+    private long clock;
+
+    // clock of the last invalidation of each recently invalidated key, oldest first
+    private final LinkedHashMap<K, Long> invalidated = new LinkedHashMap<>();
+
+    // clock of the newest invalidation no longer in invalidated
+    private long forgotten;
+
+    /**
+     * @param name
+     * @param maxSize   the least recently used entry is evicted once the cache holds more than maxSize entries
+     * @param ttlMillis time to live of an entry, 0 or less means entries only leave the cache when they are evicted
+     */
+    public LruCache(String name, int maxSize, long ttlMillis) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<K, Entry<V>>(Math.min(maxSize, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    stats.eviction();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param key
+     * @return the cached value or null if there is no entry or the entry has expired
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            stats.miss();
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key);
+            stats.expiration();
+            stats.miss();
+            return null;
+        }
+        stats.hit();
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE);
+    }
+
+    /**
+     * @param key
+     * @param value
+     * @param expiresAt epoch millis after which the entry is no longer returned; capped by the ttl of the cache
+     */
+    public synchronized void put(K key, V value, long expiresAt) {
+        if (ttlMillis > 0) {
+            expiresAt = Math.min(expiresAt, System.currentTimeMillis() + ttlMillis);
+        }
+        entries.put(key, new Entry<>(value, expiresAt));
+    }
+
+    /**
+     * Store a value that was read after the stamp was taken, unless its key was invalidated in the meantime.  This keeps
+     * a slow read from putting back a value that a concurrent write has just replaced or removed, while writes to other
+     * keys don't stop it from being cached.
+     *
+     * @param key
+     * @param value
+     * @param stamp value of {@link #stamp()} taken before the value was read
+     * @return true if the value was stored
+     */
+    public synchronized boolean putIfUnchanged(K key, V value, long stamp) {
+        Long invalidatedAt = invalidated.get(key);
+        // a key no longer remembered may have been invalidated after the stamp
+        if (stamp < forgotten || invalidatedAt != null && invalidatedAt > stamp) {
+            return false;
+        }
+        put(key, value);
+        return true;
+    }
+
+    /**
+     * @return a stamp to pass to putIfUnchanged
+     */
+    public synchronized long stamp() {
+        return clock;
+    }
+
+    /**
+     * @param key
+     * @return the value that was removed or null
+     */
+    public synchronized V invalidate(K key) {
+        invalidated.remove(key);
+        invalidated.put(key, ++clock);
+        if (invalidated.size() > MAX_INVALIDATIONS) {
+            Iterator<Map.Entry<K, Long>> eldest = invalidated.entrySet().iterator();
+            forgotten = eldest.next().getValue();
+            eldest.remove();
+        }
+        Entry<V> entry = entries.remove(key);
+        return entry == null ? null : entry.value;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        // every key counts as invalidated now
+        invalidated.clear();
+        forgotten = ++clock;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    public JsonObject toJson() {
+        return stats.toJson()
+                .put("size", size())
+                .put("maxSize", maxSize)
+                .put("ttlMillis", ttlMillis);
+    }
+
+    private static class Entry<V> {
+
+        final V value;
+
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
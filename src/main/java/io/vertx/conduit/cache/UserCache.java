@@ -0,0 +1,107 @@
+package io.vertx.conduit.cache;
+
+import io.vertx.conduit.cluster.ClusterSync;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * User documents read with the profile Projection, indexed by username, email and _id.  The documents are keyed by username and the
+ * other indexes only map to the username, so invalidating a username is enough to drop every way of reaching a
+ * document, even after the email of the user changed.  Invalidations reach the other nodes of a cluster through
+ * ClusterSync.
+ *
+ * Cached documents are shared between threads and must never be modified; build a new User from them instead.
+ */
+public class UserCache {
+
+    public static final String CACHE_NAME = "users";
+    public static final String EMAIL_INDEX_NAME = "users.by.email";
+    public static final String ID_INDEX_NAME = "users.by.id";
+    public static final String CONFIG_CACHE_SIZE = "user.cache.size";
+    public static final String CONFIG_CACHE_TTL_SECONDS = "user.cache.ttl.seconds";
+
+    private final LruCache<String, JsonObject> byUsername;
+
+    private final LruCache<String, String> usernameByEmail;
+
+    private final LruCache<String, String> usernameById;
+
+    private final ClusterSync cluster;
+
+    public UserCache(Vertx vertx, JsonObject config) {
+        int maxSize = config.getInteger(CONFIG_CACHE_SIZE, 10000);
+        long ttlMillis = config.getLong(CONFIG_CACHE_TTL_SECONDS, 60L) * 1000;
+        this.byUsername = ConduitCaches.shared(vertx, CACHE_NAME, maxSize, ttlMillis);
+        this.usernameByEmail = ConduitCaches.shared(vertx, EMAIL_INDEX_NAME, maxSize, ttlMillis);
+        this.usernameById = ConduitCaches.shared(vertx, ID_INDEX_NAME, maxSize, ttlMillis);
+        this.cluster = ClusterSync.shared(vertx);
+    }
+
+    /**
+     * @param field "username", "email" or "_id", any other field is never cached
+     * @param value
+     * @return the cached document or null
+     */
+    public JsonObject get(String field, String value) {
+        if ("username".equals(field)) {
+            return byUsername.get(value);
+        }
+        if ("email".equals(field)) {
+            return viaIndex(usernameByEmail, field, value);
+        }
+        if ("_id".equals(field)) {
+            return viaIndex(usernameById, field, value);
+        }
+        return null;
+    }
+
+    private JsonObject viaIndex(LruCache<String, String> index, String field, String value) {
+        String username = index.get(value);
+        if (username == null) {
+            return null;
+        }
+        JsonObject document = byUsername.get(username);
+        // the index may be stale, e.g. after the email of the user changed
+        if (document != null && value.equals(document.getString(field))) {
+            return document;
+        }
+        return null;
+    }
+
+    /**
+     * @return a stamp to take before a document is read from Mongo, see putIfUnchanged
+     */
+    public long stamp() {
+        return byUsername.stamp();
+    }
+
+    /**
+     * Caches a document read after the stamp was taken, unless its username was invalidated in the meantime: a follow
+     * or an update that overlapped the read, here or on another instance, would otherwise be undone by the document from
+     * before the write until the ttl expires.  The email and _id indexes are only updated with the document.
+     *
+     * @param document
+     * @param stamp    value of {@link #stamp()} taken before the read
+     * @return true if the document was cached
+     */
+    public boolean putIfUnchanged(JsonObject document, long stamp) {
+        String username = document.getString("username");
+        if (username == null || !byUsername.putIfUnchanged(username, document, stamp)) {
+            return false;
+        }
+        if (document.getString("email") != null) {
+            usernameByEmail.put(document.getString("email"), username);
+        }
+        if (document.getString("_id") != null) {
+            usernameById.put(document.getString("_id"), username);
+        }
+        return true;
+    }
+
+    public void invalidate(String username) {
+        if (username != null) {
+            byUsername.invalidate(username);
+            cluster.invalidated(CACHE_NAME, username);
+        }
+    }
+}
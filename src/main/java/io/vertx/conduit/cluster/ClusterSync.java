@@ -0,0 +1,153 @@
+package io.vertx.conduit.cluster;
+
+import io.vertx.conduit.cache.ConduitCaches;
+import io.vertx.conduit.cache.LruCache;
+import io.vertx.conduit.tags.TagIndex;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the per-node state that mirrors Mongo, the caches and the TagIndex, in step across the nodes of a cluster.  A
+ * node changes its own copy as before and then publishes the change on {@link #SYNC_ADDRESS}; every other node applies
+ * it to its copy.  Nodes that are not clustered publish nothing.
+ *
+ * The copies converge, they are not transactional: a node may serve a cached document for the time the publication
+ * takes to arrive.  The FavoriteCounter is not synced, each node flushes its own deltas with $inc.
+ */
+public class ClusterSync implements Shareable {
+
+    public static final String SYNC_ADDRESS = "conduit.sync";
+
+    private static final String SYNC_MAP = "conduit.cluster";
+
+    private static final String KEY = "sync";
+
+    private static final String NODE_HEADER = "node";
+
+    private static final String OP = "op";
+
+    private static final String OP_INVALIDATE = "invalidate";
+
+    private static final String OP_TAGS_REPLACE = "tags.replace";
+
+    private static final String OP_TAGS_REMOVE = "tags.remove";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterSync.class);
+
+    private final Vertx vertx;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final AtomicBoolean listening = new AtomicBoolean();
+
+    private ClusterSync(Vertx vertx) {
+        this.vertx = vertx;
+    }
+
+    /**
+     * @param vertx
+     * @return the sync of the Vertx instance
+     */
+    public static ClusterSync shared(Vertx vertx) {
+        LocalMap<String, ClusterSync> syncs = vertx.sharedData().getLocalMap(SYNC_MAP);
+        return syncs.computeIfAbsent(KEY, k -> new ClusterSync(vertx));
+    }
+
+    /**
+     * Starts applying the changes published by the other nodes.  Called once by MainVerticle, the consumer lives as long
+     * as the verticle that called it.
+     */
+    public void listen() {
+        if (vertx.isClustered() && listening.compareAndSet(false, true)) {
+            vertx.eventBus().<JsonObject>consumer(SYNC_ADDRESS, this::received);
+            LOGGER.info("cluster sync listening as node " + nodeId);
+        }
+    }
+
+    /**
+     * Tells the other nodes to drop keys from one of their ConduitCaches
+     *
+     * @param cache the name the cache is registered under
+     * @param keys
+     */
+    public void invalidated(String cache, Collection<String> keys) {
+        if (!keys.isEmpty()) {
+            publish(new JsonObject().put(OP, OP_INVALIDATE).put("cache", cache).put("keys", new JsonArray(new ArrayList<>(keys))));
+        }
+    }
+
+    public void invalidated(String cache, String key) {
+        if (key != null) {
+            invalidated(cache, Collections.singletonList(key));
+        }
+    }
+
+    /**
+     * @param articleId
+     * @param tags      the tags of a new or updated article, may be null
+     */
+    public void tagsReplaced(String articleId, List<String> tags) {
+        if (articleId != null) {
+            publish(new JsonObject().put(OP, OP_TAGS_REPLACE).put("article", articleId).put("tags", tags == null ? null : new JsonArray(tags)));
+        }
+    }
+
+    public void tagsRemoved(String articleId) {
+        if (articleId != null) {
+            publish(new JsonObject().put(OP, OP_TAGS_REMOVE).put("article", articleId));
+        }
+    }
+
+    private void publish(JsonObject change) {
+        if (vertx.isClustered()) {
+            vertx.eventBus().publish(SYNC_ADDRESS, change, new DeliveryOptions().addHeader(NODE_HEADER, nodeId));
+        }
+    }
+
+    private void received(Message<JsonObject> message) {
+        // publications reach the node that sent them as well
+        if (nodeId.equals(message.headers().get(NODE_HEADER))) {
+            return;
+        }
+        JsonObject change = message.body();
+        switch (change.getString(OP, "")) {
+            case OP_INVALIDATE:
+                LruCache<String, ?> cache = ConduitCaches.find(vertx, change.getString("cache"));
+                if (cache != null) {
+                    for (Object key : change.getJsonArray("keys")) {
+                        cache.invalidate((String) key);
+                    }
+                }
+                break;
+            case OP_TAGS_REPLACE:
+                JsonArray tags = change.getJsonArray("tags");
+                List<String> tagsList = new ArrayList<>();
+                if (tags != null) {
+                    for (Object tag : tags) {
+                        tagsList.add((String) tag);
+                    }
+                }
+                TagIndex.shared(vertx).replace(change.getString("article"), tagsList);
+                break;
+            case OP_TAGS_REMOVE:
+                TagIndex.shared(vertx).remove(change.getString("article"));
+                break;
+            default:
+                LOGGER.warn("unknown cluster sync change: " + change.encode());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package io.vertx.conduit.comments;
+
+import io.vertx.conduit.ConduitDomainModel;
+import io.vertx.conduit.users.models.User;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Date;
+
+/**
+ * A comment on an article.  Stored comments reference their article by slug and their author by _id; the author is
+ * resolved when the comment is read.
+ */
+public class Comment implements ConduitDomainModel {
+
+    private String id;
+
+    private String articleSlug;
+
+    private String body;
+
+    private Date createdAt;
+
+    private Date updatedAt;
+
+    private User author;
+
+    public Comment() {
+    }
+
+    public Comment(JsonObject jsonObject) {
+        if (jsonObject.containsKey("_id")) this.id = jsonObject.getString("_id");
+        if (jsonObject.containsKey("id")) this.id = jsonObject.getString("id");
+        this.articleSlug = jsonObject.getString("articleSlug");
+        this.body = jsonObject.getString("body");
+        if (jsonObject.getLong("createdAt") != null) this.createdAt = new Date(jsonObject.getLong("createdAt"));
+        if (jsonObject.getLong("updatedAt") != null) this.updatedAt = new Date(jsonObject.getLong("updatedAt"));
+        if (jsonObject.getValue("author") instanceof JsonObject) this.author = new User(jsonObject.getJsonObject("author"));
+    }
+
+    @Override
+    public JsonObject toJson() {
+        JsonObject retVal = new JsonObject()
+                .put("id", this.id)
+                .put("articleSlug", this.articleSlug)
+                .put("body", this.body);
+        if (this.createdAt != null) retVal.put("createdAt", this.createdAt.getTime());
+        if (this.updatedAt != null) retVal.put("updatedAt", this.updatedAt.getTime());
+        if (this.author != null) retVal.put("author", this.author.toJson());
+        return retVal;
+    }
+
+    @Override
+    public JsonObject toConduitJson() {
+        return new JsonObject().put("comment", toConduitComment(null));
+    }
+
+    /**
+     * @param viewer the caller, for the "following" flag of the author; null if anonymous
+     * @return the comment without the "comment" wrapper, as it appears in a listing
+     */
+    public JsonObject toConduitComment(User viewer) {
+        JsonObject retVal = new JsonObject()
+                .put("id", this.id)
+                .put("body", this.body);
+        if (this.createdAt != null) retVal.put("createdAt", this.createdAt.getTime());
+        if (this.updatedAt != null) retVal.put("updatedAt", this.updatedAt.getTime());
+        if (this.author != null) {
+            retVal.put("author", this.author.toProfileJson(viewer).getJsonObject("profile"));
+        }
+        return retVal;
+    }
+
+    @Override
+    public JsonObject toMongoJson() {
+        JsonObject retVal = new JsonObject()
+                .put("articleSlug", this.articleSlug)
+                .put("body", this.body);
+        if (this.createdAt != null) retVal.put("createdAt", this.createdAt.getTime());
+        if (this.updatedAt != null) retVal.put("updatedAt", this.updatedAt.getTime());
+        if (this.author != null) retVal.put("author", this.author.get_id());
+        return retVal;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getArticleSlug() {
+        return articleSlug;
+    }
+
+    public void setArticleSlug(String articleSlug) {
+        this.articleSlug = articleSlug;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public User getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(User author) {
+        this.author = author;
+    }
+}
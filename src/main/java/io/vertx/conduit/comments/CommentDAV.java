@@ -0,0 +1,403 @@
+package io.vertx.conduit.comments;
+
+import io.vertx.conduit.MessagingErrorCodes;
+import io.vertx.conduit.cache.UserCache;
+import io.vertx.conduit.db.Projection;
+import io.vertx.conduit.messaging.ConduitMessage;
+import io.vertx.conduit.messaging.ConduitMessageCodec;
+import io.vertx.conduit.messaging.ConduitReply;
+import io.vertx.conduit.metrics.ActionMetrics;
+import io.vertx.conduit.metrics.ConduitMetrics;
+import io.vertx.conduit.overload.AdmissionControl;
+import io.vertx.conduit.metrics.MongoTimer;
+import io.vertx.conduit.tracing.Span;
+import io.vertx.conduit.tracing.Tracer;
+import io.vertx.conduit.users.ArticleCursor;
+import io.vertx.conduit.users.models.MongoConstants;
+import io.vertx.conduit.users.models.User;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.UpdateOptions;
+
+import java.util.Date;
+
+import static io.vertx.conduit.MessagingProps.*;
+
+/**
+ * Comments of the articles, on their own address so that long threads don't hold up the article actions.  Comments
+ * are listed newest first with the same keyset cursor as the articles, and the article keeps the number of its
+ * comments in commentsCount so a listing never counts the comment collection.
+ */
+public class CommentDAV extends AbstractVerticle {
+
+    public static final String MESSAGE_COMMENTS = "address.comments";
+    public static final String MESSAGE_ACTION_CREATE_COMMENT = "action.create.comment";
+    public static final String MESSAGE_ACTION_LIST_COMMENTS = "action.list.comments";
+    public static final String MESSAGE_ACTION_DELETE_COMMENT = "action.delete.comment";
+    // filters of a listing, the same names as the article listings
+    public static final String LIST_LIMIT = "limit";
+    public static final String LIST_CURSOR = "cursor";
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommentDAV.class);
+    private static final String COMMENTS_COUNT = "commentsCount";
+    // newest first, _id breaks the ties so that a cursor always has a single position
+    private static final JsonObject LIST_SORT = new JsonObject().put("createdAt", -1).put("_id", -1);
+
+    // for DB access
+    private MongoClient mongoClient;
+
+    // the authors of listed comments, shared with UserDAV and ArticleDAV
+    private UserCache userCache;
+
+    // latency of the actions and of the Mongo calls
+    private ConduitMetrics metrics;
+
+    private ActionMetrics actions;
+
+    // bounds the messages this instance handles at once and queues
+    private AdmissionControl admission;
+
+    // continues the traces of the requests that sent the messages
+    private Tracer tracer;
+
+    @Override
+    public void start(Future<Void> startFuture) {
+        LOGGER.info("CommentDAV starting with config for " + config().getString("env"));
+
+        mongoClient = MongoClient.createShared(vertx, new JsonObject().put("db_name", config().getString("db_name", "conduit")).put("connection_string", config().getString("connection_string", "mongodb://localhost:27017")));
+        userCache = new UserCache(vertx, config());
+        metrics = ConduitMetrics.shared(vertx);
+        actions = metrics.address(MESSAGE_COMMENTS);
+        admission = AdmissionControl.create(context, config(), "comment.dav", actions);
+        tracer = Tracer.shared(vertx, config());
+
+        ConduitMessageCodec.register(vertx);
+
+        MessageConsumer<Object> consumer = vertx.eventBus().consumer(MESSAGE_COMMENTS);
+        consumer.handler(received -> {
+
+            ConduitMessage request = ConduitMessage.from(received.body());
+            LOGGER.info(request.getAction());
+
+            if (request.getAction() == null) {
+                received.fail(1, "Unkown action: " + received.body());
+                return;
+            }
+
+            Message<Object> message = tracer.traced(actions.timed(received, request.getAction()), request.getAction().name);
+            admission.admit(message, admitted -> {
+                // the Mongo calls made by the action become children of its span
+                Span previous = Tracer.activate(Tracer.span(message));
+                try {
+                    dispatch(admitted, request);
+                } finally {
+                    Tracer.restore(previous);
+                }
+            });
+        });
+
+        startFuture.complete();
+    }
+
+    /**
+     * Hands the message to the method of its action
+     *
+     * @param message
+     * @param request
+     */
+    private void dispatch(Message<Object> message, ConduitMessage request) {
+        switch (request.getAction()) {
+            case CREATE_COMMENT:
+                create(message, request);
+                break;
+            case LIST_COMMENTS:
+                list(message, request);
+                break;
+            case DELETE_COMMENT:
+                delete(message, request);
+                break;
+            default:
+                message.fail(1, "Unkown action: " + message.body());
+        }
+    }
+
+    /**
+     * Counts the comment on its article, which also tells whether the article exists, then stores it.  The count is
+     * taken back if the insert fails.
+     *
+     * @param message
+     * @param request the slug of the article as value, the comment and its author as user
+     */
+    private void create(Message<Object> message, ConduitMessage request) {
+        Comment comment = request.getComment();
+        String slug = request.getValue();
+        if (comment == null || slug == null || request.getUser() == null || request.getUser().get_id() == null) {
+            message.fail(MessagingErrorCodes.INVALID_ARGUMENT.ordinal(), MessagingErrorCodes.INVALID_ARGUMENT.message + "slug, comment and user are required");
+            return;
+        }
+
+        Date time = new Date();
+        comment.setArticleSlug(slug);
+        comment.setCreatedAt(time);
+        comment.setUpdatedAt(time);
+        comment.setAuthor(request.getUser());
+
+        count(slug, 1).setHandler(counted -> {
+            if (counted.failed()) {
+                message.fail(MessagingErrorCodes.INSERT_FAILURE.ordinal(), MessagingErrorCodes.INSERT_FAILURE.message + counted.cause().getMessage());
+                return;
+            }
+            if (!counted.result()) {
+                message.fail(MessagingErrorCodes.NOT_FOUND.ordinal(), MessagingErrorCodes.NOT_FOUND.message + slug);
+                return;
+            }
+            mongoClient.insert(MongoConstants.COLLECTION_NAME_COMMENTS, comment.toMongoJson(), metrics.mongo(MongoConstants.COLLECTION_NAME_COMMENTS, "insert").time(res -> {
+                if (res.succeeded()) {
+                    comment.setId(res.result());
+                    ConduitReply.reply(message, new ConduitReply().setComment(comment));
+                } else {
+                    count(slug, -1);
+                    message.fail(MessagingErrorCodes.INSERT_FAILURE.ordinal(), MessagingErrorCodes.INSERT_FAILURE.message + res.cause().getMessage());
+                }
+            }));
+        });
+    }
+
+    /**
+     * Deletes a comment of its author
+     *
+     * @param message
+     * @param request the _id of the comment as field/value, the slug of its article in the document and the caller
+     *                as user
+     */
+    private void delete(Message<Object> message, ConduitMessage request) {
+        String slug = request.getDocument() == null ? null : request.getDocument().getString("articleSlug");
+        if (request.getValue() == null || slug == null || request.getUser() == null || request.getUser().get_id() == null) {
+            message.fail(MessagingErrorCodes.INVALID_ARGUMENT.ordinal(), MessagingErrorCodes.INVALID_ARGUMENT.message + "comment, slug and user are required");
+            return;
+        }
+
+        // only the author may delete a comment, anyone else finds nothing
+        JsonObject query = new JsonObject()
+                .put("_id", request.getValue())
+                .put("articleSlug", slug)
+                .put("author", request.getUser().get_id());
+        mongoClient.findOneAndDeleteWithOptions(MongoConstants.COLLECTION_NAME_COMMENTS, query, new FindOptions().setFields(new JsonObject().put("_id", 1)), metrics.mongo(MongoConstants.COLLECTION_NAME_COMMENTS, "findOneAndDeleteWithOptions").time(res -> {
+            if (res.failed()) {
+                message.fail(MessagingErrorCodes.UPDATE_FAILURE.ordinal(), MessagingErrorCodes.UPDATE_FAILURE.message + res.cause().getMessage());
+            } else if (res.result() == null) {
+                message.fail(MessagingErrorCodes.NOT_FOUND.ordinal(), MessagingErrorCodes.NOT_FOUND.message + request.getValue());
+            } else {
+                count(slug, -1);
+                ConduitReply.reply(message, new ConduitReply().setDetails(MESSAGE_SUCCESS));
+            }
+        }));
+    }
+
+    /**
+     * Streams a page of the comments of the article named by the value of the request to its streamAddress, the same
+     * way ArticleDAV streams article listings: every comment is sent as it comes out of the Mongo cursor, then a
+     * STREAM_END message with the commentsCount of the article and the cursor of the next page.
+     *
+     * @param message
+     * @param request
+     */
+    private void list(Message<Object> message, ConduitMessage request) {
+        JsonObject params = request.getDocument() == null ? new JsonObject() : request.getDocument();
+        String slug = request.getValue();
+        String streamAddress = request.getStreamAddress();
+
+        int limit;
+        ArticleCursor cursor;
+        try {
+            limit = Math.min(Math.max(params.getInteger(LIST_LIMIT, DEFAULT_LIMIT), 1), MAX_LIMIT);
+            cursor = params.containsKey(LIST_CURSOR) ? ArticleCursor.decode(params.getString(LIST_CURSOR)) : null;
+        } catch (ClassCastException | IllegalArgumentException e) {
+            message.fail(MessagingErrorCodes.INVALID_ARGUMENT.ordinal(), MessagingErrorCodes.INVALID_ARGUMENT.message + e.getMessage());
+            return;
+        }
+        if (slug == null || streamAddress == null) {
+            message.fail(MessagingErrorCodes.INVALID_ARGUMENT.ordinal(), MessagingErrorCodes.INVALID_ARGUMENT.message + "missing slug or stream address");
+            return;
+        }
+
+        // the count kept on the article, which also tells whether the article exists
+        mongoClient.findOne(MongoConstants.COLLECTION_NAME_ARTICLES, new JsonObject().put("slug", slug), new JsonObject().put(COMMENTS_COUNT, 1), metrics.mongo(MongoConstants.COLLECTION_NAME_ARTICLES, "findOne").time(article -> {
+            if (article.failed()) {
+                message.fail(MessagingErrorCodes.LOOKUP_FAILED.ordinal(), MessagingErrorCodes.LOOKUP_FAILED.message + article.cause().getMessage());
+                return;
+            }
+            if (article.result() == null) {
+                message.fail(MessagingErrorCodes.NOT_FOUND.ordinal(), MessagingErrorCodes.NOT_FOUND.message + slug);
+                return;
+            }
+            long count = article.result().getLong(COMMENTS_COUNT, 0L);
+
+            JsonObject filter = new JsonObject().put("articleSlug", slug);
+            JsonObject page = cursor == null ? filter : new JsonObject()
+                    .put("$and", new JsonArray().add(filter).add(cursor.toFilter()));
+            FindOptions options = new FindOptions()
+                    .setSort(LIST_SORT)
+                    .setLimit(limit)
+                    .setBatchSize(limit);
+
+            MongoTimer batch = metrics.mongo(MongoConstants.COLLECTION_NAME_COMMENTS, "findBatchWithOptions");
+            long started = batch.start();
+            Span span = batch.span();
+            ReadStream<JsonObject> comments = mongoClient.findBatchWithOptions(MongoConstants.COLLECTION_NAME_COMMENTS, page, options);
+            CommentStream stream = new CommentStream(message, streamAddress, limit, comments);
+            comments.exceptionHandler(e -> {
+                batch.record(started, false);
+                span.fail(e).finish();
+                stream.fail(e);
+            });
+            comments.endHandler(v -> {
+                batch.record(started, true);
+                span.finish();
+                stream.end(count);
+            });
+            comments.handler(stream::comment);
+        }));
+    }
+
+    /**
+     * @param slug
+     * @param delta
+     * @return true if the article exists and its commentsCount was changed
+     */
+    private Future<Boolean> count(String slug, int delta) {
+        Future<Boolean> retVal = Future.future();
+        mongoClient.updateCollectionWithOptions(MongoConstants.COLLECTION_NAME_ARTICLES, new JsonObject().put("slug", slug),
+                new JsonObject().put("$inc", new JsonObject().put(COMMENTS_COUNT, delta)), new UpdateOptions(false), metrics.mongo(MongoConstants.COLLECTION_NAME_ARTICLES, "updateCollectionWithOptions").time(res -> {
+                    if (res.succeeded()) {
+                        retVal.complete(res.result().getDocMatched() > 0);
+                    } else {
+                        LOGGER.error("commentsCount of " + slug + " not changed by " + delta, res.cause());
+                        retVal.fail(res.cause());
+                    }
+                }));
+        return retVal;
+    }
+
+    /**
+     * @param id
+     * @return the stored user document or null if there is no such user
+     */
+    private Future<JsonObject> findUser(String id) {
+        JsonObject cached = userCache.get("_id", id);
+        if (cached != null) {
+            return Future.succeededFuture(cached);
+        }
+
+        Future<JsonObject> retVal = Future.future();
+        long stamp = userCache.stamp();
+        // the same projection UserDAV caches, the documents are shared through the UserCache
+        FindOptions options = new FindOptions().setFields(Projection.PROFILE.fields()).setLimit(1);
+        mongoClient.findWithOptions(MongoConstants.COLLECTION_NAME_USERS, new JsonObject().put("_id", id), options, metrics.mongo(MongoConstants.COLLECTION_NAME_USERS, "findWithOptions").time(res -> {
+            if (res.succeeded()) {
+                JsonObject found = res.result().isEmpty() ? null : res.result().get(0);
+                if (found != null) {
+                    userCache.putIfUnchanged(found, stamp);
+                }
+                retVal.complete(found);
+            } else {
+                retVal.fail(res.cause());
+            }
+        }));
+        return retVal;
+    }
+
+    /**
+     * Forwards the comments of one page to its stream address, chained so that resolving the authors keeps the order
+     * of the Mongo cursor.  The cursor is paused while an author is looked up, so the comments wait in Mongo rather than
+     * in the chain.
+     */
+    private class CommentStream {
+
+        private final Message<Object> request;
+
+        private final String address;
+
+        private final int limit;
+
+        private final ReadStream<JsonObject> source;
+
+        private Future<Void> tail = Future.succeededFuture();
+
+        private JsonObject last;
+
+        private int sent;
+
+        private boolean finished;
+
+        CommentStream(Message<Object> request, String address, int limit, ReadStream<JsonObject> source) {
+            this.request = request;
+            this.address = address;
+            this.limit = limit;
+            this.source = source;
+        }
+
+        void comment(JsonObject document) {
+            last = document;
+            String authorId = document.getString("author");
+            tail = tail.compose(v -> authorId == null ? Future.<JsonObject>succeededFuture() : findUser(authorId))
+                    .map(author -> {
+                        Comment comment = new Comment(document);
+                        if (author != null) comment.setAuthor(new User(author));
+                        vertx.eventBus().send(address, new ConduitReply().setComment(comment),
+                                new DeliveryOptions().addHeader(STREAM_HEADER, STREAM_ITEM));
+                        sent++;
+                        return null;
+                    });
+            if (!tail.isComplete()) {
+                source.pause();
+                // a failed lookup still resumes, the rest of the page drains past the failed chain and end() reports it
+                tail.setHandler(ar -> {
+                    if (!finished) {
+                        source.resume();
+                    }
+                });
+            }
+        }
+
+        void end(long count) {
+            tail.setHandler(ar -> {
+                if (finished) {
+                    return;
+                }
+                if (ar.failed()) {
+                    fail(ar.cause());
+                    return;
+                }
+                // a full page may have a successor, a short one is the last
+                ArticleCursor next = sent == limit && last != null ? ArticleCursor.after(last) : null;
+                ConduitReply end = new ConduitReply()
+                        .setCount(count)
+                        .setCursor(next == null ? null : next.encode());
+                finished = true;
+                vertx.eventBus().send(address, end, new DeliveryOptions().addHeader(STREAM_HEADER, STREAM_END));
+                ConduitReply.reply(request, end);
+            });
+        }
+
+        void fail(Throwable cause) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            LOGGER.error("comment listing failed", cause);
+            request.fail(MessagingErrorCodes.LOOKUP_FAILED.ordinal(), MessagingErrorCodes.LOOKUP_FAILED.message + cause.getMessage());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package io.vertx.conduit.db;
+
+import io.vertx.conduit.Futures;
+import io.vertx.conduit.users.models.MongoConstants;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.BulkWriteOptions;
+import io.vertx.ext.mongo.IndexOptions;
+import io.vertx.ext.mongo.MongoClient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The indexes behind every query the DAV verticles run.  MainVerticle ensures them before it deploys anything, so a
+ * node never serves a login or a listing from a collection scan.  Creating an index that already exists is a no-op,
+ * changing the options of an existing one fails the startup rather than leaving the old index in place.
+ *
+ * Slugs were not unique before slug_unique existed, so the articles sharing a slug are renamed first: the oldest keeps
+ * it and each of the others gets its _id as a suffix.  Comments only know the slug, they stay with the oldest article.
+ *
+ * In diagnostics mode the plan Mongo picks for each of those queries is logged as well, e.g.
+ * <pre>user {email}: FETCH &lt; IXSCAN email_unique</pre>
+ */
+public class MongoIndexes {
+
+    public static final String CONFIG_ENSURE = "mongo.indexes.ensure";
+    public static final String CONFIG_EXPLAIN = "mongo.indexes.explain";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MongoIndexes.class);
+
+    private static final int DUPLICATE_SLUGS_BATCH = 1000;
+
+    private final MongoClient mongoClient;
+
+    public MongoIndexes(MongoClient mongoClient) {
+        this.mongoClient = mongoClient;
+    }
+
+    /**
+     * @return completed once every index exists, failed with the first index that could not be created
+     */
+    public Future<Void> ensure() {
+        return renameDuplicateSlugs().compose(v -> createIndexes());
+    }
+
+    private Future<Void> createIndexes() {
+        List<Future<Void>> created = new ArrayList<>();
+
+        // login, registration and profiles
+        created.add(index(MongoConstants.COLLECTION_NAME_USERS, new JsonObject().put("email", 1), "email_unique", true));
+        created.add(index(MongoConstants.COLLECTION_NAME_USERS, new JsonObject().put("username", 1), "username_unique", true));
+        // the followers of an author when an article is fanned out
+        created.add(index(MongoConstants.COLLECTION_NAME_FOLLOWS, new JsonObject().put("followed", 1).put("follower", 1), "followed_follower", false));
+
+        // articles by slug, and the listings, newest first
+        created.add(index(MongoConstants.COLLECTION_NAME_ARTICLES, new JsonObject().put("slug", 1), "slug_unique", true));
+        created.add(index(MongoConstants.COLLECTION_NAME_ARTICLES, new JsonObject().put("createdAt", -1).put("_id", -1), "createdAt_id", false));
+        created.add(index(MongoConstants.COLLECTION_NAME_ARTICLES, new JsonObject().put("author", 1).put("createdAt", -1), "author_createdAt", false));
+        created.add(index(MongoConstants.COLLECTION_NAME_ARTICLES, new JsonObject().put("tagList", 1).put("createdAt", -1), "tagList_createdAt", false));
+        // ?favorited= listings
+        created.add(index(MongoConstants.COLLECTION_NAME_ARTICLES, new JsonObject().put("favoritedBy", 1).put("createdAt", -1), "favoritedBy_createdAt", false));
+
+        // comment pages of an article, newest first
+        created.add(index(MongoConstants.COLLECTION_NAME_COMMENTS, new JsonObject().put("articleSlug", 1).put("createdAt", -1).put("_id", -1), "articleSlug_createdAt_id", false));
+
+        // feed pages, unfollows and deleted articles
+        created.add(index(MongoConstants.COLLECTION_NAME_TIMELINE, new JsonObject().put("owner", 1).put("createdAt", -1).put("article", -1), "owner_createdAt_article", false));
+        created.add(index(MongoConstants.COLLECTION_NAME_TIMELINE, new JsonObject().put("owner", 1).put("author", 1), "owner_author", false));
+        created.add(index(MongoConstants.COLLECTION_NAME_TIMELINE, new JsonObject().put("article", 1), "article", false));
+
+        return Futures.all(created).map(v -> {
+            LOGGER.info(created.size() + " indexes ensured");
+            return null;
+        });
+    }
+
+    /**
+     * Logs the winning plan of every hot query; a plan that scans the collection is logged as a warning
+     *
+     * @return completed once every plan was logged, it never fails
+     */
+    public Future<Void> explain() {
+        List<Future<Void>> explained = new ArrayList<>();
+        JsonObject newestFirst = new JsonObject().put("createdAt", -1).put("_id", -1);
+
+        explained.add(explain(MongoConstants.COLLECTION_NAME_USERS, "{email}", new JsonObject().put("email", ""), null));
+        explained.add(explain(MongoConstants.COLLECTION_NAME_USERS, "{username}", new JsonObject().put("username", ""), null));
+        explained.add(explain(MongoConstants.COLLECTION_NAME_FOLLOWS, "{followed}", new JsonObject().put("followed", ""), null));
+        explained.add(explain(MongoConstants.COLLECTION_NAME_ARTICLES, "{slug}", new JsonObject().put("slug", ""), null));
+        explained.add(explain(MongoConstants.COLLECTION_NAME_ARTICLES, "{} newest first", new JsonObject(), newestFirst));
+        explained.add(explain(MongoConstants.COLLECTION_NAME_ARTICLES, "{author} newest first", new JsonObject().put("author", ""), newestFirst));
+        explained.add(explain(MongoConstants.COLLECTION_NAME_ARTICLES, "{tagList} newest first", new JsonObject().put("tagList", ""), newestFirst));
+        explained.add(explain(MongoConstants.COLLECTION_NAME_ARTICLES, "{favoritedBy} newest first", new JsonObject().put("favoritedBy", ""), newestFirst));
+        explained.add(explain(MongoConstants.COLLECTION_NAME_COMMENTS, "{articleSlug} newest first", new JsonObject().put("articleSlug", ""), newestFirst));
+        explained.add(explain(MongoConstants.COLLECTION_NAME_TIMELINE, "{owner} newest first", new JsonObject().put("owner", ""),
+                new JsonObject().put("createdAt", -1).put("article", -1)));
+        explained.add(explain(MongoConstants.COLLECTION_NAME_TIMELINE, "{article}", new JsonObject().put("article", ""), null));
+
+        return Futures.all(explained);
+    }
+
+    /**
+     * Gives every article sharing its slug with an older one the slug slug-_id, so that slug_unique can be created
+     *
+     * @return completed once no two articles share a slug
+     */
+    private Future<Void> renameDuplicateSlugs() {
+        Future<Void> retVal = Future.future();
+
+        JsonArray pipeline = new JsonArray()
+                .add(new JsonObject().put("$sort", new JsonObject().put("createdAt", 1).put("_id", 1)))
+                .add(new JsonObject().put("$group", new JsonObject()
+                        .put("_id", "$slug")
+                        .put("ids", new JsonObject().put("$push", "$_id"))
+                        .put("count", new JsonObject().put("$sum", 1))))
+                .add(new JsonObject().put("$match", new JsonObject().put("count", new JsonObject().put("$gt", 1))));
+        // the command name must come first
+        JsonObject command = new JsonObject()
+                .put("aggregate", MongoConstants.COLLECTION_NAME_ARTICLES)
+                .put("pipeline", pipeline)
+                .put("allowDiskUse", true)
+                .put("cursor", new JsonObject().put("batchSize", DUPLICATE_SLUGS_BATCH));
+        mongoClient.runCommand("aggregate", command, ar -> {
+            if (ar.failed()) {
+                retVal.fail(ar.cause());
+                return;
+            }
+            JsonObject cursor = ar.result().getJsonObject("cursor", new JsonObject());
+            if (cursor.getLong("id", 0L) != 0L) {
+                // slug_unique fails on the rest and the next start renames another batch
+                LOGGER.warn("more than " + DUPLICATE_SLUGS_BATCH + " duplicated slugs, renaming the first ones");
+            }
+            List<BulkOperation> renames = new ArrayList<>();
+            for (Object group : cursor.getJsonArray("firstBatch", new JsonArray())) {
+                String slug = ((JsonObject) group).getString("_id");
+                JsonArray ids = ((JsonObject) group).getJsonArray("ids");
+                for (int i = 1; i < ids.size(); i++) {
+                    Object id = ids.getValue(i);
+                    // articles without a slug share the null one
+                    String renamed = slug == null ? String.valueOf(id) : slug + "-" + id;
+                    LOGGER.warn("article " + id + " shares the slug " + slug + ", renamed to " + renamed);
+                    renames.add(BulkOperation.createUpdate(new JsonObject().put("_id", id),
+                            new JsonObject().put("$set", new JsonObject().put("slug", renamed)), false, false));
+                }
+            }
+            if (renames.isEmpty()) {
+                retVal.complete();
+                return;
+            }
+            mongoClient.bulkWriteWithOptions(MongoConstants.COLLECTION_NAME_ARTICLES, renames, new BulkWriteOptions(false), written -> {
+                if (written.succeeded()) {
+                    retVal.complete();
+                } else {
+                    retVal.fail(written.cause());
+                }
+            });
+        });
+        return retVal;
+    }
+
+    private Future<Void> index(String collection, JsonObject key, String name, boolean unique) {
+        Future<Void> retVal = Future.future();
+        mongoClient.createIndexWithOptions(collection, key, new IndexOptions().name(name).unique(unique), ar -> {
+            if (ar.succeeded()) {
+                retVal.complete();
+            } else {
+                LOGGER.error("index " + name + " on " + collection + " could not be created", ar.cause());
+                retVal.fail(ar.cause());
+            }
+        });
+        return retVal;
+    }
+
+    private Future<Void> explain(String collection, String description, JsonObject filter, JsonObject sort) {
+        Future<Void> retVal = Future.future();
+
+        JsonObject find = new JsonObject().put("find", collection).put("filter", filter);
+        if (sort != null) {
+            find.put("sort", sort);
+        }
+        JsonObject command = new JsonObject().put("explain", find).put("verbosity", "queryPlanner");
+        mongoClient.runCommand("explain", command, ar -> {
+            if (ar.failed()) {
+                LOGGER.warn("explain of " + collection + " " + description + " failed: " + ar.cause().getMessage());
+                // diagnostics only, the other plans are still logged
+                retVal.complete();
+                return;
+            }
+            JsonObject planner = ar.result().getJsonObject("queryPlanner", new JsonObject());
+            String plan = stages(planner.getJsonObject("winningPlan"));
+            if (plan.contains("COLLSCAN")) {
+                LOGGER.warn(collection + " " + description + ": " + plan);
+            } else {
+                LOGGER.info(collection + " " + description + ": " + plan);
+            }
+            retVal.complete();
+        });
+        return retVal;
+    }
+
+    /**
+     * @param plan a winningPlan
+     * @return the stages of the plan from the root down, with the name of the index of each index scan
+     */
+    private static String stages(JsonObject plan) {
+        StringBuilder retVal = new StringBuilder();
+        while (plan != null) {
+            if (retVal.length() > 0) {
+                retVal.append(" < ");
+            }
+            retVal.append(plan.getString("stage"));
+            if (plan.getString("indexName") != null) {
+                retVal.append(' ').append(plan.getString("indexName"));
+            }
+            JsonArray inputs = plan.getJsonArray("inputStages");
+            plan = plan.getJsonObject("inputStage", inputs == null || inputs.isEmpty() ? null : inputs.getJsonObject(0));
+        }
+        return retVal.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package io.vertx.conduit.db;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Named field sets for the DAV queries, so that a read only moves the fields its caller renders.  A DAV action has its
+ * own default and may let the sender of its ConduitMessage pick another one from a fixed list; the event bus can be
+ * clustered, so a sender never gets to name a projection the action does not allow.
+ */
+public enum Projection {
+
+    // what a profile, an author or the current user renders; never the password hash or the salt
+    PROFILE("profile", "username", "email", "bio", "image", "following", "followersCount", "followingCount"),
+
+    // what a login needs to verify the password and answer with the user; only UserDAV.loginUser reads it
+    AUTH("auth", "username", "email", "bio", "image", "password", "salt"),
+
+    // an article in a listing or a feed, without its body; favorited depends on the viewer and is never read
+    ARTICLE_SUMMARY("article-summary", "slug", "title", "description", "tagList", "createdAt", "updatedAt",
+            "favoritesCount", "author"),
+
+    // a single article
+    ARTICLE_FULL("article-full", "slug", "title", "description", "body", "tagList", "createdAt", "updatedAt",
+            "favoritesCount", "author");
+
+    public final String name;
+
+    private final JsonObject fields;
+
+    Projection(String name, String... fields) {
+        this.name = name;
+        JsonObject projection = new JsonObject();
+        for (String field : fields) {
+            projection.put(field, 1);
+        }
+        // _id is returned unless excluded, listed to make it explicit
+        this.fields = projection.put("_id", 1);
+    }
+
+    /**
+     * @return the fields for FindOptions.setFields, a copy that the caller may modify
+     */
+    public JsonObject fields() {
+        return fields.copy();
+    }
+
+    /**
+     * @param name         the projection asked for in a message, may be null
+     * @param defaultValue returned when name is null, unknown or not allowed
+     * @param allowed      the other projections the action accepts
+     * @return
+     */
+    public static Projection named(String name, Projection defaultValue, Projection... allowed) {
+        if (name != null) {
+            for (Projection projection : allowed) {
+                if (projection.name.equals(name)) {
+                    return projection;
+                }
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,124 @@
+package io.vertx.conduit.favorites;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * favoritesCount changes that haven't reached Mongo yet, shared by every ArticleDAV in the Vertx instance.  A burst of
+ * favorites on one article becomes a single $inc per flush instead of one write per click.
+ *
+ * A delta is pending until a flush drains it, then in flight until the flush is acknowledged.  The count of an article
+ * as last read from Mongo plus {@link #unflushed(String)} is its current count.
+ */
+public class FavoriteCounter implements Shareable {
+
+    private static final String COUNTERS_MAP = "conduit.counters";
+
+    private static final String COUNTER_NAME = "favorites";
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    public static FavoriteCounter shared(Vertx vertx) {
+        LocalMap<String, FavoriteCounter> counters = vertx.sharedData().getLocalMap(COUNTERS_MAP);
+        return counters.computeIfAbsent(COUNTER_NAME, n -> new FavoriteCounter());
+    }
+
+    /**
+     * @param articleId
+     * @param slug      the slug the article is cached under, forgotten once the delta is flushed
+     * @param delta     1 for a favorite, -1 for an unfavorite
+     */
+    public synchronized void add(String articleId, String slug, int delta) {
+        Entry entry = entries.computeIfAbsent(articleId, id -> new Entry());
+        entry.slug = slug;
+        entry.pending += delta;
+    }
+
+    /**
+     * @param articleId
+     * @return the change of the count of the article that Mongo may not reflect yet
+     */
+    public synchronized int unflushed(String articleId) {
+        Entry entry = entries.get(articleId);
+        return entry == null ? 0 : entry.pending + entry.inFlight;
+    }
+
+    /**
+     * Moves every pending delta in flight
+     *
+     * @return the deltas to write, empty if there is nothing to flush
+     */
+    public synchronized List<Delta> drain() {
+        List<Delta> retVal = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            if (entry.pending != 0) {
+                retVal.add(new Delta(e.getKey(), entry.slug, entry.pending));
+                entry.inFlight += entry.pending;
+                entry.pending = 0;
+            }
+        }
+        return retVal;
+    }
+
+    /**
+     * The deltas are in Mongo, the count read from there includes them
+     *
+     * @param deltas
+     */
+    public synchronized void flushed(List<Delta> deltas) {
+        for (Delta delta : deltas) {
+            Entry entry = entries.get(delta.articleId);
+            if (entry == null) {
+                continue;
+            }
+            entry.inFlight -= delta.delta;
+            if (entry.pending == 0 && entry.inFlight == 0) {
+                entries.remove(delta.articleId);
+            }
+        }
+    }
+
+    /**
+     * The write failed, the deltas go back to pending for the next flush
+     *
+     * @param deltas
+     */
+    public synchronized void failed(List<Delta> deltas) {
+        for (Delta delta : deltas) {
+            Entry entry = entries.computeIfAbsent(delta.articleId, id -> new Entry());
+            entry.inFlight -= delta.delta;
+            entry.pending += delta.delta;
+        }
+    }
+
+    private static class Entry {
+
+        private String slug;
+
+        private int pending;
+
+        private int inFlight;
+    }
+
+    public static class Delta {
+
+        public final String articleId;
+
+        public final String slug;
+
+        public final int delta;
+
+        Delta(String articleId, String slug, int delta) {
+            this.articleId = articleId;
+            this.slug = slug;
+            this.delta = delta;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package io.vertx.conduit.feed;
+
+import io.vertx.conduit.metrics.ConduitMetrics;
+import io.vertx.conduit.metrics.MongoTimer;
+import io.vertx.conduit.tracing.Span;
+import io.vertx.conduit.users.models.MongoConstants;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.BulkWriteOptions;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The follow graph seen from the followed side.  Users keep the ids they follow in their own document; this index holds
+ * one edge per follow:
+ * <pre>{_id: "follower:followed", follower, followed}</pre>
+ * so that the followers of a user are an index range, and maintains followersCount and followingCount on both user
+ * documents so that profiles never count.
+ *
+ * UserDAV calls add and remove only when $addToSet or $pull actually changed the following set of the follower, which
+ * keeps the counters exact when the same follow arrives twice.
+ */
+public class FollowerIndex {
+
+    public static final String FOLLOWERS_COUNT = "followersCount";
+    public static final String FOLLOWING_COUNT = "followingCount";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FollowerIndex.class);
+
+    private static final int REBUILD_CHUNK = 500;
+
+    private final MongoClient mongoClient;
+
+    private final ConduitMetrics metrics;
+
+    public FollowerIndex(MongoClient mongoClient, ConduitMetrics metrics) {
+        this.mongoClient = mongoClient;
+        this.metrics = metrics;
+    }
+
+    public Future<Void> add(String followerId, String followedId) {
+        JsonObject edge = edge(followerId, followedId);
+        return write(MongoConstants.COLLECTION_NAME_FOLLOWS, Arrays.asList(
+                BulkOperation.createReplace(new JsonObject().put("_id", edge.getString("_id")), edge, true)))
+                .compose(v -> counters(followerId, followedId, 1));
+    }
+
+    public Future<Void> remove(String followerId, String followedId) {
+        return write(MongoConstants.COLLECTION_NAME_FOLLOWS, Arrays.asList(
+                BulkOperation.createDelete(new JsonObject().put("_id", followerId + ":" + followedId))))
+                .compose(v -> counters(followerId, followedId, -1));
+    }
+
+    /**
+     * @param followedId
+     * @param batchSize
+     * @return the edges of the followers of the user, with only the follower field; the reader times the stream
+     */
+    public ReadStream<JsonObject> followers(String followedId, int batchSize) {
+        return mongoClient.findBatchWithOptions(MongoConstants.COLLECTION_NAME_FOLLOWS,
+                new JsonObject().put("followed", followedId),
+                new FindOptions().setFields(new JsonObject().put("follower", 1).put("_id", 0)).setBatchSize(batchSize));
+    }
+
+    /**
+     * Builds the edges and the counters from the following arrays of the users when the index is empty, i.e. on the
+     * first start of a version with the index
+     *
+     * @return the number of edges written, 0 if the index already existed
+     */
+    public Future<Long> rebuildIfEmpty() {
+        Future<Long> retVal = Future.future();
+
+        mongoClient.count(MongoConstants.COLLECTION_NAME_FOLLOWS, new JsonObject(), metrics.mongo(MongoConstants.COLLECTION_NAME_FOLLOWS, "count").time(counted -> {
+            if (counted.failed()) {
+                retVal.fail(counted.cause());
+            } else if (counted.result() > 0) {
+                retVal.complete(0L);
+            } else {
+                rebuild().setHandler(retVal.completer());
+            }
+        }));
+        return retVal;
+    }
+
+    private Future<Long> rebuild() {
+        Future<Long> retVal = Future.future();
+
+        MongoTimer batch = metrics.mongo(MongoConstants.COLLECTION_NAME_USERS, "findBatchWithOptions");
+        long started = batch.start();
+        Span span = batch.span();
+        ReadStream<JsonObject> users = mongoClient.findBatchWithOptions(MongoConstants.COLLECTION_NAME_USERS,
+                new JsonObject().put("following", new JsonObject().put("$exists", true)),
+                new FindOptions().setFields(new JsonObject().put("following", 1)).setBatchSize(REBUILD_CHUNK));
+
+        List<BulkOperation> edges = new ArrayList<>();
+        List<BulkOperation> followingCounts = new ArrayList<>();
+        Map<String, Integer> followersCounts = new HashMap<>();
+        long[] written = {0};
+
+        users.exceptionHandler(e -> {
+            batch.record(started, false);
+            span.fail(e).finish();
+            retVal.tryFail(e);
+        });
+        users.handler(user -> {
+            String followerId = user.getString("_id");
+            Object following = user.getValue("following");
+            List<Object> followed = following instanceof JsonArray
+                    ? ((JsonArray) following).stream().collect(Collectors.toList())
+                    : following instanceof String ? Arrays.<Object>asList(following) : new ArrayList<>();
+            for (Object id : followed) {
+                JsonObject edge = edge(followerId, (String) id);
+                edges.add(BulkOperation.createReplace(new JsonObject().put("_id", edge.getString("_id")), edge, true));
+                followersCounts.merge((String) id, 1, Integer::sum);
+            }
+            followingCounts.add(setCount(followerId, FOLLOWING_COUNT, followed.size()));
+
+            if (edges.size() >= REBUILD_CHUNK) {
+                users.pause();
+                written[0] += edges.size();
+                write(MongoConstants.COLLECTION_NAME_FOLLOWS, new ArrayList<>(edges))
+                        .compose(v -> write(MongoConstants.COLLECTION_NAME_USERS, new ArrayList<>(followingCounts)))
+                        .setHandler(ar -> {
+                            if (ar.succeeded()) {
+                                users.resume();
+                            } else {
+                                retVal.tryFail(ar.cause());
+                            }
+                        });
+                edges.clear();
+                followingCounts.clear();
+            }
+        });
+        users.endHandler(v -> {
+            batch.record(started, true);
+            span.finish();
+            written[0] += edges.size();
+            List<BulkOperation> followersOps = new ArrayList<>(followersCounts.size());
+            followersCounts.forEach((id, count) -> followersOps.add(setCount(id, FOLLOWERS_COUNT, count)));
+            write(MongoConstants.COLLECTION_NAME_FOLLOWS, edges)
+                    .compose(v2 -> write(MongoConstants.COLLECTION_NAME_USERS, followingCounts))
+                    .compose(v2 -> write(MongoConstants.COLLECTION_NAME_USERS, followersOps))
+                    .setHandler(ar -> {
+                        if (ar.succeeded()) {
+                            LOGGER.info("follower index rebuilt with " + written[0] + " edges");
+                            retVal.tryComplete(written[0]);
+                        } else {
+                            retVal.tryFail(ar.cause());
+                        }
+                    });
+        });
+        return retVal;
+    }
+
+    private Future<Void> counters(String followerId, String followedId, int delta) {
+        return write(MongoConstants.COLLECTION_NAME_USERS, Arrays.asList(
+                increment(followerId, FOLLOWING_COUNT, delta),
+                increment(followedId, FOLLOWERS_COUNT, delta)));
+    }
+
+    private Future<Void> write(String collection, List<BulkOperation> operations) {
+        Future<Void> retVal = Future.future();
+        if (operations.isEmpty()) {
+            retVal.complete();
+            return retVal;
+        }
+        mongoClient.bulkWriteWithOptions(collection, operations, new BulkWriteOptions(false), metrics.mongo(collection, "bulkWriteWithOptions").time(ar -> {
+            if (ar.succeeded()) {
+                retVal.complete();
+            } else {
+                LOGGER.error("follower index write to " + collection + " failed", ar.cause());
+                retVal.fail(ar.cause());
+            }
+        }));
+        return retVal;
+    }
+
+    private static BulkOperation increment(String userId, String counter, int delta) {
+        return BulkOperation.createUpdate(new JsonObject().put("_id", userId),
+                new JsonObject().put("$inc", new JsonObject().put(counter, delta)), false, false);
+    }
+
+    private static BulkOperation setCount(String userId, String counter, int count) {
+        return BulkOperation.createUpdate(new JsonObject().put("_id", userId),
+                new JsonObject().put("$set", new JsonObject().put(counter, count)), false, false);
+    }
+
+    private static JsonObject edge(String followerId, String followedId) {
+        return new JsonObject()
+                .put("_id", followerId + ":" + followedId)
+                .put("follower", followerId)
+                .put("followed", followedId);
+    }
+}
@@ -0,0 +1,251 @@
+package io.vertx.conduit.feed;
+
+import io.vertx.conduit.metrics.ConduitMetrics;
+import io.vertx.conduit.metrics.MongoTimer;
+import io.vertx.conduit.tracing.Span;
+import io.vertx.conduit.users.ArticleCursor;
+import io.vertx.conduit.users.models.MongoConstants;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.BulkWriteOptions;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fan-out-on-write timelines backing the feed.  Every follower gets one document per article of the authors they
+ * follow:
+ * <pre>{_id: "owner:article", owner, author, article, createdAt}</pre>
+ * so a feed page is a range read on (owner, createdAt, article) instead of a query over every followed author.  The
+ * _id makes every write idempotent, an article is never in a timeline twice.
+ *
+ * Timelines are written when an article is created, backfilled with the recent articles of an author when they are
+ * followed, pruned of that author when they are unfollowed and purged of an article when it is deleted.
+ */
+public class TimelineStore {
+
+    public static final String CONFIG_BACKFILL_SIZE = "feed.backfill.size";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimelineStore.class);
+
+    // followers are read and written in chunks so that a popular author doesn't load every follower at once
+    private static final int FAN_OUT_CHUNK = 500;
+
+    private static final JsonObject TIMELINE_SORT = new JsonObject().put("createdAt", -1).put("article", -1);
+
+    private final MongoClient mongoClient;
+
+    private final ConduitMetrics metrics;
+
+    private final FollowerIndex followerIndex;
+
+    private final int backfillSize;
+
+    public TimelineStore(MongoClient mongoClient, ConduitMetrics metrics, JsonObject config) {
+        this.mongoClient = mongoClient;
+        this.metrics = metrics;
+        this.followerIndex = new FollowerIndex(mongoClient, metrics);
+        this.backfillSize = config.getInteger(CONFIG_BACKFILL_SIZE, 50);
+    }
+
+    /**
+     * Appends an article to the timeline of every follower of its author, as listed by the FollowerIndex.  The first
+     * chunk that fails to be written closes the follower stream, the remaining followers are not read.
+     *
+     * @param authorId
+     * @param articleId
+     * @param createdAt
+     * @return the number of timelines the article was added to, failed and counted in the fan-out failures if any chunk
+     * was not written
+     */
+    public Future<Long> fanOut(String authorId, String articleId, long createdAt) {
+        Future<Long> retVal = Future.future();
+
+        MongoTimer batch = metrics.mongo(MongoConstants.COLLECTION_NAME_FOLLOWS, "findBatchWithOptions");
+        long started = batch.start();
+        Span span = batch.span();
+        ReadStream<JsonObject> followers = followerIndex.followers(authorId, FAN_OUT_CHUNK);
+
+        List<BulkOperation> chunk = new ArrayList<>(FAN_OUT_CHUNK);
+        long[] written = {0};
+
+        followers.exceptionHandler(e -> {
+            batch.record(started, false);
+            span.fail(e).finish();
+            retVal.tryFail(e);
+        });
+        followers.handler(follower -> {
+            chunk.add(upsert(entry(follower.getString("follower"), authorId, articleId, createdAt)));
+            if (chunk.size() == FAN_OUT_CHUNK) {
+                followers.pause();
+                write(new ArrayList<>(chunk)).setHandler(ar -> {
+                    if (ar.succeeded()) {
+                        written[0] += FAN_OUT_CHUNK;
+                        followers.resume();
+                    } else {
+                        // a null handler closes the cursor, which would otherwise stay open and paused for good
+                        followers.handler(null);
+                        batch.record(started, true);
+                        span.finish();
+                        retVal.tryFail(ar.cause());
+                    }
+                });
+                chunk.clear();
+            }
+        });
+        followers.endHandler(v -> {
+            batch.record(started, true);
+            span.finish();
+            int rest = chunk.size();
+            write(chunk).setHandler(ar -> {
+                if (ar.succeeded()) {
+                    retVal.tryComplete(written[0] + rest);
+                } else {
+                    retVal.tryFail(ar.cause());
+                }
+            });
+        });
+        return retVal.recover(e -> {
+            metrics.fanOutFailed();
+            return Future.failedFuture(e);
+        });
+    }
+
+    /**
+     * Adds the most recent articles of an author to the timeline of a new follower
+     *
+     * @param ownerId  the follower
+     * @param authorId the followed author
+     * @return
+     */
+    public Future<Void> backfill(String ownerId, String authorId) {
+        Future<Void> retVal = Future.future();
+
+        FindOptions options = new FindOptions()
+                .setFields(new JsonObject().put("_id", 1).put("createdAt", 1))
+                .setSort(new JsonObject().put("createdAt", -1))
+                .setLimit(backfillSize);
+        mongoClient.findWithOptions(MongoConstants.COLLECTION_NAME_ARTICLES, new JsonObject().put("author", authorId), options, metrics.mongo(MongoConstants.COLLECTION_NAME_ARTICLES, "findWithOptions").time(ar -> {
+            if (ar.failed()) {
+                retVal.fail(ar.cause());
+                return;
+            }
+            List<BulkOperation> operations = new ArrayList<>(ar.result().size());
+            for (JsonObject article : ar.result()) {
+                if (article.getLong("createdAt") != null) {
+                    operations.add(upsert(entry(ownerId, authorId, article.getString("_id"), article.getLong("createdAt"))));
+                }
+            }
+            write(operations).setHandler(retVal.completer());
+        }));
+        return retVal;
+    }
+
+    /**
+     * Removes the articles of an author from the timeline of a former follower
+     *
+     * @param ownerId
+     * @param authorId
+     * @return
+     */
+    public Future<Void> prune(String ownerId, String authorId) {
+        Future<Void> retVal = Future.future();
+
+        JsonObject query = new JsonObject().put("owner", ownerId).put("author", authorId);
+        mongoClient.removeDocuments(MongoConstants.COLLECTION_NAME_TIMELINE, query, metrics.mongo(MongoConstants.COLLECTION_NAME_TIMELINE, "removeDocuments").time(ar -> {
+            if (ar.succeeded()) {
+                retVal.complete();
+            } else {
+                retVal.fail(ar.cause());
+            }
+        }));
+        return retVal;
+    }
+
+    /**
+     * Removes a deleted article from every timeline it was fanned out to, so that it no longer counts in the feeds
+     *
+     * @param articleId
+     * @return
+     */
+    public Future<Void> remove(String articleId) {
+        Future<Void> retVal = Future.future();
+
+        mongoClient.removeDocuments(MongoConstants.COLLECTION_NAME_TIMELINE, new JsonObject().put("article", articleId), metrics.mongo(MongoConstants.COLLECTION_NAME_TIMELINE, "removeDocuments").time(ar -> {
+            if (ar.succeeded()) {
+                retVal.complete();
+            } else {
+                retVal.fail(ar.cause());
+            }
+        }));
+        return retVal;
+    }
+
+    /**
+     * @param ownerId
+     * @param cursor  position after which the page starts, null for the first page
+     * @param limit
+     * @param offset
+     * @return the timeline entries of the page, newest first
+     */
+    public Future<List<JsonObject>> page(String ownerId, ArticleCursor cursor, int limit, int offset) {
+        Future<List<JsonObject>> retVal = Future.future();
+
+        JsonObject query = new JsonObject().put("owner", ownerId);
+        if (cursor != null) {
+            query = new JsonObject().put("$and", new JsonArray().add(query).add(cursor.toFilter("article")));
+        }
+        FindOptions options = new FindOptions()
+                .setFields(new JsonObject().put("article", 1).put("createdAt", 1))
+                .setSort(TIMELINE_SORT)
+                .setLimit(limit)
+                .setSkip(offset);
+        mongoClient.findWithOptions(MongoConstants.COLLECTION_NAME_TIMELINE, query, options, metrics.mongo(MongoConstants.COLLECTION_NAME_TIMELINE, "findWithOptions").time(retVal));
+        return retVal;
+    }
+
+    public Future<Long> count(String ownerId) {
+        Future<Long> retVal = Future.future();
+        mongoClient.count(MongoConstants.COLLECTION_NAME_TIMELINE, new JsonObject().put("owner", ownerId), metrics.mongo(MongoConstants.COLLECTION_NAME_TIMELINE, "count").time(retVal));
+        return retVal;
+    }
+
+    private Future<Void> write(List<BulkOperation> operations) {
+        Future<Void> retVal = Future.future();
+        if (operations.isEmpty()) {
+            retVal.complete();
+            return retVal;
+        }
+
+        // unordered, one failing timeline must not stop the others
+        mongoClient.bulkWriteWithOptions(MongoConstants.COLLECTION_NAME_TIMELINE, operations, new BulkWriteOptions(false), metrics.mongo(MongoConstants.COLLECTION_NAME_TIMELINE, "bulkWriteWithOptions").time(ar -> {
+            if (ar.succeeded()) {
+                retVal.complete();
+            } else {
+                LOGGER.error("timeline write failed", ar.cause());
+                retVal.fail(ar.cause());
+            }
+        }));
+        return retVal;
+    }
+
+    private static BulkOperation upsert(JsonObject entry) {
+        return BulkOperation.createReplace(new JsonObject().put("_id", entry.getString("_id")), entry, true);
+    }
+
+    private static JsonObject entry(String ownerId, String authorId, String articleId, long createdAt) {
+        return new JsonObject()
+                .put("_id", ownerId + ":" + articleId)
+                .put("owner", ownerId)
+                .put("author", authorId)
+                .put("article", articleId)
+                .put("createdAt", createdAt);
+    }
+}
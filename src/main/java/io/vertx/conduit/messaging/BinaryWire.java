@@ -0,0 +1,296 @@
+package io.vertx.conduit.messaging;
+
+import io.vertx.conduit.Article;
+import io.vertx.conduit.comments.Comment;
+import io.vertx.conduit.users.models.User;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Compact binary form of the envelopes for a clustered event bus.  The fields are written in a fixed order without
+ * names: strings and collections as a varint length plus one, so that 0 stands for null, numbers as varints and the
+ * action as its ordinal.  Every node of a cluster must therefore run the same build; VERSION guards against mixing
+ * incompatible ones.
+ */
+final class BinaryWire {
+
+    static final byte VERSION = 1;
+
+    private BinaryWire() {
+    }
+
+    static void writeMessage(Buffer buffer, ConduitMessage message) {
+        buffer.appendByte(VERSION);
+        writeVarInt(buffer, message.getAction() == null ? 0 : message.getAction().ordinal() + 1);
+        writeUser(buffer, message.getUser(), true);
+        writeArticle(buffer, message.getArticle());
+        writeComment(buffer, message.getComment());
+        writeString(buffer, message.getField());
+        writeString(buffer, message.getValue());
+        writeString(buffer, message.getDocument() == null ? null : message.getDocument().encode());
+        writeString(buffer, message.getStreamAddress());
+        writeString(buffer, message.getProjection());
+    }
+
+    static ConduitMessage readMessage(Reader reader) {
+        reader.checkVersion();
+        int action = reader.readVarInt();
+        ConduitMessage retVal = new ConduitMessage(action == 0 ? null : ConduitAction.values()[action - 1]);
+        retVal.setUser(readUser(reader));
+        retVal.setArticle(readArticle(reader));
+        retVal.setComment(readComment(reader));
+        retVal.setField(reader.readString());
+        retVal.setValue(reader.readString());
+        String document = reader.readString();
+        retVal.setDocument(document == null ? null : new JsonObject(document));
+        retVal.setStreamAddress(reader.readString());
+        retVal.setProjection(reader.readString());
+        return retVal;
+    }
+
+    static void writeReply(Buffer buffer, ConduitReply reply) {
+        buffer.appendByte(VERSION);
+        writeUser(buffer, reply.getUser(), false);
+        writeUser(buffer, reply.getFollowed(), false);
+        writeArticle(buffer, reply.getArticle());
+        writeComment(buffer, reply.getComment());
+        writeString(buffer, reply.getDetails());
+        writeVarLong(buffer, reply.getCount() == null ? 0 : reply.getCount() + 1);
+        writeString(buffer, reply.getCursor());
+    }
+
+    static ConduitReply readReply(Reader reader) {
+        reader.checkVersion();
+        ConduitReply retVal = new ConduitReply()
+                .setUser(readUser(reader))
+                .setFollowed(readUser(reader))
+                .setArticle(readArticle(reader))
+                .setComment(readComment(reader))
+                .setDetails(reader.readString());
+        long count = reader.readVarLong();
+        return retVal.setCount(count == 0 ? null : count - 1)
+                .setCursor(reader.readString());
+    }
+
+    /**
+     * @param buffer
+     * @param user
+     * @param caller true for the caller of a request, whose password is the one a login or a registration sent; any
+     *               other user is written without it.  The salt is never written, the hash and the salt never leave
+     *               UserDAV.
+     */
+    private static void writeUser(Buffer buffer, User user, boolean caller) {
+        buffer.appendByte((byte) (user == null ? 0 : 1));
+        if (user == null) {
+            return;
+        }
+        writeString(buffer, user.get_id());
+        writeString(buffer, user.getUsername());
+        writeString(buffer, user.getEmail());
+        writeString(buffer, caller ? user.getPassword() : null);
+        writeString(buffer, null);
+        writeString(buffer, user.getToken());
+        writeString(buffer, user.getBio());
+        writeString(buffer, user.getImage());
+        writeStrings(buffer, user.getFollowing());
+        writeVarInt(buffer, user.getFollowersCount());
+        writeVarInt(buffer, user.getFollowingCount());
+    }
+
+    private static User readUser(Reader reader) {
+        if (reader.readByte() == 0) {
+            return null;
+        }
+        User retVal = new User();
+        retVal.set_id(reader.readString());
+        retVal.setUsername(reader.readString());
+        retVal.setEmail(reader.readString());
+        retVal.setPassword(reader.readString());
+        retVal.setSalt(reader.readString());
+        retVal.setToken(reader.readString());
+        retVal.setBio(reader.readString());
+        retVal.setImage(reader.readString());
+        List<String> following = reader.readStrings();
+        retVal.setFollowing(following == null ? null : new HashSet<>(following));
+        retVal.setFollowersCount(reader.readVarInt());
+        retVal.setFollowingCount(reader.readVarInt());
+        return retVal;
+    }
+
+    private static void writeArticle(Buffer buffer, Article article) {
+        buffer.appendByte((byte) (article == null ? 0 : 1));
+        if (article == null) {
+            return;
+        }
+        writeString(buffer, article.getId());
+        writeString(buffer, article.getSlug());
+        writeString(buffer, article.getTitle());
+        writeString(buffer, article.getDescription());
+        writeString(buffer, article.getBody());
+        writeStrings(buffer, article.getTagsList());
+        writeDate(buffer, article.getCreatedAt());
+        writeDate(buffer, article.getUpdatedAt());
+        buffer.appendByte((byte) (article.isFavorited() ? 1 : 0));
+        writeVarInt(buffer, article.getFavoritesCount());
+        writeUser(buffer, article.getAuthor(), false);
+    }
+
+    private static Article readArticle(Reader reader) {
+        if (reader.readByte() == 0) {
+            return null;
+        }
+        Article retVal = new Article();
+        retVal.setId(reader.readString());
+        retVal.setSlug(reader.readString());
+        retVal.setTitle(reader.readString());
+        retVal.setDescription(reader.readString());
+        retVal.setBody(reader.readString());
+        retVal.setTagsList(reader.readStrings());
+        retVal.setCreatedAt(reader.readDate());
+        retVal.setUpdatedAt(reader.readDate());
+        retVal.setFavorited(reader.readByte() == 1);
+        retVal.setFavoritesCount(reader.readVarInt());
+        retVal.setAuthor(readUser(reader));
+        return retVal;
+    }
+
+    private static void writeComment(Buffer buffer, Comment comment) {
+        buffer.appendByte((byte) (comment == null ? 0 : 1));
+        if (comment == null) {
+            return;
+        }
+        writeString(buffer, comment.getId());
+        writeString(buffer, comment.getArticleSlug());
+        writeString(buffer, comment.getBody());
+        writeDate(buffer, comment.getCreatedAt());
+        writeDate(buffer, comment.getUpdatedAt());
+        writeUser(buffer, comment.getAuthor(), false);
+    }
+
+    private static Comment readComment(Reader reader) {
+        if (reader.readByte() == 0) {
+            return null;
+        }
+        Comment retVal = new Comment();
+        retVal.setId(reader.readString());
+        retVal.setArticleSlug(reader.readString());
+        retVal.setBody(reader.readString());
+        retVal.setCreatedAt(reader.readDate());
+        retVal.setUpdatedAt(reader.readDate());
+        retVal.setAuthor(readUser(reader));
+        return retVal;
+    }
+
+    private static void writeString(Buffer buffer, String value) {
+        if (value == null) {
+            writeVarInt(buffer, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(buffer, bytes.length + 1);
+        buffer.appendBytes(bytes);
+    }
+
+    private static void writeStrings(Buffer buffer, Collection<String> values) {
+        if (values == null) {
+            writeVarInt(buffer, 0);
+            return;
+        }
+        writeVarInt(buffer, values.size() + 1);
+        for (String value : values) {
+            writeString(buffer, value);
+        }
+    }
+
+    private static void writeDate(Buffer buffer, Date date) {
+        writeVarLong(buffer, date == null ? 0 : date.getTime() + 1);
+    }
+
+    private static void writeVarInt(Buffer buffer, int value) {
+        writeVarLong(buffer, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarLong(Buffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.appendByte((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.appendByte((byte) value);
+    }
+
+    /**
+     * Reads the fields of an envelope in the order they were written
+     */
+    static final class Reader {
+
+        private final Buffer buffer;
+
+        private int pos;
+
+        Reader(Buffer buffer, int pos) {
+            this.buffer = buffer;
+            this.pos = pos;
+        }
+
+        void checkVersion() {
+            byte version = readByte();
+            if (version != VERSION) {
+                throw new IllegalStateException("envelope written with wire version " + version + ", this node reads " + VERSION);
+            }
+        }
+
+        byte readByte() {
+            return buffer.getByte(pos++);
+        }
+
+        int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        long readVarLong() {
+            long retVal = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.getByte(pos++);
+                retVal |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return retVal;
+        }
+
+        String readString() {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            String retVal = buffer.getString(pos, pos + length - 1, "UTF-8");
+            pos += length - 1;
+            return retVal;
+        }
+
+        List<String> readStrings() {
+            int size = readVarInt();
+            if (size == 0) {
+                return null;
+            }
+            List<String> retVal = new ArrayList<>(size - 1);
+            for (int i = 0; i < size - 1; i++) {
+                retVal.add(readString());
+            }
+            return retVal;
+        }
+
+        Date readDate() {
+            long millis = readVarLong();
+            return millis == 0 ? null : new Date(millis - 1);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package io.vertx.conduit.messaging;
+
+import io.vertx.conduit.MessagingProps;
+import io.vertx.conduit.UserDAV;
+import io.vertx.conduit.comments.CommentDAV;
+import io.vertx.conduit.users.ArticleDAV;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Typed version of the action strings understood by the DAV verticles.  The string values are kept so that
+ * JsonObject messages built with the MessagingProps/UserDAV constants can still be mapped onto an action.
+ */
+public enum ConduitAction {
+
+    // address.login
+    REGISTER(UserDAV.MESSAGE_ACTION_REGISTER),
+    LOGIN(UserDAV.MESSAGE_ACTION_LOGIN),
+    LOOKUP_USER_BY_EMAIL(UserDAV.MESSAGE_ACTION_LOOKUP_USER_BY_EMAIL),
+    LOOKUP_USER_BY_USERNAME(UserDAV.MESSAGE_ACTION_LOOKUP_USER_BY_USERNAME),
+    FOLLOW_USER(UserDAV.MESSAGE_ACTION_FOLLOW_USER),
+    UNFOLLOW_USER(UserDAV.MESSAGE_ACTION_UNFOLLOW),
+    CREATE_ARTICLE(UserDAV.MESSAGE_ACTION_CREATE_ARTICLE),
+
+    // shared by address.login and address.articles
+    UPDATE(MessagingProps.MESSAGE_ACTION_UPDATE),
+
+    // address.articles
+    LOOKUP_BY_FIELD(MessagingProps.LOOKUP_BY_FIELD),
+    DELETE(MessagingProps.DELETE),
+    LIST_ARTICLES(ArticleDAV.MESSAGE_ACTION_LIST_ARTICLES),
+    FEED(ArticleDAV.MESSAGE_ACTION_FEED),
+    FAVORITE(ArticleDAV.MESSAGE_ACTION_FAVORITE),
+    UNFAVORITE(ArticleDAV.MESSAGE_ACTION_UNFAVORITE),
+
+    // address.comments
+    CREATE_COMMENT(CommentDAV.MESSAGE_ACTION_CREATE_COMMENT),
+    LIST_COMMENTS(CommentDAV.MESSAGE_ACTION_LIST_COMMENTS),
+    DELETE_COMMENT(CommentDAV.MESSAGE_ACTION_DELETE_COMMENT);
+
+    private static final Map<String, ConduitAction> BY_NAME = new HashMap<>();
+
+    static {
+        for (ConduitAction action : values()) {
+            BY_NAME.put(action.name, action);
+        }
+    }
+
+    private ConduitAction(String name) {
+        this.name = name;
+    }
+
+    public final String name;
+
+    /**
+     * @param name one of the action constants from MessagingProps or UserDAV
+     * @return the matching action or null if the name is unknown
+     */
+    public static ConduitAction fromName(String name) {
+        return name == null ? null : BY_NAME.get(name);
+    }
+
+}
@@ -0,0 +1,187 @@
+package io.vertx.conduit.messaging;
+
+import io.vertx.conduit.Article;
+import io.vertx.conduit.comments.Comment;
+import io.vertx.conduit.users.models.User;
+import io.vertx.core.json.JsonObject;
+
+import static io.vertx.conduit.MessagingProps.*;
+import static io.vertx.conduit.UserDAV.*;
+
+/**
+ * Request envelope sent from the HttpVerticle to the DAV verticles.  Local delivery passes the instance by reference
+ * (see ConduitMessageCodec) so the sender must not modify the User or Article after sending.
+ *
+ * field/value carry the lookup key (e.g. "slug" and the slug), document carries the values for an update or the
+ * filters of a listing.  Listings stream their results to streamAddress instead of replying with them.  projection
+ * names the Projection a lookup or listing reads with, null for the default of the action.
+ */
+public class ConduitMessage {
+
+    private ConduitAction action;
+
+    private User user;
+
+    private Article article;
+
+    private Comment comment;
+
+    private String field;
+
+    private String value;
+
+    private JsonObject document;
+
+    private String streamAddress;
+
+    private String projection;
+
+    public ConduitMessage(ConduitAction action) {
+        this.action = action;
+    }
+
+    /**
+     * Maps the JsonObject messages keyed by MessagingProps onto a ConduitMessage
+     *
+     * @param json
+     * @return
+     */
+    public static ConduitMessage fromJson(JsonObject json) {
+        ConduitMessage retVal = new ConduitMessage(ConduitAction.fromName(json.getString(MESSAGE_ACTION)));
+
+        if (json.containsKey(MESSAGE_VALUE_USER)) retVal.user = new User(json.getJsonObject(MESSAGE_VALUE_USER));
+        if (json.containsKey(MESSAGE_CREATE_OBJECT)) retVal.article = Wire.toArticle(json.getJsonObject(MESSAGE_CREATE_OBJECT));
+        if (json.containsKey(MESSAGE_COMMENT)) retVal.comment = Wire.toComment(json.getJsonObject(MESSAGE_COMMENT));
+
+        // lookups
+        if (json.containsKey(KEY_FIELD)) retVal.field = json.getString(KEY_FIELD);
+        if (json.containsKey(MESSAGE_LOOKUP_FIELD)) retVal.field = json.getString(MESSAGE_LOOKUP_FIELD);
+        if (json.containsKey(KEY_VALUE)) retVal.value = json.getString(KEY_VALUE);
+        if (json.containsKey(MESSAGE_LOOKUP_CRITERIA)) retVal.value = json.getString(MESSAGE_LOOKUP_CRITERIA);
+
+        // updates
+        if (json.containsKey(DOCUMENT)) retVal.document = json.getJsonObject(DOCUMENT);
+        if (json.containsKey(MESSAGE_UPDATE_NEW)) retVal.document = json.getJsonObject(MESSAGE_UPDATE_NEW);
+        if (json.containsKey(MESSAGE_UPDATE_EXISTING)) retVal.value = json.getString(MESSAGE_UPDATE_EXISTING);
+
+        // listings
+        if (json.containsKey(STREAM_ADDRESS)) retVal.streamAddress = json.getString(STREAM_ADDRESS);
+        if (json.containsKey(PROJECTION)) retVal.projection = json.getString(PROJECTION);
+
+        // follow/unfollow
+        if (json.containsKey(MESSAGE_FOLLOW_USER_FOLLOWED_USER)) retVal.value = json.getString(MESSAGE_FOLLOW_USER_FOLLOWED_USER);
+        if (json.containsKey(MESSAGE_FOLLOW_USER_FOLLOWER)) {
+            retVal.user = new User();
+            retVal.user.setEmail(json.getString(MESSAGE_FOLLOW_USER_FOLLOWER));
+        }
+        return retVal;
+    }
+
+    /**
+     * Message bodies are either a ConduitMessage or a JsonObject keyed by MessagingProps
+     *
+     * @param body the body of an event bus message
+     * @return
+     */
+    public static ConduitMessage from(Object body) {
+        if (body instanceof ConduitMessage) {
+            return (ConduitMessage) body;
+        }
+        return fromJson((JsonObject) body);
+    }
+
+    public JsonObject toJson() {
+        JsonObject retVal = new JsonObject();
+        if (action != null) retVal.put(MESSAGE_ACTION, action.name);
+        if (user != null) retVal.put(MESSAGE_VALUE_USER, Wire.fromRequestUser(user));
+        if (article != null) retVal.put(MESSAGE_CREATE_OBJECT, Wire.fromArticle(article));
+        if (comment != null) retVal.put(MESSAGE_COMMENT, Wire.fromComment(comment));
+        if (field != null) retVal.put(KEY_FIELD, field);
+        if (value != null) retVal.put(KEY_VALUE, value);
+        if (document != null) retVal.put(DOCUMENT, document);
+        if (streamAddress != null) retVal.put(STREAM_ADDRESS, streamAddress);
+        if (projection != null) retVal.put(PROJECTION, projection);
+        return retVal;
+    }
+
+    public ConduitAction getAction() {
+        return action;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public ConduitMessage setUser(User user) {
+        this.user = user;
+        return this;
+    }
+
+    public Article getArticle() {
+        return article;
+    }
+
+    public ConduitMessage setArticle(Article article) {
+        this.article = article;
+        return this;
+    }
+
+    public Comment getComment() {
+        return comment;
+    }
+
+    public ConduitMessage setComment(Comment comment) {
+        this.comment = comment;
+        return this;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public ConduitMessage setField(String field) {
+        this.field = field;
+        return this;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public ConduitMessage setValue(String value) {
+        this.value = value;
+        return this;
+    }
+
+    public JsonObject getDocument() {
+        return document;
+    }
+
+    public ConduitMessage setDocument(JsonObject document) {
+        this.document = document;
+        return this;
+    }
+
+    public String getStreamAddress() {
+        return streamAddress;
+    }
+
+    public ConduitMessage setStreamAddress(String streamAddress) {
+        this.streamAddress = streamAddress;
+        return this;
+    }
+
+    public String getProjection() {
+        return projection;
+    }
+
+    public ConduitMessage setProjection(String projection) {
+        this.projection = projection;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "ConduitMessage{" + action + ", field=" + field + ", value=" + value + "}";
+    }
+}
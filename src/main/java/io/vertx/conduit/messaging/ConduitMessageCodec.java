@@ -0,0 +1,86 @@
+package io.vertx.conduit.messaging;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.EventBus;
+import io.vertx.core.eventbus.MessageCodec;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Event bus codec for the Conduit envelopes.  Local delivery hands the receiver the same instance the sender created,
+ * the compact BinaryWire encoding is only used when a message has to cross the wire to another node of a cluster.
+ *
+ * @param <T> ConduitMessage or ConduitReply
+ */
+public class ConduitMessageCodec<T> implements MessageCodec<T, T> {
+
+    private final String name;
+
+    private final BiConsumer<Buffer, T> encoder;
+
+    private final Function<BinaryWire.Reader, T> decoder;
+
+    ConduitMessageCodec(String name, BiConsumer<Buffer, T> encoder, Function<BinaryWire.Reader, T> decoder) {
+        this.name = name;
+        this.encoder = encoder;
+        this.decoder = decoder;
+    }
+
+    public static ConduitMessageCodec<ConduitMessage> messages() {
+        return new ConduitMessageCodec<>("conduit.message", BinaryWire::writeMessage, BinaryWire::readMessage);
+    }
+
+    public static ConduitMessageCodec<ConduitReply> replies() {
+        return new ConduitMessageCodec<>("conduit.reply", BinaryWire::writeReply, BinaryWire::readReply);
+    }
+
+    /**
+     * Registers the codecs as the default codecs for ConduitMessage and ConduitReply.  Every verticle calls this from
+     * start() so it is safe to call more than once for the same Vertx instance.
+     *
+     * @param vertx
+     */
+    public static void register(Vertx vertx) {
+        EventBus eventBus = vertx.eventBus();
+        registerDefault(eventBus, ConduitMessage.class, messages());
+        registerDefault(eventBus, ConduitReply.class, replies());
+    }
+
+    private static synchronized <T> void registerDefault(EventBus eventBus, Class<T> clazz, MessageCodec<T, ?> codec) {
+        try {
+            eventBus.registerDefaultCodec(clazz, codec);
+        } catch (IllegalStateException e) {
+            // already registered by another verticle
+        }
+    }
+
+    @Override
+    public void encodeToWire(Buffer buffer, T t) {
+        int lengthPos = buffer.length();
+        buffer.appendInt(0);
+        encoder.accept(buffer, t);
+        buffer.setInt(lengthPos, buffer.length() - lengthPos - 4);
+    }
+
+    @Override
+    public T decodeFromWire(int pos, Buffer buffer) {
+        return decoder.apply(new BinaryWire.Reader(buffer, pos + 4));
+    }
+
+    @Override
+    public T transform(T t) {
+        return t;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public byte systemCodecID() {
+        return -1;
+    }
+}
@@ -0,0 +1,158 @@
+package io.vertx.conduit.messaging;
+
+import io.vertx.conduit.Article;
+import io.vertx.conduit.comments.Comment;
+import io.vertx.conduit.users.models.User;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
+
+import static io.vertx.conduit.MessagingProps.MESSAGE_RESPONSE_DETAILS;
+import static io.vertx.conduit.UserDAV.MESSAGE_FOLLOW_USER_FOLLOWED_USER;
+import static io.vertx.conduit.UserDAV.MESSAGE_FOLLOW_USER_FOLLOWER;
+
+/**
+ * Reply envelope sent from the DAV verticles back to the HttpVerticle
+ */
+public class ConduitReply {
+
+    private static final String WIRE_USER = "user";
+    private static final String WIRE_FOLLOWED = "followed";
+    private static final String WIRE_ARTICLE = "article";
+    private static final String WIRE_COMMENT = "comment";
+    private static final String WIRE_DETAILS = "details";
+    private static final String WIRE_COUNT = "count";
+    private static final String WIRE_CURSOR = "cursor";
+
+    private User user;
+
+    private User followed;
+
+    private Article article;
+
+    private Comment comment;
+
+    private String details;
+
+    // end of a listing: number of matching documents and where the next page starts
+    private Long count;
+
+    private String cursor;
+
+    /**
+     * Replies in the same format as the request: a ConduitReply for ConduitMessage requests and a JsonObject with
+     * MESSAGE_RESPONSE_DETAILS for JsonObject requests
+     *
+     * @param message the message being replied to
+     * @param reply
+     */
+    public static void reply(Message<?> message, ConduitReply reply) {
+        if (message.body() instanceof JsonObject) {
+            message.reply(reply.toDetailsJson());
+        } else {
+            message.reply(reply);
+        }
+    }
+
+    public static ConduitReply fromJson(JsonObject json) {
+        ConduitReply retVal = new ConduitReply();
+        if (json.containsKey(WIRE_USER)) retVal.user = Wire.toUser(json.getJsonObject(WIRE_USER));
+        if (json.containsKey(WIRE_FOLLOWED)) retVal.followed = Wire.toUser(json.getJsonObject(WIRE_FOLLOWED));
+        if (json.containsKey(WIRE_ARTICLE)) retVal.article = Wire.toArticle(json.getJsonObject(WIRE_ARTICLE));
+        if (json.containsKey(WIRE_COMMENT)) retVal.comment = Wire.toComment(json.getJsonObject(WIRE_COMMENT));
+        retVal.details = json.getString(WIRE_DETAILS);
+        retVal.count = json.getLong(WIRE_COUNT);
+        retVal.cursor = json.getString(WIRE_CURSOR);
+        return retVal;
+    }
+
+    public JsonObject toJson() {
+        JsonObject retVal = new JsonObject();
+        if (user != null) retVal.put(WIRE_USER, Wire.fromUser(user));
+        if (followed != null) retVal.put(WIRE_FOLLOWED, Wire.fromUser(followed));
+        if (article != null) retVal.put(WIRE_ARTICLE, Wire.fromArticle(article));
+        if (comment != null) retVal.put(WIRE_COMMENT, Wire.fromComment(comment));
+        if (details != null) retVal.put(WIRE_DETAILS, details);
+        if (count != null) retVal.put(WIRE_COUNT, count);
+        if (cursor != null) retVal.put(WIRE_CURSOR, cursor);
+        return retVal;
+    }
+
+    /**
+     * @return the reply in the MESSAGE_RESPONSE_DETAILS format used with JsonObject messages
+     */
+    public JsonObject toDetailsJson() {
+        if (followed != null) {
+            return new JsonObject().put(MESSAGE_RESPONSE_DETAILS, new JsonObject()
+                    .put(MESSAGE_FOLLOW_USER_FOLLOWER, user.toMongoJson())
+                    .put(MESSAGE_FOLLOW_USER_FOLLOWED_USER, followed.toMongoJson()));
+        } else if (article != null) {
+            return new JsonObject().put(MESSAGE_RESPONSE_DETAILS, Wire.fromArticle(article));
+        } else if (user != null) {
+            return new JsonObject().put(MESSAGE_RESPONSE_DETAILS, user.toJson());
+        }
+        return new JsonObject().put(MESSAGE_RESPONSE_DETAILS, details);
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public ConduitReply setUser(User user) {
+        this.user = user;
+        return this;
+    }
+
+    public User getFollowed() {
+        return followed;
+    }
+
+    public ConduitReply setFollowed(User followed) {
+        this.followed = followed;
+        return this;
+    }
+
+    public Article getArticle() {
+        return article;
+    }
+
+    public ConduitReply setArticle(Article article) {
+        this.article = article;
+        return this;
+    }
+
+    public Comment getComment() {
+        return comment;
+    }
+
+    public ConduitReply setComment(Comment comment) {
+        this.comment = comment;
+        return this;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    public ConduitReply setDetails(String details) {
+        this.details = details;
+        return this;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public ConduitReply setCount(Long count) {
+        this.count = count;
+        return this;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public ConduitReply setCursor(String cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+}
@@ -0,0 +1,67 @@
+package io.vertx.conduit.messaging;
+
+import io.vertx.conduit.Article;
+import io.vertx.conduit.comments.Comment;
+import io.vertx.conduit.users.models.User;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Json representations of the domain models used when an envelope has to leave the JVM
+ */
+class Wire {
+
+    /**
+     * @param user a user read by a DAV, in a reply or as the author of an article or comment
+     * @return the user without its password hash and salt, which never leave UserDAV
+     */
+    static JsonObject fromUser(User user) {
+        JsonObject retVal = fromRequestUser(user);
+        retVal.remove("password");
+        return retVal;
+    }
+
+    /**
+     * @param user the caller of a request; for a login or a registration it holds the password the client sent
+     * @return the user with that password but never a salt
+     */
+    static JsonObject fromRequestUser(User user) {
+        JsonObject retVal = user.toMongoJson();
+        retVal.remove("salt");
+        if (user.getImage() != null) retVal.put("image", user.getImage());
+        // toMongoJson leaves the counters out so that saving a user never overwrites them
+        retVal.put("followersCount", user.getFollowersCount()).put("followingCount", user.getFollowingCount());
+        return retVal;
+    }
+
+    static User toUser(JsonObject json) {
+        return new User(json);
+    }
+
+    static JsonObject fromArticle(Article article) {
+        JsonObject retVal = article.toMongoJson();
+        retVal.remove("id");
+        if (article.getId() != null) retVal.put("_id", article.getId());
+        if (article.getAuthor() != null) retVal.put("author", fromUser(article.getAuthor()));
+        return retVal;
+    }
+
+    static Article toArticle(JsonObject json) {
+        Article retVal = new Article(json);
+        Object author = json.getValue("author");
+        if (author instanceof JsonObject) {
+            retVal.setAuthor(new User((JsonObject) author));
+        }
+        return retVal;
+    }
+
+    static JsonObject fromComment(Comment comment) {
+        JsonObject retVal = comment.toMongoJson();
+        if (comment.getId() != null) retVal.put("_id", comment.getId());
+        if (comment.getAuthor() != null) retVal.put("author", fromUser(comment.getAuthor()));
+        return retVal;
+    }
+
+    static Comment toComment(JsonObject json) {
+        return new Comment(json);
+    }
+}
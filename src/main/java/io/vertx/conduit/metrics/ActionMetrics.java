@@ -0,0 +1,131 @@
+package io.vertx.conduit.metrics;
+
+import io.vertx.conduit.messaging.ConduitAction;
+import io.vertx.core.eventbus.Message;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and failures of the actions handled by the consumer of one event bus address, indexed by the ordinal of
+ * the ConduitAction so that finding the series of a message is an array access.  The admission counters add up the
+ * AdmissionControl of every consumer instance of the address.
+ *
+ * Timing a message allocates one TimedMessage.  The action then sees it wrapped in an AdmittedMessage, and in a
+ * TracedMessage as well when it is traced, so an untraced message carries two wrappers and a traced one three.
+ */
+public class ActionMetrics {
+
+    private final String address;
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[ConduitAction.values().length];
+
+    private final LongAdder[] failures = new LongAdder[ConduitAction.values().length];
+
+    private final AtomicLong inFlight = new AtomicLong();
+
+    private final AtomicLong queued = new AtomicLong();
+
+    private final LongAdder shedOverloaded = new LongAdder();
+
+    private final LongAdder shedExpired = new LongAdder();
+
+    ActionMetrics(String address) {
+        this.address = address;
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+            failures[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param message the message as received by the consumer
+     * @param action  the action of the message
+     * @return the message to hand to the action, its first reply or fail records the time since this call; a new
+     * wrapper per message
+     */
+    public Message<Object> timed(Message<Object> message, ConduitAction action) {
+        return new TimedMessage(message, this, action, System.nanoTime());
+    }
+
+    /**
+     * @param action
+     * @param nanos
+     * @param failed true if the action answered with fail
+     */
+    public void record(ConduitAction action, long nanos, boolean failed) {
+        latencies[action.ordinal()].record(nanos);
+        if (failed) {
+            failures[action.ordinal()].increment();
+        }
+    }
+
+    public void inFlight(int delta) {
+        inFlight.addAndGet(delta);
+    }
+
+    public void queued(int delta) {
+        queued.addAndGet(delta);
+    }
+
+    /**
+     * @param expired true if the message was dropped because its caller gave up, false if the queue was full
+     */
+    public void shed(boolean expired) {
+        (expired ? shedExpired : shedOverloaded).increment();
+    }
+
+    public long getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getQueued() {
+        return queued.get();
+    }
+
+    public long getShed(boolean expired) {
+        return (expired ? shedExpired : shedOverloaded).sum();
+    }
+
+    public LatencyHistogram getLatency(ConduitAction action) {
+        return latencies[action.ordinal()];
+    }
+
+    public long getFailures(ConduitAction action) {
+        return failures[action.ordinal()].sum();
+    }
+
+    void writeLatency(StringBuilder out, String name) {
+        for (ConduitAction action : ConduitAction.values()) {
+            if (latencies[action.ordinal()].getCount() > 0) {
+                latencies[action.ordinal()].write(out, name, labels(action));
+            }
+        }
+    }
+
+    void writeFailures(StringBuilder out, String name) {
+        for (ConduitAction action : ConduitAction.values()) {
+            if (latencies[action.ordinal()].getCount() > 0) {
+                out.append(name).append('{').append(labels(action)).append("} ")
+                        .append(failures[action.ordinal()].sum()).append('\n');
+            }
+        }
+    }
+
+    void writeInFlight(StringBuilder out, String name) {
+        out.append(name).append("{address=\"").append(ConduitMetrics.escape(address)).append("\"} ").append(inFlight.get()).append('\n');
+    }
+
+    void writeQueued(StringBuilder out, String name) {
+        out.append(name).append("{address=\"").append(ConduitMetrics.escape(address)).append("\"} ").append(queued.get()).append('\n');
+    }
+
+    void writeShed(StringBuilder out, String name) {
+        out.append(name).append("{address=\"").append(ConduitMetrics.escape(address)).append("\",reason=\"overloaded\"} ").append(shedOverloaded.sum()).append('\n');
+        out.append(name).append("{address=\"").append(ConduitMetrics.escape(address)).append("\",reason=\"deadline\"} ").append(shedExpired.sum()).append('\n');
+    }
+
+    private String labels(ConduitAction action) {
+        return "address=\"" + ConduitMetrics.escape(address) + "\",action=\"" + ConduitMetrics.escape(action.name) + "\"";
+    }
+}
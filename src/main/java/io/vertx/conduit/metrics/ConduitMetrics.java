@@ -0,0 +1,154 @@
+package io.vertx.conduit.metrics;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of the routes, event bus consumers and Mongo calls, shared by every verticle in the Vertx instance and
+ * rendered by GET /metrics in the Prometheus text format.
+ *
+ * The series are created when a route or consumer is registered, or on the first call for a Mongo operation, so that
+ * recording only touches counters that already exist.
+ */
+public class ConduitMetrics implements Shareable {
+
+    private static final String METRICS_MAP = "conduit.metrics";
+
+    private static final String KEY = "metrics";
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final ConcurrentMap<String, RouteMetrics> routes = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentMap<String, ActionMetrics> addresses = new ConcurrentSkipListMap<>();
+
+    // by collection, then by operation, so that finding a timer needs no key to be built
+    private final ConcurrentMap<String, ConcurrentMap<String, MongoTimer>> mongo = new ConcurrentSkipListMap<>();
+
+    private final LongAdder fanOutFailures = new LongAdder();
+
+    /**
+     * @param vertx
+     * @return the metrics of the Vertx instance
+     */
+    public static ConduitMetrics shared(Vertx vertx) {
+        LocalMap<String, ConduitMetrics> metrics = vertx.sharedData().getLocalMap(METRICS_MAP);
+        return metrics.computeIfAbsent(KEY, k -> new ConduitMetrics());
+    }
+
+    /**
+     * @param method
+     * @param path   the path the route was registered with, e.g. /api/articles/:slug
+     * @return the metrics of the route, to be installed as its first handler
+     */
+    public RouteMetrics route(HttpMethod method, String path) {
+        return routes.computeIfAbsent(method.name() + " " + path, k -> new RouteMetrics(method.name(), path));
+    }
+
+    /**
+     * @param address
+     * @return the metrics of the consumer of the address
+     */
+    public ActionMetrics address(String address) {
+        return addresses.computeIfAbsent(address, ActionMetrics::new);
+    }
+
+    /**
+     * @param collection
+     * @param operation  name of the MongoClient method
+     * @return the timer of the operation on the collection
+     */
+    public MongoTimer mongo(String collection, String operation) {
+        ConcurrentMap<String, MongoTimer> operations = mongo.get(collection);
+        if (operations == null) {
+            operations = mongo.computeIfAbsent(collection, c -> new ConcurrentSkipListMap<>());
+        }
+        MongoTimer retVal = operations.get(operation);
+        if (retVal == null) {
+            retVal = operations.computeIfAbsent(operation, o -> new MongoTimer(collection, o));
+        }
+        return retVal;
+    }
+
+    /**
+     * Counts an article that may be missing from the timelines of some followers of its author.  The fan-out runs after
+     * the author got the reply, so this counter is the only trace of the failure besides the log.
+     */
+    public void fanOutFailed() {
+        fanOutFailures.increment();
+    }
+
+    /**
+     * @return every series in the Prometheus text exposition format
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+
+        family(out, "conduit_http_request_duration_seconds", "histogram", "Time from routing a request to the end of its response");
+        for (RouteMetrics route : routes.values()) {
+            route.writeLatency(out, "conduit_http_request_duration_seconds");
+        }
+        family(out, "conduit_http_responses_total", "counter", "Responses by route and status code");
+        for (RouteMetrics route : routes.values()) {
+            route.writeStatuses(out, "conduit_http_responses_total");
+        }
+
+        family(out, "conduit_eventbus_action_duration_seconds", "histogram", "Time from receiving a message to its reply or failure");
+        for (ActionMetrics address : addresses.values()) {
+            address.writeLatency(out, "conduit_eventbus_action_duration_seconds");
+        }
+        family(out, "conduit_eventbus_action_failures_total", "counter", "Messages answered with a failure");
+        for (ActionMetrics address : addresses.values()) {
+            address.writeFailures(out, "conduit_eventbus_action_failures_total");
+        }
+        family(out, "conduit_eventbus_in_flight", "gauge", "Messages being handled by the consumers of an address");
+        for (ActionMetrics address : addresses.values()) {
+            address.writeInFlight(out, "conduit_eventbus_in_flight");
+        }
+        family(out, "conduit_eventbus_queue_depth", "gauge", "Messages waiting for a consumer of an address to admit them");
+        for (ActionMetrics address : addresses.values()) {
+            address.writeQueued(out, "conduit_eventbus_queue_depth");
+        }
+        family(out, "conduit_eventbus_shed_total", "counter", "Messages refused because the queue was full or dropped because their deadline passed");
+        for (ActionMetrics address : addresses.values()) {
+            address.writeShed(out, "conduit_eventbus_shed_total");
+        }
+
+        family(out, "conduit_mongo_operation_duration_seconds", "histogram", "Time from a MongoClient call to its result");
+        for (Map<String, MongoTimer> operations : mongo.values()) {
+            for (MongoTimer timer : operations.values()) {
+                timer.writeLatency(out, "conduit_mongo_operation_duration_seconds");
+            }
+        }
+        family(out, "conduit_mongo_operation_failures_total", "counter", "MongoClient calls that failed");
+        for (Map<String, MongoTimer> operations : mongo.values()) {
+            for (MongoTimer timer : operations.values()) {
+                timer.writeFailures(out, "conduit_mongo_operation_failures_total");
+            }
+        }
+
+        family(out, "conduit_feed_fan_out_failures_total", "counter", "New articles that may be missing from the timelines of their author's followers");
+        out.append("conduit_feed_fan_out_failures_total ").append(fanOutFailures.sum()).append('\n');
+        return out.toString();
+    }
+
+    private static void family(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * @param value
+     * @return the value with backslash, double quote and line feed escaped for a label
+     */
+    static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,77 @@
+package io.vertx.conduit.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed buckets, from 100 microseconds to 10 seconds.  Recording a value is a scan of the
+ * bucket bounds and two LongAdder increments, it allocates nothing once the adders have seen their first contention.
+ */
+public class LatencyHistogram {
+
+    // upper bounds of the buckets in nanoseconds, the last bucket takes everything above
+    private static final long[] BOUNDS = {
+            100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L,
+            10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L,
+            1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L
+    };
+
+    // the same bounds as Prometheus le labels, in seconds
+    private static final String[] LE = {
+            "0.0001", "0.00025", "0.0005",
+            "0.001", "0.0025", "0.005",
+            "0.01", "0.025", "0.05",
+            "0.1", "0.25", "0.5",
+            "1.0", "2.5", "5.0", "10.0",
+            "+Inf"
+    };
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+
+    private final LongAdder sumNanos = new LongAdder();
+
+    LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param nanos
+     */
+    public void record(long nanos) {
+        int i = 0;
+        while (i < BOUNDS.length && nanos > BOUNDS[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        sumNanos.add(nanos);
+    }
+
+    public long getCount() {
+        long retVal = 0;
+        for (LongAdder bucket : buckets) {
+            retVal += bucket.sum();
+        }
+        return retVal;
+    }
+
+    /**
+     * Appends the _bucket, _sum and _count samples of the histogram
+     *
+     * @param out
+     * @param name   name of the metric family
+     * @param labels the labels of the series, already formatted as name="value" pairs
+     */
+    void write(StringBuilder out, String name, String labels) {
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            out.append(name).append("_bucket{").append(labels).append(",le=\"").append(LE[i]).append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        out.append(name).append("_sum{").append(labels).append("} ").append(sumNanos.sum() / 1e9).append('\n');
+        out.append(name).append("_count{").append(labels).append("} ").append(cumulative).append('\n');
+    }
+}
@@ -0,0 +1,107 @@
+package io.vertx.conduit.metrics;
+
+import io.vertx.conduit.tracing.Span;
+import io.vertx.conduit.tracing.Tracer;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and failures of one kind of operation on one Mongo collection.  When the call is made while a traced action
+ * is current, it also becomes a span of the trace.
+ *
+ * Timing a call with time allocates the handler that wraps the caller's, plus a span when traced.  Streams timed with
+ * start and record allocate nothing but the span.
+ */
+public class MongoTimer {
+
+    private final String labels;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final String spanName;
+
+    MongoTimer(String collection, String operation) {
+        this.spanName = "mongo " + operation + " " + collection;
+        this.labels = "collection=\"" + ConduitMetrics.escape(collection) + "\",operation=\"" + ConduitMetrics.escape(operation) + "\"";
+    }
+
+    /**
+     * Times a call from now until its result handler runs.  In a traced action the call gets a span, and the span of
+     * the action is current again while the result handler runs so that the calls it makes are traced as well.
+     *
+     * @param handler the result handler of the call
+     * @param <T>
+     * @return the handler to pass to the MongoClient instead, a new one per call
+     */
+    public <T> Handler<AsyncResult<T>> time(Handler<AsyncResult<T>> handler) {
+        long start = System.nanoTime();
+        Span parent = Tracer.current();
+        if (!parent.isSampled()) {
+            return ar -> {
+                record(start, ar.succeeded());
+                handler.handle(ar);
+            };
+        }
+        Span span = parent.child(spanName);
+        return ar -> {
+            record(start, ar.succeeded());
+            if (ar.failed()) {
+                span.fail(ar.cause());
+            }
+            span.finish();
+            Span previous = Tracer.activate(parent);
+            try {
+                handler.handle(ar);
+            } finally {
+                Tracer.restore(previous);
+            }
+        };
+    }
+
+    /**
+     * @return a span of the call started now as a child of the current span, for calls timed with start and record
+     */
+    public Span span() {
+        return Tracer.current().child(spanName);
+    }
+
+    /**
+     * For calls that don't end in a single handler, such as findBatch streams
+     *
+     * @return the start to pass to record
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * @param start     as returned by start
+     * @param succeeded
+     */
+    public void record(long start, boolean succeeded) {
+        latency.record(System.nanoTime() - start);
+        if (!succeeded) {
+            failures.increment();
+        }
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    void writeLatency(StringBuilder out, String name) {
+        latency.write(out, name, labels);
+    }
+
+    void writeFailures(StringBuilder out, String name) {
+        out.append(name).append('{').append(labels).append("} ").append(failures.sum()).append('\n');
+    }
+}
@@ -0,0 +1,64 @@
+package io.vertx.conduit.metrics;
+
+import io.vertx.core.Handler;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency and status codes of one route.  Installed as the first handler of the route, it times the request until
+ * the last byte of the response is written, which costs one body end handler per request.
+ */
+public class RouteMetrics implements Handler<RoutingContext> {
+
+    private static final int MAX_STATUS = 600;
+
+    private final String labels;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    // responses by status code, anything outside 100-599 is counted as 0
+    private final AtomicLongArray statuses = new AtomicLongArray(MAX_STATUS);
+
+    RouteMetrics(String method, String path) {
+        this.labels = "method=\"" + method + "\",route=\"" + ConduitMetrics.escape(path) + "\"";
+    }
+
+    @Override
+    public void handle(RoutingContext routingContext) {
+        long start = System.nanoTime();
+        routingContext.addBodyEndHandler(v -> record(routingContext.response().getStatusCode(), System.nanoTime() - start));
+        routingContext.next();
+    }
+
+    /**
+     * @param status
+     * @param nanos
+     */
+    public void record(int status, long nanos) {
+        latency.record(nanos);
+        statuses.incrementAndGet(status >= 100 && status < MAX_STATUS ? status : 0);
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getResponses(int status) {
+        return statuses.get(status);
+    }
+
+    void writeLatency(StringBuilder out, String name) {
+        latency.write(out, name, labels);
+    }
+
+    void writeStatuses(StringBuilder out, String name) {
+        for (int status = 0; status < MAX_STATUS; status++) {
+            long count = statuses.get(status);
+            if (count > 0) {
+                out.append(name).append('{').append(labels).append(",status=\"").append(status).append("\"} ")
+                        .append(count).append('\n');
+            }
+        }
+    }
+}
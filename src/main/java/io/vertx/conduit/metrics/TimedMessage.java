@@ -0,0 +1,94 @@
+package io.vertx.conduit.metrics;
+
+import io.vertx.conduit.messaging.ConduitAction;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+
+/**
+ * A received message that records the latency of its action when it is answered.  Only the first reply or fail is
+ * recorded, a DAV answers each message once.
+ */
+class TimedMessage implements Message<Object> {
+
+    private final Message<Object> delegate;
+
+    private final ActionMetrics metrics;
+
+    private final ConduitAction action;
+
+    private final long start;
+
+    private boolean recorded;
+
+    TimedMessage(Message<Object> delegate, ActionMetrics metrics, ConduitAction action, long start) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.action = action;
+        this.start = start;
+    }
+
+    private void record(boolean failed) {
+        if (!recorded) {
+            recorded = true;
+            metrics.record(action, System.nanoTime() - start, failed);
+        }
+    }
+
+    @Override
+    public String address() {
+        return delegate.address();
+    }
+
+    @Override
+    public MultiMap headers() {
+        return delegate.headers();
+    }
+
+    @Override
+    public Object body() {
+        return delegate.body();
+    }
+
+    @Override
+    public String replyAddress() {
+        return delegate.replyAddress();
+    }
+
+    @Override
+    public boolean isSend() {
+        return delegate.isSend();
+    }
+
+    @Override
+    public void reply(Object message) {
+        record(false);
+        delegate.reply(message);
+    }
+
+    @Override
+    public <R> void reply(Object message, Handler<AsyncResult<Message<R>>> replyHandler) {
+        record(false);
+        delegate.reply(message, replyHandler);
+    }
+
+    @Override
+    public void reply(Object message, DeliveryOptions options) {
+        record(false);
+        delegate.reply(message, options);
+    }
+
+    @Override
+    public <R> void reply(Object message, DeliveryOptions options, Handler<AsyncResult<Message<R>>> replyHandler) {
+        record(false);
+        delegate.reply(message, options, replyHandler);
+    }
+
+    @Override
+    public void fail(int failureCode, String message) {
+        record(true);
+        delegate.fail(failureCode, message);
+    }
+}
@@ -0,0 +1,179 @@
+package io.vertx.conduit.overload;
+
+import io.vertx.conduit.MessagingErrorCodes;
+import io.vertx.conduit.metrics.ActionMetrics;
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.util.ArrayDeque;
+
+/**
+ * Bounds the work of one consumer of a DAV address.  At most maxInFlight messages are being handled at once, the next
+ * maxQueued wait in arrival order and anything beyond is failed at once with OVERLOADED, so that a slow Mongo turns
+ * into quick 503s instead of a pile of requests that all time out together.  A message whose caller has already given
+ * up, see Deadlines, is dropped whether it waited or not.
+ *
+ * A slot is given back when the action answers its message.  An action that throws, or that never answers because a
+ * callback failed, is failed at its deadline, or after maxActionMs for messages without one, so that it can't hold the
+ * slot for good.
+ *
+ * Each verticle instance has its own, used only from its event loop, so the limits of an address are per instance.
+ */
+public class AdmissionControl {
+
+    public static final String CONFIG_MAX_IN_FLIGHT = ".max.in.flight";
+    public static final String CONFIG_MAX_QUEUED = ".max.queued";
+    public static final String CONFIG_MAX_ACTION_MS = ".max.action.ms";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdmissionControl.class);
+
+    private final Context context;
+
+    private final ActionMetrics metrics;
+
+    private final int maxInFlight;
+
+    private final int maxQueued;
+
+    private final long maxActionMs;
+
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+
+    private int inFlight;
+
+    private boolean draining;
+
+    AdmissionControl(Context context, ActionMetrics metrics, int maxInFlight, int maxQueued, long maxActionMs) {
+        this.context = context;
+        this.metrics = metrics;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.maxActionMs = Math.max(1, maxActionMs);
+    }
+
+    /**
+     * @param context the context of the consumer, queued messages are handled on it
+     * @param config
+     * @param prefix  e.g. "article.dav" for article.dav.max.in.flight, article.dav.max.queued and
+     *                article.dav.max.action.ms
+     * @param metrics the metrics of the address, they get the queue depth and the shed counts
+     * @return
+     */
+    public static AdmissionControl create(Context context, JsonObject config, String prefix, ActionMetrics metrics) {
+        return new AdmissionControl(context, metrics,
+                config.getInteger(prefix + CONFIG_MAX_IN_FLIGHT, 32),
+                config.getInteger(prefix + CONFIG_MAX_QUEUED, 128),
+                config.getLong(prefix + CONFIG_MAX_ACTION_MS, 30000L));
+    }
+
+    /**
+     * Hands the message to the handler now, later or never
+     *
+     * @param message as received by the consumer
+     * @param handler handles the action of the message, it must answer the message it is given
+     */
+    public void admit(Message<Object> message, Handler<Message<Object>> handler) {
+        if (Deadlines.expired(message)) {
+            expired(message);
+        } else if (inFlight < maxInFlight) {
+            start(message, handler);
+        } else if (queue.size() < maxQueued) {
+            queue.add(new Pending(message, handler));
+            metrics.queued(1);
+        } else {
+            metrics.shed(false);
+            message.fail(MessagingErrorCodes.OVERLOADED.ordinal(), MessagingErrorCodes.OVERLOADED.message + message.address());
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    /**
+     * @param timer the timer armed when the message was admitted
+     */
+    void release(long timer) {
+        context.owner().cancelTimer(timer);
+        inFlight--;
+        metrics.inFlight(-1);
+        // the reply may be sent from deep inside the previous action, run the next one on its own
+        if (!queue.isEmpty() && !draining) {
+            draining = true;
+            context.runOnContext(v -> drain());
+        }
+    }
+
+    private void drain() {
+        // actions answering at once release their slot to this loop instead of scheduling another drain
+        while (inFlight < maxInFlight && !queue.isEmpty()) {
+            Pending next = queue.poll();
+            metrics.queued(-1);
+            if (Deadlines.expired(next.message)) {
+                expired(next.message);
+            } else {
+                start(next.message, next.handler);
+            }
+        }
+        draining = false;
+    }
+
+    private void start(Message<Object> message, Handler<Message<Object>> handler) {
+        inFlight++;
+        metrics.inFlight(1);
+        AdmittedMessage admitted = new AdmittedMessage(message, this);
+        admitted.timer = context.owner().setTimer(timeout(message), id -> {
+            LOGGER.warn("action on " + message.address() + " did not answer in time, releasing its slot");
+            admitted.failUnlessAnswered(MessagingErrorCodes.DEADLINE_EXCEEDED.ordinal(), MessagingErrorCodes.DEADLINE_EXCEEDED.message + message.address());
+        });
+        try {
+            handler.handle(admitted);
+        } catch (RuntimeException e) {
+            // an action that throws never answers, failing the message gives its slot back
+            LOGGER.error("action on " + message.address() + " failed", e);
+            admitted.failUnlessAnswered(MessagingErrorCodes.UNKNOWN_ERROR.ordinal(), MessagingErrorCodes.UNKNOWN_ERROR.message + e.getMessage());
+        }
+    }
+
+    /**
+     * @param message
+     * @return milliseconds until the deadline of the message, maxActionMs if it has none or a later one
+     */
+    private long timeout(Message<Object> message) {
+        String deadline = message.headers().get(Deadlines.DEADLINE_HEADER);
+        if (deadline != null) {
+            try {
+                return Math.max(1, Math.min(maxActionMs, Long.parseLong(deadline) - System.currentTimeMillis()));
+            } catch (NumberFormatException e) {
+                // no usable deadline, the cap applies
+            }
+        }
+        return maxActionMs;
+    }
+
+    private void expired(Message<Object> message) {
+        metrics.shed(true);
+        // nobody is waiting for the reply any more, failing keeps the metrics and the trace of the message right
+        message.fail(MessagingErrorCodes.DEADLINE_EXCEEDED.ordinal(), MessagingErrorCodes.DEADLINE_EXCEEDED.message + message.address());
+    }
+
+    private static class Pending {
+
+        final Message<Object> message;
+
+        final Handler<Message<Object>> handler;
+
+        Pending(Message<Object> message, Handler<Message<Object>> handler) {
+            this.message = message;
+            this.handler = handler;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package io.vertx.conduit.overload;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+
+/**
+ * A message admitted by an AdmissionControl, the first reply or fail gives its slot back
+ */
+class AdmittedMessage implements Message<Object> {
+
+    private final Message<Object> delegate;
+
+    private final AdmissionControl admission;
+
+    private boolean released;
+
+    // fails the message if the action hasn't answered it by its deadline
+    long timer = -1;
+
+    AdmittedMessage(Message<Object> delegate, AdmissionControl admission) {
+        this.delegate = delegate;
+        this.admission = admission;
+    }
+
+    private void release() {
+        if (!released) {
+            released = true;
+            admission.release(timer);
+        }
+    }
+
+    /**
+     * Fails the message unless it was already answered, for actions that threw after or instead of answering
+     *
+     * @param failureCode
+     * @param message
+     */
+    void failUnlessAnswered(int failureCode, String message) {
+        if (!released) {
+            fail(failureCode, message);
+        }
+    }
+
+    @Override
+    public String address() {
+        return delegate.address();
+    }
+
+    @Override
+    public MultiMap headers() {
+        return delegate.headers();
+    }
+
+    @Override
+    public Object body() {
+        return delegate.body();
+    }
+
+    @Override
+    public String replyAddress() {
+        return delegate.replyAddress();
+    }
+
+    @Override
+    public boolean isSend() {
+        return delegate.isSend();
+    }
+
+    @Override
+    public void reply(Object message) {
+        release();
+        delegate.reply(message);
+    }
+
+    @Override
+    public <R> void reply(Object message, Handler<AsyncResult<Message<R>>> replyHandler) {
+        release();
+        delegate.reply(message, replyHandler);
+    }
+
+    @Override
+    public void reply(Object message, DeliveryOptions options) {
+        release();
+        delegate.reply(message, options);
+    }
+
+    @Override
+    public <R> void reply(Object message, DeliveryOptions options, Handler<AsyncResult<Message<R>>> replyHandler) {
+        release();
+        delegate.reply(message, options, replyHandler);
+    }
+
+    @Override
+    public void fail(int failureCode, String message) {
+        release();
+        delegate.fail(failureCode, message);
+    }
+}
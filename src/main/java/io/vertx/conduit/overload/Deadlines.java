@@ -0,0 +1,81 @@
+package io.vertx.conduit.overload;
+
+import io.vertx.conduit.messaging.ConduitAction;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * How long a caller waits for each action.  The send timeout of a message is the deadline of its action and the
+ * message carries the time it expires in the deadline header, so that a DAV can drop the messages nobody waits for
+ * any more.  The header is in epoch milliseconds, the nodes of a cluster need clocks in step within a fraction of a
+ * deadline.
+ */
+public class Deadlines {
+
+    public static final String DEADLINE_HEADER = "deadline";
+
+    // eventbus.deadline.ms for every action, eventbus.deadline.ms.<action> for one, e.g. eventbus.deadline.ms.list.articles
+    public static final String CONFIG_DEADLINE_MS = "eventbus.deadline.ms";
+
+    private final long[] deadlines = new long[ConduitAction.values().length];
+
+    public Deadlines(JsonObject config) {
+        long all = config.getLong(CONFIG_DEADLINE_MS, 0L);
+        for (ConduitAction action : ConduitAction.values()) {
+            long deadline = config.getLong(CONFIG_DEADLINE_MS + "." + action.name, all > 0 ? all : defaultDeadline(action));
+            deadlines[action.ordinal()] = deadline > 0 ? deadline : defaultDeadline(action);
+        }
+    }
+
+    /**
+     * @param action
+     * @return the milliseconds a caller waits for the action unless configured otherwise
+     */
+    static long defaultDeadline(ConduitAction action) {
+        switch (action) {
+            // password hashing
+            case REGISTER:
+            case LOGIN:
+            // listings stream a whole page
+            case LIST_ARTICLES:
+            case FEED:
+            case LIST_COMMENTS:
+                return 10000;
+            default:
+                return 5000;
+        }
+    }
+
+    public long deadline(ConduitAction action) {
+        return deadlines[action.ordinal()];
+    }
+
+    /**
+     * @param action
+     * @return options whose send timeout and deadline header are the deadline of the action from now
+     */
+    public DeliveryOptions options(ConduitAction action) {
+        long deadline = deadlines[action.ordinal()];
+        return new DeliveryOptions()
+                .setSendTimeout(deadline)
+                .addHeader(DEADLINE_HEADER, Long.toString(System.currentTimeMillis() + deadline));
+    }
+
+    /**
+     * @param message
+     * @return true if the sender of the message has stopped waiting for the reply; messages without a deadline never
+     * expire
+     */
+    public static boolean expired(Message<?> message) {
+        String deadline = message.headers().get(DEADLINE_HEADER);
+        if (deadline == null) {
+            return false;
+        }
+        try {
+            return System.currentTimeMillis() > Long.parseLong(deadline);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
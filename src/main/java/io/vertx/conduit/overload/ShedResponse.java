@@ -0,0 +1,58 @@
+package io.vertx.conduit.overload;
+
+import io.vertx.conduit.HttpProps;
+import io.vertx.conduit.JsonResponseWriter;
+import io.vertx.conduit.MessagingErrorCodes;
+import io.vertx.conduit.errors.ConduitError;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.Json;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * The 503 a request gets when the DAV it needs refused its message.  The failure still reaches the handler that sent
+ * the message, whose error response is then skipped because the response has already ended.
+ */
+public final class ShedResponse {
+
+    public static final String RETRY_AFTER = "Retry-After";
+
+    // seconds, about the time a full queue takes to drain
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private ShedResponse() {
+    }
+
+    /**
+     * @param cause the failure of a send
+     * @return true if the DAV refused the message because it is overloaded, or no DAV consumes the address at all
+     */
+    public static boolean isShed(Throwable cause) {
+        if (!(cause instanceof ReplyException)) {
+            return false;
+        }
+        ReplyException failure = (ReplyException) cause;
+        return failure.failureType() == ReplyFailure.NO_HANDLERS
+                || failure.failureType() == ReplyFailure.RECIPIENT_FAILURE && failure.failureCode() == MessagingErrorCodes.OVERLOADED.ordinal();
+    }
+
+    /**
+     * Answers 503 if the send failed because the message was shed
+     *
+     * @param routingContext
+     * @param cause          the failure of a send
+     * @return true if the response was ended
+     */
+    public static boolean endIfShed(RoutingContext routingContext, Throwable cause) {
+        HttpServerResponse response = routingContext.response();
+        if (!isShed(cause) || response.ended() || response.closed()) {
+            return false;
+        }
+        response.setStatusCode(503)
+                .putHeader(RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .putHeader(HttpProps.CONTENT_TYPE, JsonResponseWriter.JSON_UTF8)
+                .end(Json.encode(new ConduitError("the service is overloaded, retry later")));
+        return true;
+    }
+}
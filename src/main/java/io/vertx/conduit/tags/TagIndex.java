@@ -0,0 +1,222 @@
+package io.vertx.conduit.tags;
+
+import io.vertx.conduit.metrics.ConduitMetrics;
+import io.vertx.conduit.metrics.MongoTimer;
+import io.vertx.conduit.tracing.Span;
+import io.vertx.conduit.users.models.MongoConstants;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Every tag in use with the ids of the articles carrying it, shared by every verticle in the Vertx instance.  It is
+ * loaded from Mongo once, by the first ArticleDAV to start, and then kept current by the paths that create, update and
+ * delete articles, so that GET /api/tags and ?tag= filters never scan the article collection.
+ *
+ * The count of a tag is the size of its id set, there is no boxed counter to keep in step with it.
+ */
+public class TagIndex implements Shareable {
+
+    private static final String INDEX_MAP = "conduit.tags";
+
+    private static final String INDEX_NAME = "tags";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TagIndex.class);
+
+    private enum State {EMPTY, BUILDING, READY}
+
+    private final Map<String, Set<String>> articlesByTag = new HashMap<>();
+
+    private final Map<String, List<String>> tagsByArticle = new HashMap<>();
+
+    // deletes seen while the build is still reading, so that it doesn't bring the article back
+    private final Set<String> removedWhileBuilding = new HashSet<>();
+
+    private State state = State.EMPTY;
+
+    // {"tags": [...]}, most used first; rebuilt on the first read after a change and never modified once built
+    private JsonObject snapshot;
+
+    public static TagIndex shared(Vertx vertx) {
+        LocalMap<String, TagIndex> indexes = vertx.sharedData().getLocalMap(INDEX_MAP);
+        return indexes.computeIfAbsent(INDEX_NAME, n -> new TagIndex());
+    }
+
+    /**
+     * Loads the tags of every article unless another verticle already did or is doing it
+     *
+     * @param mongoClient
+     * @param metrics
+     * @return completed once the index is ready, immediately if another verticle builds it
+     */
+    public Future<Void> build(MongoClient mongoClient, ConduitMetrics metrics) {
+        Future<Void> retVal = Future.future();
+        if (!claimBuild()) {
+            retVal.complete();
+            return retVal;
+        }
+
+        MongoTimer batch = metrics.mongo(MongoConstants.COLLECTION_NAME_ARTICLES, "findBatchWithOptions");
+        long started = batch.start();
+        Span span = batch.span();
+        ReadStream<JsonObject> articles = mongoClient.findBatchWithOptions(MongoConstants.COLLECTION_NAME_ARTICLES, new JsonObject(),
+                new FindOptions().setFields(new JsonObject().put("tagList", 1)).setBatchSize(1000));
+        articles.exceptionHandler(t -> {
+            batch.record(started, false);
+            span.fail(t).finish();
+            failBuild();
+            retVal.tryFail(t);
+        });
+        articles.handler(article -> loaded(article.getString("_id"), tags(article.getJsonArray("tagList"))));
+        articles.endHandler(v -> {
+            batch.record(started, true);
+            span.finish();
+            built();
+            retVal.tryComplete();
+        });
+        return retVal;
+    }
+
+    public synchronized boolean isReady() {
+        return state == State.READY;
+    }
+
+    /**
+     * @param articleId
+     * @param tags      tags of a new article, may be null
+     */
+    public synchronized void add(String articleId, List<String> tags) {
+        replace(articleId, tags);
+    }
+
+    /**
+     * @param articleId
+     * @param tags      the tags of the article after an update, they replace whatever it had
+     */
+    public synchronized void replace(String articleId, List<String> tags) {
+        if (articleId == null) {
+            return;
+        }
+        unlink(articleId);
+        List<String> distinct = tags == null ? Collections.emptyList() : new ArrayList<>(new LinkedHashSet<>(tags));
+        for (String tag : distinct) {
+            articlesByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(articleId);
+        }
+        tagsByArticle.put(articleId, distinct);
+        snapshot = null;
+    }
+
+    public synchronized void remove(String articleId) {
+        if (articleId == null) {
+            return;
+        }
+        if (state == State.BUILDING) {
+            removedWhileBuilding.add(articleId);
+        }
+        unlink(articleId);
+        tagsByArticle.remove(articleId);
+        snapshot = null;
+    }
+
+    /**
+     * @param tag
+     * @return a copy of the ids of the articles carrying the tag, empty if nobody uses it
+     */
+    public synchronized Set<String> articleIds(String tag) {
+        Set<String> ids = articlesByTag.get(tag);
+        return ids == null ? Collections.emptySet() : new HashSet<>(ids);
+    }
+
+    public synchronized int count(String tag) {
+        Set<String> ids = articlesByTag.get(tag);
+        return ids == null ? 0 : ids.size();
+    }
+
+    /**
+     * @return {"tags": [...]} ordered by the number of articles, then by name; the object must not be modified
+     */
+    public synchronized JsonObject toJson() {
+        if (snapshot == null) {
+            List<Map.Entry<String, Set<String>>> entries = new ArrayList<>(articlesByTag.entrySet());
+            entries.sort((a, b) -> a.getValue().size() != b.getValue().size()
+                    ? Integer.compare(b.getValue().size(), a.getValue().size())
+                    : a.getKey().compareTo(b.getKey()));
+            JsonArray tags = new JsonArray();
+            for (Map.Entry<String, Set<String>> entry : entries) {
+                tags.add(entry.getKey());
+            }
+            snapshot = new JsonObject().put("tags", tags);
+        }
+        return snapshot;
+    }
+
+    private synchronized boolean claimBuild() {
+        if (state != State.EMPTY) {
+            return false;
+        }
+        state = State.BUILDING;
+        return true;
+    }
+
+    private synchronized void loaded(String articleId, List<String> tags) {
+        // anything written since the build started is newer than what the build reads
+        if (articleId == null || tagsByArticle.containsKey(articleId) || removedWhileBuilding.contains(articleId)) {
+            return;
+        }
+        replace(articleId, tags);
+    }
+
+    private synchronized void built() {
+        state = State.READY;
+        removedWhileBuilding.clear();
+        LOGGER.info("tag index built: " + articlesByTag.size() + " tags in " + tagsByArticle.size() + " articles");
+    }
+
+    private synchronized void failBuild() {
+        state = State.EMPTY;
+        removedWhileBuilding.clear();
+    }
+
+    private void unlink(String articleId) {
+        List<String> previous = tagsByArticle.get(articleId);
+        if (previous == null) {
+            return;
+        }
+        for (String tag : previous) {
+            Set<String> ids = articlesByTag.get(tag);
+            if (ids != null && ids.remove(articleId) && ids.isEmpty()) {
+                articlesByTag.remove(tag);
+            }
+        }
+    }
+
+    private static List<String> tags(JsonArray tagList) {
+        if (tagList == null) {
+            return null;
+        }
+        List<String> retVal = new ArrayList<>(tagList.size());
+        for (Object tag : tagList) {
+            if (tag instanceof String) {
+                retVal.add((String) tag);
+            }
+        }
+        return retVal;
+    }
+}
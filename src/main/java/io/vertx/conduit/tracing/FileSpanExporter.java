@@ -0,0 +1,98 @@
+package io.vertx.conduit.tracing;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appends the finished spans to a file, one Json object per line.  Spans are queued by the event loops and written
+ * by a worker at most flushMillis after the first of them was queued; when the queue is full new spans are dropped
+ * rather than slowing the requests down.
+ */
+public class FileSpanExporter implements SpanExporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileSpanExporter.class);
+
+    private static final int MAX_QUEUED = 100_000;
+
+    private final Vertx vertx;
+
+    private final Path path;
+
+    private final Queue<String> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final LongAdder dropped = new LongAdder();
+
+    // true while a flush is pending
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private final long flushMillis;
+
+    public FileSpanExporter(Vertx vertx, String path, long flushMillis) {
+        this.vertx = vertx;
+        this.path = Paths.get(path);
+        this.flushMillis = flushMillis;
+    }
+
+    @Override
+    public void export(Span span) {
+        if (queued.incrementAndGet() > MAX_QUEUED) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        queue.add(span.toJson().encode());
+        if (scheduled.compareAndSet(false, true)) {
+            vertx.setTimer(flushMillis, t -> flush());
+        }
+    }
+
+    private void flush() {
+        // spans queued from now on schedule the next flush
+        scheduled.set(false);
+        vertx.<Void>executeBlocking(f -> {
+            StringBuilder lines = new StringBuilder();
+            String line;
+            while ((line = queue.poll()) != null) {
+                queued.decrementAndGet();
+                lines.append(line).append('\n');
+            }
+            try {
+                if (path.getParent() != null) {
+                    Files.createDirectories(path.getParent());
+                }
+                Files.write(path, lines.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                f.complete();
+            } catch (IOException e) {
+                f.fail(e);
+            }
+        }, true, ar -> {
+            if (ar.failed()) {
+                LOGGER.error("spans not written to " + path, ar.cause());
+            }
+            long lost = dropped.sumThenReset();
+            if (lost > 0) {
+                LOGGER.warn(lost + " spans dropped, the trace file can't keep up");
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
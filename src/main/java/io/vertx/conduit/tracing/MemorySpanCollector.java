@@ -0,0 +1,45 @@
+package io.vertx.conduit.tracing;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayDeque;
+
+/**
+ * Keeps the last maxSpans finished spans in memory, for GET /traces and for tests
+ */
+public class MemorySpanCollector implements SpanExporter {
+
+    private final int maxSpans;
+
+    private final ArrayDeque<JsonObject> spans;
+
+    public MemorySpanCollector(int maxSpans) {
+        this.maxSpans = maxSpans;
+        this.spans = new ArrayDeque<>(Math.min(maxSpans, 1024));
+    }
+
+    @Override
+    public void export(Span span) {
+        JsonObject json = span.toJson();
+        synchronized (spans) {
+            if (spans.size() == maxSpans) {
+                spans.removeFirst();
+            }
+            spans.addLast(json);
+        }
+    }
+
+    @Override
+    public JsonArray spans(String traceId) {
+        JsonArray retVal = new JsonArray();
+        synchronized (spans) {
+            for (JsonObject span : spans) {
+                if (traceId == null || traceId.equals(span.getString("traceId"))) {
+                    retVal.add(span);
+                }
+            }
+        }
+        return retVal;
+    }
+}
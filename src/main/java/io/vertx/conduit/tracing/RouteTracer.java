@@ -0,0 +1,30 @@
+package io.vertx.conduit.tracing;
+
+import io.vertx.core.Handler;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Starts the span of each sampled request of a route and finishes it when the response has been written
+ */
+public class RouteTracer implements Handler<RoutingContext> {
+
+    private final Tracer tracer;
+
+    private final String name;
+
+    RouteTracer(Tracer tracer, String name) {
+        this.tracer = tracer;
+        this.name = name;
+    }
+
+    @Override
+    public void handle(RoutingContext routingContext) {
+        Span span = tracer.trace(name, routingContext.request().getHeader(Tracer.TRACEPARENT));
+        if (span.isSampled()) {
+            Tracer.attach(routingContext, span);
+            routingContext.response().putHeader(Tracer.TRACE_ID_HEADER, span.getTraceId());
+            routingContext.addBodyEndHandler(v -> span.tag("http.status", routingContext.response().getStatusCode()).finish());
+        }
+        routingContext.next();
+    }
+}
@@ -0,0 +1,127 @@
+package io.vertx.conduit.tracing;
+
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * One timed hop of a sampled trace.  Requests that are not sampled get NOOP, whose methods do nothing and whose
+ * children are NOOP as well, so untraced requests pay for no spans.
+ */
+public class Span {
+
+    public static final Span NOOP = new Span(null, null, 0, 0, null);
+
+    private final Tracer tracer;
+
+    private final String traceId;
+
+    private final long spanId;
+
+    private final long parentId;
+
+    private final String name;
+
+    private final long startMillis;
+
+    private final long startNanos;
+
+    private long durationNanos = -1;
+
+    private JsonObject tags;
+
+    private String error;
+
+    Span(Tracer tracer, String traceId, long spanId, long parentId, String name) {
+        this.tracer = tracer;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentId = parentId;
+        this.name = name;
+        this.startMillis = tracer == null ? 0 : System.currentTimeMillis();
+        this.startNanos = tracer == null ? 0 : System.nanoTime();
+    }
+
+    public boolean isSampled() {
+        return tracer != null;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param name
+     * @return a span started now as a child of this one
+     */
+    public Span child(String name) {
+        return tracer == null ? NOOP : new Span(tracer, traceId, tracer.nextSpanId(), spanId, name);
+    }
+
+    public Span tag(String key, Object value) {
+        if (tracer != null) {
+            if (tags == null) {
+                tags = new JsonObject();
+            }
+            tags.put(key, value);
+        }
+        return this;
+    }
+
+    public Span fail(Throwable cause) {
+        return fail(cause == null ? "failed" : String.valueOf(cause.getMessage()));
+    }
+
+    public Span fail(String message) {
+        if (tracer != null) {
+            error = message;
+        }
+        return this;
+    }
+
+    /**
+     * Ends the span and hands it to the exporter, only the first call counts
+     */
+    public void finish() {
+        if (tracer != null && durationNanos < 0) {
+            durationNanos = System.nanoTime() - startNanos;
+            tracer.finished(this);
+        }
+    }
+
+    /**
+     * Adds the context of this span to the headers of an event bus message, so that the consumer continues the trace
+     *
+     * @param options
+     * @return options
+     */
+    public DeliveryOptions inject(DeliveryOptions options) {
+        if (tracer != null) {
+            options.addHeader(Tracer.TRACEPARENT, traceparent());
+        }
+        return options;
+    }
+
+    /**
+     * @return the context of the span in the W3C traceparent format
+     */
+    public String traceparent() {
+        return "00-" + traceId + "-" + Tracer.hex(spanId) + "-01";
+    }
+
+    public JsonObject toJson() {
+        JsonObject retVal = new JsonObject()
+                .put("traceId", traceId)
+                .put("spanId", Tracer.hex(spanId))
+                .put("name", name)
+                .put("start", startMillis)
+                .put("durationMicros", durationNanos / 1000);
+        if (parentId != 0) retVal.put("parentId", Tracer.hex(parentId));
+        if (tags != null) retVal.put("tags", tags);
+        if (error != null) retVal.put("error", error);
+        return retVal;
+    }
+}
@@ -0,0 +1,27 @@
+package io.vertx.conduit.tracing;
+
+import io.vertx.core.json.JsonArray;
+
+/**
+ * Receives every finished span of a sampled trace
+ */
+public interface SpanExporter {
+
+    /**
+     * Called on the thread that finished the span, it must not block
+     *
+     * @param span
+     */
+    void export(Span span);
+
+    /**
+     * @param traceId null for every span
+     * @return the spans still held by the exporter, empty if it doesn't keep any
+     */
+    default JsonArray spans(String traceId) {
+        return new JsonArray();
+    }
+
+    default void close() {
+    }
+}
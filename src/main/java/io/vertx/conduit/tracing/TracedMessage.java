@@ -0,0 +1,81 @@
+package io.vertx.conduit.tracing;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+
+/**
+ * A received message of a traced request, the first reply or fail finishes the span of the action
+ */
+class TracedMessage implements Message<Object> {
+
+    private final Message<Object> delegate;
+
+    private final Span span;
+
+    TracedMessage(Message<Object> delegate, Span span) {
+        this.delegate = delegate;
+        this.span = span;
+    }
+
+    Span span() {
+        return span;
+    }
+
+    @Override
+    public String address() {
+        return delegate.address();
+    }
+
+    @Override
+    public MultiMap headers() {
+        return delegate.headers();
+    }
+
+    @Override
+    public Object body() {
+        return delegate.body();
+    }
+
+    @Override
+    public String replyAddress() {
+        return delegate.replyAddress();
+    }
+
+    @Override
+    public boolean isSend() {
+        return delegate.isSend();
+    }
+
+    @Override
+    public void reply(Object message) {
+        span.finish();
+        delegate.reply(message);
+    }
+
+    @Override
+    public <R> void reply(Object message, Handler<AsyncResult<Message<R>>> replyHandler) {
+        span.finish();
+        delegate.reply(message, replyHandler);
+    }
+
+    @Override
+    public void reply(Object message, DeliveryOptions options) {
+        span.finish();
+        delegate.reply(message, options);
+    }
+
+    @Override
+    public <R> void reply(Object message, DeliveryOptions options, Handler<AsyncResult<Message<R>>> replyHandler) {
+        span.finish();
+        delegate.reply(message, options, replyHandler);
+    }
+
+    @Override
+    public void fail(int failureCode, String message) {
+        span.fail(failureCode + " " + message).finish();
+        delegate.fail(failureCode, message);
+    }
+}
@@ -0,0 +1,222 @@
+package io.vertx.conduit.tracing;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.ext.web.RoutingContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Starts, propagates and exports the spans of sampled requests, shared by every verticle in the Vertx instance.
+ *
+ * HttpVerticle starts a trace per sampled request, continuing the one of an incoming traceparent header, and keeps its
+ * span in the RoutingContext.  Whether a request is sampled is decided by the sample rate unless the traceparent of
+ * HTTP clients is trusted, e.g. behind a gateway that samples, since any client can set the sampled flag.  Each event bus send is a child span whose context travels in the traceparent header
+ * of the DeliveryOptions; the DAV consumer continues it for the action and makes it the current span of the event loop
+ * while the action runs, so that the Mongo calls of the action become its children.
+ */
+public class Tracer implements Shareable {
+
+    // W3C trace context header, on HTTP requests and on event bus messages
+    public static final String TRACEPARENT = "traceparent";
+    // the trace id of a sampled request, sent back with the response
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+    // share of the requests that are traced, from 0 (default) to 1
+    public static final String CONFIG_SAMPLE_RATE = "tracing.sample.rate";
+    // whether the sampled flag of an HTTP traceparent decides, false (default) leaves it to the sample rate
+    public static final String CONFIG_TRUST_TRACEPARENT = "tracing.trust.traceparent";
+    // memory (default) or file
+    public static final String CONFIG_EXPORTER = "tracing.exporter";
+    public static final String CONFIG_FILE = "tracing.file";
+    public static final String CONFIG_FILE_FLUSH_MS = "tracing.file.flush.ms";
+    public static final String CONFIG_MEMORY_SPANS = "tracing.memory.spans";
+
+    private static final String TRACING_MAP = "conduit.tracing";
+    private static final String KEY = "tracer";
+    private static final String CONTEXT_SPAN = "span";
+
+    // the span of the action or callback running on this thread
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private final double sampleRate;
+
+    private final boolean trustTraceparent;
+
+    private final SpanExporter exporter;
+
+    Tracer(double sampleRate, boolean trustTraceparent, SpanExporter exporter) {
+        this.sampleRate = sampleRate;
+        this.trustTraceparent = trustTraceparent;
+        this.exporter = exporter;
+    }
+
+    /**
+     * Returns the tracer of the Vertx instance, creating it on first use.  The config of the first caller wins.
+     *
+     * @param vertx
+     * @param config
+     * @return
+     */
+    public static Tracer shared(Vertx vertx, JsonObject config) {
+        LocalMap<String, Tracer> tracers = vertx.sharedData().getLocalMap(TRACING_MAP);
+        return tracers.computeIfAbsent(KEY, k -> {
+            SpanExporter exporter = "file".equals(config.getString(CONFIG_EXPORTER))
+                    ? new FileSpanExporter(vertx, config.getString(CONFIG_FILE, "traces.jsonl"), config.getLong(CONFIG_FILE_FLUSH_MS, 1000L))
+                    : new MemorySpanCollector(config.getInteger(CONFIG_MEMORY_SPANS, 10000));
+            return new Tracer(config.getDouble(CONFIG_SAMPLE_RATE, 0.0), config.getBoolean(CONFIG_TRUST_TRACEPARENT, false), exporter);
+        });
+    }
+
+    /**
+     * @param name
+     * @param traceparent the header of the incoming request, may be null
+     * @return a root span, the continuation of traceparent or NOOP if the request isn't sampled
+     */
+    public Span trace(String name, String traceparent) {
+        Span continued = traceparent == null ? null : fromTraceparent(traceparent, name);
+        if (trustTraceparent && continued != null) {
+            return continued;
+        }
+        if (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return Span.NOOP;
+        }
+        // sampled here, the request still joins the trace of its caller
+        if (continued != null && continued.isSampled()) {
+            return continued;
+        }
+        return new Span(this, hex(nextSpanId()) + hex(nextSpanId()), nextSpanId(), 0, name);
+    }
+
+    /**
+     * The consumer side of an event bus hop.  Messages without a traceparent are not sampled again.
+     *
+     * @param message
+     * @param name
+     * @return the child of the span that sent the message, NOOP if the sender wasn't traced
+     */
+    public Span continueFrom(Message<?> message, String name) {
+        Span retVal = fromTraceparent(message.headers().get(TRACEPARENT), name);
+        return retVal == null ? Span.NOOP : retVal;
+    }
+
+    /**
+     * @param message the message as received by the consumer
+     * @param name    name of the span of the action
+     * @return the message to hand to the action; when traced, its first reply or fail finishes the span
+     */
+    public Message<Object> traced(Message<Object> message, String name) {
+        Span span = continueFrom(message, name);
+        return span.isSampled() ? new TracedMessage(message, span) : message;
+    }
+
+    /**
+     * @param method
+     * @param path
+     * @return the handler that traces the requests of a route, to be installed before the handlers of the route
+     */
+    public RouteTracer route(HttpMethod method, String path) {
+        return new RouteTracer(this, method.name() + " " + path);
+    }
+
+    /**
+     * @param traceId null for every span
+     * @return the spans held by the in-memory collector
+     */
+    public JsonArray spans(String traceId) {
+        return exporter.spans(traceId);
+    }
+
+    public void close() {
+        exporter.close();
+    }
+
+    /**
+     * @param routingContext
+     * @return the span of the request, NOOP if it isn't traced
+     */
+    public static Span span(RoutingContext routingContext) {
+        Span retVal = routingContext.get(CONTEXT_SPAN);
+        return retVal == null ? Span.NOOP : retVal;
+    }
+
+    /**
+     * @param message as handed to the action by the consumer
+     * @return the span of the action, NOOP if it isn't traced
+     */
+    public static Span span(Message<?> message) {
+        return message instanceof TracedMessage ? ((TracedMessage) message).span() : Span.NOOP;
+    }
+
+    /**
+     * @return the span of the action or callback running on this thread, NOOP if none
+     */
+    public static Span current() {
+        Span retVal = CURRENT.get();
+        return retVal == null ? Span.NOOP : retVal;
+    }
+
+    /**
+     * Makes span the current span of this thread until restore is called with the returned span
+     *
+     * @param span
+     * @return the span that was current before
+     */
+    public static Span activate(Span span) {
+        Span retVal = CURRENT.get();
+        CURRENT.set(span);
+        return retVal;
+    }
+
+    public static void restore(Span previous) {
+        CURRENT.set(previous);
+    }
+
+    static void attach(RoutingContext routingContext, Span span) {
+        routingContext.put(CONTEXT_SPAN, span);
+    }
+
+    void finished(Span span) {
+        exporter.export(span);
+    }
+
+    long nextSpanId() {
+        long retVal;
+        do {
+            retVal = ThreadLocalRandom.current().nextLong();
+        } while (retVal == 0);
+        return retVal;
+    }
+
+    /**
+     * @param traceparent version-traceid-parentid-flags
+     * @param name
+     * @return a child of the parent, NOOP if the flags say not sampled, null if traceparent can't be parsed
+     */
+    private Span fromTraceparent(String traceparent, String name) {
+        if (traceparent == null || traceparent.length() != 55 || traceparent.charAt(2) != '-'
+                || traceparent.charAt(35) != '-' || traceparent.charAt(52) != '-') {
+            return null;
+        }
+        try {
+            String traceId = traceparent.substring(3, 35);
+            long parentId = Long.parseUnsignedLong(traceparent.substring(36, 52), 16);
+            int flags = Integer.parseInt(traceparent.substring(53), 16);
+            if ((flags & 1) == 0) {
+                return Span.NOOP;
+            }
+            return new Span(this, traceId, nextSpanId(), parentId, name);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static String hex(long id) {
+        String digits = Long.toHexString(id);
+        return digits.length() == 16 ? digits : "0000000000000000".substring(digits.length()) + digits;
+    }
+}
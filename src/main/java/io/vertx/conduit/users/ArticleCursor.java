@@ -0,0 +1,82 @@
+package io.vertx.conduit.users;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in the article listing, which is sorted by createdAt then _id, both descending.  Clients get it as
+ * an opaque string and send it back to fetch the page that follows, so a deep page is an index range instead of a
+ * skip over every article before it.
+ */
+public class ArticleCursor {
+
+    private final long createdAt;
+
+    private final String id;
+
+    public ArticleCursor(long createdAt, String id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * @param article the last article of a page as stored in Mongo
+     * @return the cursor of the page that follows or null if the article can't be positioned
+     */
+    public static ArticleCursor after(JsonObject article) {
+        return after(article, "_id");
+    }
+
+    /**
+     * @param document the last document of a page
+     * @param idField  the field holding the id of the article
+     * @return the cursor of the page that follows or null if the document can't be positioned
+     */
+    public static ArticleCursor after(JsonObject document, String idField) {
+        Long createdAt = document.getLong("createdAt");
+        String id = document.getString(idField);
+        return createdAt == null || id == null ? null : new ArticleCursor(createdAt, id);
+    }
+
+    /**
+     * @param encoded a cursor previously returned by encode
+     * @return the cursor
+     * @throws IllegalArgumentException if encoded isn't a cursor
+     */
+    public static ArticleCursor decode(String encoded) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            return new ArticleCursor(Long.parseLong(decoded.substring(0, separator)), decoded.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + encoded);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return a filter matching the articles that sort after this cursor
+     */
+    public JsonObject toFilter() {
+        return toFilter("_id");
+    }
+
+    /**
+     * @param idField the field holding the id of the article, sorted on after createdAt
+     * @return a filter matching the documents that sort after this cursor
+     */
+    public JsonObject toFilter(String idField) {
+        return new JsonObject().put("$or", new JsonArray()
+                .add(new JsonObject().put("createdAt", new JsonObject().put("$lt", createdAt)))
+                .add(new JsonObject()
+                        .put("createdAt", createdAt)
+                        .put(idField, new JsonObject().put("$lt", id))));
+    }
+}
@@ -1,16 +1,48 @@
 package io.vertx.conduit.users;
 
+import io.vertx.conduit.Article;
 import io.vertx.conduit.MessagingErrorCodes;
+import io.vertx.conduit.cache.ConduitCaches;
+import io.vertx.conduit.cluster.ClusterSync;
+import io.vertx.conduit.cache.LruCache;
+import io.vertx.conduit.cache.UserCache;
+import io.vertx.conduit.db.Projection;
+import io.vertx.conduit.favorites.FavoriteCounter;
+import io.vertx.conduit.feed.TimelineStore;
+import io.vertx.conduit.tags.TagIndex;
+import io.vertx.conduit.messaging.ConduitMessage;
+import io.vertx.conduit.messaging.ConduitMessageCodec;
+import io.vertx.conduit.messaging.ConduitReply;
+import io.vertx.conduit.metrics.ActionMetrics;
+import io.vertx.conduit.metrics.ConduitMetrics;
+import io.vertx.conduit.overload.AdmissionControl;
+import io.vertx.conduit.metrics.MongoTimer;
+import io.vertx.conduit.tracing.Span;
+import io.vertx.conduit.tracing.Tracer;
 import io.vertx.conduit.users.models.MongoConstants;
+import io.vertx.conduit.users.models.User;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Future;
+import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.eventbus.Message;
 import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.ext.mongo.BulkOperation;
+import io.vertx.ext.mongo.BulkWriteOptions;
+import io.vertx.ext.mongo.FindOptions;
 import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.UpdateOptions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static io.vertx.conduit.MessagingProps.*;
 
@@ -18,88 +50,766 @@ public class ArticleDAV extends AbstractVerticle {
 
     public static final String MESSAGE_ARTICLES = "address.articles";
     public static final String MESSAGE_ACTION_LOOKUP_ARTICLE_BY_SLUG = "action.lookup.article.by.slug";
+    public static final String MESSAGE_ACTION_LIST_ARTICLES = "action.list.articles";
+    public static final String MESSAGE_ACTION_FEED = "action.feed";
+    public static final String MESSAGE_ACTION_FAVORITE = "action.favorite";
+    public static final String MESSAGE_ACTION_UNFAVORITE = "action.unfavorite";
+    // filters of a listing
+    public static final String LIST_TAG = "tag";
+    public static final String LIST_AUTHOR = "author";
+    public static final String LIST_FAVORITED = "favorited";
+    public static final String LIST_LIMIT = "limit";
+    public static final String LIST_OFFSET = "offset";
+    public static final String LIST_CURSOR = "cursor";
+    // the _id of the user whose feed is read
+    public static final String FEED_OWNER = "owner";
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+    // above this many articles a tag filter is left to Mongo rather than sent as a list of ids
+    public static final int MAX_TAG_CANDIDATES = 1000;
+    public static final String CACHE_NAME = "articles";
+    public static final String CONFIG_CACHE_SIZE = "article.cache.size";
+    public static final String CONFIG_CACHE_TTL_SECONDS = "article.cache.ttl.seconds";
+    // how often the coalesced favoritesCount changes are written to Mongo
+    public static final String CONFIG_FAVORITES_FLUSH_MS = "favorites.flush.ms";
     private static final Logger LOGGER = LoggerFactory.getLogger(ArticleDAV.class);
     private static final String DEFAULT_COLLECTION = "article";
+    private static final String SLUG = "slug";
+    private static final String FAVORITED_BY = "favoritedBy";
+    // newest first, _id breaks the ties so that a cursor always has a single position
+    private static final JsonObject LIST_SORT = new JsonObject().put("createdAt", -1).put("_id", -1);
 
     // for DB access
     private MongoClient mongoClient;
 
+    // article documents keyed by slug, shared by every ArticleDAV instance
+    private LruCache<String, JsonObject> articleCache;
+
+    // the authors of listed articles, shared with UserDAV
+    private UserCache userCache;
+
+    // per follower timelines written by UserDAV
+    private TimelineStore timelines;
+
+    // tags of every article, shared with UserDAV and HttpVerticle
+    private TagIndex tagIndex;
+
+    // tells the other nodes of a cluster about changes to the cache and the TagIndex
+    private ClusterSync cluster;
+
+    // favoritesCount changes not yet in Mongo, shared by every ArticleDAV instance
+    private FavoriteCounter favorites;
+
+    private long flushTimer;
+
+    // latency of the actions and of the Mongo calls
+    private ConduitMetrics metrics;
+
+    private ActionMetrics actions;
+
+    // bounds the messages this instance handles at once and queues
+    private AdmissionControl admission;
+
+    // continues the traces of the requests that sent the messages
+    private Tracer tracer;
+
     @Override
     public void start(Future<Void> startFuture) {
         LOGGER.info("ArticleDAV starting with config for " + config().getString("env"));
 
-        // Configure the MongoClient inline.  This should be externalized into a config file
-        mongoClient = MongoClient.createShared(vertx, new JsonObject().put("db_name", config().getString("db_name", "conduit")).put("connection_string", config().getString("connection_string", "mongodb://localhost:27017")));
+        mongoClient = createMongoClient();
+
+        articleCache = ConduitCaches.shared(vertx, CACHE_NAME,
+                config().getInteger(CONFIG_CACHE_SIZE, 5000),
+                config().getLong(CONFIG_CACHE_TTL_SECONDS, 30L) * 1000);
+        userCache = new UserCache(vertx, config());
+        metrics = ConduitMetrics.shared(vertx);
+        timelines = new TimelineStore(mongoClient, metrics, config());
+        tagIndex = TagIndex.shared(vertx);
+        cluster = ClusterSync.shared(vertx);
+        favorites = FavoriteCounter.shared(vertx);
+        actions = metrics.address(MESSAGE_ARTICLES);
+        admission = AdmissionControl.create(context, config(), "article.dav", actions);
+        tracer = Tracer.shared(vertx, config());
+        flushTimer = vertx.setPeriodic(config().getLong(CONFIG_FAVORITES_FLUSH_MS, 1000L), t -> flushFavorites());
+
+        ConduitMessageCodec.register(vertx);
 
         EventBus eventBus = vertx.eventBus();
-        MessageConsumer<JsonObject> consumer = eventBus.consumer(MESSAGE_ARTICLES);
-
-        consumer.handler(message -> {
-
-            String action = message.body().getString(MESSAGE_ACTION);
-            LOGGER.info(action);
-
-            switch (action) {
-                case LOOKUP_BY_FIELD:
-                    lookupByField(message);
-                    break;
-                case DELETE:
-                    delete(message);
-                    break;
-                case MESSAGE_ACTION_UPDATE:
-                    update(message);
-                    break;
-                default:
-                    message.fail(1, "Unkown action: " + message.body());
+        MessageConsumer<Object> consumer = eventBus.consumer(MESSAGE_ARTICLES);
+
+        consumer.handler(received -> {
+
+            ConduitMessage request = ConduitMessage.from(received.body());
+            LOGGER.info(request.getAction());
+
+            if (request.getAction() == null) {
+                received.fail(1, "Unkown action: " + received.body());
+                return;
+            }
+
+            Message<Object> message = tracer.traced(actions.timed(received, request.getAction()), request.getAction().name);
+            admission.admit(message, admitted -> {
+                // the Mongo calls made by the action become children of its span
+                Span previous = Tracer.activate(Tracer.span(message));
+                try {
+                    dispatch(admitted, request);
+                } finally {
+                    Tracer.restore(previous);
+                }
+            });
+        });
+
+        // listings fall back to Mongo for ?tag= until the index is ready
+        tagIndex.build(mongoClient, metrics).setHandler(startFuture.completer());
+
+    }
+
+    /**
+     * Hands the message to the method of its action
+     *
+     * @param message
+     * @param request
+     */
+    private void dispatch(Message<Object> message, ConduitMessage request) {
+        switch (request.getAction()) {
+            case LOOKUP_BY_FIELD:
+                lookupByField(message, request);
+                break;
+            case DELETE:
+                delete(message, request);
+                break;
+            case UPDATE:
+                update(message, request);
+                break;
+            case LIST_ARTICLES:
+                listArticles(message, request);
+                break;
+            case FEED:
+                feed(message, request);
+                break;
+            case FAVORITE:
+                favorite(message, request, true);
+                break;
+            case UNFAVORITE:
+                favorite(message, request, false);
+                break;
+            default:
+                message.fail(1, "Unkown action: " + message.body());
+        }
+    }
+
+    /**
+     * @return the client shared by the DAVs, benchmarks replace it with a stub
+     */
+    protected MongoClient createMongoClient() {
+        return MongoClient.createShared(vertx, new JsonObject().put("db_name", config().getString("db_name", "conduit")).put("connection_string", config().getString("connection_string", "mongodb://localhost:27017")));
+    }
+
+    @Override
+    public void stop(Future<Void> stopFuture) {
+        vertx.cancelTimer(flushTimer);
+        // don't lose the clicks of the last interval
+        flushFavorites().setHandler(ar -> stopFuture.complete());
+    }
+
+    /**
+     * Adds or removes the caller from the favoritedBy set of the article.  Only a call that changed the set moves the
+     * count, and then only in the FavoriteCounter; the next flush writes it.
+     *
+     * @param message
+     * @param request   the slug of the article as value and the caller as user
+     * @param favorited
+     */
+    private void favorite(Message<Object> message, ConduitMessage request, boolean favorited) {
+        String slug = request.getValue();
+        String userId = request.getUser() == null ? null : request.getUser().get_id();
+        if (slug == null || userId == null) {
+            message.fail(MessagingErrorCodes.INVALID_ARGUMENT.ordinal(), MessagingErrorCodes.INVALID_ARGUMENT.message + "slug and user are required");
+            return;
+        }
+
+        articleBySlug(slug).compose(found -> {
+            if (found == null) {
+                return Future.<Article>failedFuture(MessagingErrorCodes.NOT_FOUND.message + slug);
+            }
+            String articleId = found.getString("_id");
+            // the membership test is part of the filter so that a repeated click modifies nothing
+            JsonObject query = new JsonObject().put("_id", articleId)
+                    .put(FAVORITED_BY, favorited ? new JsonObject().put("$ne", userId) : userId);
+            JsonObject update = new JsonObject()
+                    .put(favorited ? "$addToSet" : "$pull", new JsonObject().put(FAVORITED_BY, userId));
+            Future<Article> retVal = Future.future();
+            mongoClient.updateCollection(MongoConstants.COLLECTION_NAME_ARTICLES, query, update, metrics.mongo(MongoConstants.COLLECTION_NAME_ARTICLES, "updateCollection").time(res -> {
+                if (res.failed()) {
+                    retVal.fail(res.cause());
+                    return;
+                }
+                if (res.result().getDocModified() > 0) {
+                    favorites.add(articleId, slug, favorited ? 1 : -1);
+                    // the cached favoritedBy no longer holds for the caller; other nodes drop theirs at the flush
+                    articleCache.invalidate(slug);
+                }
+                Article article = withFavorites(new Article(found));
+                article.setFavorited(favorited);
+                retVal.complete(article);
+            }));
+            return retVal;
+        }).setHandler(ar -> {
+            if (ar.succeeded()) {
+                ConduitReply.reply(message, new ConduitReply().setArticle(ar.result()));
+            } else {
+                message.fail(MessagingErrorCodes.UPDATE_FAILURE.ordinal(), MessagingErrorCodes.UPDATE_FAILURE.message + ar.cause().getMessage());
             }
         });
+    }
+
+    /**
+     * Writes the pending favoritesCount changes as one unordered bulk of $inc.  Articles whose count moved are evicted
+     * from the cache once Mongo has the new value, on every node, which also drops their cached favoritedBy sets;
+     * failed changes go back to pending for the next flush.
+     *
+     * @return completed once the flush is over, whatever its outcome
+     */
+    private Future<Void> flushFavorites() {
+        List<FavoriteCounter.Delta> deltas = favorites.drain();
+        if (deltas.isEmpty()) {
+            return Future.succeededFuture();
+        }
+        List<BulkOperation> operations = new ArrayList<>(deltas.size());
+        for (FavoriteCounter.Delta delta : deltas) {
+            operations.add(BulkOperation.createUpdate(new JsonObject().put("_id", delta.articleId),
+                    new JsonObject().put("$inc", new JsonObject().put("favoritesCount", delta.delta)), false, false));
+        }
+        Future<Void> retVal = Future.future();
+        mongoClient.bulkWriteWithOptions(MongoConstants.COLLECTION_NAME_ARTICLES, operations, new BulkWriteOptions(false), metrics.mongo(MongoConstants.COLLECTION_NAME_ARTICLES, "bulkWriteWithOptions").time(res -> {
+            if (res.succeeded()) {
+                List<String> slugs = new ArrayList<>(deltas.size());
+                for (FavoriteCounter.Delta delta : deltas) {
+                    articleCache.invalidate(delta.slug);
+                    slugs.add(delta.slug);
+                }
+                cluster.invalidated(CACHE_NAME, slugs);
+                favorites.flushed(deltas);
+            } else {
+                LOGGER.error("favorites flush failed, retrying " + deltas.size() + " articles", res.cause());
+                favorites.failed(deltas);
+            }
+            retVal.complete();
+        }));
+        return retVal;
+    }
+
+    /**
+     * @param article as read from Mongo or the cache
+     * @return the article, with the favorites that haven't been flushed yet counted
+     */
+    private Article withFavorites(Article article) {
+        if (article.getId() != null) {
+            article.setFavoritesCount(article.getFavoritesCount() + favorites.unflushed(article.getId()));
+        }
+        return article;
+    }
 
-        startFuture.complete();
+    /**
+     * @param request
+     * @return the _id of the caller the articles are rendered for, null if anonymous
+     */
+    private static String viewerId(ConduitMessage request) {
+        return request.getUser() == null ? null : request.getUser().get_id();
+    }
+
+    /**
+     * @param projection
+     * @param viewerId   null if anonymous
+     * @return the fields of the projection plus, for a viewer, the viewer's element of favoritedBy if it has one; the
+     * rest of the set is never read
+     */
+    private static JsonObject fields(Projection projection, String viewerId) {
+        JsonObject retVal = projection.fields();
+        if (viewerId != null) {
+            retVal.put(FAVORITED_BY, new JsonObject().put("$elemMatch", new JsonObject().put("$eq", viewerId)));
+        }
+        return retVal;
+    }
+
+    /**
+     * @return the fields of the articles kept in the slug cache: every field and the whole favoritedBy set, so that a
+     * cached article tells any viewer whether they favorited it
+     */
+    private static JsonObject cachedFields() {
+        return Projection.ARTICLE_FULL.fields().put(FAVORITED_BY, 1);
+    }
+
+    /**
+     * @param document read with {@link #fields(Projection, String)} or {@link #cachedFields()}
+     * @param viewerId null if anonymous
+     * @return the article as the viewer sees it, favorited if the viewer is in its favoritedBy set
+     */
+    private Article viewed(JsonObject document, String viewerId) {
+        Article retVal = withFavorites(new Article(document));
+        JsonArray favoritedBy = document.getJsonArray(FAVORITED_BY);
+        retVal.setFavorited(viewerId != null && favoritedBy != null && favoritedBy.contains(viewerId));
+        return retVal;
+    }
 
+    /**
+     * @param slug
+     * @return the complete article from the cache or Mongo, null if there is none
+     */
+    private Future<JsonObject> articleBySlug(String slug) {
+        JsonObject cached = articleCache.get(slug);
+        if (cached != null) {
+            return Future.succeededFuture(cached);
+        }
+        long stamp = articleCache.stamp();
+        Future<JsonObject> retVal = Future.future();
+        mongoClient.findOne(MongoConstants.COLLECTION_NAME_ARTICLES, new JsonObject().put(SLUG, slug), cachedFields(), metrics.mongo(MongoConstants.COLLECTION_NAME_ARTICLES, "findOne").time(res -> {
+            if (res.succeeded()) {
+                if (res.result() != null) {
+                    articleCache.putIfUnchanged(slug, res.result(), stamp);
+                }
+                retVal.complete(res.result());
+            } else {
+                retVal.fail(res.cause());
+            }
+        }));
+        return retVal;
     }
 
-    private void update(Message<JsonObject> message) {
-        JsonObject updateValues = message.body().getJsonObject(DOCUMENT);
+    /**
+     * Update and read back the article in a single round trip; the new document replaces the cached one
+     *
+     * @param message
+     * @param request
+     */
+    private void update(Message<Object> message, ConduitMessage request) {
+        JsonObject updateValues = request.getDocument();
         JsonObject query = new JsonObject();
-        query.put(message.body().getString(KEY_FIELD), message.body().getString(KEY_VALUE));
+        query.put(request.getField(), request.getValue());
         JsonObject update = new JsonObject()
                 .put("$set", updateValues);
-        mongoClient.updateCollection(MongoConstants.COLLECTION_NAME_ARTICLES, query, update, res ->{
-            if (res.succeeded()) {
-                lookupByField(message);
+        mongoClient.findOneAndUpdateWithOptions(MongoConstants.COLLECTION_NAME_ARTICLES, query, update,
+                new FindOptions().setFields(cachedFields()), new UpdateOptions().setReturningNewDocument(true), metrics.mongo(MongoConstants.COLLECTION_NAME_ARTICLES, "findOneAndUpdateWithOptions").time(res ->{
+            if (res.succeeded() && res.result() != null) {
+                JsonObject updated = res.result();
+                // the update may have changed the slug
+                if (SLUG.equals(request.getField())) {
+                    articleCache.invalidate(request.getValue());
+                    cluster.invalidated(CACHE_NAME, request.getValue());
+                }
+                articleCache.invalidate(updated.getString(SLUG));
+                articleCache.put(updated.getString(SLUG), updated);
+                cluster.invalidated(CACHE_NAME, updated.getString(SLUG));
+                List<String> tags = new Article(updated).getTagsList();
+                tagIndex.replace(updated.getString("_id"), tags);
+                cluster.tagsReplaced(updated.getString("_id"), tags);
+                ConduitReply.reply(message, new ConduitReply().setArticle(viewed(updated, viewerId(request))));
+            } else if (res.succeeded()) {
+                message.fail(MessagingErrorCodes.NOT_FOUND.ordinal(), MessagingErrorCodes.NOT_FOUND.message + request.getValue());
             }else{
                 message.fail(MessagingErrorCodes.UPDATE_FAILURE.ordinal(), MessagingErrorCodes.UPDATE_FAILURE.message + res.cause().getMessage());
             }
-        });
+        }));
 
     }
 
-    private void delete(Message<JsonObject> message) {
+    /**
+     * Delete the article, its comments and its timeline entries and evict it from the caches; the deleted document tells
+     * us the slug and the id whatever field was used
+     *
+     * @param message
+     * @param request
+     */
+    private void delete(Message<Object> message, ConduitMessage request) {
 
-        JsonObject query = new JsonObject().put(message.body().getString(MESSAGE_LOOKUP_FIELD), message.body().getString(MESSAGE_LOOKUP_VALUE));
-        mongoClient.removeDocument(DEFAULT_COLLECTION, query, res -> {
+        JsonObject query = new JsonObject().put(request.getField(), request.getValue());
+        // only what the caches need to forget the article
+        FindOptions options = new FindOptions().setFields(new JsonObject().put("_id", 1).put(SLUG, 1));
+        mongoClient.findOneAndDeleteWithOptions(DEFAULT_COLLECTION, query, options, metrics.mongo(DEFAULT_COLLECTION, "findOneAndDeleteWithOptions").time(res -> {
             if (res.succeeded()) {
                 LOGGER.info("delete succeeded: " + res.result());
-                message.reply(new JsonObject()
-                        .put(MESSAGE_RESPONSE_DETAILS, MESSAGE_SUCCESS));
+                if (res.result() != null) {
+                    articleCache.invalidate(res.result().getString(SLUG));
+                    cluster.invalidated(CACHE_NAME, res.result().getString(SLUG));
+                    tagIndex.remove(res.result().getString("_id"));
+                    cluster.tagsRemoved(res.result().getString("_id"));
+                    // the comments of the article go with it
+                    mongoClient.removeDocuments(MongoConstants.COLLECTION_NAME_COMMENTS, new JsonObject().put("articleSlug", res.result().getString(SLUG)), metrics.mongo(MongoConstants.COLLECTION_NAME_COMMENTS, "removeDocuments").time(removed -> {
+                        if (removed.failed()) {
+                            LOGGER.error("comments of " + res.result().getString(SLUG) + " not removed", removed.cause());
+                        }
+                    }));
+                    // and so do its entries in the feeds
+                    timelines.remove(res.result().getString("_id")).setHandler(removed -> {
+                        if (removed.failed()) {
+                            LOGGER.error("timeline entries of " + res.result().getString(SLUG) + " not removed", removed.cause());
+                        }
+                    });
+                }
+                ConduitReply.reply(message, new ConduitReply().setDetails(MESSAGE_SUCCESS));
             } else {
                 message.fail(MessagingErrorCodes.NOT_FOUND.ordinal(), MessagingErrorCodes.NOT_FOUND.message + res.cause());
             }
+        }));
+    }
+
+    /**
+     * Streams the articles matching the filters in the document of the request to its streamAddress, newest first.  Each
+     * article is sent as it comes out of the Mongo cursor, followed by a STREAM_END message with the number of matching
+     * articles and the cursor of the next page; the request itself is answered with the same end message, or failed.
+     *
+     * @param message
+     * @param request
+     */
+    private void listArticles(Message<Object> message, ConduitMessage request) {
+        JsonObject params = request.getDocument() == null ? new JsonObject() : request.getDocument();
+        String streamAddress = request.getStreamAddress();
+
+        int limit;
+        int offset;
+        ArticleCursor cursor;
+        try {
+            limit = limit(params);
+            offset = offset(params);
+            cursor = cursor(params);
+        } catch (ClassCastException | IllegalArgumentException e) {
+            message.fail(MessagingErrorCodes.INVALID_ARGUMENT.ordinal(), MessagingErrorCodes.INVALID_ARGUMENT.message + e.getMessage());
+            return;
+        }
+        if (streamAddress == null) {
+            message.fail(MessagingErrorCodes.INVALID_ARGUMENT.ordinal(), MessagingErrorCodes.INVALID_ARGUMENT.message + "missing stream address");
+            return;
+        }
+
+        listFilter(params).setHandler(ar -> {
+            if (ar.failed()) {
+                message.fail(MessagingErrorCodes.LOOKUP_FAILED.ordinal(), MessagingErrorCodes.LOOKUP_FAILED.message + ar.cause().getMessage());
+                return;
+            }
+
+            ListingStream listing = new ListingStream(message, streamAddress, limit, viewerId(request));
+            JsonObject filter = ar.result();
+            if (filter == null) {
+                // the author or the favoriting user doesn't exist
+                listing.end(Future.succeededFuture(0L));
+                return;
+            }
+
+            // the total ignores the cursor, it counts every article matching the filters
+            Future<Long> count = Future.future();
+            mongoClient.count(DEFAULT_COLLECTION, filter, metrics.mongo(DEFAULT_COLLECTION, "count").time(count));
+
+            JsonObject page = cursor == null ? filter : new JsonObject()
+                    .put("$and", new JsonArray().add(filter).add(cursor.toFilter()));
+            FindOptions options = new FindOptions()
+                    .setFields(fields(Projection.named(request.getProjection(), Projection.ARTICLE_SUMMARY, Projection.ARTICLE_FULL), viewerId(request)))
+                    .setSort(LIST_SORT)
+                    .setLimit(limit)
+                    .setSkip(offset)
+                    .setBatchSize(limit);
+
+            MongoTimer batch = metrics.mongo(DEFAULT_COLLECTION, "findBatchWithOptions");
+            long started = batch.start();
+            Span span = batch.span();
+            ReadStream<JsonObject> articles = mongoClient.findBatchWithOptions(DEFAULT_COLLECTION, page, options);
+            articles.exceptionHandler(e -> {
+                batch.record(started, false);
+                span.fail(e).finish();
+                listing.fail(e);
+            });
+            articles.endHandler(v -> {
+                batch.record(started, true);
+                span.finish();
+                listing.end(count);
+            });
+            articles.handler(listing::article);
         });
     }
 
-    private void lookupByField(Message<JsonObject> message) {
+    /**
+     * Streams a page of the feed of the FEED_OWNER in the document of the request, the same way as listArticles.  The
+     * page comes from the timeline of the owner, the articles are then read by _id in one query and sent in timeline
+     * order; articles deleted since they were added to the timeline are skipped.
+     *
+     * @param message
+     * @param request
+     */
+    private void feed(Message<Object> message, ConduitMessage request) {
+        JsonObject params = request.getDocument() == null ? new JsonObject() : request.getDocument();
+        String streamAddress = request.getStreamAddress();
+        String owner = params.getString(FEED_OWNER);
 
-        JsonObject query = new JsonObject().put(message.body().getString(KEY_FIELD), message.body().getString(KEY_VALUE));
-        mongoClient.find(DEFAULT_COLLECTION, query, res -> {
-            if (res.succeeded()) {
-                LOGGER.info("lookup succeeded: " + res.result());
-                message.reply(new JsonObject()
-                        .put(MESSAGE_RESPONSE_DETAILS, res.result().get(0)));
+        int limit;
+        int offset;
+        ArticleCursor cursor;
+        try {
+            limit = limit(params);
+            offset = offset(params);
+            cursor = cursor(params);
+        } catch (ClassCastException | IllegalArgumentException e) {
+            message.fail(MessagingErrorCodes.INVALID_ARGUMENT.ordinal(), MessagingErrorCodes.INVALID_ARGUMENT.message + e.getMessage());
+            return;
+        }
+        if (streamAddress == null || owner == null) {
+            message.fail(MessagingErrorCodes.INVALID_ARGUMENT.ordinal(), MessagingErrorCodes.INVALID_ARGUMENT.message + "missing stream address or owner");
+            return;
+        }
+
+        // the owner of the feed is the one reading it
+        ListingStream listing = new ListingStream(message, streamAddress, limit, owner);
+        Future<Long> count = timelines.count(owner);
+
+        timelines.page(owner, cursor, limit, offset).setHandler(ar -> {
+            if (ar.failed()) {
+                listing.fail(ar.cause());
+                return;
+            }
+            List<JsonObject> entries = ar.result();
+            // the next page starts after the last timeline entry, whether or not its article still exists
+            ArticleCursor next = entries.size() == limit ? ArticleCursor.after(entries.get(entries.size() - 1), "article") : null;
+            if (entries.isEmpty()) {
+                listing.end(count, null);
+                return;
+            }
+
+            JsonArray ids = new JsonArray();
+            for (JsonObject entry : entries) {
+                ids.add(entry.getString("article"));
+            }
+            JsonObject query = new JsonObject().put("_id", new JsonObject().put("$in", ids));
+            FindOptions options = new FindOptions()
+                    .setFields(fields(Projection.named(request.getProjection(), Projection.ARTICLE_SUMMARY, Projection.ARTICLE_FULL), owner));
+            mongoClient.findWithOptions(DEFAULT_COLLECTION, query, options, metrics.mongo(DEFAULT_COLLECTION, "findWithOptions").time(res -> {
+                if (res.failed()) {
+                    listing.fail(res.cause());
+                    return;
+                }
+                Map<String, JsonObject> byId = new HashMap<>();
+                for (JsonObject article : res.result()) {
+                    byId.put(article.getString("_id"), article);
+                }
+                for (JsonObject entry : entries) {
+                    JsonObject article = byId.get(entry.getString("article"));
+                    if (article != null) {
+                        listing.article(article);
+                    }
+                }
+                listing.end(count, next);
+            }));
+        });
+    }
+
+    private static int limit(JsonObject params) {
+        return Math.min(Math.max(params.getInteger(LIST_LIMIT, DEFAULT_LIMIT), 1), MAX_LIMIT);
+    }
+
+    private static int offset(JsonObject params) {
+        return Math.max(params.getInteger(LIST_OFFSET, 0), 0);
+    }
+
+    private static ArticleCursor cursor(JsonObject params) {
+        return params.containsKey(LIST_CURSOR) ? ArticleCursor.decode(params.getString(LIST_CURSOR)) : null;
+    }
+
+    /**
+     * @param params
+     * @return the Mongo filter for the listing, null when a user named in the filters doesn't exist or no article has the
+     * tag
+     */
+    private Future<JsonObject> listFilter(JsonObject params) {
+        JsonObject filter = new JsonObject();
+        String tag = params.getString(LIST_TAG);
+        if (tag != null) {
+            filter.put("tagList", tag);
+            if (tagIndex.isReady()) {
+                Set<String> candidates = tagIndex.articleIds(tag);
+                if (candidates.isEmpty()) {
+                    return Future.succeededFuture(null);
+                }
+                // the index narrows the read to a few _ids, tagList keeps the result exact
+                if (candidates.size() <= MAX_TAG_CANDIDATES) {
+                    filter.put("_id", new JsonObject().put("$in", new JsonArray(new ArrayList<>(candidates))));
+                }
+            }
+        }
+
+        Future<JsonObject> retVal = Future.succeededFuture(filter);
+        if (params.getString(LIST_AUTHOR) != null) {
+            retVal = retVal.compose(f -> findUser("username", params.getString(LIST_AUTHOR))
+                    .map(author -> author == null ? null : f.put("author", author.getString("_id"))));
+        }
+        if (params.getString(LIST_FAVORITED) != null) {
+            retVal = retVal.compose(f -> f == null ? Future.<JsonObject>succeededFuture(null) : findUser("username", params.getString(LIST_FAVORITED))
+                    .map(user -> user == null ? null : f.put(FAVORITED_BY, user.getString("_id"))));
+        }
+        return retVal;
+    }
+
+    /**
+     * @param field "username" or "_id"
+     * @param value
+     * @return the stored user document or null if there is no such user
+     */
+    private Future<JsonObject> findUser(String field, String value) {
+        JsonObject cached = userCache.get(field, value);
+        if (cached != null) {
+            return Future.succeededFuture(cached);
+        }
+
+        Future<JsonObject> retVal = Future.future();
+        long stamp = userCache.stamp();
+        // the same projection UserDAV caches, the documents are shared through the UserCache
+        FindOptions options = new FindOptions().setFields(Projection.PROFILE.fields()).setLimit(1);
+        mongoClient.findWithOptions(MongoConstants.COLLECTION_NAME_USERS, new JsonObject().put(field, value), options, metrics.mongo(MongoConstants.COLLECTION_NAME_USERS, "findWithOptions").time(res -> {
+            if (res.succeeded() && !res.result().isEmpty()) {
+                JsonObject found = res.result().get(0);
+                userCache.putIfUnchanged(found, stamp);
+                retVal.complete(found);
+            } else if (res.succeeded()) {
+                retVal.complete(null);
+            } else {
+                retVal.fail(res.cause());
+            }
+        }));
+        return retVal;
+    }
+
+    /**
+     * Forwards the articles of one listing to its stream address.  Authors are resolved asynchronously, mostly from the
+     * UserCache, so every article is chained behind the previous one to keep the order of the Mongo cursor.
+     */
+    private class ListingStream {
+
+        private final Message<Object> request;
+
+        private final String address;
+
+        private final int limit;
+
+        // the caller, for the favorited flag; null if anonymous
+        private final String viewerId;
+
+        private Future<Void> tail = Future.succeededFuture();
+
+        private JsonObject last;
+
+        private int sent;
+
+        private boolean finished;
+
+        ListingStream(Message<Object> request, String address, int limit, String viewerId) {
+            this.request = request;
+            this.address = address;
+            this.limit = limit;
+            this.viewerId = viewerId;
+        }
+
+        void article(JsonObject document) {
+            last = document;
+            tail = tail.compose(v -> author(document.getValue("author")))
+                    .map(author -> {
+                        Article article = viewed(document, viewerId);
+                        if (author != null) article.setAuthor(new User(author));
+                        vertx.eventBus().send(address, new ConduitReply().setArticle(article),
+                                new DeliveryOptions().addHeader(STREAM_HEADER, STREAM_ITEM));
+                        sent++;
+                        return null;
+                    });
+        }
+
+        /**
+         * @param author the _id of the author, or the author itself in articles that embed it
+         */
+        private Future<JsonObject> author(Object author) {
+            if (author instanceof String) {
+                return findUser("_id", (String) author);
+            }
+            return Future.succeededFuture(author instanceof JsonObject ? (JsonObject) author : null);
+        }
+
+        void end(Future<Long> count) {
+            // a full page may have a successor, a short one is the last
+            end(count, null, true);
+        }
+
+        /**
+         * @param count
+         * @param next  the cursor of the next page, null if this is the last one
+         */
+        void end(Future<Long> count, ArticleCursor next) {
+            end(count, next, false);
+        }
+
+        private void end(Future<Long> count, ArticleCursor explicitNext, boolean fromLast) {
+            tail.compose(v -> count).setHandler(ar -> {
+                if (finished) {
+                    return;
+                }
+                if (ar.failed()) {
+                    fail(ar.cause());
+                    return;
+                }
+                ArticleCursor next = !fromLast ? explicitNext
+                        : sent == limit && last != null ? ArticleCursor.after(last) : null;
+                ConduitReply end = new ConduitReply()
+                        .setCount(ar.result())
+                        .setCursor(next == null ? null : next.encode());
+                finished = true;
+                vertx.eventBus().send(address, end, new DeliveryOptions().addHeader(STREAM_HEADER, STREAM_END));
+                ConduitReply.reply(request, end);
+            });
+        }
+
+        void fail(Throwable cause) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            LOGGER.error("listing failed", cause);
+            request.fail(MessagingErrorCodes.LOOKUP_FAILED.ordinal(), MessagingErrorCodes.LOOKUP_FAILED.message + cause.getMessage());
+        }
+    }
+
+    /**
+     * Looks up a single article, by default with every field.  The slug cache only holds complete articles, which also
+     * answer lookups asking for a smaller projection.  The favorited flag is the caller's: cached articles carry their
+     * whole favoritedBy set, other lookups read only the caller's element of it.
+     *
+     * @param message
+     * @param request
+     */
+    private void lookupByField(Message<Object> message, ConduitMessage request) {
+
+        Projection projection = Projection.named(request.getProjection(), Projection.ARTICLE_FULL, Projection.ARTICLE_SUMMARY);
+        String viewerId = viewerId(request);
+        boolean bySlug = SLUG.equals(request.getField());
+        if (bySlug) {
+            JsonObject cached = articleCache.get(request.getValue());
+            if (cached != null) {
+                // the cached document is shared, every reply gets its own Article
+                ConduitReply.reply(message, new ConduitReply().setArticle(viewed(cached, viewerId)));
+                return;
+            }
+        }
+
+        // an update or delete that completes while we are reading must not be overwritten by this result
+        long stamp = articleCache.stamp();
+        JsonObject query = new JsonObject().put(request.getField(), request.getValue());
+        boolean cacheable = bySlug && projection == Projection.ARTICLE_FULL;
+        FindOptions options = new FindOptions().setFields(cacheable ? cachedFields() : fields(projection, viewerId)).setLimit(1);
+        mongoClient.findWithOptions(DEFAULT_COLLECTION, query, options, metrics.mongo(DEFAULT_COLLECTION, "findWithOptions").time(res -> {
+            if (res.succeeded() && !res.result().isEmpty()) {
+                JsonObject found = res.result().get(0);
+                LOGGER.debug("lookup succeeded: " + found);
+                if (cacheable) {
+                    articleCache.putIfUnchanged(request.getValue(), found, stamp);
+                }
+                ConduitReply.reply(message, new ConduitReply().setArticle(viewed(found, viewerId)));
             } else {
                 message.fail(MessagingErrorCodes.NOT_FOUND.ordinal(), MessagingErrorCodes.NOT_FOUND.message + res.cause());
             }
-        });
+        }));
     }
 
 
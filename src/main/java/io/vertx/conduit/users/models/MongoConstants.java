@@ -9,4 +9,13 @@ public class MongoConstants {
   public static final String COLLECTION_NAME_USERS = "user";
 
   public static final String COLLECTION_NAME_ARTICLES = "article";
+
+  // one document per (follower, article), see TimelineStore
+  public static final String COLLECTION_NAME_TIMELINE = "timeline";
+
+  // one document per (follower, followed), see FollowerIndex
+  public static final String COLLECTION_NAME_FOLLOWS = "follows";
+
+  // one document per comment, keyed for listing by (articleSlug, createdAt), see CommentDAV
+  public static final String COLLECTION_NAME_COMMENTS = "comment";
 }
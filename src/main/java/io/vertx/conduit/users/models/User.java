@@ -5,7 +5,8 @@ import io.vertx.core.json.JsonObject;
 
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * username: String,
@@ -31,31 +32,37 @@ public class User {
 
   String image;
 
-  List<User> following;
+  // _ids of the followed users, stored in Mongo as an array maintained with $addToSet/$pull
+  Set<String> following;
+
+  // maintained by FollowerIndex
+  int followersCount;
+
+  int followingCount;
 
   public void follow(User userToFollow) {
     if (this.following == null) {
-      this.following = new ArrayList<>();
+      this.following = new HashSet<>();
     }
-    this.following.add(userToFollow);
+    this.following.add(userToFollow.get_id());
   }
 
     public void unFollow(User userToUnFollow) {
-        if (this.following == null) {
-            this.following = new ArrayList<>();
+        if (this.following != null) {
+            this.following.remove(userToUnFollow.get_id());
         }
-        this.following.remove(userToUnFollow);
     }
 
-  public boolean isFollowing(String username) {
-    if (following == null) return false;
-    boolean isFollowing = false;
-    for (User u : following) {
-      if(u.getUsername().equalsIgnoreCase(username)){
-        isFollowing = true;
-      }
-    }
-    return isFollowing;
+  /**
+   * @param userId the _id of the other user
+   * @return
+   */
+  public boolean isFollowing(String userId) {
+    return following != null && userId != null && following.contains(userId);
+  }
+
+  public boolean isFollowing(User user) {
+    return user != null && isFollowing(user.get_id());
   }
 
   public User() {
@@ -101,6 +108,19 @@ public class User {
     if (jsonObject.containsKey("image")) this.image = jsonObject.getString("image");
     if (jsonObject.containsKey("bio")) this.bio = jsonObject.getString("bio");
     if (jsonObject.containsKey("salt")) this.salt = jsonObject.getString("salt");
+    if (jsonObject.containsKey("followersCount")) this.followersCount = jsonObject.getInteger("followersCount");
+    if (jsonObject.containsKey("followingCount")) this.followingCount = jsonObject.getInteger("followingCount");
+    Object following = jsonObject.getValue("following");
+    if (following instanceof JsonArray) {
+      this.following = new HashSet<>();
+      for (Object id : (JsonArray) following) {
+        if (id instanceof String) this.following.add((String) id);
+      }
+    } else if (following instanceof String) {
+      // written by versions that $set a single followed id
+      this.following = new HashSet<>();
+      this.following.add((String) following);
+    }
 
   }
 
@@ -111,15 +131,6 @@ public class User {
               .put("image", image)
               .put("email", email);
 
-      if (this.following != null) {
-        JsonArray followedUsers = new JsonArray();
-        for(User u : following){
-          followedUsers.add(u.get_id());
-        }
-        retVal.put("following", followedUsers);
-      }
-
-
       return new JsonObject().put("user", retVal);
   }
 
@@ -131,11 +142,7 @@ public class User {
             .put("email", email);
 
     if (this.following != null) {
-      JsonArray followedUsers = new JsonArray();
-      for(User u : following){
-        followedUsers.add(u.get_id());
-      }
-      retVal.put("following", followedUsers);
+      retVal.put("following", new JsonArray(new ArrayList<>(following)));
     }
 
 
@@ -146,20 +153,23 @@ public class User {
     JsonObject retVal = new JsonObject()
             .put("username", username)
             .put("bio", bio)
-            .put("image", image);
-
-    if (this.following != null) {
-      JsonArray followedUsers = new JsonArray();
-      for(User u : following){
-        followedUsers.add(u.get_id());
-      }
-      retVal.put("following", followedUsers);
-    }
-
+            .put("image", image)
+            .put("followersCount", followersCount)
+            .put("followingCount", followingCount);
 
     return new JsonObject().put("profile", retVal);
   }
 
+  /**
+   * @param viewer the user looking at this profile, null if anonymous
+   * @return the profile with the "following" flag of the viewer
+   */
+  public JsonObject toProfileJson(User viewer) {
+    JsonObject retVal = toProfileJson();
+    retVal.getJsonObject("profile").put("following", viewer != null && viewer.isFollowing(this));
+    return retVal;
+  }
+
   public JsonObject toMongoJson() {
     JsonObject retVal = new JsonObject();
       if (this._id != null) {
@@ -172,11 +182,7 @@ public class User {
             .put("password", this.password)
             .put("salt", this.salt);
     if (this.following != null) {
-      JsonArray followedUsers = new JsonArray();
-      for(User u : following){
-        followedUsers.add(u.get_id());
-      }
-      retVal.put("following", followedUsers);
+      retVal.put("following", new JsonArray(new ArrayList<>(following)));
     }
     return retVal;
   }
@@ -235,14 +241,30 @@ public class User {
     this.image = image;
   }
 
-  public List<User> getFollowing() {
+  public Set<String> getFollowing() {
     return following;
   }
 
-  public void setFollowing(List<User> following) {
+  public void setFollowing(Set<String> following) {
     this.following = following;
   }
 
+  public int getFollowersCount() {
+    return followersCount;
+  }
+
+  public void setFollowersCount(int followersCount) {
+    this.followersCount = followersCount;
+  }
+
+  public int getFollowingCount() {
+    return followingCount;
+  }
+
+  public void setFollowingCount(int followingCount) {
+    this.followingCount = followingCount;
+  }
+
   public String getSalt() {
     return salt;
   }
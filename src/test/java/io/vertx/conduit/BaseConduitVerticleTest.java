@@ -1,9 +1,12 @@
 package io.vertx.conduit;
 
+import io.vertx.conduit.comments.CommentDAV;
 import io.vertx.conduit.users.ArticleDAV;
 import io.vertx.conduit.users.models.User;
 import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
@@ -37,20 +40,71 @@ public class BaseConduitVerticleTest {
     vertx = Vertx.vertx();
     webClient = WebClient.create(vertx);
 
-    DeploymentOptions options = new DeploymentOptions()
-      .setConfig(new JsonObject()
-        .put("http.port", 8080)
-        .put("db_name", DB_NAME_TEST)
-        .put("connection_string", DB_CONNECTION_STRING_TEST)
-      );
+    DeploymentOptions options = new DeploymentOptions().setConfig(config());
 
     jacob = new User("jake@jake.jake", "jakejake", "Jacob", "I work at state farm", null);
     testArticle1 = new Article("Test Article 1", "Test description 1", "Lorem ipsum dolor site amet.", new ArrayList<String>(3){ { add("test1"); add("test2"); add("test3"); } });
 
-    vertx.deployVerticle(DBSetupVerticle.class.getName(), tc.asyncAssertSuccess());
-    vertx.deployVerticle(HttpVerticle.class.getName(), options, tc.asyncAssertSuccess());
-    vertx.deployVerticle(UserDAV.class.getName(), options, tc.asyncAssertSuccess());
-    vertx.deployVerticle(ArticleDAV.class.getName(), options, tc.asyncAssertSuccess());
+    // the DAVs load state from Mongo when they start (e.g. the TagIndex), so the data has to be in place first
+    vertx.deployVerticle(DBSetupVerticle.class.getName(), tc.asyncAssertSuccess(id -> {
+      vertx.deployVerticle(HttpVerticle.class.getName(), options, tc.asyncAssertSuccess());
+      vertx.deployVerticle(UserDAV.class.getName(), options, tc.asyncAssertSuccess());
+      vertx.deployVerticle(ArticleDAV.class.getName(), options, tc.asyncAssertSuccess());
+      vertx.deployVerticle(CommentDAV.class.getName(), options, tc.asyncAssertSuccess());
+    }));
+  }
+
+  /**
+   * The config every verticle is deployed with, subclasses add the keys they exercise.
+   */
+  protected JsonObject config() {
+    return new JsonObject()
+      .put("http.port", 8080)
+      .put("db_name", DB_NAME_TEST)
+      .put("connection_string", DB_CONNECTION_STRING_TEST);
+  }
+
+  /**
+   * Publishes an article as jacob, its slug is the title in lower case with dashes.
+   */
+  protected Future<Void> createArticle(String title, JsonArray tags) {
+    Future<Void> retVal = Future.future();
+    webClient.post(8080, "localhost", "/api/articles")
+      .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+      .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+      .putHeader(HttpProps.AUTHORIZATION, TestProps.TOKEN_JACOB)
+      .sendJsonObject(new JsonObject()
+        .put("article", new JsonObject()
+          .put("title", title)
+          .put("description", title)
+          .put("body", "The body of " + title)
+          .put("tagList", tags)), ar -> {
+        if (ar.succeeded() && ar.result().statusCode() == 200) {
+          retVal.complete();
+        } else {
+          retVal.fail(ar.succeeded() ? "POST /api/articles returned " + ar.result().statusCode() : ar.cause().getMessage());
+        }
+      });
+    return retVal;
+  }
+
+  /**
+   * Deletes an article of jacob.
+   */
+  protected Future<Void> deleteArticle(String slug) {
+    Future<Void> retVal = Future.future();
+    webClient.delete(8080, "localhost", "/api/articles/" + slug)
+      .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+      .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+      .putHeader(HttpProps.AUTHORIZATION, TestProps.TOKEN_JACOB)
+      .send(ar -> {
+        if (ar.succeeded() && ar.result().statusCode() == 200) {
+          retVal.complete();
+        } else {
+          retVal.fail(ar.succeeded() ? "DELETE /api/articles/" + slug + " returned " + ar.result().statusCode() : ar.cause().getMessage());
+        }
+      });
+    return retVal;
   }
 
   @Test
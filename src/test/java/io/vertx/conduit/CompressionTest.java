@@ -0,0 +1,77 @@
+package io.vertx.conduit;
+
+import io.vertx.conduit.ResponseCompression.ContentCoding;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+@RunWith(VertxUnitRunner.class)
+public class CompressionTest extends BaseConduitVerticleTest {
+
+  @Test
+  public void testNegotiate(TestContext tc) {
+    tc.assertNull(ResponseCompression.negotiate(null));
+    tc.assertNull(ResponseCompression.negotiate("br, identity"));
+    tc.assertEquals(ContentCoding.GZIP, ResponseCompression.negotiate("deflate, gzip;q=0.8, br"));
+    tc.assertEquals(ContentCoding.DEFLATE, ResponseCompression.negotiate("gzip;q=0, deflate"));
+    tc.assertEquals(ContentCoding.GZIP, ResponseCompression.negotiate("*"));
+  }
+
+  @Test
+  public void testCompressRoundTrip(TestContext tc) throws IOException {
+    ResponseCompression compression = new ResponseCompression(vertx, new JsonObject());
+    Buffer plain = Buffer.buffer();
+    for (int i = 0; i < 200; i++) {
+      plain.appendString("{\"slug\":\"test-article-" + i + "\"},");
+    }
+
+    Buffer gzipped = compression.compress(plain, ContentCoding.GZIP);
+    tc.assertTrue(gzipped.length() < plain.length());
+    tc.assertEquals(plain, inflate(new GZIPInputStream(new ByteArrayInputStream(gzipped.getBytes()))));
+
+    Buffer deflated = compression.compress(plain, ContentCoding.DEFLATE);
+    tc.assertEquals(plain, inflate(new InflaterInputStream(new ByteArrayInputStream(deflated.getBytes()))));
+  }
+
+  @Test
+  public void testSmallResponseIsNotCompressed(TestContext tc) {
+    Async async = tc.async();
+
+    webClient.get(8080, "localhost", "/api/articles/test-article-1")
+      .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+      .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+      .putHeader(HttpHeaders.ACCEPT_ENCODING.toString(), "gzip")
+      .send(ar -> {
+        if (ar.failed()) {
+          tc.fail(ar.cause());
+          return;
+        }
+        tc.assertEquals(200, ar.result().statusCode());
+        tc.assertNull(ar.result().getHeader(HttpHeaders.CONTENT_ENCODING.toString()));
+        tc.assertEquals("Test Article 1", ar.result().bodyAsJsonObject().getJsonObject("article").getString("title"));
+        async.complete();
+      });
+  }
+
+  private static Buffer inflate(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] chunk = new byte[1024];
+    int read;
+    while ((read = in.read(chunk)) != -1) {
+      out.write(chunk, 0, read);
+    }
+    return Buffer.buffer(out.toByteArray());
+  }
+}
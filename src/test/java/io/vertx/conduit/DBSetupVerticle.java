@@ -1,5 +1,6 @@
 package io.vertx.conduit;
 
+import io.vertx.conduit.db.MongoIndexes;
 import io.vertx.conduit.users.models.MongoConstants;
 import io.vertx.conduit.users.models.User;
 import io.vertx.core.AbstractVerticle;
@@ -50,6 +51,11 @@ public class DBSetupVerticle extends AbstractVerticle {
         article.setSlug("test-article-1");
         Future<Void> init = dropCollection(MongoConstants.COLLECTION_NAME_USERS)
                 .compose(v -> dropCollection(MongoConstants.COLLECTION_NAME_ARTICLES))
+                .compose(v -> dropCollection(MongoConstants.COLLECTION_NAME_TIMELINE))
+                .compose(v -> dropCollection(MongoConstants.COLLECTION_NAME_FOLLOWS))
+                .compose(v -> dropCollection(MongoConstants.COLLECTION_NAME_COMMENTS))
+                // dropping a collection drops its indexes, the tests run against the same ones as MainVerticle
+                .compose(v -> new MongoIndexes(mongoClient).ensure())
                 .compose(v -> insertUser(jacob))
                 .compose(v -> insertUser(user1))
                 .compose(v -> insertArticle(article));
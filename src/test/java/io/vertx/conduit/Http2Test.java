@@ -0,0 +1,95 @@
+package io.vertx.conduit;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(VertxUnitRunner.class)
+public class Http2Test {
+
+  private static final int TLS_PORT = 8443;
+
+  private static final int CLEAR_TEXT_PORT = 8081;
+
+  private Vertx vertx;
+
+  @Before
+  public void setUp(TestContext tc) {
+    vertx = Vertx.vertx();
+
+    vertx.deployVerticle(HttpVerticle.class.getName(), new DeploymentOptions().setConfig(new JsonObject()
+      .put("http.port", TLS_PORT)
+      .put(ServerOptions.CONFIG_TLS, true)
+      .put(ServerOptions.CONFIG_KEYSTORE_PASSWORD, "secret")
+      .put(ServerOptions.CONFIG_STREAM_WINDOW, 1024 * 1024)), tc.asyncAssertSuccess());
+    vertx.deployVerticle(HttpVerticle.class.getName(), new DeploymentOptions().setConfig(new JsonObject()
+      .put("http.port", CLEAR_TEXT_PORT)), tc.asyncAssertSuccess());
+  }
+
+  @After
+  public void tearDown(TestContext tc) {
+    vertx.close(tc.asyncAssertSuccess());
+  }
+
+  @Test
+  public void testH2IsNegotiatedWithAlpn(TestContext tc) {
+    Async async = tc.async();
+    vertx.createHttpClient(new HttpClientOptions()
+      .setProtocolVersion(HttpVersion.HTTP_2)
+      .setSsl(true)
+      .setUseAlpn(true)
+      .setTrustAll(true)
+      .setVerifyHost(false))
+      .getNow(TLS_PORT, "localhost", "/", response -> {
+        tc.assertEquals(200, response.statusCode());
+        tc.assertEquals(HttpVersion.HTTP_2, response.version());
+        async.complete();
+      });
+  }
+
+  @Test
+  public void testH2cWithPriorKnowledge(TestContext tc) {
+    Async async = tc.async();
+    vertx.createHttpClient(new HttpClientOptions()
+      .setProtocolVersion(HttpVersion.HTTP_2)
+      .setHttp2ClearTextUpgrade(false))
+      .getNow(CLEAR_TEXT_PORT, "localhost", "/", response -> {
+        tc.assertEquals(200, response.statusCode());
+        tc.assertEquals(HttpVersion.HTTP_2, response.version());
+        async.complete();
+      });
+  }
+
+  @Test
+  public void testWindowsComeFromTheConfig(TestContext tc) {
+    HttpServerOptions options = ServerOptions.from(new JsonObject()
+      .put(ServerOptions.CONFIG_CONNECTION_WINDOW, 4 * 1024 * 1024)
+      .put(ServerOptions.CONFIG_STREAM_WINDOW, 1024 * 1024)
+      .put(ServerOptions.CONFIG_MAX_CONCURRENT_STREAMS, 200));
+
+    tc.assertFalse(options.isSsl());
+    tc.assertEquals(4 * 1024 * 1024, options.getHttp2ConnectionWindowSize());
+    tc.assertEquals(1024 * 1024, options.getInitialSettings().getInitialWindowSize());
+    tc.assertEquals(200L, options.getInitialSettings().getMaxConcurrentStreams());
+  }
+
+  @Test
+  public void testTlsRequiresAKeystorePassword(TestContext tc) {
+    try {
+      ServerOptions.from(new JsonObject().put(ServerOptions.CONFIG_TLS, true));
+      tc.fail("TLS started without a keystore password");
+    } catch (IllegalArgumentException e) {
+      tc.assertTrue(e.getMessage().contains(ServerOptions.CONFIG_KEYSTORE_PASSWORD));
+    }
+  }
+}
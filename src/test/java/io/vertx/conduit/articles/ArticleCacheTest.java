@@ -0,0 +1,106 @@
+package io.vertx.conduit.articles;
+
+import io.vertx.conduit.BaseConduitVerticleTest;
+import io.vertx.conduit.HttpProps;
+import io.vertx.conduit.TestProps;
+import io.vertx.conduit.users.ArticleDAV;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.web.client.HttpResponse;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(VertxUnitRunner.class)
+public class ArticleCacheTest extends BaseConduitVerticleTest {
+
+    @Test
+    public void testRepeatedLookupIsServedFromCache(TestContext tc) {
+        Async async = tc.async();
+
+        getArticle(tc, first -> getArticle(tc, second ->
+                webClient.get(8080, "localhost", "/stats").send(ar -> {
+                    if (ar.succeeded()) {
+                        JsonObject cacheStats = ar.result().bodyAsJsonObject()
+                                .getJsonObject("caches")
+                                .getJsonObject(ArticleDAV.CACHE_NAME);
+                        tc.assertNotNull(cacheStats);
+                        tc.assertEquals(1, cacheStats.getInteger("size"));
+                        tc.assertTrue(cacheStats.getLong("hits") >= 1, "The second lookup should be a hit");
+                        async.complete();
+                    } else {
+                        tc.fail(ar.cause());
+                    }
+                })));
+    }
+
+    @Test
+    public void testUpdateReplacesCachedArticle(TestContext tc) {
+        Async async = tc.async();
+
+        getArticle(tc, cached ->
+                webClient.put(8080, "localhost", "/api/articles/test-article-1")
+                        .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                        .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                        .putHeader(HttpProps.AUTHORIZATION, TestProps.TOKEN_JACOB)
+                        .sendJsonObject(new JsonObject()
+                                .put("article", new JsonObject()
+                                        .put("body", "Updated while cached")), ar -> {
+                            if (ar.succeeded()) {
+                                tc.assertEquals(200, ar.result().statusCode());
+                                getArticle(tc, response -> {
+                                    tc.assertEquals("Updated while cached", response.bodyAsJsonObject().getJsonObject("article").getString("body"));
+                                    async.complete();
+                                });
+                            } else {
+                                tc.fail(ar.cause());
+                            }
+                        }));
+    }
+
+    @Test
+    public void testDeleteEvictsCachedArticle(TestContext tc) {
+        Async async = tc.async();
+
+        getArticle(tc, cached ->
+                webClient.delete(8080, "localhost", "/api/articles/test-article-1")
+                        .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                        .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                        .putHeader(HttpProps.AUTHORIZATION, TestProps.TOKEN_JACOB)
+                        .send(ar -> {
+                            if (ar.succeeded()) {
+                                tc.assertEquals(200, ar.result().statusCode());
+                                webClient.get(8080, "localhost", "/api/articles/test-article-1")
+                                        .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                                        .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                                        .send(ar2 -> {
+                                            if (ar2.succeeded()) {
+                                                tc.assertEquals(422, ar2.result().statusCode(), "A deleted article should not be served from the cache");
+                                                async.complete();
+                                            } else {
+                                                tc.fail(ar2.cause());
+                                            }
+                                        });
+                            } else {
+                                tc.fail(ar.cause());
+                            }
+                        }));
+    }
+
+    private void getArticle(TestContext tc, Handler<HttpResponse<Buffer>> next) {
+        webClient.get(8080, "localhost", "/api/articles/test-article-1")
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .send(ar -> {
+                    if (ar.succeeded()) {
+                        tc.assertEquals(200, ar.result().statusCode());
+                        next.handle(ar.result());
+                    } else {
+                        tc.fail(ar.cause());
+                    }
+                });
+    }
+}
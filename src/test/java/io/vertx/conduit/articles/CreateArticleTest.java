@@ -55,4 +55,34 @@ public class CreateArticleTest extends BaseConduitVerticleTest {
 
 
     }
+
+    /**
+     * test-article-1 is taken, the new article gets it with a suffix instead of failing
+     *
+     * @param tc
+     */
+    @Test
+    public void testTakenSlugGetsASuffix(TestContext tc) {
+        Async async = tc.async();
+
+        webClient.post(8080, "localhost", "/api/articles")
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .putHeader(HttpProps.AUTHORIZATION, TestProps.TOKEN_USER1)
+                .sendJsonObject(new JsonObject()
+                        .put("article", new JsonObject()
+                                .put("title", "Test Article 1")
+                                .put("description", "The same title again")
+                                .put("body", "Lorem ipsum dolor site amet.")
+                        ), ar -> {
+                    if (ar.succeeded()) {
+                        tc.assertEquals(200, ar.result().statusCode());
+                        String slug = ar.result().bodyAsJsonObject().getJsonObject("article").getString("slug");
+                        tc.assertTrue(slug.startsWith("test-article-1-"), "The slug should be suffixed, not " + slug);
+                        async.complete();
+                    } else {
+                        tc.fail(ar.cause());
+                    }
+                });
+    }
 }
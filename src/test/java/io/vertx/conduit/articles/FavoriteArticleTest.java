@@ -0,0 +1,198 @@
+package io.vertx.conduit.articles;
+
+import io.vertx.conduit.BaseConduitVerticleTest;
+import io.vertx.conduit.HttpProps;
+import io.vertx.conduit.TestProps;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.web.client.HttpRequest;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(VertxUnitRunner.class)
+public class FavoriteArticleTest extends BaseConduitVerticleTest {
+
+    private static final String SLUG = "test-article-1";
+
+    /**
+     * The count moves once per user whatever the number of clicks, and reads agree with it before and after the flush
+     *
+     * @param tc
+     */
+    @Test
+    public void testFavoriteAndUnfavorite(TestContext tc) {
+        Async async = tc.async();
+
+        favorite(HttpMethod.POST, TestProps.TOKEN_JACOB)
+                .compose(article -> {
+                    tc.assertTrue(article.getBoolean("favorited"));
+                    tc.assertEquals(1, article.getInteger("favoritesCount"));
+                    return favorite(HttpMethod.POST, TestProps.TOKEN_JACOB);
+                })
+                .compose(article -> {
+                    tc.assertEquals(1, article.getInteger("favoritesCount"));
+                    return favorite(HttpMethod.POST, TestProps.TOKEN_USER1);
+                })
+                .compose(article -> {
+                    tc.assertEquals(2, article.getInteger("favoritesCount"));
+                    return lookup();
+                })
+                .compose(article -> {
+                    tc.assertEquals(2, article.getInteger("favoritesCount"));
+                    return afterFlush();
+                })
+                .compose(v -> lookup())
+                .compose(article -> {
+                    tc.assertEquals(2, article.getInteger("favoritesCount"));
+                    return favorite(HttpMethod.DELETE, TestProps.TOKEN_JACOB);
+                })
+                .setHandler(ar -> {
+                    if (ar.succeeded()) {
+                        tc.assertFalse(ar.result().getBoolean("favorited"));
+                        tc.assertEquals(1, ar.result().getInteger("favoritesCount"));
+                        async.complete();
+                    } else {
+                        tc.fail(ar.cause());
+                    }
+                });
+    }
+
+    /**
+     * favorited is the flag of the caller: true for the user who favorited the article, on a single article and in a
+     * listing, and false for anybody else
+     *
+     * @param tc
+     */
+    @Test
+    public void testFavoritedIsTheViewers(TestContext tc) {
+        Async async = tc.async();
+
+        favorite(HttpMethod.POST, TestProps.TOKEN_USER1)
+                .compose(article -> lookup(TestProps.TOKEN_USER1))
+                .compose(article -> {
+                    tc.assertTrue(article.getBoolean("favorited"), "The article was favorited by the caller");
+                    // answered from the slug cache this time
+                    return lookup(TestProps.TOKEN_USER1);
+                })
+                .compose(article -> {
+                    tc.assertTrue(article.getBoolean("favorited"), "The cached article was favorited by the caller");
+                    return lookup(TestProps.TOKEN_JACOB);
+                })
+                .compose(article -> {
+                    tc.assertFalse(article.getBoolean("favorited"), "Somebody else favorited the article");
+                    return lookup();
+                })
+                .compose(article -> {
+                    tc.assertFalse(article.getBoolean("favorited"), "Nobody is signed in");
+                    return listed(TestProps.TOKEN_USER1);
+                })
+                .setHandler(ar -> {
+                    if (ar.succeeded()) {
+                        tc.assertTrue(ar.result().getBoolean("favorited"), "The listed article was favorited by the caller");
+                        async.complete();
+                    } else {
+                        tc.fail(ar.cause());
+                    }
+                });
+    }
+
+    @Test
+    public void testFavoriteUnknownArticle(TestContext tc) {
+        Async async = tc.async();
+
+        webClient.post(8080, "localhost", "/api/articles/no-such-article/favorite")
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .putHeader(HttpProps.AUTHORIZATION, TestProps.TOKEN_JACOB)
+                .send(ar -> {
+                    if (ar.succeeded()) {
+                        tc.assertEquals(422, ar.result().statusCode());
+                        async.complete();
+                    } else {
+                        tc.fail(ar.cause());
+                    }
+                });
+    }
+
+    private Future<JsonObject> favorite(HttpMethod method, String token) {
+        Future<JsonObject> retVal = Future.future();
+        webClient.request(method, 8080, "localhost", "/api/articles/" + SLUG + "/favorite")
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .putHeader(HttpProps.AUTHORIZATION, token)
+                .send(ar -> {
+                    if (ar.succeeded() && ar.result().statusCode() == 200) {
+                        retVal.complete(ar.result().bodyAsJsonObject().getJsonObject("article"));
+                    } else {
+                        retVal.fail(ar.succeeded() ? method + " favorite returned " + ar.result().statusCode() : ar.cause().getMessage());
+                    }
+                });
+        return retVal;
+    }
+
+    private Future<JsonObject> lookup() {
+        return lookup(null);
+    }
+
+    /**
+     * @param token the caller, null if anonymous
+     * @return the article
+     */
+    private Future<JsonObject> lookup(String token) {
+        Future<JsonObject> retVal = Future.future();
+        HttpRequest<Buffer> request = webClient.get(8080, "localhost", "/api/articles/" + SLUG)
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST);
+        if (token != null) {
+            request.putHeader(HttpProps.AUTHORIZATION, token);
+        }
+        request.send(ar -> {
+            if (ar.succeeded() && ar.result().statusCode() == 200) {
+                retVal.complete(ar.result().bodyAsJsonObject().getJsonObject("article"));
+            } else {
+                retVal.fail(ar.succeeded() ? "GET returned " + ar.result().statusCode() : ar.cause().getMessage());
+            }
+        });
+        return retVal;
+    }
+
+    /**
+     * @param token the caller
+     * @return the article as listed in GET /api/articles
+     */
+    private Future<JsonObject> listed(String token) {
+        Future<JsonObject> retVal = Future.future();
+        webClient.get(8080, "localhost", "/api/articles?favorited=User1")
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .putHeader(HttpProps.AUTHORIZATION, token)
+                .send(ar -> {
+                    if (ar.succeeded() && ar.result().statusCode() == 200) {
+                        JsonArray articles = ar.result().bodyAsJsonObject().getJsonArray("articles");
+                        for (int i = 0; i < articles.size(); i++) {
+                            if (SLUG.equals(articles.getJsonObject(i).getString("slug"))) {
+                                retVal.complete(articles.getJsonObject(i));
+                                return;
+                            }
+                        }
+                        retVal.fail(SLUG + " is not listed in " + articles);
+                    } else {
+                        retVal.fail(ar.succeeded() ? "GET /api/articles returned " + ar.result().statusCode() : ar.cause().getMessage());
+                    }
+                });
+        return retVal;
+    }
+
+    private Future<Void> afterFlush() {
+        Future<Void> retVal = Future.future();
+        // twice the default flush interval
+        vertx.setTimer(2000, t -> retVal.complete());
+        return retVal;
+    }
+}
@@ -0,0 +1,141 @@
+package io.vertx.conduit.articles;
+
+import io.vertx.conduit.BaseConduitVerticleTest;
+import io.vertx.conduit.HttpProps;
+import io.vertx.conduit.TestProps;
+import io.vertx.core.Future;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(VertxUnitRunner.class)
+public class FeedTest extends BaseConduitVerticleTest {
+
+    @Test
+    public void testFeedRequiresAuthentication(TestContext tc) {
+        Async async = tc.async();
+
+        webClient.get(8080, "localhost", "/api/articles/feed")
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .send(ar -> {
+                    if (ar.succeeded()) {
+                        tc.assertEquals(401, ar.result().statusCode());
+                        async.complete();
+                    } else {
+                        tc.fail(ar.cause());
+                    }
+                });
+    }
+
+    /**
+     * User1 follows Jacob after Jacob wrote an article, which backfills the feed of User1; a second article is fanned out
+     * to the feed and unfollowing Jacob empties it again
+     *
+     * @param tc
+     */
+    @Test
+    public void testFeedFollowsTheFollowedAuthors(TestContext tc) {
+        Async async = tc.async();
+
+        createArticle("Feed Article 1", new JsonArray().add("feed"))
+                .compose(v -> follow(HttpMethod.POST))
+                .compose(v -> feed(1, 1))
+                .compose(backfilled -> {
+                    tc.assertEquals("feed-article-1", backfilled.getJsonArray("articles").getJsonObject(0).getString("slug"));
+                    tc.assertEquals("Jacob", backfilled.getJsonArray("articles").getJsonObject(0)
+                            .getJsonObject("author").getString("username"));
+                    return createArticle("Feed Article 2", new JsonArray().add("feed"));
+                })
+                // the fan out completes after the article was created
+                .compose(v -> feed(2, 20))
+                .compose(fannedOut -> {
+                    tc.assertEquals(2, fannedOut.getInteger("articlesCount"));
+                    tc.assertEquals("feed-article-2", fannedOut.getJsonArray("articles").getJsonObject(0).getString("slug"));
+                    return follow(HttpMethod.DELETE);
+                })
+                .compose(v -> feed(0, 1))
+                .setHandler(ar -> {
+                    if (ar.succeeded()) {
+                        tc.assertEquals(0, ar.result().getInteger("articlesCount"));
+                        async.complete();
+                    } else {
+                        tc.fail(ar.cause());
+                    }
+                });
+    }
+
+    /**
+     * Deleting an article takes it out of the feed and out of the articlesCount of the feed
+     *
+     * @param tc
+     */
+    @Test
+    public void testDeletedArticleLeavesTheFeed(TestContext tc) {
+        Async async = tc.async();
+
+        createArticle("Feed Article 3", new JsonArray().add("feed"))
+                .compose(v -> follow(HttpMethod.POST))
+                .compose(v -> feed(1, 1))
+                .compose(v -> deleteArticle("feed-article-3"))
+                // the timelines are purged after the delete was answered
+                .compose(v -> feed(0, 20))
+                .setHandler(ar -> {
+                    if (ar.succeeded()) {
+                        tc.assertEquals(0, ar.result().getInteger("articlesCount"));
+                        async.complete();
+                    } else {
+                        tc.fail(ar.cause());
+                    }
+                });
+    }
+
+    /**
+     * @param expected number of articles to wait for
+     * @param attempts number of reads before giving up, 50ms apart
+     * @return the feed of User1
+     */
+    private Future<JsonObject> feed(int expected, int attempts) {
+        Future<JsonObject> retVal = Future.future();
+        webClient.get(8080, "localhost", "/api/articles/feed")
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .putHeader(HttpProps.AUTHORIZATION, TestProps.TOKEN_USER1)
+                .send(ar -> {
+                    if (ar.failed()) {
+                        retVal.fail(ar.cause());
+                    } else if (ar.result().statusCode() != 200) {
+                        retVal.fail("GET /api/articles/feed returned " + ar.result().statusCode());
+                    } else if (ar.result().bodyAsJsonObject().getJsonArray("articles").size() == expected
+                            && ar.result().bodyAsJsonObject().getInteger("articlesCount") == expected) {
+                        retVal.complete(ar.result().bodyAsJsonObject());
+                    } else if (attempts > 1) {
+                        vertx.setTimer(50, t -> feed(expected, attempts - 1).setHandler(retVal.completer()));
+                    } else {
+                        retVal.fail("Expected " + expected + " articles in " + ar.result().bodyAsString());
+                    }
+                });
+        return retVal;
+    }
+
+    private Future<Void> follow(HttpMethod method) {
+        Future<Void> retVal = Future.future();
+        webClient.request(method, 8080, "localhost", "/api/profiles/Jacob/follow")
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .putHeader(HttpProps.AUTHORIZATION, TestProps.TOKEN_USER1)
+                .send(ar -> {
+                    if (ar.succeeded() && ar.result().statusCode() == 200) {
+                        retVal.complete();
+                    } else {
+                        retVal.fail(ar.succeeded() ? method + " follow returned " + ar.result().statusCode() : ar.cause().getMessage());
+                    }
+                });
+        return retVal;
+    }
+}
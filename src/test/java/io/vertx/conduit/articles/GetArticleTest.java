@@ -48,4 +48,44 @@ public class GetArticleTest extends BaseConduitVerticleTest{
 
 
     }
+
+    @Test
+    public void testGetArticleIsCompact(TestContext tc) {
+        Async async = tc.async();
+
+        webClient.get(8080, "localhost", "/api/articles/test-article-1")
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .send(ar -> {
+                    if (ar.succeeded()) {
+                        tc.assertEquals(200, ar.result().statusCode());
+                        String body = ar.result().bodyAsString();
+                        tc.assertFalse(body.contains("\n"), "Responses should not be pretty printed by default");
+                        tc.assertEquals(String.valueOf(ar.result().body().length()), ar.result().getHeader("Content-Length"));
+                        tc.assertEquals("test-article-1", ar.result().bodyAsJsonObject().getJsonObject("article").getString("slug"));
+                        async.complete();
+                    }else{
+                        tc.fail(ar.cause());
+                    }
+                });
+    }
+
+    @Test
+    public void testGetArticlePretty(TestContext tc) {
+        Async async = tc.async();
+
+        webClient.get(8080, "localhost", "/api/articles/test-article-1?pretty=true")
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .send(ar -> {
+                    if (ar.succeeded()) {
+                        tc.assertEquals(200, ar.result().statusCode());
+                        tc.assertTrue(ar.result().bodyAsString().contains("\n"), "?pretty=true should pretty print");
+                        tc.assertEquals("test-article-1", ar.result().bodyAsJsonObject().getJsonObject("article").getString("slug"));
+                        async.complete();
+                    }else{
+                        tc.fail(ar.cause());
+                    }
+                });
+    }
 }
@@ -0,0 +1,134 @@
+package io.vertx.conduit.articles;
+
+import io.vertx.conduit.BaseConduitVerticleTest;
+import io.vertx.conduit.HttpProps;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(VertxUnitRunner.class)
+public class ListArticlesTest extends BaseConduitVerticleTest {
+
+    @Test
+    public void testListArticles(TestContext tc) {
+        Async async = tc.async();
+
+        list("/api/articles").setHandler(ar -> {
+            if (ar.succeeded()) {
+                JsonObject returnedJson = ar.result();
+                JsonArray articles = returnedJson.getJsonArray("articles");
+                tc.assertEquals(1, articles.size());
+                tc.assertEquals(1, returnedJson.getInteger("articlesCount"));
+                tc.assertEquals("test-article-1", articles.getJsonObject(0).getString("slug"));
+                tc.assertNull(returnedJson.getString("nextCursor"), "A short page is the last page");
+                async.complete();
+            } else {
+                tc.fail(ar.cause());
+            }
+        });
+    }
+
+    @Test
+    public void testFilterByTag(TestContext tc) {
+        Async async = tc.async();
+
+        list("/api/articles?tag=test2").compose(tagged -> {
+            tc.assertEquals(1, tagged.getJsonArray("articles").size());
+            return list("/api/articles?tag=no-such-tag");
+        }).setHandler(ar -> {
+            if (ar.succeeded()) {
+                tc.assertEquals(0, ar.result().getJsonArray("articles").size());
+                tc.assertEquals(0, ar.result().getInteger("articlesCount"));
+                async.complete();
+            } else {
+                tc.fail(ar.cause());
+            }
+        });
+    }
+
+    @Test
+    public void testUnknownAuthorIsEmpty(TestContext tc) {
+        Async async = tc.async();
+
+        list("/api/articles?author=nobody").setHandler(ar -> {
+            if (ar.succeeded()) {
+                tc.assertEquals(0, ar.result().getJsonArray("articles").size());
+                async.complete();
+            } else {
+                tc.fail(ar.cause());
+            }
+        });
+    }
+
+    /**
+     * Pages through three articles one at a time with the returned cursor; every article should be seen exactly once,
+     * newest first
+     *
+     * @param tc
+     */
+    @Test
+    public void testCursorPaging(TestContext tc) {
+        Async async = tc.async();
+
+        createArticle("Paging Article 1", new JsonArray().add("paging"))
+                .compose(v -> createArticle("Paging Article 2", new JsonArray().add("paging")))
+                .compose(v -> list("/api/articles?limit=1"))
+                .compose(first -> {
+                    tc.assertEquals(3, first.getInteger("articlesCount"));
+                    tc.assertEquals("paging-article-2", first.getJsonArray("articles").getJsonObject(0).getString("slug"));
+                    tc.assertNotNull(first.getString("nextCursor"));
+                    return list("/api/articles?limit=1&cursor=" + first.getString("nextCursor"));
+                })
+                .compose(second -> {
+                    tc.assertEquals("paging-article-1", second.getJsonArray("articles").getJsonObject(0).getString("slug"));
+                    return list("/api/articles?limit=1&cursor=" + second.getString("nextCursor"));
+                })
+                .setHandler(ar -> {
+                    if (ar.succeeded()) {
+                        tc.assertEquals("test-article-1", ar.result().getJsonArray("articles").getJsonObject(0).getString("slug"));
+                        async.complete();
+                    } else {
+                        tc.fail(ar.cause());
+                    }
+                });
+    }
+
+    @Test
+    public void testInvalidLimit(TestContext tc) {
+        Async async = tc.async();
+
+        webClient.get(8080, "localhost", "/api/articles?limit=ten")
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .send(ar -> {
+                    if (ar.succeeded()) {
+                        tc.assertEquals(422, ar.result().statusCode());
+                        async.complete();
+                    } else {
+                        tc.fail(ar.cause());
+                    }
+                });
+    }
+
+    private Future<JsonObject> list(String uri) {
+        Future<JsonObject> retVal = Future.future();
+        webClient.get(8080, "localhost", uri)
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .send(ar -> {
+                    if (ar.failed()) {
+                        retVal.fail(ar.cause());
+                    } else if (ar.result().statusCode() != 200) {
+                        retVal.fail("GET " + uri + " returned " + ar.result().statusCode());
+                    } else {
+                        retVal.complete(ar.result().bodyAsJsonObject());
+                    }
+                });
+        return retVal;
+    }
+}
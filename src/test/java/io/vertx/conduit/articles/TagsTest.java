@@ -0,0 +1,84 @@
+package io.vertx.conduit.articles;
+
+import io.vertx.conduit.BaseConduitVerticleTest;
+import io.vertx.conduit.HttpProps;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(VertxUnitRunner.class)
+public class TagsTest extends BaseConduitVerticleTest {
+
+    @Test
+    public void testTagsOfExistingArticles(TestContext tc) {
+        Async async = tc.async();
+
+        get("/api/tags").setHandler(ar -> {
+            if (ar.succeeded()) {
+                JsonArray tags = ar.result().getJsonArray("tags");
+                tc.assertTrue(tags.contains("test1"));
+                tc.assertTrue(tags.contains("test2"));
+                tc.assertTrue(tags.contains("test3"));
+                async.complete();
+            } else {
+                tc.fail(ar.cause());
+            }
+        });
+    }
+
+    /**
+     * Created articles add their tags, the most used tag comes first and deleting the only article with a tag drops it
+     *
+     * @param tc
+     */
+    @Test
+    public void testTagsFollowWrites(TestContext tc) {
+        Async async = tc.async();
+
+        createArticle("Tag Article 1", new JsonArray().add("popular").add("rare"))
+                .compose(v -> createArticle("Tag Article 2", new JsonArray().add("popular")))
+                .compose(v -> get("/api/tags"))
+                .compose(created -> {
+                    JsonArray tags = created.getJsonArray("tags");
+                    tc.assertEquals("popular", tags.getString(0));
+                    tc.assertTrue(tags.contains("rare"));
+                    return get("/api/articles?tag=popular");
+                })
+                .compose(tagged -> {
+                    tc.assertEquals(2, tagged.getJsonArray("articles").size());
+                    return deleteArticle("tag-article-1");
+                })
+                .compose(v -> get("/api/tags"))
+                .setHandler(ar -> {
+                    if (ar.succeeded()) {
+                        tc.assertFalse(ar.result().getJsonArray("tags").contains("rare"));
+                        tc.assertTrue(ar.result().getJsonArray("tags").contains("popular"));
+                        async.complete();
+                    } else {
+                        tc.fail(ar.cause());
+                    }
+                });
+    }
+
+    private Future<JsonObject> get(String uri) {
+        Future<JsonObject> retVal = Future.future();
+        webClient.get(8080, "localhost", uri)
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .send(ar -> {
+                    if (ar.failed()) {
+                        retVal.fail(ar.cause());
+                    } else if (ar.result().statusCode() != 200) {
+                        retVal.fail("GET " + uri + " returned " + ar.result().statusCode());
+                    } else {
+                        retVal.complete(ar.result().bodyAsJsonObject());
+                    }
+                });
+        return retVal;
+    }
+}
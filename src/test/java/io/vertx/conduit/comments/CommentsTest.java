@@ -0,0 +1,150 @@
+package io.vertx.conduit.comments;
+
+import io.vertx.conduit.BaseConduitVerticleTest;
+import io.vertx.conduit.HttpProps;
+import io.vertx.conduit.TestProps;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(VertxUnitRunner.class)
+public class CommentsTest extends BaseConduitVerticleTest {
+
+    private static final String COMMENTS = "/api/articles/test-article-1/comments";
+
+    @Test
+    public void testCreateComment(TestContext tc) {
+        Async async = tc.async();
+
+        comment("First!").setHandler(ar -> {
+            if (ar.succeeded()) {
+                tc.assertNotNull(ar.result().getString("id"));
+                tc.assertEquals("First!", ar.result().getString("body"));
+                tc.assertEquals("Jacob", ar.result().getJsonObject("author").getString("username"));
+                async.complete();
+            } else {
+                tc.fail(ar.cause());
+            }
+        });
+    }
+
+    /**
+     * Three comments read two at a time: newest first, the count comes from the article and the cursor of the first
+     * page leads to the last comment
+     *
+     * @param tc
+     */
+    @Test
+    public void testCommentPages(TestContext tc) {
+        Async async = tc.async();
+
+        comment("one")
+                .compose(c -> comment("two"))
+                .compose(c -> comment("three"))
+                .compose(c -> get(COMMENTS + "?limit=2"))
+                .compose(first -> {
+                    JsonArray comments = first.getJsonArray("comments");
+                    tc.assertEquals(2, comments.size());
+                    tc.assertEquals("three", comments.getJsonObject(0).getString("body"));
+                    tc.assertEquals("two", comments.getJsonObject(1).getString("body"));
+                    tc.assertEquals(3, first.getInteger("commentsCount"));
+                    tc.assertNotNull(first.getString("nextCursor"));
+                    return get(COMMENTS + "?limit=2&cursor=" + first.getString("nextCursor"));
+                })
+                .setHandler(ar -> {
+                    if (ar.succeeded()) {
+                        JsonArray comments = ar.result().getJsonArray("comments");
+                        tc.assertEquals(1, comments.size());
+                        tc.assertEquals("one", comments.getJsonObject(0).getString("body"));
+                        tc.assertNull(ar.result().getString("nextCursor"));
+                        async.complete();
+                    } else {
+                        tc.fail(ar.cause());
+                    }
+                });
+    }
+
+    /**
+     * Only the author can delete a comment and the count of the article follows
+     *
+     * @param tc
+     */
+    @Test
+    public void testDeleteComment(TestContext tc) {
+        Async async = tc.async();
+
+        comment("short lived")
+                .compose(c -> delete(c.getString("id"), TestProps.TOKEN_USER1)
+                        .compose(status -> {
+                            tc.assertEquals(422, status);
+                            return delete(c.getString("id"), TestProps.TOKEN_JACOB);
+                        }))
+                .compose(status -> {
+                    tc.assertEquals(200, status);
+                    return get(COMMENTS);
+                })
+                .setHandler(ar -> {
+                    if (ar.succeeded()) {
+                        tc.assertEquals(0, ar.result().getJsonArray("comments").size());
+                        tc.assertEquals(0, ar.result().getInteger("commentsCount"));
+                        async.complete();
+                    } else {
+                        tc.fail(ar.cause());
+                    }
+                });
+    }
+
+    private Future<JsonObject> comment(String body) {
+        Future<JsonObject> retVal = Future.future();
+        webClient.post(8080, "localhost", COMMENTS)
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .putHeader(HttpProps.AUTHORIZATION, TestProps.TOKEN_JACOB)
+                .sendJsonObject(new JsonObject().put("comment", new JsonObject().put("body", body)), ar -> {
+                    if (ar.succeeded() && ar.result().statusCode() == 200) {
+                        retVal.complete(ar.result().bodyAsJsonObject().getJsonObject("comment"));
+                    } else {
+                        retVal.fail(ar.succeeded() ? "POST " + COMMENTS + " returned " + ar.result().statusCode() : ar.cause().getMessage());
+                    }
+                });
+        return retVal;
+    }
+
+    private Future<JsonObject> get(String uri) {
+        Future<JsonObject> retVal = Future.future();
+        webClient.get(8080, "localhost", uri)
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .send(ar -> {
+                    if (ar.failed()) {
+                        retVal.fail(ar.cause());
+                    } else if (ar.result().statusCode() != 200) {
+                        retVal.fail("GET " + uri + " returned " + ar.result().statusCode());
+                    } else {
+                        retVal.complete(ar.result().bodyAsJsonObject());
+                    }
+                });
+        return retVal;
+    }
+
+    private Future<Integer> delete(String id, String token) {
+        Future<Integer> retVal = Future.future();
+        webClient.delete(8080, "localhost", COMMENTS + "/" + id)
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .putHeader(HttpProps.AUTHORIZATION, token)
+                .send(ar -> {
+                    if (ar.succeeded()) {
+                        retVal.complete(ar.result().statusCode());
+                    } else {
+                        retVal.fail(ar.cause());
+                    }
+                });
+        return retVal;
+    }
+}
@@ -0,0 +1,103 @@
+package io.vertx.conduit.db;
+
+import io.vertx.conduit.BaseConduitVerticleTest;
+import io.vertx.conduit.users.models.MongoConstants;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static io.vertx.conduit.TestProps.DB_CONNECTION_STRING_TEST;
+import static io.vertx.conduit.TestProps.DB_NAME_TEST;
+
+@RunWith(VertxUnitRunner.class)
+public class MongoIndexesTest extends BaseConduitVerticleTest {
+
+    @Test
+    public void testUniqueUserIndexes(TestContext tc) {
+        Async async = tc.async();
+
+        mongoClient().listIndexes(MongoConstants.COLLECTION_NAME_USERS, ar -> {
+            if (ar.succeeded()) {
+                tc.assertTrue(isUnique(ar.result(), "email_unique"), "email should be unique");
+                tc.assertTrue(isUnique(ar.result(), "username_unique"), "username should be unique");
+                async.complete();
+            } else {
+                tc.fail(ar.cause());
+            }
+        });
+    }
+
+    /**
+     * Ensuring the indexes a second time must not fail, and the explain diagnostics never do
+     *
+     * @param tc
+     */
+    @Test
+    public void testEnsureIsIdempotent(TestContext tc) {
+        Async async = tc.async();
+
+        MongoIndexes indexes = new MongoIndexes(mongoClient());
+        indexes.ensure().compose(v -> indexes.explain()).setHandler(ar -> {
+            if (ar.succeeded()) {
+                async.complete();
+            } else {
+                tc.fail(ar.cause());
+            }
+        });
+    }
+
+    /**
+     * A database from before slug_unique may hold articles sharing a slug, the newer ones are renamed
+     *
+     * @param tc
+     */
+    @Test
+    public void testDuplicateSlugsAreRenamed(TestContext tc) {
+        Async async = tc.async();
+
+        MongoClient mongoClient = mongoClient();
+        JsonObject duplicate = new JsonObject()
+                .put("_id", "duplicate-slug")
+                .put("slug", "test-article-1")
+                .put("title", "Test Article 1")
+                .put("createdAt", Long.MAX_VALUE);
+        Future<Void> dropped = Future.future();
+        mongoClient.dropIndex(MongoConstants.COLLECTION_NAME_ARTICLES, "slug_unique", dropped.completer());
+        dropped.compose(v -> {
+            Future<String> inserted = Future.future();
+            mongoClient.insert(MongoConstants.COLLECTION_NAME_ARTICLES, duplicate, inserted.completer());
+            return inserted;
+        }).compose(id -> new MongoIndexes(mongoClient).ensure()).compose(v -> {
+            Future<JsonObject> renamed = Future.future();
+            mongoClient.findOne(MongoConstants.COLLECTION_NAME_ARTICLES, new JsonObject().put("_id", "duplicate-slug"), null, renamed.completer());
+            return renamed;
+        }).setHandler(ar -> {
+            if (ar.succeeded()) {
+                tc.assertEquals("test-article-1-duplicate-slug", ar.result().getString("slug"));
+                async.complete();
+            } else {
+                tc.fail(ar.cause());
+            }
+        });
+    }
+
+    private MongoClient mongoClient() {
+        return MongoClient.createShared(vertx, new JsonObject().put("db_name", DB_NAME_TEST).put("connection_string", DB_CONNECTION_STRING_TEST));
+    }
+
+    private static boolean isUnique(JsonArray indexes, String name) {
+        for (int i = 0; i < indexes.size(); i++) {
+            JsonObject index = indexes.getJsonObject(i);
+            if (name.equals(index.getString("name"))) {
+                return index.getBoolean("unique", false);
+            }
+        }
+        return false;
+    }
+}
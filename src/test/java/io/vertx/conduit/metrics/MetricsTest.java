@@ -0,0 +1,98 @@
+package io.vertx.conduit.metrics;
+
+import io.vertx.conduit.BaseConduitVerticleTest;
+import io.vertx.conduit.HttpProps;
+import io.vertx.conduit.TestProps;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(VertxUnitRunner.class)
+public class MetricsTest extends BaseConduitVerticleTest {
+
+    @Test
+    public void testLookupIsRecordedAtEveryLayer(TestContext tc) {
+        Async async = tc.async();
+
+        webClient.get(8080, "localhost", "/api/articles/test-article-1")
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .send(ar -> {
+                    if (ar.failed()) {
+                        tc.fail(ar.cause());
+                        return;
+                    }
+                    tc.assertEquals(200, ar.result().statusCode());
+                    webClient.get(8080, "localhost", "/metrics").send(ar2 -> {
+                        if (ar2.succeeded()) {
+                            tc.assertEquals(ConduitMetrics.CONTENT_TYPE, ar2.result().getHeader("Content-Type"));
+                            String body = ar2.result().bodyAsString();
+                            tc.assertTrue(body.contains("conduit_http_responses_total{method=\"GET\",route=\"/api/articles/:slug\",status=\"200\"}"));
+                            tc.assertTrue(body.contains("conduit_http_request_duration_seconds_count{method=\"GET\",route=\"/api/articles/:slug\"}"));
+                            tc.assertTrue(body.contains("conduit_eventbus_action_duration_seconds_count{address=\"address.articles\",action=\"lookup.field\"}"));
+                            tc.assertTrue(body.contains("conduit_mongo_operation_duration_seconds_count{collection=\"article\",operation=\"findWithOptions\"}"));
+                            async.complete();
+                        } else {
+                            tc.fail(ar2.cause());
+                        }
+                    });
+                });
+    }
+
+    @Test
+    public void testFeedRecordsTheTimelineCollection(TestContext tc) {
+        Async async = tc.async();
+
+        webClient.get(8080, "localhost", "/api/articles/feed")
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .putHeader(HttpProps.AUTHORIZATION, TestProps.TOKEN_USER1)
+                .send(ar -> {
+                    if (ar.failed()) {
+                        tc.fail(ar.cause());
+                        return;
+                    }
+                    tc.assertEquals(200, ar.result().statusCode());
+                    webClient.get(8080, "localhost", "/metrics").send(ar2 -> {
+                        if (ar2.succeeded()) {
+                            String body = ar2.result().bodyAsString();
+                            tc.assertTrue(body.contains("conduit_mongo_operation_duration_seconds_count{collection=\"timeline\",operation=\"findWithOptions\"}"));
+                            tc.assertTrue(body.contains("conduit_mongo_operation_duration_seconds_count{collection=\"timeline\",operation=\"count\"}"));
+                            async.complete();
+                        } else {
+                            tc.fail(ar2.cause());
+                        }
+                    });
+                });
+    }
+
+    @Test
+    public void testFanOutFailuresAreCounted(TestContext tc) {
+        ConduitMetrics metrics = new ConduitMetrics();
+        tc.assertTrue(metrics.toPrometheus().contains("conduit_feed_fan_out_failures_total 0\n"));
+        metrics.fanOutFailed();
+        tc.assertTrue(metrics.toPrometheus().contains("conduit_feed_fan_out_failures_total 1\n"));
+    }
+
+    @Test
+    public void testHistogramBucketsAreCumulative(TestContext tc) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(50_000L);
+        histogram.record(3_000_000L);
+        histogram.record(20_000_000_000L);
+
+        StringBuilder out = new StringBuilder();
+        histogram.write(out, "test_seconds", "route=\"/\"");
+        String text = out.toString();
+
+        tc.assertEquals(3L, histogram.getCount());
+        tc.assertTrue(text.contains("test_seconds_bucket{route=\"/\",le=\"0.0001\"} 1\n"));
+        tc.assertTrue(text.contains("test_seconds_bucket{route=\"/\",le=\"0.0025\"} 1\n"));
+        tc.assertTrue(text.contains("test_seconds_bucket{route=\"/\",le=\"0.005\"} 2\n"));
+        tc.assertTrue(text.contains("test_seconds_bucket{route=\"/\",le=\"10.0\"} 2\n"));
+        tc.assertTrue(text.contains("test_seconds_bucket{route=\"/\",le=\"+Inf\"} 3\n"));
+        tc.assertTrue(text.contains("test_seconds_count{route=\"/\"} 3\n"));
+    }
+}
@@ -0,0 +1,213 @@
+package io.vertx.conduit.tests.eventbus;
+
+import io.vertx.conduit.BaseConduitVerticleTest;
+import io.vertx.conduit.DBSetupVerticle;
+import io.vertx.conduit.MessagingErrorCodes;
+import io.vertx.conduit.messaging.ConduitAction;
+import io.vertx.conduit.messaging.ConduitMessage;
+import io.vertx.conduit.messaging.ConduitMessageCodec;
+import io.vertx.conduit.messaging.ConduitReply;
+import io.vertx.conduit.metrics.ActionMetrics;
+import io.vertx.conduit.metrics.ConduitMetrics;
+import io.vertx.conduit.overload.AdmissionControl;
+import io.vertx.conduit.overload.Deadlines;
+import io.vertx.conduit.overload.ShedResponse;
+import io.vertx.conduit.users.ArticleDAV;
+import io.vertx.core.Context;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.vertx.conduit.TestProps.DB_CONNECTION_STRING_TEST;
+import static io.vertx.conduit.TestProps.DB_NAME_TEST;
+import static io.vertx.conduit.users.ArticleDAV.MESSAGE_ARTICLES;
+
+@RunWith(VertxUnitRunner.class)
+public class LoadSheddingEventBusTest extends BaseConduitVerticleTest {
+
+    private static final int SENT = 10;
+
+    @Before
+    public void setUp(TestContext tc) {
+
+        vertx = Vertx.vertx();
+
+        // one message in flight and one waiting, the rest of a burst is shed
+        DeploymentOptions options = new DeploymentOptions()
+                .setConfig(new JsonObject()
+                        .put("db_name", DB_NAME_TEST)
+                        .put("connection_string", DB_CONNECTION_STRING_TEST)
+                        .put("article.dav.max.in.flight", 1)
+                        .put("article.dav.max.queued", 1)
+                );
+
+        ConduitMessageCodec.register(vertx);
+        vertx.deployVerticle(DBSetupVerticle.class.getName(), tc.asyncAssertSuccess(id ->
+                vertx.deployVerticle(ArticleDAV.class.getName(), options, tc.asyncAssertSuccess())));
+    }
+
+    @Test
+    public void testBurstBeyondTheQueueIsShed(TestContext testContext) {
+
+        Async async = testContext.async();
+        AtomicInteger answered = new AtomicInteger();
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger shed = new AtomicInteger();
+
+        for (int i = 0; i < SENT; i++) {
+            ConduitMessage message = new ConduitMessage(ConduitAction.LOOKUP_BY_FIELD)
+                    .setField("slug")
+                    .setValue("test-article-1");
+            vertx.eventBus().<ConduitReply>send(MESSAGE_ARTICLES, message, ar -> {
+                if (ar.succeeded()) {
+                    succeeded.incrementAndGet();
+                } else if (ShedResponse.isShed(ar.cause())) {
+                    shed.incrementAndGet();
+                } else {
+                    testContext.fail(ar.cause());
+                }
+                if (answered.incrementAndGet() == SENT) {
+                    ActionMetrics metrics = ConduitMetrics.shared(vertx).address(MESSAGE_ARTICLES);
+                    testContext.assertTrue(succeeded.get() >= 2, "The message in flight and the queued one should be handled");
+                    testContext.assertTrue(shed.get() > 0, "A burst beyond the queue should be shed");
+                    testContext.assertEquals((long) shed.get(), metrics.getShed(false));
+                    testContext.assertEquals(0L, metrics.getInFlight());
+                    testContext.assertEquals(0L, metrics.getQueued());
+                    async.complete();
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testMessagePastItsDeadlineIsDropped(TestContext testContext) {
+
+        Async async = testContext.async();
+
+        ConduitMessage message = new ConduitMessage(ConduitAction.LOOKUP_BY_FIELD)
+                .setField("slug")
+                .setValue("test-article-1");
+        DeliveryOptions options = new DeliveryOptions()
+                .addHeader(Deadlines.DEADLINE_HEADER, Long.toString(System.currentTimeMillis() - 1));
+
+        vertx.eventBus().<ConduitReply>send(MESSAGE_ARTICLES, message, options, ar -> {
+            testContext.assertTrue(ar.failed());
+            testContext.assertEquals(MessagingErrorCodes.DEADLINE_EXCEEDED.ordinal(), ((ReplyException) ar.cause()).failureCode());
+            testContext.assertEquals(1L, ConduitMetrics.shared(vertx).address(MESSAGE_ARTICLES).getShed(true));
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testActionThatThrowsGivesItsSlotBack(TestContext testContext) {
+
+        Async async = testContext.async();
+        String address = "test.admission";
+
+        vertx.runOnContext(v -> {
+            Context context = vertx.getOrCreateContext();
+            AdmissionControl admission = AdmissionControl.create(context,
+                    new JsonObject().put("test" + AdmissionControl.CONFIG_MAX_IN_FLIGHT, 1).put("test" + AdmissionControl.CONFIG_MAX_QUEUED, 0),
+                    "test", ConduitMetrics.shared(vertx).address(address));
+            vertx.eventBus().consumer(address, message -> admission.admit(message, admitted -> {
+                if ("throw".equals(admitted.body())) {
+                    throw new IllegalStateException("broken action");
+                }
+                admitted.reply("ok");
+            }));
+
+            // more throwing actions than slots, a leaked slot would shed the last message
+            send(address, "throw")
+                    .compose(code -> {
+                        testContext.assertEquals(MessagingErrorCodes.UNKNOWN_ERROR.ordinal(), code);
+                        return send(address, "throw");
+                    })
+                    .compose(code -> send(address, "ok"))
+                    .setHandler(ar -> {
+                        if (ar.succeeded()) {
+                            testContext.assertEquals(-1, ar.result());
+                            testContext.assertEquals(0, admission.getInFlight());
+                            async.complete();
+                        } else {
+                            testContext.fail(ar.cause());
+                        }
+                    });
+        });
+    }
+
+    @Test
+    public void testActionThatNeverAnswersGivesItsSlotBack(TestContext testContext) {
+
+        Async async = testContext.async();
+        String address = "test.admission.silent";
+
+        vertx.runOnContext(v -> {
+            Context context = vertx.getOrCreateContext();
+            AdmissionControl admission = AdmissionControl.create(context,
+                    new JsonObject()
+                            .put("test" + AdmissionControl.CONFIG_MAX_IN_FLIGHT, 1)
+                            .put("test" + AdmissionControl.CONFIG_MAX_QUEUED, 0)
+                            .put("test" + AdmissionControl.CONFIG_MAX_ACTION_MS, 100),
+                    "test", ConduitMetrics.shared(vertx).address(address));
+            vertx.eventBus().consumer(address, message -> admission.admit(message, admitted -> {
+                // loses its answer, as an action whose callback threw does
+                if (!"silent".equals(admitted.body())) {
+                    admitted.reply("ok");
+                }
+            }));
+
+            send(address, "silent")
+                    .compose(code -> {
+                        testContext.assertEquals(MessagingErrorCodes.DEADLINE_EXCEEDED.ordinal(), code);
+                        return send(address, "ok");
+                    })
+                    .setHandler(ar -> {
+                        if (ar.succeeded()) {
+                            testContext.assertEquals(-1, ar.result());
+                            testContext.assertEquals(0, admission.getInFlight());
+                            async.complete();
+                        } else {
+                            testContext.fail(ar.cause());
+                        }
+                    });
+        });
+    }
+
+    /**
+     * @return the failure code of the reply, -1 if it succeeded
+     */
+    private Future<Integer> send(String address, String body) {
+        Future<Integer> retVal = Future.future();
+        vertx.eventBus().send(address, body, ar -> {
+            if (ar.succeeded()) {
+                retVal.complete(-1);
+            } else if (ar.cause() instanceof ReplyException) {
+                retVal.complete(((ReplyException) ar.cause()).failureCode());
+            } else {
+                retVal.fail(ar.cause());
+            }
+        });
+        return retVal;
+    }
+
+    @Test
+    public void testDeadlinesPerAction(TestContext testContext) {
+        Deadlines deadlines = new Deadlines(new JsonObject().put(Deadlines.CONFIG_DEADLINE_MS + "." + ConduitAction.FEED.name, 20000));
+
+        testContext.assertEquals(5000L, deadlines.deadline(ConduitAction.LOOKUP_BY_FIELD));
+        testContext.assertEquals(10000L, deadlines.deadline(ConduitAction.LOGIN));
+        testContext.assertEquals(20000L, deadlines.deadline(ConduitAction.FEED));
+        testContext.assertEquals(5000L, deadlines.options(ConduitAction.DELETE).getSendTimeout());
+    }
+}
@@ -0,0 +1,250 @@
+package io.vertx.conduit.tests.eventbus;
+
+import io.vertx.conduit.Article;
+import io.vertx.conduit.BaseConduitVerticleTest;
+import io.vertx.conduit.DBSetupVerticle;
+import io.vertx.conduit.UserDAV;
+import io.vertx.conduit.db.Projection;
+import io.vertx.conduit.messaging.ConduitAction;
+import io.vertx.conduit.messaging.ConduitMessage;
+import io.vertx.conduit.messaging.ConduitMessageCodec;
+import io.vertx.conduit.messaging.ConduitReply;
+import io.vertx.conduit.users.ArticleDAV;
+import io.vertx.conduit.users.models.User;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+
+import static io.vertx.conduit.TestProps.DB_CONNECTION_STRING_TEST;
+import static io.vertx.conduit.TestProps.DB_NAME_TEST;
+import static io.vertx.conduit.users.ArticleDAV.MESSAGE_ARTICLES;
+
+@RunWith(VertxUnitRunner.class)
+public class LookupArticleEventBusTest extends BaseConduitVerticleTest {
+
+    @Before
+    public void setUp(TestContext tc) {
+
+        vertx = Vertx.vertx();
+
+        DeploymentOptions options = new DeploymentOptions()
+                .setConfig(new JsonObject()
+                        .put("db_name", DB_NAME_TEST)
+                        .put("connection_string", DB_CONNECTION_STRING_TEST)
+                );
+
+        ConduitMessageCodec.register(vertx);
+        vertx.deployVerticle(DBSetupVerticle.class.getName(), tc.asyncAssertSuccess());
+        vertx.deployVerticle(ArticleDAV.class.getName(), options, tc.asyncAssertSuccess());
+    }
+
+    @Test
+    public void testLookupArticleWithConduitMessage(TestContext testContext) {
+
+        Async async = testContext.async();
+
+        ConduitMessage message = new ConduitMessage(ConduitAction.LOOKUP_BY_FIELD)
+                .setField("slug")
+                .setValue("test-article-1");
+
+        vertx.eventBus().<ConduitReply>send(MESSAGE_ARTICLES, message, ar -> {
+            testContext.assertTrue(ar.succeeded());
+            testContext.assertTrue(ar.result().body() instanceof ConduitReply, "Reply should not be copied into a JsonObject");
+
+            Article returnedArticle = ar.result().body().getArticle();
+            testContext.assertEquals("Test Article 1", returnedArticle.getTitle(), "Title should be 'Test Article 1'");
+            testContext.assertEquals("test-article-1", returnedArticle.getSlug(), "Slug shold be 'test-article-1");
+
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testLookupArticleWithSummaryProjection(TestContext testContext) {
+
+        Async async = testContext.async();
+
+        ConduitMessage message = new ConduitMessage(ConduitAction.LOOKUP_BY_FIELD)
+                .setField("slug")
+                .setValue("test-article-1")
+                .setProjection(Projection.ARTICLE_SUMMARY.name);
+
+        vertx.eventBus().<ConduitReply>send(MESSAGE_ARTICLES, message, ar -> {
+            testContext.assertTrue(ar.succeeded());
+
+            Article returnedArticle = ar.result().body().getArticle();
+            testContext.assertEquals("Test Article 1", returnedArticle.getTitle(), "Title should be 'Test Article 1'");
+            testContext.assertNull(returnedArticle.getBody(), "A summary should not carry the body");
+
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testLookupArticleIgnoresAUserProjection(TestContext testContext) {
+
+        Async async = testContext.async();
+
+        ConduitMessage message = new ConduitMessage(ConduitAction.LOOKUP_BY_FIELD)
+                .setField("slug")
+                .setValue("test-article-1")
+                .setProjection(Projection.AUTH.name);
+
+        vertx.eventBus().<ConduitReply>send(MESSAGE_ARTICLES, message, ar -> {
+            testContext.assertTrue(ar.succeeded());
+
+            Article returnedArticle = ar.result().body().getArticle();
+            testContext.assertEquals("Lorem ipsum dolor site amet.", returnedArticle.getBody(), "The full article should be returned");
+
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testLookupUserNeverReturnsThePassword(TestContext testContext) {
+
+        Async async = testContext.async();
+
+        ConduitMessage message = new ConduitMessage(ConduitAction.LOOKUP_USER_BY_USERNAME)
+                .setValue("Jacob")
+                .setProjection(Projection.AUTH.name);
+
+        DeploymentOptions options = new DeploymentOptions()
+                .setConfig(new JsonObject()
+                        .put("db_name", DB_NAME_TEST)
+                        .put("connection_string", DB_CONNECTION_STRING_TEST)
+                );
+        vertx.deployVerticle(UserDAV.class.getName(), options, testContext.asyncAssertSuccess(id ->
+                vertx.eventBus().<ConduitReply>send(UserDAV.MESSAGE_ADDRESS, message, ar -> {
+                    testContext.assertTrue(ar.succeeded());
+
+                    User returnedUser = ar.result().body().getUser();
+                    testContext.assertEquals("Jacob", returnedUser.getUsername());
+                    testContext.assertNull(returnedUser.getPassword(), "The password hash should never be sent");
+                    testContext.assertNull(returnedUser.getSalt(), "The salt should never be sent");
+
+                    async.complete();
+                })));
+    }
+
+    @Test
+    public void testRegisterNeverReturnsThePassword(TestContext testContext) {
+
+        Async async = testContext.async();
+
+        User user = new User();
+        user.setUsername("Registered");
+        user.setEmail("registered@example.com");
+        user.setPassword("plaintext");
+        ConduitMessage message = new ConduitMessage(ConduitAction.REGISTER).setUser(user);
+
+        DeploymentOptions options = new DeploymentOptions()
+                .setConfig(new JsonObject()
+                        .put("db_name", DB_NAME_TEST)
+                        .put("connection_string", DB_CONNECTION_STRING_TEST)
+                );
+        vertx.deployVerticle(UserDAV.class.getName(), options, testContext.asyncAssertSuccess(id ->
+                vertx.eventBus().<ConduitReply>send(UserDAV.MESSAGE_ADDRESS, message, ar -> {
+                    testContext.assertTrue(ar.succeeded());
+
+                    User returnedUser = ar.result().body().getUser();
+                    testContext.assertEquals("Registered", returnedUser.getUsername());
+                    testContext.assertNull(returnedUser.getPassword(), "The password hash should never be sent");
+                    testContext.assertNull(returnedUser.getSalt(), "The salt should never be sent");
+
+                    async.complete();
+                })));
+    }
+
+    @Test
+    public void testConduitMessageSurvivesTheWire(TestContext testContext) {
+
+        ConduitMessage message = new ConduitMessage(ConduitAction.LOOKUP_BY_FIELD)
+                .setField("slug")
+                .setValue("test-article-1")
+                .setDocument(new JsonObject().put("title", "Test Article 1"))
+                .setProjection(Projection.ARTICLE_FULL.name);
+
+        ConduitMessageCodec<ConduitMessage> codec = ConduitMessageCodec.messages();
+        io.vertx.core.buffer.Buffer buffer = io.vertx.core.buffer.Buffer.buffer();
+        codec.encodeToWire(buffer, message);
+        ConduitMessage decoded = codec.decodeFromWire(0, buffer);
+
+        testContext.assertEquals(ConduitAction.LOOKUP_BY_FIELD, decoded.getAction());
+        testContext.assertEquals("slug", decoded.getField());
+        testContext.assertEquals("test-article-1", decoded.getValue());
+        testContext.assertEquals("Test Article 1", decoded.getDocument().getString("title"));
+        testContext.assertEquals(Projection.ARTICLE_FULL.name, decoded.getProjection());
+        testContext.assertTrue(codec.transform(message) == message, "Local delivery should pass the same instance");
+    }
+
+    @Test
+    public void testConduitReplySurvivesTheWire(TestContext testContext) {
+
+        User author = new User();
+        author.set_id("5b7d6a7f1c4e2a3b4c5d6e7f");
+        author.setUsername("Jacob");
+        author.setFollowing(new HashSet<>(Arrays.asList("a", "b")));
+        author.setFollowersCount(300);
+        Article article = new Article();
+        article.setSlug("test-article-1");
+        article.setTitle("Test Article 1");
+        article.setTagsList(Arrays.asList("dragons", "training"));
+        article.setCreatedAt(new Date(1534865000000L));
+        article.setFavorited(true);
+        article.setFavoritesCount(2);
+        article.setAuthor(author);
+        ConduitReply reply = new ConduitReply().setArticle(article).setCount(0L).setCursor("next");
+
+        ConduitMessageCodec<ConduitReply> codec = ConduitMessageCodec.replies();
+        io.vertx.core.buffer.Buffer buffer = io.vertx.core.buffer.Buffer.buffer().appendString("ignored");
+        codec.encodeToWire(buffer, reply);
+        ConduitReply decoded = codec.decodeFromWire("ignored".length(), buffer);
+
+        Article decodedArticle = decoded.getArticle();
+        testContext.assertEquals("test-article-1", decodedArticle.getSlug());
+        testContext.assertEquals(Arrays.asList("dragons", "training"), decodedArticle.getTagsList());
+        testContext.assertEquals(1534865000000L, decodedArticle.getCreatedAt().getTime());
+        testContext.assertNull(decodedArticle.getUpdatedAt());
+        testContext.assertNull(decodedArticle.getBody());
+        testContext.assertTrue(decodedArticle.isFavorited());
+        testContext.assertEquals(2, decodedArticle.getFavoritesCount());
+        testContext.assertEquals("Jacob", decodedArticle.getAuthor().getUsername());
+        testContext.assertEquals(300, decodedArticle.getAuthor().getFollowersCount());
+        testContext.assertTrue(decodedArticle.getAuthor().getFollowing().contains("b"));
+        testContext.assertNull(decoded.getUser());
+        testContext.assertEquals(0L, decoded.getCount());
+        testContext.assertEquals("next", decoded.getCursor());
+        testContext.assertTrue(buffer.length() - "ignored".length() < reply.toJson().encode().length(),
+                "The binary form should be smaller than the Json one");
+    }
+
+    @Test
+    public void testReplyNeverCarriesThePasswordAcrossTheWire(TestContext testContext) {
+
+        User user = new User();
+        user.setUsername("Jacob");
+        user.setPassword("hash");
+        user.setSalt("salt");
+
+        ConduitMessageCodec<ConduitReply> codec = ConduitMessageCodec.replies();
+        io.vertx.core.buffer.Buffer buffer = io.vertx.core.buffer.Buffer.buffer();
+        codec.encodeToWire(buffer, new ConduitReply().setUser(user).setFollowed(user));
+        ConduitReply decoded = codec.decodeFromWire(0, buffer);
+
+        testContext.assertEquals("Jacob", decoded.getUser().getUsername());
+        testContext.assertNull(decoded.getUser().getPassword(), "The password hash should never be sent");
+        testContext.assertNull(decoded.getUser().getSalt(), "The salt should never be sent");
+        testContext.assertNull(decoded.getFollowed().getPassword(), "The password hash should never be sent");
+    }
+}
@@ -0,0 +1,105 @@
+package io.vertx.conduit.tracing;
+
+import io.vertx.conduit.BaseConduitVerticleTest;
+import io.vertx.conduit.HttpProps;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(VertxUnitRunner.class)
+public class TracingTest extends BaseConduitVerticleTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    private static final String SAMPLED_TRACEPARENT = "00-" + TRACE_ID + "-00f067aa0ba902b7-01";
+
+    @Override
+    protected JsonObject config() {
+        return super.config().put(Tracer.CONFIG_TRUST_TRACEPARENT, true);
+    }
+
+    @Test
+    public void testUntrustedTraceparentIsLeftToTheSampleRate(TestContext tc) {
+        Tracer never = new Tracer(0.0, false, new MemorySpanCollector(10));
+        tc.assertFalse(never.trace("GET /api/articles", SAMPLED_TRACEPARENT).isSampled());
+
+        Tracer always = new Tracer(1.0, false, new MemorySpanCollector(10));
+        Span span = always.trace("GET /api/articles", SAMPLED_TRACEPARENT);
+        tc.assertTrue(span.isSampled());
+        tc.assertEquals(TRACE_ID, span.getTraceId());
+    }
+
+    @Test
+    public void testSampledLookupIsTracedThroughEveryHop(TestContext tc) {
+        Async async = tc.async();
+
+        webClient.get(8080, "localhost", "/api/articles/test-article-1")
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .putHeader(Tracer.TRACEPARENT, SAMPLED_TRACEPARENT)
+                .send(ar -> {
+                    if (ar.failed()) {
+                        tc.fail(ar.cause());
+                        return;
+                    }
+                    tc.assertEquals(200, ar.result().statusCode());
+                    tc.assertEquals(TRACE_ID, ar.result().getHeader(Tracer.TRACE_ID_HEADER));
+                    webClient.get(8080, "localhost", "/traces?trace=" + TRACE_ID).send(ar2 -> {
+                        if (ar2.failed()) {
+                            tc.fail(ar2.cause());
+                            return;
+                        }
+                        JsonArray spans = ar2.result().bodyAsJsonObject().getJsonArray("spans");
+                        Map<String, JsonObject> byName = new HashMap<>();
+                        for (int i = 0; i < spans.size(); i++) {
+                            byName.put(spans.getJsonObject(i).getString("name"), spans.getJsonObject(i));
+                        }
+                        JsonObject request = byName.get("GET /api/articles/:slug");
+                        JsonObject send = byName.get("address.articles");
+                        JsonObject action = byName.get("lookup.field");
+                        JsonObject mongo = byName.get("mongo findWithOptions article");
+                        tc.assertNotNull(request);
+                        tc.assertNotNull(send);
+                        tc.assertNotNull(action);
+                        tc.assertNotNull(mongo);
+                        tc.assertEquals("00f067aa0ba902b7", request.getString("parentId"));
+                        tc.assertEquals(request.getString("spanId"), send.getString("parentId"));
+                        tc.assertEquals(send.getString("spanId"), action.getString("parentId"));
+                        tc.assertEquals(action.getString("spanId"), mongo.getString("parentId"));
+                        tc.assertEquals(200, request.getJsonObject("tags").getInteger("http.status"));
+                        async.complete();
+                    });
+                });
+    }
+
+    @Test
+    public void testUnsampledRequestIsNotTraced(TestContext tc) {
+        Async async = tc.async();
+
+        webClient.get(8080, "localhost", "/api/articles/test-article-1")
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .send(ar -> {
+                    if (ar.failed()) {
+                        tc.fail(ar.cause());
+                        return;
+                    }
+                    tc.assertNull(ar.result().getHeader(Tracer.TRACE_ID_HEADER));
+                    webClient.get(8080, "localhost", "/traces").send(ar2 -> {
+                        if (ar2.succeeded()) {
+                            tc.assertEquals(0, ar2.result().bodyAsJsonObject().getJsonArray("spans").size());
+                            async.complete();
+                        } else {
+                            tc.fail(ar2.cause());
+                        }
+                    });
+                });
+    }
+}
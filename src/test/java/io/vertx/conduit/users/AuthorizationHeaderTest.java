@@ -0,0 +1,63 @@
+package io.vertx.conduit.users;
+
+import io.vertx.conduit.BaseConduitVerticleTest;
+import io.vertx.conduit.HttpProps;
+import io.vertx.conduit.TestProps;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(VertxUnitRunner.class)
+public class AuthorizationHeaderTest extends BaseConduitVerticleTest {
+
+  /**
+   * The spec uses "Token" as the Authorization scheme; it should be accepted the same way as "Bearer"
+   *
+   * @param tc
+   */
+  @Test
+  public void testTokenScheme(TestContext tc) {
+
+    Async async = tc.async();
+
+    webClient.get(8080, "localhost", "/api/user")
+      .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+      .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+      .putHeader(HttpProps.AUTHORIZATION, TestProps.TOKEN_JACOB.replaceFirst("Bearer", "Token"))
+      .send(ar -> {
+        if (ar.failed()) {
+          tc.fail(ar.cause());
+        } else {
+          tc.assertEquals(200, ar.result().statusCode());
+          JsonObject returnedUser = ar.result().bodyAsJsonObject().getJsonObject("user");
+          tc.assertEquals("Jacob", returnedUser.getString("username"));
+          async.complete();
+        }
+      });
+  }
+
+  @Test
+  public void testMissingHeaderIsRejected(TestContext tc) {
+
+    Async async = tc.async();
+
+    webClient.post(8080, "localhost", "/api/articles")
+      .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+      .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+      .sendJsonObject(new JsonObject()
+        .put("article", new JsonObject()
+          .put("title", "Anonymous")
+          .put("description", "Should not be saved")
+          .put("body", "Nobody wrote this")), ar -> {
+        if (ar.failed()) {
+          tc.fail(ar.cause());
+        } else {
+          tc.assertEquals(401, ar.result().statusCode());
+          async.complete();
+        }
+      });
+  }
+}
@@ -44,11 +44,115 @@ public class FollowUserTest extends BaseConduitVerticleTest {
         tc.assertNotNull(returnedJson);
         JsonObject returnedUser = returnedJson.getJsonObject("profile");
         verifyProfile(returnedUser);
+        tc.assertTrue(returnedUser.getBoolean("following"), "The followed profile should be followed");
         async.complete();
       }
     });
   }
 
+  /**
+   * The profile of a followed user tells the follower they follow it, and nobody else
+   *
+   * @param tc
+   */
+  @Test
+  public void testProfileShowsFollowing(TestContext tc) {
+
+    Async async = tc.async();
+
+    webClient.post(8080, "localhost", "/api/profiles/Jacob/follow")
+      .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+      .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+      .putHeader(HttpProps.AUTHORIZATION, TestProps.TOKEN_USER1)
+      .send(ar -> {
+        tc.assertTrue(ar.succeeded() && ar.result().statusCode() == 200);
+        webClient.get(8080, "localhost", "/api/profiles/Jacob")
+          .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+          .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+          .putHeader(HttpProps.AUTHORIZATION, TestProps.TOKEN_USER1)
+          .send(ar2 -> {
+            tc.assertTrue(ar2.succeeded());
+            tc.assertTrue(ar2.result().bodyAsJsonObject().getJsonObject("profile").getBoolean("following"));
+            tc.assertEquals(1, ar2.result().bodyAsJsonObject().getJsonObject("profile").getInteger("followersCount"));
+            webClient.get(8080, "localhost", "/api/profiles/Jacob")
+              .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+              .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+              .send(ar3 -> {
+                tc.assertTrue(ar3.succeeded());
+                tc.assertFalse(ar3.result().bodyAsJsonObject().getJsonObject("profile").getBoolean("following"));
+                async.complete();
+              });
+          });
+      });
+  }
+
+  /**
+   * Unfollowing answers with the profile that is no longer followed, not with the profile of the caller
+   *
+   * @param tc
+   */
+  @Test
+  public void testUnfollowUser(TestContext tc) {
+
+    Async async = tc.async();
+
+    follow(tc, () ->
+      webClient.delete(8080, "localhost", "/api/profiles/Jacob/follow")
+        .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+        .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+        .putHeader(HttpProps.AUTHORIZATION, TestProps.TOKEN_USER1)
+        .send(ar -> {
+          if (ar.failed()) {
+            tc.fail(ar.cause());
+            return;
+          }
+          tc.assertEquals(200, ar.result().statusCode());
+          JsonObject returnedUser = ar.result().bodyAsJsonObject().getJsonObject("profile");
+          verifyProfile(returnedUser);
+          tc.assertFalse(returnedUser.getBoolean("following"), "The unfollowed profile should not be followed");
+          async.complete();
+        }));
+  }
+
+  /**
+   * Following the same user twice is a single follow for the counters
+   *
+   * @param tc
+   */
+  @Test
+  public void testFollowTwiceCountsOnce(TestContext tc) {
+
+    Async async = tc.async();
+
+    follow(tc, () -> follow(tc, () ->
+      webClient.get(8080, "localhost", "/api/profiles/Jacob")
+        .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+        .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+        .send(ar -> {
+          tc.assertTrue(ar.succeeded());
+          tc.assertEquals(1, ar.result().bodyAsJsonObject().getJsonObject("profile").getInteger("followersCount"));
+          webClient.get(8080, "localhost", "/api/profiles/User1")
+            .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+            .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+            .send(ar2 -> {
+              tc.assertTrue(ar2.succeeded());
+              tc.assertEquals(1, ar2.result().bodyAsJsonObject().getJsonObject("profile").getInteger("followingCount"));
+              async.complete();
+            });
+        })));
+  }
+
+  private void follow(TestContext tc, Runnable next) {
+    webClient.post(8080, "localhost", "/api/profiles/Jacob/follow")
+      .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+      .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+      .putHeader(HttpProps.AUTHORIZATION, TestProps.TOKEN_USER1)
+      .send(ar -> {
+        tc.assertTrue(ar.succeeded() && ar.result().statusCode() == 200);
+        next.run();
+      });
+  }
+
   void verifyProfile(JsonObject profileToVerify) {
     assertEquals("Jacob", profileToVerify.getString("username"));
     assertEquals("I work at state farm", profileToVerify.getString("bio"));
@@ -0,0 +1,78 @@
+package io.vertx.conduit.users;
+
+import io.vertx.conduit.BaseConduitVerticleTest;
+import io.vertx.conduit.HttpProps;
+import io.vertx.conduit.TestProps;
+import io.vertx.conduit.auth.CachingJWTAuth;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(VertxUnitRunner.class)
+public class JwtPrincipalCacheTest extends BaseConduitVerticleTest {
+
+  /**
+   * The token is verified once per request, so the second GET /api/user with the same token should come from the cache
+   *
+   * @param tc
+   */
+  @Test
+  public void testRepeatedTokenIsServedFromCache(TestContext tc) {
+
+    Async async = tc.async();
+
+    getCurrentUser(tc, first -> getCurrentUser(tc, second ->
+      webClient.get(8080, "localhost", "/stats").send(ar -> {
+        if (ar.failed()) {
+          tc.fail(ar.cause());
+        } else {
+          JsonObject cacheStats = ar.result().bodyAsJsonObject()
+            .getJsonObject("caches")
+            .getJsonObject(CachingJWTAuth.CACHE_NAME);
+          tc.assertNotNull(cacheStats);
+          tc.assertEquals(1, cacheStats.getInteger("size"));
+          tc.assertTrue(cacheStats.getLong("misses") >= 1, "The first verification is a miss");
+          tc.assertTrue(cacheStats.getLong("hits") >= 1, "The second verification should be a hit");
+          async.complete();
+        }
+      })));
+  }
+
+  private void getCurrentUser(TestContext tc, Handler<Void> next) {
+    webClient.get(8080, "localhost", "/api/user")
+      .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+      .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+      .putHeader(HttpProps.AUTHORIZATION, TestProps.TOKEN_JACOB)
+      .send(ar -> {
+        if (ar.failed()) {
+          tc.fail(ar.cause());
+        } else {
+          tc.assertEquals(200, ar.result().statusCode());
+          next.handle(null);
+        }
+      });
+  }
+
+  @Test
+  public void testInvalidTokenIsRejected(TestContext tc) {
+
+    Async async = tc.async();
+
+    webClient.get(8080, "localhost", "/api/user")
+      .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+      .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+      .putHeader(HttpProps.AUTHORIZATION, TestProps.TOKEN_JACOB + "tampered")
+      .send(ar -> {
+        if (ar.failed()) {
+          tc.fail(ar.cause());
+        } else {
+          tc.assertEquals(401, ar.result().statusCode());
+          async.complete();
+        }
+      });
+  }
+}
@@ -0,0 +1,102 @@
+package io.vertx.conduit.users;
+
+import io.vertx.conduit.BaseConduitVerticleTest;
+import io.vertx.conduit.HttpProps;
+import io.vertx.conduit.auth.PasswordHasher;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the latency of profile reads while a burst of logins is hashing passwords.  With the hashing on its own
+ * worker pool the profile reads should not queue behind the logins on the event loop.
+ */
+@RunWith(VertxUnitRunner.class)
+public class LoginStormTest extends BaseConduitVerticleTest {
+
+  private static final int LOGINS = 200;
+
+  private static final int PROFILE_READS = 50;
+
+  @Test(timeout = 60000)
+  public void testProfileLatencyDuringLoginStorm(TestContext tc) {
+
+    Async async = tc.async();
+    // every login plus the profile reads
+    AtomicInteger remaining = new AtomicInteger(LOGINS + 1);
+    Runnable done = () -> {
+      if (remaining.decrementAndGet() == 0) {
+        checkPool(tc, async);
+      }
+    };
+
+    for (int i = 0; i < LOGINS; i++) {
+      webClient.post(8080, "localhost", "/api/users/login")
+        .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+        .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+        .sendJsonObject(new JsonObject()
+          .put("user", new JsonObject()
+            .put("email", jacob.getEmail())
+            .put("password", jacob.getPassword())), ar -> {
+          if (ar.failed()) {
+            tc.fail(ar.cause());
+          } else {
+            tc.assertEquals(200, ar.result().statusCode());
+            done.run();
+          }
+        });
+    }
+
+    readProfile(tc, new ArrayList<>(), done);
+  }
+
+  private void checkPool(TestContext tc, Async async) {
+    webClient.get(8080, "localhost", "/stats").send(ar -> {
+      if (ar.failed()) {
+        tc.fail(ar.cause());
+      } else {
+        JsonObject pool = ar.result().bodyAsJsonObject().getJsonObject("workers").getJsonObject(PasswordHasher.POOL_NAME);
+        System.out.println("hashing pool: " + pool.encode());
+        tc.assertTrue(pool.getLong("completed") >= LOGINS, "Every login should have been verified on the hashing pool");
+        tc.assertEquals(0, pool.getInteger("queued"));
+        async.complete();
+      }
+    });
+  }
+
+  private void readProfile(TestContext tc, List<Long> latencies, Runnable done) {
+    long start = System.nanoTime();
+    webClient.get(8080, "localhost", "/api/profiles/" + jacob.getUsername())
+      .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+      .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+      .send(ar -> {
+        if (ar.failed()) {
+          tc.fail(ar.cause());
+          return;
+        }
+        tc.assertEquals(200, ar.result().statusCode());
+        latencies.add((System.nanoTime() - start) / 1000);
+
+        if (latencies.size() < PROFILE_READS) {
+          readProfile(tc, latencies, done);
+        } else {
+          Collections.sort(latencies);
+          long p50 = latencies.get(latencies.size() / 2);
+          long p99 = latencies.get(latencies.size() * 99 / 100);
+          long max = latencies.get(latencies.size() - 1);
+          System.out.println("profile latency during " + LOGINS + " logins (us): p50=" + p50 + " p99=" + p99 + " max=" + max);
+          // generous bound, the point is that reads are not serialized behind hundreds of hashes
+          tc.assertTrue(max < 2000000, "profile reads should not wait for the login storm");
+          done.run();
+        }
+      });
+  }
+}
@@ -52,4 +52,47 @@ public class RegisterUserTest extends BaseConduitVerticleTest {
 
     }
 
+    /**
+     * The password of a registered user is hashed with the salt that is stored with it, so the user can log in
+     *
+     * @param tc
+     */
+    @Test
+    public void testRegisteredUserCanLogIn(TestContext tc) {
+        Async async = tc.async();
+
+        webClient.post(8080, "localhost", "/api/users")
+                .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                .sendJsonObject(new JsonObject()
+                        .put("user", new JsonObject()
+                                .put("username", "User3")
+                                .put("email", "user3@user3.user3")
+                                .put("password", "user3user3")
+                        ), ar -> {
+                    if (ar.failed()) {
+                        tc.fail(ar.cause());
+                        return;
+                    }
+                    tc.assertEquals(201, ar.result().statusCode());
+
+                    webClient.post(8080, "localhost", "/api/users/login")
+                            .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+                            .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+                            .sendJsonObject(new JsonObject()
+                                    .put("user", new JsonObject()
+                                            .put("email", "user3@user3.user3")
+                                            .put("password", "user3user3")
+                                    ), ar2 -> {
+                                if (ar2.succeeded()) {
+                                    tc.assertEquals(200, ar2.result().statusCode());
+                                    tc.assertEquals("User3", ar2.result().bodyAsJsonObject().getJsonObject("user").getString("username"));
+                                    async.complete();
+                                } else {
+                                    tc.fail(ar2.cause());
+                                }
+                            });
+                });
+    }
+
 }
@@ -0,0 +1,138 @@
+package io.vertx.conduit.users;
+
+import io.vertx.conduit.BaseConduitVerticleTest;
+import io.vertx.conduit.HttpProps;
+import io.vertx.conduit.TestProps;
+import io.vertx.conduit.cache.UserCache;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(VertxUnitRunner.class)
+public class UserCacheTest extends BaseConduitVerticleTest {
+
+  /**
+   * The second GET /api/profiles/:username for the same user should be answered from the UserCache
+   *
+   * @param tc
+   */
+  @Test
+  public void testRepeatedProfileIsServedFromCache(TestContext tc) {
+
+    Async async = tc.async();
+
+    getProfile(tc, first -> getProfile(tc, second ->
+      webClient.get(8080, "localhost", "/stats").send(ar -> {
+        if (ar.failed()) {
+          tc.fail(ar.cause());
+        } else {
+          JsonObject cacheStats = ar.result().bodyAsJsonObject()
+            .getJsonObject("caches")
+            .getJsonObject(UserCache.CACHE_NAME);
+          tc.assertNotNull(cacheStats);
+          tc.assertTrue(cacheStats.getLong("hits") >= 1, "The second lookup should be a hit");
+          async.complete();
+        }
+      })));
+  }
+
+  /**
+   * An update through PUT /api/user has to be visible on the next read even though the profile was cached
+   *
+   * @param tc
+   */
+  @Test
+  public void testUpdateInvalidatesCachedUser(TestContext tc) {
+
+    Async async = tc.async();
+
+    getProfile(tc, cached ->
+      webClient.put(8080, "localhost", "/api/user")
+        .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+        .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+        .putHeader(HttpProps.AUTHORIZATION, TestProps.TOKEN_JACOB)
+        .sendJsonObject(new JsonObject()
+          .put("user", new JsonObject()
+            .put("bio", "I work at the cache")), ar -> {
+          if (ar.failed()) {
+            tc.fail(ar.cause());
+          } else {
+            tc.assertEquals(200, ar.result().statusCode());
+            webClient.get(8080, "localhost", "/api/profiles/" + jacob.getUsername())
+              .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+              .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+              .send(ar2 -> {
+                if (ar2.failed()) {
+                  tc.fail(ar2.cause());
+                } else {
+                  JsonObject profile = ar2.result().bodyAsJsonObject().getJsonObject("profile");
+                  tc.assertEquals("I work at the cache", profile.getString("bio"));
+                  async.complete();
+                }
+              });
+          }
+        }));
+  }
+
+  /**
+   * A read that overlapped a write must not put the document from before the write back into the cache
+   *
+   * @param tc
+   */
+  @Test
+  public void testReadOverlappingInvalidationIsNotCached(TestContext tc) {
+    UserCache userCache = new UserCache(vertx, new JsonObject());
+    JsonObject beforeWrite = new JsonObject()
+      .put("_id", "overlap-id")
+      .put("username", "overlap")
+      .put("email", "overlap@overlap.overlap");
+
+    long stamp = userCache.stamp();
+    // the write completes while the read is in flight
+    userCache.invalidate("overlap");
+    tc.assertFalse(userCache.putIfUnchanged(beforeWrite, stamp));
+    tc.assertNull(userCache.get("username", "overlap"));
+    tc.assertNull(userCache.get("email", "overlap@overlap.overlap"));
+    tc.assertNull(userCache.get("_id", "overlap-id"));
+
+    tc.assertTrue(userCache.putIfUnchanged(beforeWrite, userCache.stamp()));
+    tc.assertEquals(beforeWrite, userCache.get("email", "overlap@overlap.overlap"));
+  }
+
+  /**
+   * Writes to other users don't keep a read from being cached
+   *
+   * @param tc
+   */
+  @Test
+  public void testInvalidationOfAnotherUserDoesNotBlockTheRead(TestContext tc) {
+    UserCache userCache = new UserCache(vertx, new JsonObject());
+    JsonObject read = new JsonObject()
+      .put("_id", "unrelated-id")
+      .put("username", "unrelated")
+      .put("email", "unrelated@unrelated.unrelated");
+
+    long stamp = userCache.stamp();
+    userCache.invalidate("someone-else");
+    tc.assertTrue(userCache.putIfUnchanged(read, stamp));
+    tc.assertEquals(read, userCache.get("email", "unrelated@unrelated.unrelated"));
+  }
+
+  private void getProfile(TestContext tc, Handler<Void> next) {
+    webClient.get(8080, "localhost", "/api/profiles/" + jacob.getUsername())
+      .putHeader(HttpProps.CONTENT_TYPE, HttpProps.JSON)
+      .putHeader(HttpProps.XREQUESTEDWITH, HttpProps.XMLHTTPREQUEST)
+      .send(ar -> {
+        if (ar.failed()) {
+          tc.fail(ar.cause());
+        } else {
+          tc.assertEquals(200, ar.result().statusCode());
+          next.handle(null);
+        }
+      });
+  }
+}
@@ -0,0 +1,58 @@
+package io.vertx.conduit.users.models;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UserFollowingTest {
+
+  @Test
+  public void testFollowAndUnfollow() {
+    User follower = user("1", "Follower");
+    User followed = user("2", "Followed");
+
+    follower.follow(followed);
+    follower.follow(followed);
+    assertTrue(follower.isFollowing(followed));
+    assertEquals(1, follower.getFollowing().size());
+
+    // a different instance of the same user, e.g. read again from the UserCache
+    follower.unFollow(user("2", "Followed"));
+    assertFalse(follower.isFollowing(followed));
+  }
+
+  @Test
+  public void testFollowingSurvivesJson() {
+    User follower = user("1", "Follower");
+    follower.follow(user("2", "Followed"));
+
+    User copy = new User(follower.toMongoJson());
+    assertTrue(copy.isFollowing("2"));
+    assertEquals(new JsonArray().add("2"), copy.toMongoJson().getJsonArray("following"));
+  }
+
+  @Test
+  public void testLegacySingleFollowedId() {
+    User user = new User(new JsonObject().put("_id", "1").put("username", "Follower").put("following", "2"));
+    assertTrue(user.isFollowing("2"));
+  }
+
+  @Test
+  public void testProfileFollowingFlag() {
+    User viewer = user("1", "Viewer");
+    User author = user("2", "Author");
+
+    assertFalse(author.toProfileJson(viewer).getJsonObject("profile").getBoolean("following"));
+    assertFalse(author.toProfileJson(null).getJsonObject("profile").getBoolean("following"));
+    viewer.follow(author);
+    assertTrue(author.toProfileJson(viewer).getJsonObject("profile").getBoolean("following"));
+  }
+
+  private static User user(String id, String username) {
+    return new User(new JsonObject().put("_id", id).put("username", username));
+  }
+}